@@ -0,0 +1,58 @@
+package de.hawhh.gewiss.get.core.calc;
+
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.core.model.RenovationLevel;
+
+/**
+ * Energy values of every building of a {@link BuildingTable} precomputed for each {@link RenovationLevel}. Heat demand and heat load are linear in the floor space
+ * of a building for a fixed building type and renovation level, so they only have to be calculated once when the buildings are loaded. Afterwards every look up is a
+ * single array read, indexed by the building index and the ordinal of the renovation level.
+ *
+ * Instances are created by {@link EnergyCalculator#calcEnergyCoefficients(BuildingTable)}.
+ *
+ * @author Thomas Preisler
+ */
+public class BuildingEnergyCoefficients {
+
+    private static final int RENOVATION_LEVELS = RenovationLevel.values().length;
+
+    private final int size;
+    private final double[] heatDemand;
+    private final double[] heatLoad;
+
+    BuildingEnergyCoefficients(int size) {
+        this.size = size;
+        this.heatDemand = new double[size * RENOVATION_LEVELS];
+        this.heatLoad = new double[size * RENOVATION_LEVELS];
+    }
+
+    void set(int index, int renovationLevel, double heatDemand, double heatLoad) {
+        this.heatDemand[index * RENOVATION_LEVELS + renovationLevel] = heatDemand;
+        this.heatLoad[index * RENOVATION_LEVELS + renovationLevel] = heatLoad;
+    }
+
+    /**
+     * @return the number of buildings
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index the index of the building
+     * @param renovationLevel ordinal of the {@link RenovationLevel}
+     * @return the heat demand of the building for the given renovation level
+     */
+    public double getHeatDemand(int index, int renovationLevel) {
+        return heatDemand[index * RENOVATION_LEVELS + renovationLevel];
+    }
+
+    /**
+     * @param index the index of the building
+     * @param renovationLevel ordinal of the {@link RenovationLevel}
+     * @return the heat load of the building for the given renovation level
+     */
+    public double getHeatLoad(int index, int renovationLevel) {
+        return heatLoad[index * RENOVATION_LEVELS + renovationLevel];
+    }
+}
@@ -0,0 +1,214 @@
+package de.hawhh.gewiss.get.core.calc;
+
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.core.model.HeatingType;
+
+import java.util.stream.IntStream;
+
+/**
+ * Per-year cache of the energy metrics (heat demand, final energy and CO2 emission) of all buildings of a {@link BuildingTable}. The metrics are calculated once per
+ * building and year and shared between the scoring and the output phase of a simulation year.
+ *
+ * Calling {@link #update(int)} only recalculates the heat demand and final energy of buildings changed since the last update (detected by
+ * {@link BuildingTable#getModificationCount(int)}). The CO2 emission of a building is derived on read from its cached final energy and the CO2 factor of its
+ * heating type, so a changed year only looks up the CO2 factors of the heating types once instead of recalculating the emissions of all buildings.
+ *
+ * @author Thomas Preisler
+ */
+public class BuildingMetrics {
+
+    private static final int HEATING_TYPES = HeatingType.values().length;
+
+    private final BuildingTable buildings;
+    private final EnergyCalculator energyCalculator;
+    private final CO2Schedule co2Schedule;
+
+    private final double[] heatDemand;
+    // NaN if the building has no residential or non-residential type
+    private final double[] residentialFinalEnergy;
+    private final double[] nonResidentialFinalEnergy;
+    // heating type the final energy has been calculated for
+    private final byte[] heatingTypes;
+    private final int[] modificationCounts;
+
+    // CO2 factors of the current year
+    private final double[] co2Factors = new double[HEATING_TYPES];
+
+    private Integer year;
+    private boolean calculated;
+
+    // state of the current update
+    private boolean updateInitial;
+
+    /**
+     * Creates an empty cache for the given buildings, {@link #update(int)} has to be called before reading any metrics.
+     *
+     * @param buildings the building stock
+     * @param co2Schedule the CO2 factors of the simulation run
+     */
+    public BuildingMetrics(BuildingTable buildings, CO2Schedule co2Schedule) {
+        this.buildings = buildings;
+        this.energyCalculator = EnergyCalculator.getInstance();
+        this.co2Schedule = co2Schedule;
+
+        this.heatDemand = new double[buildings.size()];
+        this.residentialFinalEnergy = new double[buildings.size()];
+        this.nonResidentialFinalEnergy = new double[buildings.size()];
+        this.heatingTypes = new byte[buildings.size()];
+        this.modificationCounts = new int[buildings.size()];
+    }
+
+    /**
+     * Creates a cache for a copy of the buildings of the given metrics (see {@link BuildingTable#copy()}) taking over the cached heat demand and final energy values,
+     * e.g. to calculate the status quo of a building stock only once for several simulation runs. If the CO2 schedules are the same, the year is taken over as
+     * well, otherwise the CO2 factors are looked up by the next {@link #update(int)}.
+     *
+     * @param source metrics of the original buildings
+     * @param buildings a copy of the buildings in the same state as the original buildings
+     * @param co2Schedule the CO2 factors of the simulation run
+     */
+    public BuildingMetrics(BuildingMetrics source, BuildingTable buildings, CO2Schedule co2Schedule) {
+        if (buildings.size() != source.buildings.size()) {
+            throw new IllegalArgumentException("Metrics of " + source.buildings.size() + " buildings do not match the " + buildings.size() + " buildings of the table");
+        }
+        this.buildings = buildings;
+        this.energyCalculator = source.energyCalculator;
+        this.co2Schedule = co2Schedule;
+
+        this.heatDemand = source.heatDemand.clone();
+        this.residentialFinalEnergy = source.residentialFinalEnergy.clone();
+        this.nonResidentialFinalEnergy = source.nonResidentialFinalEnergy.clone();
+        this.heatingTypes = source.heatingTypes.clone();
+        this.modificationCounts = source.modificationCounts.clone();
+        System.arraycopy(source.co2Factors, 0, co2Factors, 0, HEATING_TYPES);
+        this.calculated = source.calculated;
+        this.year = co2Schedule == source.co2Schedule ? source.year : null;
+    }
+
+    /**
+     * Takes over the metrics of the given source, whose buildings this metrics' buildings have just been brought up to date with (see
+     * {@link BuildingTable#copyChangedFrom(BuildingTable)}). Only the metrics of the buildings changed since the last update are copied.
+     *
+     * @param source metrics using the same CO2 schedule, of the table the buildings of these metrics have been copied from
+     */
+    public void copyChangedFrom(BuildingMetrics source) {
+        if (source.co2Schedule != co2Schedule || source.buildings.size() != buildings.size()) {
+            throw new IllegalArgumentException("The metrics do not belong to a copy of the given metrics");
+        }
+        if (!source.calculated) {
+            throw new IllegalStateException("The given metrics have not been calculated yet");
+        }
+
+        for (int index = 0; index < buildings.size(); index++) {
+            if (!calculated || modificationCounts[index] != source.modificationCounts[index]) {
+                heatDemand[index] = source.heatDemand[index];
+                residentialFinalEnergy[index] = source.residentialFinalEnergy[index];
+                nonResidentialFinalEnergy[index] = source.nonResidentialFinalEnergy[index];
+                heatingTypes[index] = source.heatingTypes[index];
+                modificationCounts[index] = source.modificationCounts[index];
+            }
+        }
+        System.arraycopy(source.co2Factors, 0, co2Factors, 0, HEATING_TYPES);
+        this.calculated = true;
+        this.year = source.year;
+    }
+
+    /**
+     * Brings the cached metrics up to date with the current state of the buildings for the given year.
+     *
+     * @param year the current simulation year
+     */
+    public void update(int year) {
+        beginUpdate(year);
+        IntStream.range(0, buildings.size()).parallel().forEach(this::updateBuilding);
+    }
+
+    /**
+     * Starts an update for the given year, which is completed by calling {@link #updateBuilding(int)} for all buildings. Allows callers to update the metrics within
+     * their own pass over the buildings, e.g. together with the metrics of further simulation runs.
+     *
+     * @param year the current simulation year
+     */
+    public void beginUpdate(int year) {
+        this.updateInitial = !calculated;
+        for (int heatingType = 0; heatingType < HEATING_TYPES; heatingType++) {
+            co2Factors[heatingType] = co2Schedule.getFactor(heatingType, year);
+        }
+        this.calculated = true;
+        this.year = year;
+    }
+
+    /**
+     * Brings the cached metrics of the building at the given index up to date, see {@link #beginUpdate(int)}. Different buildings can be updated concurrently.
+     *
+     * @param index the index of the building
+     */
+    public void updateBuilding(int index) {
+        if (updateInitial || modificationCounts[index] != buildings.getModificationCount(index)) {
+            modificationCounts[index] = buildings.getModificationCount(index);
+
+            byte renovationLevel = buildings.getRenovationLevelCode(index);
+            byte heatingType = buildings.getHeatingTypeCode(index);
+            heatDemand[index] = energyCalculator.calcHeatDemand(buildings, index);
+            residentialFinalEnergy[index] = energyCalculator.getFinalEnergy(buildings.getResidentialTypeCode(index), renovationLevel, heatingType);
+            nonResidentialFinalEnergy[index] = energyCalculator.getFinalEnergy(buildings.getNonResidentialTypeCode(index), renovationLevel, heatingType);
+            heatingTypes[index] = heatingType;
+        }
+    }
+
+    public CO2Schedule getCO2Schedule() {
+        return co2Schedule;
+    }
+
+    /**
+     * @return the year the metrics have been calculated for or <code>null</code> if they have not been calculated yet
+     */
+    public Integer getYear() {
+        return year;
+    }
+
+    public double getHeatDemand(int index) {
+        return heatDemand[index];
+    }
+
+    /**
+     * Returns the final energy of the building, i.e. the value of the residential type or, if the building has no residential type, of the non-residential type.
+     *
+     * @param index
+     * @return final energy of the building or <code>NaN</code> if the building has no type
+     */
+    public double getFinalEnergy(int index) {
+        return !Double.isNaN(residentialFinalEnergy[index]) ? residentialFinalEnergy[index] : nonResidentialFinalEnergy[index];
+    }
+
+    /**
+     * @param index
+     * @return final energy of the residential type of the building or <code>NaN</code> if the building has no residential type
+     */
+    public double getResidentialFinalEnergy(int index) {
+        return residentialFinalEnergy[index];
+    }
+
+    /**
+     * @param index
+     * @return final energy of the non-residential type of the building or <code>NaN</code> if the building has no non-residential type
+     */
+    public double getNonResidentialFinalEnergy(int index) {
+        return nonResidentialFinalEnergy[index];
+    }
+
+    /**
+     * Calculates the CO2 emission of the building from its cached final energy and the CO2 factor of its heating type in the year of the metrics.
+     *
+     * @param index
+     * @return CO2 emission of the building or <code>0</code> if the building has no heating type
+     */
+    public double getCO2Emission(int index) {
+        byte heatingType = heatingTypes[index];
+        if (heatingType < 0) {
+            return 0d;
+        }
+        return energyCalculator.calcCO2Emission(co2Factors[heatingType], residentialFinalEnergy[index], buildings.getResidentialFloorSpace(index),
+                nonResidentialFinalEnergy[index], buildings.getNonResidentialFloorSpace(index));
+    }
+}
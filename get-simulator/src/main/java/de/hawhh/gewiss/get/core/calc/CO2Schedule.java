@@ -0,0 +1,146 @@
+package de.hawhh.gewiss.get.core.calc;
+
+import de.hawhh.gewiss.get.core.input.SimulationParameter;
+import de.hawhh.gewiss.get.core.model.HeatingType;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable yearly CO2 factors of all {@link HeatingType}s for one simulation run. The factors are stored as a dense table indexed by the year (starting with
+ * {@link SimulationParameter#FIRST_YEAR}) and the heating type ordinal, so that a schedule can be shared between concurrently running simulations and every look up
+ * is a plain array read.
+ *
+ * A schedule is created with a {@link Builder} from any number of (year, factor) points per heating type. The factors between two points are linearly interpolated,
+ * before the first point of a heating type the factor of the first point and after the last point the factor of the last point is used. Heating types without any
+ * point and years before {@link SimulationParameter#FIRST_YEAR} use the base factors (the CO2 factors of the database).
+ *
+ * @author Thomas Preisler
+ */
+public final class CO2Schedule {
+
+    private static final HeatingType[] HEATING_TYPES = HeatingType.values();
+
+    private final double[] baseFactors;
+    private final double[][] factors; // [year - FIRST_YEAR][heating type]
+
+    private CO2Schedule(double[] baseFactors, double[][] factors) {
+        this.baseFactors = baseFactors;
+        this.factors = factors;
+    }
+
+    /**
+     * Creates a schedule using the given base factors for all years.
+     *
+     * @param baseFactors CO2 factors indexed by the {@link HeatingType} ordinal
+     * @return the schedule
+     */
+    public static CO2Schedule constant(double[] baseFactors) {
+        return builder(baseFactors).build();
+    }
+
+    /**
+     * @param baseFactors CO2 factors indexed by the {@link HeatingType} ordinal, used for heating types without points and years before
+     * {@link SimulationParameter#FIRST_YEAR}
+     * @return a new builder
+     */
+    public static Builder builder(double[] baseFactors) {
+        return new Builder(baseFactors);
+    }
+
+    /**
+     * @return the last year with an explicit factor, the factors of all later years are equal to the factors of this year
+     */
+    public int getLastYear() {
+        return SimulationParameter.FIRST_YEAR + factors.length - 1;
+    }
+
+    /**
+     * @param heatingType ordinal of the {@link HeatingType}
+     * @param year
+     * @return the CO2 factor of the heating type in the given year
+     */
+    public double getFactor(int heatingType, int year) {
+        if (year < SimulationParameter.FIRST_YEAR) {
+            return baseFactors[heatingType];
+        }
+        return factors[Math.min(year - SimulationParameter.FIRST_YEAR, factors.length - 1)][heatingType];
+    }
+
+    /**
+     * @param heatingType
+     * @param year
+     * @return the CO2 factor of the heating type in the given year
+     */
+    public double getFactor(HeatingType heatingType, int year) {
+        return getFactor(heatingType.ordinal(), year);
+    }
+
+    /**
+     * Builder collecting the trajectory points of the heating types.
+     */
+    public static class Builder {
+
+        private final double[] baseFactors;
+        private final Map<HeatingType, NavigableMap<Integer, Double>> points = new EnumMap<>(HeatingType.class);
+
+        private Builder(double[] baseFactors) {
+            if (baseFactors.length != HEATING_TYPES.length) {
+                throw new IllegalArgumentException("Expected " + HEATING_TYPES.length + " base factors, got " + baseFactors.length);
+            }
+            this.baseFactors = baseFactors.clone();
+        }
+
+        /**
+         * Adds a point to the trajectory of the given heating type, a previously added point for the same year is replaced.
+         *
+         * @param heatingType
+         * @param year year of the point, not before {@link SimulationParameter#FIRST_YEAR}
+         * @param factor the CO2 factor in the given year
+         * @return this builder
+         */
+        public Builder addPoint(HeatingType heatingType, int year, double factor) {
+            if (year < SimulationParameter.FIRST_YEAR) {
+                throw new IllegalArgumentException("CO2 factor for year " + year + " before " + SimulationParameter.FIRST_YEAR);
+            }
+            points.computeIfAbsent(heatingType, type -> new TreeMap<>()).put(year, factor);
+            return this;
+        }
+
+        /**
+         * @return the schedule containing all points added so far
+         */
+        public CO2Schedule build() {
+            int lastYear = SimulationParameter.FIRST_YEAR;
+            for (NavigableMap<Integer, Double> trajectory : points.values()) {
+                lastYear = Math.max(lastYear, trajectory.lastKey());
+            }
+
+            double[][] factors = new double[lastYear - SimulationParameter.FIRST_YEAR + 1][HEATING_TYPES.length];
+            for (HeatingType heatingType : HEATING_TYPES) {
+                NavigableMap<Integer, Double> trajectory = points.get(heatingType);
+                for (int year = SimulationParameter.FIRST_YEAR; year <= lastYear; year++) {
+                    factors[year - SimulationParameter.FIRST_YEAR][heatingType.ordinal()] = trajectory != null ? interpolate(trajectory, year) : baseFactors[heatingType.ordinal()];
+                }
+            }
+            return new CO2Schedule(baseFactors.clone(), factors);
+        }
+
+        private static double interpolate(NavigableMap<Integer, Double> trajectory, int year) {
+            Map.Entry<Integer, Double> before = trajectory.floorEntry(year);
+            Map.Entry<Integer, Double> after = trajectory.ceilingEntry(year);
+            if (before == null) {
+                return after.getValue();
+            }
+            if (after == null || before.getKey() == year) {
+                return before.getValue();
+            }
+
+            int step = year - before.getKey();
+            int numOfSteps = after.getKey() - before.getKey();
+            return before.getValue() + step * (after.getValue() - before.getValue()) / numOfSteps;
+        }
+    }
+}
@@ -5,51 +5,76 @@ import de.hawhh.gewiss.get.core.input.InputValidationException;
 import de.hawhh.gewiss.get.core.input.SimulationParameter;
 import de.hawhh.gewiss.get.core.model.*;
 import de.hawhh.gewiss.get.simulator.db.dao.*;
+import org.apache.commons.collections4.MapIterator;
+import org.apache.commons.collections4.keyvalue.MultiKey;
 import org.apache.commons.collections4.map.MultiKeyMap;
 
 import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 
 /**
- * Helper class (singleton) for different energy based calculations (like heat demand, CO2 emissions). It uses maps to
- * cache the values in the database to significantly speed up the look up operations.
+ * Helper class (singleton) for different energy based calculations (like heat demand, CO2 emissions). It caches the values in the database to significantly speed
+ * up the look up operations. The reference tables are stored as flat arrays indexed by the building type id of the {@link BuildingTypeDictionary} of the
+ * reference tables (see {@link #getBuildingTypes()}), the {@link RenovationLevel} ordinal and the {@link HeatingType} ordinal, so that every look up is a plain
+ * array read.
  *
  * @author Thomas Preisler, Antony Sotirov
  */
 public class EnergyCalculator {
     private final static Logger LOGGER = Logger.getLogger(EnergyCalculator.class.getName());
+    private static final RenovationLevel[] RENOVATION_LEVELS = RenovationLevel.values();
+    private static final HeatingType[] HEATING_TYPES = HeatingType.values();
     private static final EnergyCalculator ourInstance = new EnergyCalculator();
-    private Boolean areYearlyCO2RatesInterpolated = false;
-    private Integer midCO2Year = null;
-    private Integer finalCO2Year = null;
 
     /**
-     * MultiKeyMap for the heat demand at load generation with building type ({@link String}) and {@link RenovationLevel} as key.
+     * Building types of the reference tables, a {@link BuildingTable} created with this dictionary uses ids >= {@link #numberOfBuildingTypes} for building types
+     * without reference data.
      */
-    private final MultiKeyMap heatDemandLoadGenerationMap;
+    private final BuildingTypeDictionary buildingTypes;
+    private final int numberOfBuildingTypes;
 
     /**
-     * MultiKeyMap for the heat demand final energy with building type ({@link String}), {@link RenovationLevel} and {@link HeatingType} as key.
+     * Heat demand at load generation, indexed by building type and {@link RenovationLevel} (see {@link #loadGenerationRow(short, int)}).
      */
-    private final MultiKeyMap heatDemandFinalEnergyMap;
+    private final double[] spaceHeatingDemand;
+    private final double[] warmwaterDemand;
+    private final double[] spaceHeatingLoad;
+    private final double[] warmwaterLoad;
+    private final boolean[] hasLoadGeneration;
 
     /**
-     * MultiKeyMap for building shell renovation costs with building type ({@link String}) and {@link RenovationLevel} as key.
+     * Heat demand final energy, indexed by building type, {@link RenovationLevel} and {@link HeatingType} (see {@link #finalEnergyRow(short, int, int)}), NaN if
+     * the reference data has no value.
      */
-    private final MultiKeyMap costsBuildingShellMap;
+    private final double[] finalEnergy;
+    private final boolean[] hasFinalEnergy;
 
     /**
-     * Map containing the exchange costs for heating system. The {@link HeatingType} is the key and the value is a map
-     * with bins containing the renovation costs as value in Euro and the heat load in kW as key.
+     * Building shell renovation costs per square meter, indexed by building type and {@link RenovationLevel} (see {@link #shellCostsRow(short, int)}).
      */
-    private final Map<HeatingType, Map<Integer, Double>> costsHeatingSystemMap;
+    private final double[] shellCostsPerSQM;
+    private final boolean[] hasShellCosts;
+
+    /**
+     * Bins of the exchange costs for heating systems, indexed by the {@link HeatingType} ordinal (<code>null</code> for heating types without costs). The lower
+     * bounds of the bins (heat load in kW) are sorted ascending, the costs in Euro are stored at the same position.
+     */
+    private final int[][] heatingExchangeCostLoads;
+    private final double[][] heatingExchangeCosts;
 
     /**
      * Map mapping {@link HeatingType} to {@link PrimaryEnergyFactors}.
      */
     private final Map<HeatingType, PrimaryEnergyFactors> primaryEnergyFactorsMap;
 
+    /**
+     * CO2 factors of the database indexed by the {@link HeatingType} ordinal, <code>NaN</code> for heating types without a factor.
+     */
+    private final double[] baseCO2Factors;
+    private final CO2Schedule baseCO2Schedule;
+
     public static EnergyCalculator getInstance() {
         return ourInstance;
     }
@@ -63,12 +88,87 @@ public class EnergyCalculator {
         CostsHeatingSystemDAO costsHeatingSystemDAO = new CostsHeatingSystemDAO();
 
         // Fill all the maps from the DB
-        this.heatDemandLoadGenerationMap = heatDemandLoadGenerationDAO.findAll();
-        this.heatDemandFinalEnergyMap = heatDemandFinalEnergyDAO.findAll();
-        this.costsBuildingShellMap = costsBuildingShellDAO.findAll();
-        this.costsHeatingSystemMap = costsHeatingSystemDAO.findAll();
+        MultiKeyMap<MultiKey<?>, HeatDemandLoadGeneration> heatDemandLoadGenerationMap = heatDemandLoadGenerationDAO.findAll();
+        MultiKeyMap<MultiKey<?>, HeatDemandFinalEnergy> heatDemandFinalEnergyMap = heatDemandFinalEnergyDAO.findAll();
+        MultiKeyMap<MultiKey<?>, CostsBuildingShell> costsBuildingShellMap = costsBuildingShellDAO.findAll();
+        Map<HeatingType, Map<Integer, Double>> costsHeatingSystemMap = costsHeatingSystemDAO.findAll();
         this.primaryEnergyFactorsMap = primaryEnergyFactorsDAO.findAll();
 
+        this.baseCO2Factors = new double[HEATING_TYPES.length];
+        for (HeatingType heatingType : HEATING_TYPES) {
+            PrimaryEnergyFactors factors = primaryEnergyFactorsMap.get(heatingType);
+            baseCO2Factors[heatingType.ordinal()] = factors != null ? valueOf(factors.getCo2Start()) : Double.NaN;
+        }
+        this.baseCO2Schedule = CO2Schedule.constant(baseCO2Factors);
+
+        // Collect all building types of the reference tables before sizing the arrays, the keys of the maps are (building type, renovation level[, heating type])
+        Set<String> referenceTypes = new TreeSet<>();
+        for (MultiKeyMap<?, ?> map : Arrays.asList(heatDemandLoadGenerationMap, heatDemandFinalEnergyMap, costsBuildingShellMap)) {
+            map.keySet().stream().map(key -> (String) key.getKey(0)).filter(Objects::nonNull).forEach(referenceTypes::add);
+        }
+        this.buildingTypes = new BuildingTypeDictionary(referenceTypes);
+        this.numberOfBuildingTypes = buildingTypes.size();
+
+        int levelRows = numberOfBuildingTypes * RENOVATION_LEVELS.length;
+        this.spaceHeatingDemand = new double[levelRows];
+        this.warmwaterDemand = new double[levelRows];
+        this.spaceHeatingLoad = new double[levelRows];
+        this.warmwaterLoad = new double[levelRows];
+        this.hasLoadGeneration = new boolean[levelRows];
+        this.shellCostsPerSQM = new double[levelRows];
+        this.hasShellCosts = new boolean[levelRows];
+        this.finalEnergy = new double[levelRows * HEATING_TYPES.length];
+        Arrays.fill(finalEnergy, Double.NaN);
+        this.hasFinalEnergy = new boolean[levelRows * HEATING_TYPES.length];
+
+        MapIterator<? extends MultiKey<?>, HeatDemandLoadGeneration> loadGenerations = heatDemandLoadGenerationMap.mapIterator();
+        while (loadGenerations.hasNext()) {
+            MultiKey<?> key = loadGenerations.next();
+            HeatDemandLoadGeneration value = loadGenerations.getValue();
+            short buildingType = buildingTypes.getId((String) key.getKey(0));
+            RenovationLevel renovationLevel = (RenovationLevel) key.getKey(1);
+            if (buildingType != BuildingTypeDictionary.NO_TYPE && renovationLevel != null) {
+                int row = buildingType * RENOVATION_LEVELS.length + renovationLevel.ordinal();
+                spaceHeatingDemand[row] = valueOf(value.getSpaceHeatingDemand());
+                warmwaterDemand[row] = valueOf(value.getWarmwaterDemand());
+                spaceHeatingLoad[row] = valueOf(value.getSpaceHeatingLoad());
+                warmwaterLoad[row] = valueOf(value.getWarmwaterLoad());
+                hasLoadGeneration[row] = true;
+            }
+        }
+
+        MapIterator<? extends MultiKey<?>, HeatDemandFinalEnergy> finalEnergies = heatDemandFinalEnergyMap.mapIterator();
+        while (finalEnergies.hasNext()) {
+            MultiKey<?> key = finalEnergies.next();
+            short buildingType = buildingTypes.getId((String) key.getKey(0));
+            RenovationLevel renovationLevel = (RenovationLevel) key.getKey(1);
+            HeatingType heatingType = (HeatingType) key.getKey(2);
+            if (buildingType != BuildingTypeDictionary.NO_TYPE && renovationLevel != null && heatingType != null) {
+                int row = (buildingType * RENOVATION_LEVELS.length + renovationLevel.ordinal()) * HEATING_TYPES.length + heatingType.ordinal();
+                finalEnergy[row] = valueOf(finalEnergies.getValue().getFinalEnergy());
+                hasFinalEnergy[row] = true;
+            }
+        }
+
+        MapIterator<? extends MultiKey<?>, CostsBuildingShell> shellCosts = costsBuildingShellMap.mapIterator();
+        while (shellCosts.hasNext()) {
+            MultiKey<?> key = shellCosts.next();
+            short buildingType = buildingTypes.getId((String) key.getKey(0));
+            RenovationLevel renovationLevel = (RenovationLevel) key.getKey(1);
+            if (buildingType != BuildingTypeDictionary.NO_TYPE && renovationLevel != null) {
+                int row = buildingType * RENOVATION_LEVELS.length + renovationLevel.ordinal();
+                shellCostsPerSQM[row] = valueOf(shellCosts.getValue().getCostPerSQM());
+                hasShellCosts[row] = true;
+            }
+        }
+
+        this.heatingExchangeCostLoads = new int[HEATING_TYPES.length][];
+        this.heatingExchangeCosts = new double[HEATING_TYPES.length][];
+        costsHeatingSystemMap.forEach((heatingType, bins) -> {
+            TreeMap<Integer, Double> sortedBins = new TreeMap<>(bins);
+            heatingExchangeCostLoads[heatingType.ordinal()] = sortedBins.keySet().stream().mapToInt(Integer::intValue).toArray();
+            heatingExchangeCosts[heatingType.ordinal()] = sortedBins.values().stream().mapToDouble(EnergyCalculator::valueOf).toArray();
+        });
     }
 
     /**
@@ -77,24 +177,47 @@ public class EnergyCalculator {
      * @return
      */
     public Double calcHeatDemand(Building building) {
-        Double heatDemand = 0d;
+        return calcHeatDemand(typeId(building.getResidentialType()), floorSpaceOf(building.getResidentialFloorSpace()),
+                typeId(building.getNonResidentialType()), floorSpaceOf(building.getNonResidentialFloorSpace()),
+                building.getRenovationLevel().ordinal());
+    }
+
+    /**
+     * Calculate the heat demand for the building at the given index of the {@link BuildingTable}.
+     *
+     * @param buildings
+     * @param index
+     * @return
+     */
+    public double calcHeatDemand(BuildingTable buildings, int index) {
+        BuildingEnergyCoefficients coefficients = buildings.getEnergyCoefficients();
+        if (coefficients != null) {
+            return coefficients.getHeatDemand(index, buildings.getRenovationLevelCode(index));
+        }
+        return calcHeatDemand(buildings.getResidentialTypeCode(index), buildings.getResidentialFloorSpace(index), buildings.getNonResidentialTypeCode(index),
+                buildings.getNonResidentialFloorSpace(index), buildings.getRenovationLevelCode(index));
+    }
+
+    private double calcHeatDemand(short residentialType, double residentialFloorSpace, short nonResidentialType, double nonResidentialFloorSpace,
+                                  int renovationLevel) {
+        double heatDemand = 0d;
 
         // Residential buildings
-        if (building.getResidentialType() != null) {
-            HeatDemandLoadGeneration heatDemandLoadGeneration = (HeatDemandLoadGeneration) this.heatDemandLoadGenerationMap.get(building.getResidentialType(), building.getRenovationLevel());
+        if (residentialType != BuildingTypeDictionary.NO_TYPE) {
+            int row = loadGenerationRow(residentialType, renovationLevel);
 
-            Double spaceHeatingDemand = building.getResidentialFloorSpace() * heatDemandLoadGeneration.getSpaceHeatingDemand();
-            Double warmwaterDemand = building.getResidentialFloorSpace() * heatDemandLoadGeneration.getWarmwaterDemand();
+            double spaceHeatingDemand = residentialFloorSpace * this.spaceHeatingDemand[row];
+            double warmwaterDemand = residentialFloorSpace * this.warmwaterDemand[row];
 
             heatDemand += spaceHeatingDemand + warmwaterDemand;
         }
 
         // Non-residential buildings
-        if (building.getNonResidentialType() != null) {
-            HeatDemandLoadGeneration heatDemandLoadGeneration = (HeatDemandLoadGeneration) this.heatDemandLoadGenerationMap.get(building.getNonResidentialType(), building.getRenovationLevel());
+        if (nonResidentialType != BuildingTypeDictionary.NO_TYPE) {
+            int row = loadGenerationRow(nonResidentialType, renovationLevel);
 
-            Double spaceHeatingDemand = building.getNonResidentialFloorSpace() * heatDemandLoadGeneration.getSpaceHeatingDemand();
-            Double warmwaterDemand = building.getNonResidentialFloorSpace() * heatDemandLoadGeneration.getWarmwaterDemand();
+            double spaceHeatingDemand = nonResidentialFloorSpace * this.spaceHeatingDemand[row];
+            double warmwaterDemand = nonResidentialFloorSpace * this.warmwaterDemand[row];
 
             heatDemand += spaceHeatingDemand + warmwaterDemand;
         }
@@ -103,191 +226,209 @@ public class EnergyCalculator {
     }
 
     /**
-     * Prepare and store the yearly CO2 data in the primaryEnergyFactorsMap based on {@link HeatingType}.
+     * Creates the {@link CO2Schedule} of a simulation run from the start, mid and final CO2 factors of the heating types. The factors are linearly interpolated
+     * between {@link SimulationParameter#FIRST_YEAR} and the mid year and between the mid year and the final year, after the final year the final factors are used.
+     * Heating types without {@link CO2FactorsData} use the CO2 factors of the database.
      *
-     * @param co2FactorsData
+     * @param co2FactorsData CO2 factors per {@link HeatingType}
+     * @param midCO2Year
+     * @param finalCO2Year
+     * @return the schedule
      * @throws de.hawhh.gewiss.get.core.input.InputValidationException
      */
-    public void prepCO2YearlyRates(List<CO2FactorsData> co2FactorsData, Integer midCO2Year, Integer finalCO2Year) throws InputValidationException {
+    public CO2Schedule createCO2Schedule(List<CO2FactorsData> co2FactorsData, Integer midCO2Year, Integer finalCO2Year) throws InputValidationException {
         LOGGER.log(Level.INFO, "Preparing yearly CO2 Emission Rates ");
-        this.midCO2Year = midCO2Year;
-        this.finalCO2Year = finalCO2Year;
         try {
-            for (CO2FactorsData data: co2FactorsData) {
-                linInterpolation(data); // can throw NullPointerException
+            CO2Schedule.Builder builder = newCO2Schedule();
+            for (CO2FactorsData data : co2FactorsData) {
+                builder.addPoint(data.getHeatingSystem(), SimulationParameter.FIRST_YEAR, data.getStartEmissions())
+                        .addPoint(data.getHeatingSystem(), midCO2Year, data.getMidEmissions())
+                        .addPoint(data.getHeatingSystem(), finalCO2Year, data.getFinalEmissions());
             }
-            areYearlyCO2RatesInterpolated = true;
-        } catch (NullPointerException e) {
+            return builder.build();
+        } catch (NullPointerException | IllegalArgumentException e) {
             throw new InputValidationException((e.getMessage()));
         }
-
     }
 
     /**
-     * Linear interpolation method that creates CO2 yearly emissions for two data ranges:
-     * (start) FIRST_YEAR - midCO2Year; midCO2Year - finalCO2Year (end)
-     * based on given CO2 values for the start, mid and final year (present in CO2Factors data).
-     * Result is stored in the {@link PrimaryEnergyFactors} object associated with the given {@link HeatingType}.
-     *
-     * @param data CO2FactorsData for a given {@link HeatingType}
+     * @return a builder for a {@link CO2Schedule} with arbitrary trajectories, using the CO2 factors of the database for heating types without trajectory
      */
-    private void linInterpolation(CO2FactorsData data) {
-        HeatingType type = data.getHeatingSystem();
-        Double startEmissions = data.getStartEmissions();
-        Double midEmissions = data.getMidEmissions();
-        Double finalEmissions = data.getFinalEmissions();
-
-        Map<Integer, Double> yearlyCO2Rates = new HashMap<>();; // local map
-        Double tempEmission;
-        Integer year = SimulationParameter.FIRST_YEAR;
-        Integer numOfSteps;
-
-        // first interval: start year to mid year
-        // *less-than* comparison: only up to midYear (included in second interval loop)
-        numOfSteps = midCO2Year - year;
-        for (int step = 0; step < numOfSteps; step++) {
-            tempEmission = startEmissions + step * (midEmissions - startEmissions) / numOfSteps;
-            yearlyCO2Rates.put(year, tempEmission);
-            // LOGGER.log(Level.INFO, "{0} CO2 emissions {1} for year {2}", new Object[] {type, tempEmission, year});
-            year++;
-        }
+    public CO2Schedule.Builder newCO2Schedule() {
+        return CO2Schedule.builder(baseCO2Factors);
+    }
 
-        // second interval: mid year (*year* variable post-increment from first for loop) to final year
-        numOfSteps = finalCO2Year - year;
-        for (int step = 0; step <= numOfSteps; step++) {
-            tempEmission = midEmissions + step * (finalEmissions - midEmissions) / numOfSteps;
-            yearlyCO2Rates.put(year, tempEmission);
-            // LOGGER.log(Level.INFO, "{0} CO2 emissions {1} for year {2}", new Object[] {type, tempEmission, year});
-            year++;
-        }
+    /**
+     * @return the schedule using the CO2 factors of the database for all years
+     */
+    public CO2Schedule getBaseCO2Schedule() {
+        return baseCO2Schedule;
+    }
 
-        this.primaryEnergyFactorsMap.get(type).setYearlyCO2Emissions(yearlyCO2Rates);
-        LOGGER.log(Level.INFO, "Finished setting yearlyCO2Rates in primaryEnergyFactorsMap for {0}", type);
+    /**
+     * Calculate the CO2 Emissions based on the CO2 factors of the database.
+     *
+     * @param building
+     * @param year
+     * @return calculated CO2 emissions (for the {@link HeatingType } of the specific {@link Building})
+     */
+    public Double calcCO2Emission(Building building, Integer year) {
+        return calcCO2Emission(building, baseCO2Schedule, year);
     }
 
     /**
-     * Calculate the CO2 Emissions based on the given year after linear interpolation has finished.
-     * If CO2 yearly rates do NOT exist or year before range, use overloaded method with base CO2 data from DB.
+     * Calculate the CO2 Emissions based on the CO2 factors of the given schedule for the given year.
      *
      * @param building
+     * @param co2Schedule the CO2 factors of the simulation run
      * @param year year for the CO2 Yearly Data
      * @return calculated CO2 emissions for given year (and {@link HeatingType } for specific {@link Building})
      */
-    public Double calcCO2Emission(Building building, Integer year) {
-        Double co2Emission = 0d;
-        if (!areYearlyCO2RatesInterpolated) {
-            LOGGER.log(Level.INFO, "Yearly interpolated CO2 rates not calculated! Using base CO2 Emissions from DB instead");
-            return calcCO2EmissionInternal(building);
-        }
-        if(year < SimulationParameter.FIRST_YEAR) {
-            LOGGER.log(Level.INFO, "No interpolated CO2 data for year before {0}: using base CO2 Emissions from DB instead", SimulationParameter.FIRST_YEAR);
-            return calcCO2EmissionInternal(building);
-        } else {
-            // If year exceeds data range: all calculations will be based on finalYear!
-            if (year > finalCO2Year) {
-                // LOGGER.log(Level.INFO, "Year exceeds data range: all calculations will be based on finalYear {0}", 2050);
-                year = finalCO2Year;
-            }
+    public Double calcCO2Emission(Building building, CO2Schedule co2Schedule, int year) {
+        return calcCO2Emission(typeId(building.getResidentialType()), floorSpaceOf(building.getResidentialFloorSpace()),
+                typeId(building.getNonResidentialType()), floorSpaceOf(building.getNonResidentialFloorSpace()),
+                building.getRenovationLevel().ordinal(), building.getHeatingType(), co2Schedule, year);
+    }
 
-            if (building.getResidentialType() != null) {
-                Double co2 = primaryEnergyFactorsMap.get(building.getHeatingType()).getCO2DataForYear(year);
-                HeatDemandFinalEnergy heatDemandFinalEnergy = (HeatDemandFinalEnergy) heatDemandFinalEnergyMap.get(
-                    building.getResidentialType(), building.getRenovationLevel(), building.getHeatingType()
-                );
-                Double finalEnergy = heatDemandFinalEnergy.getFinalEnergy();
-                co2Emission += (co2 * finalEnergy * building.getResidentialFloorSpace());
-            }
+    /**
+     * Calculate the CO2 Emissions of the building at the given index of the {@link BuildingTable} for the given year.
+     *
+     * @param buildings
+     * @param index
+     * @param co2Schedule the CO2 factors of the simulation run
+     * @param year year for the CO2 Yearly Data
+     * @return calculated CO2 emissions for given year
+     */
+    public double calcCO2Emission(BuildingTable buildings, int index, CO2Schedule co2Schedule, int year) {
+        return calcCO2Emission(buildings.getResidentialTypeCode(index), buildings.getResidentialFloorSpace(index), buildings.getNonResidentialTypeCode(index),
+                buildings.getNonResidentialFloorSpace(index), buildings.getRenovationLevelCode(index), buildings.getHeatingType(index), co2Schedule, year);
+    }
 
-            if (building.getNonResidentialType() != null) {
-                Double co2 = primaryEnergyFactorsMap.get(building.getHeatingType()).getCO2DataForYear(year);
-                HeatDemandFinalEnergy heatDemandFinalEnergy = (HeatDemandFinalEnergy) heatDemandFinalEnergyMap.get(
-                    building.getNonResidentialType(), building.getRenovationLevel(), building.getHeatingType()
-                );
-                Double finalEnergy = heatDemandFinalEnergy.getFinalEnergy();
-                co2Emission += (co2 * finalEnergy * building.getNonResidentialFloorSpace());
-            }
-        }
+    private double calcCO2Emission(short residentialType, double residentialFloorSpace, short nonResidentialType, double nonResidentialFloorSpace,
+                                   int renovationLevel, HeatingType heatingType, CO2Schedule co2Schedule, int year) {
+        double co2 = co2Schedule.getFactor(heatingType, year);
+        int heating = heatingType.ordinal();
 
-        return co2Emission;
+        return calcCO2Emission(co2, getFinalEnergy(residentialType, renovationLevel, heating), residentialFloorSpace,
+                getFinalEnergy(nonResidentialType, renovationLevel, heating), nonResidentialFloorSpace);
     }
 
     /**
-     * Calculate the CO2 emissions for the given {@link Building}
-     * using {@link HeatDemandFinalEnergyDAO} and only the starting CO2 emissions from {@link PrimaryEnergyFactors}!
+     * Calculate the CO2 emissions from the given CO2 factor and the final energy values of the residential and non-residential part of a building. Allows callers
+     * caching the final energy values to recalculate the emissions for a different CO2 factor without any lookups.
      *
-     * @param building
-     * @return calculated CO2 emissions for {@link HeatingType } from specific {@link Building}
+     * @param co2 the CO2 factor of the heating type of the building
+     * @param residentialFinalEnergy final energy of the residential building type or <code>NaN</code> if the building has no residential type
+     * @param residentialFloorSpace
+     * @param nonResidentialFinalEnergy final energy of the non-residential building type or <code>NaN</code> if the building has no non-residential type
+     * @param nonResidentialFloorSpace
+     * @return calculated CO2 emissions
      */
-    private Double calcCO2EmissionInternal(Building building) {
-        Double co2Emission = 0d;
-
-        if (building.getResidentialType() != null) {
-            Double co2 = primaryEnergyFactorsMap.get(building.getHeatingType()).getCo2Start();
-            HeatDemandFinalEnergy heatDemandFinalEnergy = (HeatDemandFinalEnergy) heatDemandFinalEnergyMap.get(
-                building.getResidentialType(), building.getRenovationLevel(), building.getHeatingType()
-            );
-            Double finalEnergy = heatDemandFinalEnergy.getFinalEnergy();
-            co2Emission += (co2 * finalEnergy * building.getResidentialFloorSpace());
+    public double calcCO2Emission(double co2, double residentialFinalEnergy, double residentialFloorSpace, double nonResidentialFinalEnergy,
+                                  double nonResidentialFloorSpace) {
+        double co2Emission = 0d;
+
+        if (!Double.isNaN(residentialFinalEnergy)) {
+            co2Emission += (co2 * residentialFinalEnergy * residentialFloorSpace);
         }
 
-        if (building.getNonResidentialType() != null) {
-            Double co2 = primaryEnergyFactorsMap.get(building.getHeatingType()).getCo2Start();
-            HeatDemandFinalEnergy heatDemandFinalEnergy = (HeatDemandFinalEnergy) heatDemandFinalEnergyMap.get(
-                building.getNonResidentialType(), building.getRenovationLevel(), building.getHeatingType()
-            );
-            Double finalEnergy = heatDemandFinalEnergy.getFinalEnergy();
-            co2Emission += (co2 * finalEnergy * building.getNonResidentialFloorSpace());
+        if (!Double.isNaN(nonResidentialFinalEnergy)) {
+            co2Emission += (co2 * nonResidentialFinalEnergy * nonResidentialFloorSpace);
         }
 
         return co2Emission;
     }
 
+    /**
+     * Get the final energy for the given building type, renovation level and heating type using {@link HeatDemandFinalEnergyDAO}.
+     *
+     * @param buildingType residential or non-residential building type
+     * @param renovationLevel
+     * @param heatingType
+     * @return the final energy or <code>null</code> if the building type is <code>null</code> or the reference data has no value
+     */
+    public Double getFinalEnergy(String buildingType, RenovationLevel renovationLevel, HeatingType heatingType) {
+        return boxed(getFinalEnergy(typeId(buildingType), renovationLevel.ordinal(), heatingType != null ? heatingType.ordinal() : -1));
+    }
+
+    /**
+     * Get the final energy for the given building type id of the {@link BuildingTypeDictionary}, renovation level ordinal and heating type ordinal.
+     *
+     * @param buildingType residential or non-residential building type id
+     * @param renovationLevel ordinal of the {@link RenovationLevel}
+     * @param heatingType ordinal of the {@link HeatingType}
+     * @return the final energy or <code>NaN</code> if the building type is {@link BuildingTypeDictionary#NO_TYPE} or the reference data has no value
+     */
+    public double getFinalEnergy(short buildingType, int renovationLevel, int heatingType) {
+        if (buildingType == BuildingTypeDictionary.NO_TYPE) {
+            return Double.NaN;
+        }
+        return finalEnergy[finalEnergyRow(buildingType, renovationLevel, heatingType)];
+    }
+
     /**
      * Calculate the building shell renovation costs using the {@link CostsBuildingShellDAO}.
      * @param building
      * @return
      */
     public Double calcShellRenovationCosts(Building building) {
-        Double costsShell = 0d;
+        return calcShellRenovationCosts(typeId(building.getResidentialType()), floorSpaceOf(building.getResidentialFloorSpace()),
+                typeId(building.getNonResidentialType()), floorSpaceOf(building.getNonResidentialFloorSpace()),
+                building.getRenovationLevel().ordinal());
+    }
 
-        if (building.getResidentialType() != null) {
-            CostsBuildingShell costsBuildingShell = (CostsBuildingShell) costsBuildingShellMap.get(building.getResidentialType(), building.getRenovationLevel());
-            costsShell += costsBuildingShell.getCostPerSQM() * building.getResidentialFloorSpace();
+    /**
+     * Calculate the building shell renovation costs for the building at the given index of the {@link BuildingTable}.
+     *
+     * @param buildings
+     * @param index
+     * @return
+     */
+    public double calcShellRenovationCosts(BuildingTable buildings, int index) {
+        return calcShellRenovationCosts(buildings.getResidentialTypeCode(index), buildings.getResidentialFloorSpace(index), buildings.getNonResidentialTypeCode(index),
+                buildings.getNonResidentialFloorSpace(index), buildings.getRenovationLevelCode(index));
+    }
+
+    private double calcShellRenovationCosts(short residentialType, double residentialFloorSpace, short nonResidentialType, double nonResidentialFloorSpace,
+                                            int renovationLevel) {
+        double costsShell = 0d;
+
+        if (residentialType != BuildingTypeDictionary.NO_TYPE) {
+            costsShell += shellCostsPerSQM[shellCostsRow(residentialType, renovationLevel)] * residentialFloorSpace;
         }
 
-        if (building.getNonResidentialType() != null) {
-            CostsBuildingShell costsBuildingShell = (CostsBuildingShell) costsBuildingShellMap.get(building.getNonResidentialType(), building.getRenovationLevel());
-            costsShell +=  costsBuildingShell.getCostPerSQM() * building.getNonResidentialFloorSpace();
+        if (nonResidentialType != BuildingTypeDictionary.NO_TYPE) {
+            costsShell += shellCostsPerSQM[shellCostsRow(nonResidentialType, renovationLevel)] * nonResidentialFloorSpace;
         }
 
         return costsShell;
     }
 
     /**
-     * Calculate the heat load for the given {@link Building} using the {@link HeatDemandLoadGenerationDAO}.
+     * Calculate the heat load for the given building data using the {@link HeatDemandLoadGenerationDAO}.
      *
-     * @param building
      * @return
      */
-    private Double calcHeatLoad(Building building) {
-        Double heatLoad = 0d;
+    private double calcHeatLoad(short residentialType, double residentialFloorSpace, short nonResidentialType, double nonResidentialFloorSpace,
+                                int renovationLevel) {
+        double heatLoad = 0d;
 
         // Residential buildings
-        if (building.getResidentialType() != null) {
-            HeatDemandLoadGeneration heatDemandLoadGeneration = (HeatDemandLoadGeneration) heatDemandLoadGenerationMap.get(building.getResidentialType(), building.getRenovationLevel());
+        if (residentialType != BuildingTypeDictionary.NO_TYPE) {
+            int row = loadGenerationRow(residentialType, renovationLevel);
 
-            Double spaceHeatingLoad = building.getResidentialFloorSpace() * heatDemandLoadGeneration.getSpaceHeatingLoad();
-            Double warmwaterLoad = building.getResidentialFloorSpace() * heatDemandLoadGeneration.getWarmwaterLoad();
+            double spaceHeatingLoad = residentialFloorSpace * this.spaceHeatingLoad[row];
+            double warmwaterLoad = residentialFloorSpace * this.warmwaterLoad[row];
 
             heatLoad += spaceHeatingLoad + warmwaterLoad;
         }
 
         // Non-residential buildings
-        if (building.getNonResidentialType() != null) {
-            HeatDemandLoadGeneration heatDemandLoadGeneration = (HeatDemandLoadGeneration) heatDemandLoadGenerationMap.get(building.getNonResidentialType(), building.getRenovationLevel());
+        if (nonResidentialType != BuildingTypeDictionary.NO_TYPE) {
+            int row = loadGenerationRow(nonResidentialType, renovationLevel);
 
-            Double spaceHeatingLoad = building.getNonResidentialFloorSpace() * heatDemandLoadGeneration.getSpaceHeatingLoad();
-            Double warmwaterLoad = building.getNonResidentialFloorSpace() * heatDemandLoadGeneration.getWarmwaterLoad();
+            double spaceHeatingLoad = nonResidentialFloorSpace * this.spaceHeatingLoad[row];
+            double warmwaterLoad = nonResidentialFloorSpace * this.warmwaterLoad[row];
 
             heatLoad += spaceHeatingLoad + warmwaterLoad;
         }
@@ -295,6 +436,127 @@ public class EnergyCalculator {
         return heatLoad;
     }
 
+    /**
+     * Calculate the heat load for the building at the given index of the {@link BuildingTable}, using the precomputed values if available.
+     */
+    private double calcHeatLoad(BuildingTable buildings, int index) {
+        BuildingEnergyCoefficients coefficients = buildings.getEnergyCoefficients();
+        if (coefficients != null) {
+            return coefficients.getHeatLoad(index, buildings.getRenovationLevelCode(index));
+        }
+        return calcHeatLoad(buildings.getResidentialTypeCode(index), buildings.getResidentialFloorSpace(index), buildings.getNonResidentialTypeCode(index),
+                buildings.getNonResidentialFloorSpace(index), buildings.getRenovationLevelCode(index));
+    }
+
+    /**
+     * Precompute the heat demand and heat load of all buildings for every {@link RenovationLevel}. Before, the reference data is validated: every building type
+     * of the buildings needs heat demand and load data and final energy data for every renovation level and heating type, as well as building shell costs for
+     * every renovation level a building can be renovated to, and every heating type needs heating system exchange costs. Thus missing data is detected when the buildings are loaded and not in the middle of a simulation.
+     *
+     * @param buildings the building stock
+     * @return the precomputed values
+     * @throws InputValidationException if reference data for a building type used by the buildings is missing
+     */
+    public BuildingEnergyCoefficients calcEnergyCoefficients(BuildingTable buildings) throws InputValidationException {
+        validateReferenceData(buildings);
+
+        BuildingEnergyCoefficients coefficients = new BuildingEnergyCoefficients(buildings.size());
+        IntStream.range(0, buildings.size()).parallel().forEach(index -> {
+            for (int level = 0; level < RENOVATION_LEVELS.length; level++) {
+                short residentialType = buildings.getResidentialTypeCode(index);
+                short nonResidentialType = buildings.getNonResidentialTypeCode(index);
+                double residentialFloorSpace = buildings.getResidentialFloorSpace(index);
+                double nonResidentialFloorSpace = buildings.getNonResidentialFloorSpace(index);
+
+                coefficients.set(index, level, calcHeatDemand(residentialType, residentialFloorSpace, nonResidentialType, nonResidentialFloorSpace, level),
+                        calcHeatLoad(residentialType, residentialFloorSpace, nonResidentialType, nonResidentialFloorSpace, level));
+            }
+        });
+        return coefficients;
+    }
+
+    /**
+     * Precompute the renovation costs of all buildings: the building shell costs for every target {@link RenovationLevel} and the heating exchange costs for every
+     * target {@link HeatingType} at the heat load of every renovation level. Uses the precomputed heat loads of the buildings if available.
+     *
+     * @param buildings the building stock
+     * @return the precomputed costs
+     */
+    public RenovationCosts calcRenovationCosts(BuildingTable buildings) {
+        BuildingEnergyCoefficients coefficients = buildings.getEnergyCoefficients();
+
+        RenovationCosts costs = new RenovationCosts(buildings.size());
+        IntStream.range(0, buildings.size()).parallel().forEach(index -> {
+            short residentialType = buildings.getResidentialTypeCode(index);
+            short nonResidentialType = buildings.getNonResidentialTypeCode(index);
+            double residentialFloorSpace = buildings.getResidentialFloorSpace(index);
+            double nonResidentialFloorSpace = buildings.getNonResidentialFloorSpace(index);
+
+            for (int level = 0; level < RENOVATION_LEVELS.length; level++) {
+                boolean hasShellCosts = hasShellCosts(residentialType, level) && hasShellCosts(nonResidentialType, level);
+                costs.setShellCosts(index, level, hasShellCosts
+                        ? calcShellRenovationCosts(residentialType, residentialFloorSpace, nonResidentialType, nonResidentialFloorSpace, level) : Double.NaN);
+
+                boolean hasHeatLoad = hasLoadGeneration(residentialType, level) && hasLoadGeneration(nonResidentialType, level);
+                double heatLoad = !hasHeatLoad ? Double.NaN : coefficients != null ? coefficients.getHeatLoad(index, level)
+                        : calcHeatLoad(residentialType, residentialFloorSpace, nonResidentialType, nonResidentialFloorSpace, level);
+                for (int heating = 0; heating < HEATING_TYPES.length; heating++) {
+                    boolean hasExchangeCosts = hasHeatLoad && heatingExchangeCostLoads[heating] != null;
+                    costs.setHeatingExchangeCosts(index, level, heating, hasExchangeCosts ? getHeatingExchangeCosts((int) heatLoad, heating) : Double.NaN);
+                }
+            }
+        });
+        return costs;
+    }
+
+    private boolean hasShellCosts(short buildingType, int renovationLevel) {
+        return buildingType == BuildingTypeDictionary.NO_TYPE
+                || buildingType < numberOfBuildingTypes && hasShellCosts[buildingType * RENOVATION_LEVELS.length + renovationLevel];
+    }
+
+    private boolean hasLoadGeneration(short buildingType, int renovationLevel) {
+        return buildingType == BuildingTypeDictionary.NO_TYPE
+                || buildingType < numberOfBuildingTypes && hasLoadGeneration[buildingType * RENOVATION_LEVELS.length + renovationLevel];
+    }
+
+    private void validateReferenceData(BuildingTable buildings) throws InputValidationException {
+        Set<Short> buildingTypes = new TreeSet<>();
+        for (int index = 0; index < buildings.size(); index++) {
+            buildingTypes.add(buildings.getResidentialTypeCode(index));
+            buildingTypes.add(buildings.getNonResidentialTypeCode(index));
+        }
+        buildingTypes.remove(BuildingTypeDictionary.NO_TYPE);
+
+        List<String> missing = new ArrayList<>();
+        for (HeatingType heatingType : HEATING_TYPES) {
+            if (heatingExchangeCostLoads[heatingType.ordinal()] == null) {
+                missing.add("heating system exchange costs (" + heatingType + ")");
+            }
+        }
+        for (short buildingType : buildingTypes) {
+            for (RenovationLevel renovationLevel : RENOVATION_LEVELS) {
+                int row = buildingType * RENOVATION_LEVELS.length + renovationLevel.ordinal();
+                boolean knownType = buildingType < numberOfBuildingTypes;
+                if (!knownType || !hasLoadGeneration[row]) {
+                    missing.add("heat demand and load (" + buildings.getBuildingTypes().get(buildingType) + ", " + renovationLevel + ")");
+                }
+                if (renovationLevel != RenovationLevel.NO_RENOVATION && (!knownType || !hasShellCosts[row])) {
+                    missing.add("building shell costs (" + buildings.getBuildingTypes().get(buildingType) + ", " + renovationLevel + ")");
+                }
+                for (HeatingType heatingType : HEATING_TYPES) {
+                    if (!knownType || !hasFinalEnergy[row * HEATING_TYPES.length + heatingType.ordinal()]) {
+                        missing.add("final energy (" + buildings.getBuildingTypes().get(buildingType) + ", " + renovationLevel + ", " + heatingType + ")");
+                    }
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            LOGGER.log(Level.SEVERE, "Missing reference data: {0}", missing);
+            throw new InputValidationException("Missing reference data for " + missing.size() + " combinations, e.g. " + missing.get(0));
+        }
+    }
+
     /**
      * Get the FinalEnergy parameter associated with a given building.
      * @TODO: pass BuildingType parameter (Residential, Non-Residential) to reduce duplicate code in EnergyCalculator
@@ -302,20 +564,31 @@ public class EnergyCalculator {
      * @return final energy of a building based on ResidentialType, RenovationLevel and HeatingType.
      */
     public Double getBuildingFinalEnergy(Building building) {
-        if (building.getResidentialType() != null) {
-            HeatDemandFinalEnergy heatDemandFinalEnergy = (HeatDemandFinalEnergy) heatDemandFinalEnergyMap.get(
-                    building.getResidentialType(), building.getRenovationLevel(), building.getHeatingType()
-            );
-            return heatDemandFinalEnergy.getFinalEnergy();
-        } else if (building.getNonResidentialType() != null) {
-            HeatDemandFinalEnergy heatDemandFinalEnergy = (HeatDemandFinalEnergy) heatDemandFinalEnergyMap.get(
-                    building.getNonResidentialType(), building.getRenovationLevel(), building.getHeatingType()
-            );
-            return heatDemandFinalEnergy.getFinalEnergy();
+        return boxed(getBuildingFinalEnergy(typeId(building.getResidentialType()), typeId(building.getNonResidentialType()),
+                building.getRenovationLevel().ordinal(), building.getHeatingType() != null ? building.getHeatingType().ordinal() : -1));
+    }
+
+    /**
+     * Get the FinalEnergy parameter associated with the building at the given index of the {@link BuildingTable}.
+     *
+     * @param buildings
+     * @param index
+     * @return final energy of a building based on ResidentialType, RenovationLevel and HeatingType or <code>NaN</code> if the building has no type.
+     */
+    public double getBuildingFinalEnergy(BuildingTable buildings, int index) {
+        return getBuildingFinalEnergy(buildings.getResidentialTypeCode(index), buildings.getNonResidentialTypeCode(index), buildings.getRenovationLevelCode(index),
+                buildings.getHeatingTypeCode(index));
+    }
+
+    private double getBuildingFinalEnergy(short residentialType, short nonResidentialType, int renovationLevel, int heatingType) {
+        if (residentialType != BuildingTypeDictionary.NO_TYPE) {
+            return getFinalEnergy(residentialType, renovationLevel, heatingType);
+        } else if (nonResidentialType != BuildingTypeDictionary.NO_TYPE) {
+            return getFinalEnergy(nonResidentialType, renovationLevel, heatingType);
         }
-        
+
         // default return value
-        return null;
+        return Double.NaN;
     }
 
     /**
@@ -325,34 +598,102 @@ public class EnergyCalculator {
      * @return
      */
     public Double calcHeatingExchangeRenovationCosts(Building building) {
-        Double totalLoad = calcHeatLoad(building);
-        return getHeatingExchangeCosts(totalLoad.intValue(), building.getHeatingType());
+        double totalLoad = calcHeatLoad(typeId(building.getResidentialType()), floorSpaceOf(building.getResidentialFloorSpace()),
+                typeId(building.getNonResidentialType()), floorSpaceOf(building.getNonResidentialFloorSpace()),
+                building.getRenovationLevel().ordinal());
+        return getHeatingExchangeCosts((int) totalLoad, building.getHeatingType().ordinal());
     }
 
     /**
-     * Getter for Boolean yearlyCO2RatesInterpolated.
+     * Calculate the heating exchange renovation costs for the building at the given index of the {@link BuildingTable}.
+     *
+     * @param buildings
+     * @param index
      * @return
      */
-    public Boolean hasYearlyCO2RatesInterpolated() {
-        return areYearlyCO2RatesInterpolated;
+    public double calcHeatingExchangeRenovationCosts(BuildingTable buildings, int index) {
+        double totalLoad = calcHeatLoad(buildings, index);
+        return getHeatingExchangeCosts((int) totalLoad, buildings.getHeatingTypeCode(index));
     }
 
     /**
-     * Return the heating exchange costs for the given {@link HeatingType} and heat load in kW from the map of heating
-     * system exchange costs. As the map represents different bins, the nearest matching value is returned, so that the
-     * given heat load is >= the lower bound of the bin but smaller than the next bin entry.
+     * Return the heating exchange costs for the given {@link HeatingType} and heat load in kW from the bins of heating system exchange costs. The costs of the
+     * lowest bin are returned for every heat load reaching its lower bound, heat loads below all bins have no costs.
      *
      * @param heatLoadKW the given heat load in kW.
-     * @param heatingSystem
+     * @param heatingType ordinal of the {@link HeatingType}
      * @return
      */
-    private Double getHeatingExchangeCosts(Integer heatLoadKW, HeatingType heatingSystem) {
-        Map<Integer, Double> costs = this.costsHeatingSystemMap.get(heatingSystem);
-        Optional<Integer> matchingResult = costs.keySet().stream().filter(loadKey -> heatLoadKW >= loadKey).min(Comparator.comparing(Integer::valueOf));
-        if (matchingResult.isPresent()) {
-            Integer maxMatchingLoad = matchingResult.get();
-            return costs.get(maxMatchingLoad);
+    private double getHeatingExchangeCosts(int heatLoadKW, int heatingType) {
+        int[] loads = heatingExchangeCostLoads[heatingType];
+        if (loads == null) {
+            throw new IllegalStateException("No heating system exchange costs for " + HEATING_TYPES[heatingType]);
+        }
+        if (loads.length > 0 && heatLoadKW >= loads[0]) {
+            return heatingExchangeCosts[heatingType][0];
         }
         return 0d;
     }
-}
\ No newline at end of file
+
+    private int loadGenerationRow(short buildingType, int renovationLevel) {
+        int row = buildingType * RENOVATION_LEVELS.length + renovationLevel;
+        if (buildingType >= numberOfBuildingTypes || !hasLoadGeneration[row]) {
+            throw new IllegalStateException("No heat demand and load data for building type " + typeName(buildingType) + " and "
+                    + RENOVATION_LEVELS[renovationLevel]);
+        }
+        return row;
+    }
+
+    private int finalEnergyRow(short buildingType, int renovationLevel, int heatingType) {
+        int row = (buildingType * RENOVATION_LEVELS.length + renovationLevel) * HEATING_TYPES.length + heatingType;
+        if (buildingType >= numberOfBuildingTypes || heatingType < 0 || !hasFinalEnergy[row]) {
+            throw new IllegalStateException("No final energy data for building type " + typeName(buildingType) + ", "
+                    + RENOVATION_LEVELS[renovationLevel] + " and " + (heatingType >= 0 ? HEATING_TYPES[heatingType] : null));
+        }
+        return row;
+    }
+
+    private int shellCostsRow(short buildingType, int renovationLevel) {
+        int row = buildingType * RENOVATION_LEVELS.length + renovationLevel;
+        if (buildingType >= numberOfBuildingTypes || !hasShellCosts[row]) {
+            throw new IllegalStateException("No building shell costs for building type " + typeName(buildingType) + " and "
+                    + RENOVATION_LEVELS[renovationLevel]);
+        }
+        return row;
+    }
+
+    /**
+     * @return the building types of the reference tables, the ids of the types are the indices of the reference tables
+     */
+    public BuildingTypeDictionary getBuildingTypes() {
+        return buildingTypes;
+    }
+
+    /**
+     * Returns the id of the given building type of a {@link Building} bean.
+     *
+     * @throws IllegalStateException if the reference tables have no data for the building type
+     */
+    private short typeId(String buildingType) {
+        if (buildingType != null && !buildingTypes.contains(buildingType)) {
+            throw new IllegalStateException("No reference data for building type " + buildingType);
+        }
+        return buildingTypes.getId(buildingType);
+    }
+
+    private String typeName(short buildingType) {
+        return buildingType < numberOfBuildingTypes ? buildingTypes.get(buildingType) : "#" + buildingType;
+    }
+
+    private static Double boxed(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static double valueOf(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static double floorSpaceOf(Double floorSpace) {
+        return floorSpace != null ? floorSpace : 0d;
+    }
+}
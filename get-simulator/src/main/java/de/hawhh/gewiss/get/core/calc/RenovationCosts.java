@@ -0,0 +1,64 @@
+package de.hawhh.gewiss.get.core.calc;
+
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.core.model.HeatingType;
+import de.hawhh.gewiss.get.core.model.RenovationLevel;
+
+/**
+ * Renovation costs of every building of a {@link BuildingTable} precomputed for all renovation targets: the building shell costs per target {@link RenovationLevel}
+ * and the heating exchange costs per target {@link HeatingType} for the heat load of each renovation level. Renovating a building or exchanging its heating system
+ * only has to read the matching entry, and renovation strategies can compare the costs of different targets without any further calculation.
+ *
+ * Entries whose reference data is missing are <code>NaN</code>. Instances are created by {@link EnergyCalculator#calcRenovationCosts(BuildingTable)}.
+ *
+ * @author Thomas Preisler
+ */
+public class RenovationCosts {
+
+    private static final int RENOVATION_LEVELS = RenovationLevel.values().length;
+    private static final int HEATING_TYPES = HeatingType.values().length;
+
+    private final int size;
+    private final double[] shellCosts; // [building][renovation level]
+    private final double[] heatingExchangeCosts; // [building][renovation level][heating type]
+
+    RenovationCosts(int size) {
+        this.size = size;
+        this.shellCosts = new double[size * RENOVATION_LEVELS];
+        this.heatingExchangeCosts = new double[size * RENOVATION_LEVELS * HEATING_TYPES];
+    }
+
+    void setShellCosts(int index, int renovationLevel, double costs) {
+        shellCosts[index * RENOVATION_LEVELS + renovationLevel] = costs;
+    }
+
+    void setHeatingExchangeCosts(int index, int renovationLevel, int heatingType, double costs) {
+        heatingExchangeCosts[(index * RENOVATION_LEVELS + renovationLevel) * HEATING_TYPES + heatingType] = costs;
+    }
+
+    /**
+     * @return the number of buildings
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index the index of the building
+     * @param renovationLevel ordinal of the target {@link RenovationLevel}
+     * @return the building shell costs of renovating the building to the given level
+     */
+    public double getShellCosts(int index, int renovationLevel) {
+        return shellCosts[index * RENOVATION_LEVELS + renovationLevel];
+    }
+
+    /**
+     * @param index the index of the building
+     * @param renovationLevel ordinal of the {@link RenovationLevel} of the building, determines the heat load
+     * @param heatingType ordinal of the target {@link HeatingType}
+     * @return the costs of exchanging the heating system of the building to the given heating type
+     */
+    public double getHeatingExchangeCosts(int index, int renovationLevel, int heatingType) {
+        return heatingExchangeCosts[(index * RENOVATION_LEVELS + renovationLevel) * HEATING_TYPES + heatingType];
+    }
+}
@@ -1,14 +1,13 @@
 package de.hawhh.gewiss.get.core.input;
 
 import de.hawhh.gewiss.get.core.model.HeatingType;
-import de.hawhh.gewiss.get.core.model.PrimaryEnergyFactors;
+import de.hawhh.gewiss.get.core.calc.CO2Schedule;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleStringProperty;
 
 /**
  * Data model class for CO2 Emission Data per {@link HeatingType} with starting, mid-range and final emission rates.
- * A list of CO2FactorsData objects is used to fill the yearlyCO2Emissions map in {@link PrimaryEnergyFactors}
- * using linear interpolation.
+ * A list of CO2FactorsData objects is used to create the {@link CO2Schedule} of a simulation run using linear interpolation.
  *
  * @author Antony Sotirov
  */
@@ -19,6 +18,10 @@ public class CO2FactorsData {
     private final SimpleDoubleProperty midEmissions;
     private final SimpleDoubleProperty finalEmissions;
 
+    public CO2FactorsData() {
+        this(HeatingType.DISTRICT_HEAT, 0d, 0d, 0d);
+    }
+
     public CO2FactorsData(HeatingType heatingSystem, Double startEmissions, Double midEmissions, Double finalEmissions) {
         this.heatingSystem = new SimpleStringProperty(heatingSystem.toString());
         this.startEmissions = new SimpleDoubleProperty(startEmissions);
@@ -0,0 +1,117 @@
+package de.hawhh.gewiss.get.core.input;
+
+import de.hawhh.gewiss.get.core.model.BuildingAttributeIndex;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.core.model.HeatingType;
+import de.hawhh.gewiss.get.core.model.RenovationLevel;
+
+import java.util.BitSet;
+
+/**
+ * A {@link Modifier} compiled against a {@link BuildingAttributeIndex}. The conditions on static building attributes are evaluated once by intersecting the bitsets of
+ * the index, only the conditions on the dynamic attributes (renovation level and heating type) are re-evaluated by {@link #select()}.
+ *
+ * @author Thomas Preisler
+ */
+public class CompiledModifier {
+
+    private final Modifier modifier;
+    private final BuildingTable buildings;
+    private final BitSet staticSelection;
+
+    // allowed renovation levels and heating types by ordinal (heating types shifted by one, index 0 is no heating type), null if not restricted
+    private final boolean[] renovationLevels;
+    private final boolean[] heatingTypes;
+
+    /**
+     * Compile the given modifier.
+     *
+     * @param modifier the modifier
+     * @param index the index of the building stock
+     */
+    CompiledModifier(Modifier modifier, BuildingAttributeIndex index) {
+        this.modifier = modifier;
+        this.buildings = index.getBuildings();
+
+        BitSet selection = index.all();
+        if (modifier.getTargetQuarters() != null) {
+            selection.and(index.selectQuarters(modifier.getTargetQuarters()));
+        }
+        if (modifier.getTargetBuildingsTypes() != null) {
+            selection.and(index.selectBuildingTypes(modifier.getTargetBuildingsTypes()));
+        }
+        if (modifier.getTargetOwnershipTypes() != null) {
+            selection.and(index.selectOwnerships(modifier.getTargetOwnershipTypes()));
+        }
+        if (modifier.getMaxDistrictHeatingDistance() != null) {
+            selection.and(index.selectMaxDistrictHeatingDistance(modifier.getMaxDistrictHeatingDistance()));
+        }
+        if (modifier.getYearOfConstructionRange() != null) {
+            selection.and(index.selectYearOfConstruction(modifier.getYearOfConstructionRange()));
+        }
+        this.staticSelection = selection;
+
+        if (modifier.getTargetRenovationLevels() != null) {
+            this.renovationLevels = new boolean[RenovationLevel.values().length];
+            modifier.getTargetRenovationLevels().stream().filter(level -> level != null).forEach(level -> renovationLevels[level.ordinal()] = true);
+        } else {
+            this.renovationLevels = null;
+        }
+
+        if (modifier.getTargetHeatingSystems() != null) {
+            this.heatingTypes = new boolean[HeatingType.values().length + 1];
+            modifier.getTargetHeatingSystems().forEach(heatingType -> heatingTypes[heatingType != null ? heatingType.ordinal() + 1 : 0] = true);
+        } else {
+            this.heatingTypes = null;
+        }
+    }
+
+    private CompiledModifier(CompiledModifier source, BuildingTable buildings) {
+        this.modifier = source.modifier;
+        this.buildings = buildings;
+        this.staticSelection = source.staticSelection;
+        this.renovationLevels = source.renovationLevels;
+        this.heatingTypes = source.heatingTypes;
+    }
+
+    /**
+     * Returns the modifier for a copy of the buildings it has been compiled for (see {@link BuildingTable#copy()}). The selection of the static attributes is shared,
+     * only the conditions on the dynamic attributes are evaluated against the given buildings.
+     *
+     * @param buildings a copy of the building stock
+     * @return the compiled modifier for the given buildings
+     */
+    public CompiledModifier withBuildings(BuildingTable buildings) {
+        if (buildings.size() != this.buildings.size()) {
+            throw new IllegalArgumentException("Modifier compiled for " + this.buildings.size() + " buildings does not match the " + buildings.size() + " buildings of the table");
+        }
+        return new CompiledModifier(this, buildings);
+    }
+
+    public Modifier getModifier() {
+        return modifier;
+    }
+
+    /**
+     * Returns the buildings currently fulfilling all conditions of the modifier. The returned set must not be modified.
+     *
+     * @return the selected buildings
+     */
+    public BitSet select() {
+        if (renovationLevels == null && heatingTypes == null) {
+            return staticSelection;
+        }
+
+        BitSet selection = new BitSet(buildings.size());
+        for (int index = staticSelection.nextSetBit(0); index >= 0; index = staticSelection.nextSetBit(index + 1)) {
+            if (renovationLevels != null && !renovationLevels[buildings.getRenovationLevelCode(index)]) {
+                continue;
+            }
+            if (heatingTypes != null && !heatingTypes[buildings.getHeatingTypeCode(index) + 1]) {
+                continue;
+            }
+            selection.set(index);
+        }
+        return selection;
+    }
+}
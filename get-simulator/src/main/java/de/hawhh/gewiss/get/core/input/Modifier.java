@@ -3,6 +3,8 @@ package de.hawhh.gewiss.get.core.input;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.common.collect.Range;
 import de.hawhh.gewiss.get.core.model.Building;
+import de.hawhh.gewiss.get.core.model.BuildingAttributeIndex;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
 import de.hawhh.gewiss.get.core.model.HeatingType;
 import de.hawhh.gewiss.get.core.model.RenovationLevel;
 
@@ -47,55 +49,86 @@ public class Modifier {
     }
 
     /**
-     * For the given {@link Building} check if all conditions are fulfilled.
+     * For the given {@link Building} check if all conditions are fulfilled. A building with an unknown district heating outlet distance or year of construction does not
+     * fulfill a condition on it.
      *
      * @param building
      * @return true if all conditions are fulfilled for the building otherwise false
      */
     public boolean checkConditions(Building building) {
+        return checkConditions(building.getQuarter(), building.getResidentialType(), building.getNonResidentialType(), building.getOwnership(),
+                building.getRenovationLevel(), building.getHeatingType(), building.getDistrictHeatingOutletDistance(), building.getYearOfConstruction());
+    }
+
+    /**
+     * For the building at the given index of the {@link BuildingTable} check if all conditions are fulfilled.
+     *
+     * @param buildings
+     * @param index
+     * @return true if all conditions are fulfilled for the building otherwise false
+     */
+    public boolean checkConditions(BuildingTable buildings, int index) {
+        return checkConditions(buildings.getQuarter(index), buildings.getResidentialType(index), buildings.getNonResidentialType(index), buildings.getOwnership(index),
+                buildings.getRenovationLevel(index), buildings.getHeatingType(index),
+                buildings.hasDistrictHeatingOutletDistance(index) ? buildings.getDistrictHeatingOutletDistance(index) : null,
+                buildings.hasYearOfConstruction(index) ? buildings.getYearOfConstruction(index) : null);
+    }
+
+    private boolean checkConditions(String quarter, String residentialType, String nonResidentialType, String ownership, RenovationLevel renovationLevel,
+                                    HeatingType heatingType, Integer districtHeatingOutletDistance, Integer yearOfConstruction) {
         if (targetQuarters != null) {
-            if (!targetQuarters.contains(building.getQuarter())) {
+            if (!targetQuarters.contains(quarter)) {
                 return false;
             }
         }
 
         if (targetBuildingsTypes != null) {
-            if (!(targetBuildingsTypes.contains(building.getResidentialType()) || targetBuildingsTypes.contains(building.getNonResidentialType()))) {
+            if (!(targetBuildingsTypes.contains(residentialType) || targetBuildingsTypes.contains(nonResidentialType))) {
                 return false;
             }
         }
 
         if (targetOwnershipTypes != null) {
-            if (!targetOwnershipTypes.contains(building.getOwnership())) {
+            if (!targetOwnershipTypes.contains(ownership)) {
                 return false;
             }
         }
 
         if (targetRenovationLevels != null) {
-            if (!targetRenovationLevels.contains(building.getRenovationLevel())) {
+            if (!targetRenovationLevels.contains(renovationLevel)) {
                 return false;
             }
         }
 
         if (targetHeatingSystems != null) {
-            if (!targetHeatingSystems.contains(building.getHeatingType())) {
+            if (!targetHeatingSystems.contains(heatingType)) {
                 return false;
             }
         }
 
         if (maxDistrictHeatingDistance != null) {
-            if (building.getDistrictHeatingOutletDistance() > maxDistrictHeatingDistance) {
+            if (districtHeatingOutletDistance == null || districtHeatingOutletDistance > maxDistrictHeatingDistance) {
                 return false;
             }
         }
 
         if (yearOfConstructionRange != null) {
-            return yearOfConstructionRange.contains(building.getYearOfConstruction());
+            return yearOfConstruction != null && yearOfConstructionRange.contains(yearOfConstruction);
         }
 
         return true;
     }
 
+    /**
+     * Compile the conditions of the modifier against the given index of the building stock, see {@link CompiledModifier}.
+     *
+     * @param index the index of the building stock
+     * @return the compiled modifier
+     */
+    public CompiledModifier compile(BuildingAttributeIndex index) {
+        return new CompiledModifier(this, index);
+    }
+
     /**
      * Checks if the modifier is active for the given year.
      *
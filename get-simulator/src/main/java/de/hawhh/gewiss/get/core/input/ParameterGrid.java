@@ -0,0 +1,107 @@
+package de.hawhh.gewiss.get.core.input;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parameter grid of a sweep over several scenarios, usually read from a JSON file. The scenarios are the cross product of the renovation rates, passive house rates,
+ * CO2 trajectories and modifier sets of the grid, all other parameters (stop year, heating system exchange rates and seed) are shared by all scenarios.
+ *
+ * @author Thomas Preisler
+ */
+@Data
+public class ParameterGrid {
+
+    private String name;
+    private Integer stopYear;
+    private Long seed;
+    private List<Double> renovationRates = new ArrayList<>();
+    private List<Double> passiveHouseRates = new ArrayList<>();
+    private List<HeatingSystemExchangeRate> heatingSystemExchangeRates = new ArrayList<>();
+    private List<CO2Trajectory> co2Trajectories = new ArrayList<>();
+    private List<ModifierSet> modifierSets = new ArrayList<>();
+
+    /**
+     * Named CO2 factors with their mid and final year, see {@link SimulationParameter}.
+     */
+    @Data
+    public static class CO2Trajectory {
+
+        private String name;
+        private Integer midCO2Year;
+        private Integer finalCO2Year;
+        private List<CO2FactorsData> yearlyCO2Factors = new ArrayList<>();
+    }
+
+    /**
+     * Named set of modifiers applied together in a scenario.
+     */
+    @Data
+    public static class ModifierSet {
+
+        private String name;
+        private List<Modifier> modifiers = new ArrayList<>();
+    }
+
+    /**
+     * One point of the grid.
+     */
+    @Data
+    public static class Scenario {
+
+        private SimulationParameter parameter;
+        private Double renovationRate;
+        private Double passiveHouseRate;
+        private String co2Trajectory;
+        private String modifierSet;
+    }
+
+    /**
+     * Expands the grid to its scenarios. The renovation rates vary slowest, the modifier sets fastest. Without any modifier set all scenarios are simulated without
+     * modifiers.
+     *
+     * @return the scenarios of the grid
+     * @throws InputValidationException if a dimension of the grid is empty or a scenario is invalid
+     */
+    public List<Scenario> expand() throws InputValidationException {
+        if (renovationRates == null || renovationRates.isEmpty()) {
+            throw new InputValidationException("Parameter grid " + name + " has no renovation rates");
+        }
+        if (passiveHouseRates == null || passiveHouseRates.isEmpty()) {
+            throw new InputValidationException("Parameter grid " + name + " has no passive house rates");
+        }
+        if (co2Trajectories == null || co2Trajectories.isEmpty()) {
+            throw new InputValidationException("Parameter grid " + name + " has no CO2 trajectories");
+        }
+
+        ModifierSet noModifiers = new ModifierSet();
+        noModifiers.setName("none");
+        List<ModifierSet> sets = modifierSets == null || modifierSets.isEmpty() ? Collections.singletonList(noModifiers) : modifierSets;
+
+        List<Scenario> scenarios = new ArrayList<>();
+        for (Double renovationRate : renovationRates) {
+            for (Double passiveHouseRate : passiveHouseRates) {
+                for (CO2Trajectory co2Trajectory : co2Trajectories) {
+                    for (ModifierSet modifierSet : sets) {
+                        String scenarioName = name + "-" + renovationRate + "-" + passiveHouseRate + "-" + co2Trajectory.getName() + "-" + modifierSet.getName();
+                        SimulationParameter parameter = new SimulationParameter(scenarioName, stopYear, modifierSet.getModifiers() != null ? new ArrayList<>(modifierSet.getModifiers()) : new ArrayList<>(),
+                                co2Trajectory.getYearlyCO2Factors(), co2Trajectory.getMidCO2Year(), co2Trajectory.getFinalCO2Year());
+                        parameter.validate();
+
+                        Scenario scenario = new Scenario();
+                        scenario.setParameter(parameter);
+                        scenario.setRenovationRate(renovationRate);
+                        scenario.setPassiveHouseRate(passiveHouseRate);
+                        scenario.setCo2Trajectory(co2Trajectory.getName());
+                        scenario.setModifierSet(modifierSet.getName());
+                        scenarios.add(scenario);
+                    }
+                }
+            }
+        }
+        return scenarios;
+    }
+}
@@ -0,0 +1,164 @@
+package de.hawhh.gewiss.get.core.model;
+
+import com.google.common.collect.Range;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Bitmap index over the static attributes of a {@link BuildingTable} (quarter, building type, ownership, year of construction and district heating outlet distance).
+ * The index is built once after loading the buildings, each query returns a new {@link BitSet} with the bits of the matching building indices set, so that the
+ * results of different queries can be intersected word-wise. Buildings with an unknown year of construction or district heating outlet distance are not selected by the
+ * queries on these attributes.
+ *
+ * @author Thomas Preisler
+ */
+public class BuildingAttributeIndex {
+
+    private final BuildingTable buildings;
+
+    private final Map<String, BitSet> quarters;
+    private final Map<String, BitSet> buildingTypes;
+    private final Map<String, BitSet> ownerships;
+    private final TreeMap<Integer, BitSet> yearsOfConstruction;
+
+    // indices of the buildings with a known district heating outlet distance, sorted by the distance
+    private final int[] districtHeatingDistanceOrder;
+
+    /**
+     * Builds the index for the given buildings.
+     *
+     * @param buildings the building stock
+     */
+    public BuildingAttributeIndex(BuildingTable buildings) {
+        this.buildings = buildings;
+        this.quarters = new HashMap<>();
+        this.buildingTypes = new HashMap<>();
+        this.ownerships = new HashMap<>();
+        this.yearsOfConstruction = new TreeMap<>();
+
+        for (int index = 0; index < buildings.size(); index++) {
+            add(quarters, buildings.getQuarter(index), index);
+            // Residential and non-residential types share one index, a building matches if either type matches
+            add(buildingTypes, buildings.getResidentialType(index), index);
+            add(buildingTypes, buildings.getNonResidentialType(index), index);
+            add(ownerships, buildings.getOwnership(index), index);
+            if (buildings.hasYearOfConstruction(index)) {
+                yearsOfConstruction.computeIfAbsent(buildings.getYearOfConstruction(index), year -> new BitSet(buildings.size())).set(index);
+            }
+        }
+
+        this.districtHeatingDistanceOrder = IntStream.range(0, buildings.size()).filter(buildings::hasDistrictHeatingOutletDistance).boxed()
+                .sorted(Comparator.comparingInt(buildings::getDistrictHeatingOutletDistance))
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    private BuildingAttributeIndex(BuildingAttributeIndex source, BuildingTable buildings) {
+        this.buildings = buildings;
+        this.quarters = source.quarters;
+        this.buildingTypes = source.buildingTypes;
+        this.ownerships = source.ownerships;
+        this.yearsOfConstruction = source.yearsOfConstruction;
+        this.districtHeatingDistanceOrder = source.districtHeatingDistanceOrder;
+    }
+
+    /**
+     * Returns an index for a copy of the indexed buildings (see {@link BuildingTable#copy()}). The bitsets of the static attributes are shared, only the buildings the
+     * index (and the modifiers compiled against it) refer to are replaced.
+     *
+     * @param buildings a copy of the indexed building stock
+     * @return the index for the given buildings
+     */
+    public BuildingAttributeIndex withBuildings(BuildingTable buildings) {
+        if (buildings.size() != this.buildings.size()) {
+            throw new IllegalArgumentException("Index for " + this.buildings.size() + " buildings does not match the " + buildings.size() + " buildings of the table");
+        }
+        return new BuildingAttributeIndex(this, buildings);
+    }
+
+    public BuildingTable getBuildings() {
+        return buildings;
+    }
+
+    /**
+     * @return a set containing all buildings
+     */
+    public BitSet all() {
+        BitSet all = new BitSet(buildings.size());
+        all.set(0, buildings.size());
+        return all;
+    }
+
+    /**
+     * @param targetQuarters
+     * @return the buildings located in one of the given quarters
+     */
+    public BitSet selectQuarters(Collection<String> targetQuarters) {
+        return union(quarters, targetQuarters);
+    }
+
+    /**
+     * @param targetBuildingTypes
+     * @return the buildings whose residential or non-residential type is one of the given types
+     */
+    public BitSet selectBuildingTypes(Collection<String> targetBuildingTypes) {
+        return union(buildingTypes, targetBuildingTypes);
+    }
+
+    /**
+     * @param targetOwnerships
+     * @return the buildings with one of the given ownerships
+     */
+    public BitSet selectOwnerships(Collection<String> targetOwnerships) {
+        return union(ownerships, targetOwnerships);
+    }
+
+    /**
+     * @param yearOfConstructionRange
+     * @return the buildings whose year of construction is contained in the given range
+     */
+    public BitSet selectYearOfConstruction(Range<Integer> yearOfConstructionRange) {
+        BitSet result = new BitSet(buildings.size());
+        yearsOfConstruction.forEach((year, bucket) -> {
+            if (yearOfConstructionRange.contains(year)) {
+                result.or(bucket);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @param maxDistrictHeatingDistance
+     * @return the buildings whose district heating outlet distance does not exceed the given maximum distance
+     */
+    public BitSet selectMaxDistrictHeatingDistance(double maxDistrictHeatingDistance) {
+        BitSet result = new BitSet(buildings.size());
+        for (int index : districtHeatingDistanceOrder) {
+            if (buildings.getDistrictHeatingOutletDistance(index) > maxDistrictHeatingDistance) {
+                break;
+            }
+            result.set(index);
+        }
+        return result;
+    }
+
+    private void add(Map<String, BitSet> map, String key, int index) {
+        map.computeIfAbsent(key, k -> new BitSet(buildings.size())).set(index);
+    }
+
+    private BitSet union(Map<String, BitSet> map, Collection<String> keys) {
+        BitSet result = new BitSet(buildings.size());
+        keys.forEach(key -> {
+            BitSet bitSet = map.get(key);
+            if (bitSet != null) {
+                result.or(bitSet);
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,609 @@
+package de.hawhh.gewiss.get.core.model;
+
+import com.vividsolutions.jts.geom.Geometry;
+import de.hawhh.gewiss.get.core.calc.BuildingEnergyCoefficients;
+import de.hawhh.gewiss.get.core.calc.EnergyCalculator;
+import de.hawhh.gewiss.get.core.calc.RenovationCosts;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Columnar (struct-of-arrays) representation of the building stock used by the simulation loop. Instead of one {@link Building} bean per building, every attribute is
+ * stored in its own primitive array and a building is addressed by its row index. Renovation levels and heating types are stored as their enum ordinals, building types
+ * as short codes of the {@link BuildingTypeDictionary} the table has been created with, extended by the types of the added buildings missing in it.
+ *
+ * @author Thomas Preisler
+ */
+public class BuildingTable {
+
+    /**
+     * Code used for a missing residential or non-residential building type.
+     */
+    public static final short NO_TYPE = BuildingTypeDictionary.NO_TYPE;
+
+    private static final RenovationLevel[] RENOVATION_LEVELS = RenovationLevel.values();
+    private static final HeatingType[] HEATING_TYPES = HeatingType.values();
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private int size;
+    private BuildingTypeDictionary buildingTypes;
+
+    // static attributes
+    private String[] alkisIDs;
+    private Geometry[] geometries;
+    private double[] residentialFloorSpace; // Wohnfäche
+    private double[] nonResidentialFloorSpace; // Nutzfläche
+    private String[] districts; // Bezirk
+    private String[] quarters; // Stadtteil
+    private String[] statisticalAreas; // statistisches Gebiet
+    private String[] cityBlocks; // Baublock
+    private int[] yearOfConstruction;
+    private boolean[] knownYearOfConstruction;
+    private int[] constructionAgeClassMean; // mean year of the Baualtersklasse
+    private short[] residentialType; // IWU-Typ
+    private short[] nonResidentialType; // NWG-Typ
+    private String[] ownerships; // Eigentum
+    private String[] clusterIDs;
+    private int[] districtHeatingOutletDistance;
+    private boolean[] knownDistrictHeatingOutletDistance;
+    private boolean[] accessDistrictHeating;
+
+    // dynamic attributes, changed by the renovation strategies
+    private int[] yearOfRenovation;
+    private byte[] renovationLevel;
+    private byte[] heatingType;
+    private double[] accumulatedRenovationCosts;
+    private int[] modificationCounts; // number of changes of the dynamic attributes, used to detect changed buildings
+    // number of buildings per renovation level, updated concurrently by the renovation strategies
+    private AtomicIntegerArray renovationLevelCounts = new AtomicIntegerArray(RENOVATION_LEVELS.length);
+
+    // precomputed energy values per renovation level, null if not calculated
+    private BuildingEnergyCoefficients energyCoefficients;
+    // precomputed renovation costs per renovation target, null if not calculated
+    private RenovationCosts renovationCosts;
+
+    /**
+     * Creates an empty table coding the building types with the given dictionary, e.g. the one of the reference tables of the
+     * {@link EnergyCalculator#getBuildingTypes()}.
+     *
+     * @param buildingTypes the dictionary of the building types
+     */
+    public BuildingTable(BuildingTypeDictionary buildingTypes) {
+        this(buildingTypes, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty table with the given initial capacity coding the building types with the given dictionary.
+     *
+     * @param buildingTypes the dictionary of the building types
+     * @param initialCapacity the number of rows to allocate initially
+     */
+    public BuildingTable(BuildingTypeDictionary buildingTypes, int initialCapacity) {
+        this.buildingTypes = buildingTypes;
+        allocate(Math.max(initialCapacity, 1));
+    }
+
+    /**
+     * Creates a copy of the given table sharing its static attributes and precomputed values, see {@link #copy()}.
+     */
+    private BuildingTable(BuildingTable source) {
+        this.size = source.size;
+        this.buildingTypes = source.buildingTypes;
+        this.alkisIDs = source.alkisIDs;
+        this.geometries = source.geometries;
+        this.residentialFloorSpace = source.residentialFloorSpace;
+        this.nonResidentialFloorSpace = source.nonResidentialFloorSpace;
+        this.districts = source.districts;
+        this.quarters = source.quarters;
+        this.statisticalAreas = source.statisticalAreas;
+        this.cityBlocks = source.cityBlocks;
+        this.yearOfConstruction = source.yearOfConstruction;
+        this.knownYearOfConstruction = source.knownYearOfConstruction;
+        this.constructionAgeClassMean = source.constructionAgeClassMean;
+        this.residentialType = source.residentialType;
+        this.nonResidentialType = source.nonResidentialType;
+        this.ownerships = source.ownerships;
+        this.clusterIDs = source.clusterIDs;
+        this.districtHeatingOutletDistance = source.districtHeatingOutletDistance;
+        this.knownDistrictHeatingOutletDistance = source.knownDistrictHeatingOutletDistance;
+        this.accessDistrictHeating = source.accessDistrictHeating;
+        this.yearOfRenovation = source.yearOfRenovation.clone();
+        this.renovationLevel = source.renovationLevel.clone();
+        this.heatingType = source.heatingType.clone();
+        this.accumulatedRenovationCosts = source.accumulatedRenovationCosts.clone();
+        this.modificationCounts = source.modificationCounts.clone();
+        this.renovationLevelCounts = copyOf(source.renovationLevelCounts);
+        this.energyCoefficients = source.energyCoefficients;
+        this.renovationCosts = source.renovationCosts;
+    }
+
+    /**
+     * Creates a table from the given {@link Building}s, the row index equals the position in the given collection.
+     *
+     * @param buildings
+     * @param buildingTypes the dictionary of the building types
+     * @return the created table
+     */
+    public static BuildingTable fromBuildings(Collection<Building> buildings, BuildingTypeDictionary buildingTypes) {
+        BuildingTable table = new BuildingTable(buildingTypes, buildings.size());
+        buildings.forEach(table::addBuilding);
+        return table;
+    }
+
+    /**
+     * Appends the given {@link Building} to the table and returns its row index.
+     *
+     * @param building
+     * @return the row index of the added building
+     */
+    public int addBuilding(Building building) {
+        return addBuilding(building.getAlkisID(), building.getGeometry(), building.getResidentialFloorSpace(), building.getNonResidentialFloorSpace(),
+                building.getDistrict(), building.getQuarter(), building.getStatisticalArea(), building.getCityBlock(), building.getYearOfConstruction(),
+                building.getRenovationLevel(), building.getYearOfRenovation(), building.getResidentialType(), building.getNonResidentialType(),
+                building.getOwnership(), building.getConstructionAgeClass(), building.getClusterID(), building.getHeatingType(),
+                building.getDistrictHeatingOutletDistance(), building.hasAccessDistrictHeating(), building.getAccumulatedRenovationCosts());
+    }
+
+    /**
+     * Appends a building to the table and returns its row index. <code>null</code> values are stored as 0 (or {@link #NO_TYPE} for building types), an unknown
+     * year of construction or district heating outlet distance is additionally flagged, see {@link #hasYearOfConstruction(int)}.
+     *
+     * @return the row index of the added building
+     */
+    public int addBuilding(String alkisID, Geometry geometry, Double residentialFloorSpace, Double nonResidentialFloorSpace, String district, String quarter,
+                           String statisticalArea, String cityBlock, Integer yearOfConstruction, RenovationLevel renovationLevel, Integer yearOfRenovation,
+                           String residentialType, String nonResidentialType, String ownership, ConstructionAgeClass constructionAgeClass, String clusterID,
+                           HeatingType heatingType, Integer districtHeatingOutletDistance, Boolean accessDistrictHeating, Double accumulatedRenovationCosts) {
+        if (size == alkisIDs.length) {
+            allocate(size + (size >> 1) + 1);
+        }
+
+        int index = size++;
+        this.energyCoefficients = null;
+        this.renovationCosts = null;
+        this.alkisIDs[index] = alkisID;
+        this.geometries[index] = geometry;
+        this.residentialFloorSpace[index] = valueOf(residentialFloorSpace);
+        this.nonResidentialFloorSpace[index] = valueOf(nonResidentialFloorSpace);
+        this.districts[index] = district;
+        this.quarters[index] = quarter;
+        this.statisticalAreas[index] = statisticalArea;
+        this.cityBlocks[index] = cityBlock;
+        this.yearOfConstruction[index] = valueOf(yearOfConstruction);
+        this.knownYearOfConstruction[index] = yearOfConstruction != null;
+        this.renovationLevel[index] = (byte) (renovationLevel != null ? renovationLevel : RenovationLevel.NO_RENOVATION).ordinal();
+        this.renovationLevelCounts.incrementAndGet(this.renovationLevel[index]);
+        this.yearOfRenovation[index] = valueOf(yearOfRenovation);
+        this.residentialType[index] = codeOf(residentialType);
+        this.nonResidentialType[index] = codeOf(nonResidentialType);
+        this.ownerships[index] = ownership;
+        this.constructionAgeClassMean[index] = constructionAgeClass != null ? valueOf(constructionAgeClass.getMean()) : 0;
+        this.clusterIDs[index] = clusterID;
+        this.heatingType[index] = (byte) (heatingType != null ? heatingType.ordinal() : -1);
+        this.districtHeatingOutletDistance[index] = valueOf(districtHeatingOutletDistance);
+        this.knownDistrictHeatingOutletDistance[index] = districtHeatingOutletDistance != null;
+        this.accessDistrictHeating[index] = accessDistrictHeating != null && accessDistrictHeating;
+        this.accumulatedRenovationCosts[index] = valueOf(accumulatedRenovationCosts);
+
+        return index;
+    }
+
+    /**
+     * Shrinks the internal arrays to the actual number of buildings. Should be called once the table is completely populated.
+     */
+    public void trimToSize() {
+        if (size < alkisIDs.length) {
+            allocate(size);
+        }
+    }
+
+    /**
+     * Creates a copy of this table for a further simulation run. The static attributes as well as the precomputed energy values and renovation costs are shared with
+     * this table, only the dynamic attributes changed by the renovation strategies are copied. Thus several copies of one loaded building stock can be simulated
+     * concurrently, each run only allocating the few dynamic columns. The table is trimmed to its size before, so that adding buildings to either table reallocates
+     * its columns instead of writing into the shared ones.
+     *
+     * @return the copy of the table
+     */
+    public BuildingTable copy() {
+        trimToSize();
+        return new BuildingTable(this);
+    }
+
+    /**
+     * Brings the dynamic attributes of this copy up to date with the given table by copying the buildings modified since (see {@link #getModificationCount(int)}).
+     * Allows to reuse a copy as a snapshot of the source table in later years without allocating and copying all dynamic columns again.
+     *
+     * @param source the table this table has been copied from
+     * @return the number of copied buildings
+     */
+    public int copyChangedFrom(BuildingTable source) {
+        if (source.alkisIDs != alkisIDs) {
+            throw new IllegalArgumentException("The table is not a copy of the given table");
+        }
+        int changed = 0;
+        for (int index = 0; index < size; index++) {
+            if (modificationCounts[index] != source.modificationCounts[index]) {
+                yearOfRenovation[index] = source.yearOfRenovation[index];
+                renovationLevel[index] = source.renovationLevel[index];
+                heatingType[index] = source.heatingType[index];
+                accumulatedRenovationCosts[index] = source.accumulatedRenovationCosts[index];
+                modificationCounts[index] = source.modificationCounts[index];
+                changed++;
+            }
+        }
+        renovationLevelCounts = copyOf(source.renovationLevelCounts);
+        return changed;
+    }
+
+    private static AtomicIntegerArray copyOf(AtomicIntegerArray counts) {
+        AtomicIntegerArray copy = new AtomicIntegerArray(counts.length());
+        for (int level = 0; level < counts.length(); level++) {
+            copy.set(level, counts.get(level));
+        }
+        return copy;
+    }
+
+    /**
+     * @return the number of buildings in the table
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Renovates the building at the given index by applying the given renovation level, updating the last year of renovation and adding the hull renovation costs to the
+     * accumulated renovation costs.
+     *
+     * @param index
+     * @param renovationLevel
+     * @param yearOfRenovation
+     */
+    public void renovate(int index, RenovationLevel renovationLevel, int yearOfRenovation) {
+        this.renovationLevelCounts.decrementAndGet(this.renovationLevel[index]);
+        this.renovationLevelCounts.incrementAndGet(renovationLevel.ordinal());
+        this.renovationLevel[index] = (byte) renovationLevel.ordinal();
+        this.yearOfRenovation[index] = yearOfRenovation;
+
+        // Precomputed costs are NaN if reference data is missing, the calculator reports the missing data
+        double costs = renovationCosts != null ? renovationCosts.getShellCosts(index, renovationLevel.ordinal()) : Double.NaN;
+        if (Double.isNaN(costs)) {
+            costs = EnergyCalculator.getInstance().calcShellRenovationCosts(this, index);
+        }
+        this.accumulatedRenovationCosts[index] += costs;
+        this.modificationCounts[index]++;
+    }
+
+    /**
+     * Exchanges the heating system of the building at the given index and adds the exchange costs to the accumulated renovation costs.
+     *
+     * @param index
+     * @param heatingSystem
+     */
+    public void exchangeHeatingSystem(int index, HeatingType heatingSystem) {
+        this.heatingType[index] = (byte) heatingSystem.ordinal();
+
+        double costs = renovationCosts != null ? renovationCosts.getHeatingExchangeCosts(index, renovationLevel[index], heatingSystem.ordinal()) : Double.NaN;
+        if (Double.isNaN(costs)) {
+            costs = EnergyCalculator.getInstance().calcHeatingExchangeRenovationCosts(this, index);
+        }
+        this.accumulatedRenovationCosts[index] += costs;
+        this.modificationCounts[index]++;
+    }
+
+    /**
+     * Creates a {@link Building} bean for the given row, e.g. for callers still working on the bean representation.
+     *
+     * @param index
+     * @return
+     */
+    public Building toBuilding(int index) {
+        Building building = new Building();
+        building.setAlkisID(alkisIDs[index]);
+        building.setGeometry(geometries[index]);
+        building.setResidentialFloorSpace(residentialFloorSpace[index]);
+        building.setNonResidentialFloorSpace(nonResidentialFloorSpace[index]);
+        building.setDistrict(districts[index]);
+        building.setQuarter(quarters[index]);
+        building.setStatisticalArea(statisticalAreas[index]);
+        building.setCityBlock(cityBlocks[index]);
+        building.setYearOfConstruction(knownYearOfConstruction[index] ? yearOfConstruction[index] : null);
+        building.setRenovationLevel(getRenovationLevel(index));
+        building.setYearOfRenovation(yearOfRenovation[index]);
+        building.setResidentialType(getResidentialType(index));
+        building.setNonResidentialType(getNonResidentialType(index));
+        building.setOwnership(ownerships[index]);
+        building.setClusterID(clusterIDs[index]);
+        building.setHeatingType(getHeatingType(index));
+        building.setHeatingTypeString(building.getHeatingType() != null ? building.getHeatingType().toString() : null);
+        building.setDistrictHeatingOutletDistance(knownDistrictHeatingOutletDistance[index] ? districtHeatingOutletDistance[index] : null);
+        building.setAccessDistrictHeating(accessDistrictHeating[index]);
+        building.setAccumulatedRenovationCosts(accumulatedRenovationCosts[index]);
+
+        return building;
+    }
+
+    public String getAlkisID(int index) {
+        return alkisIDs[index];
+    }
+
+    public Geometry getGeometry(int index) {
+        return geometries[index];
+    }
+
+    public double getResidentialFloorSpace(int index) {
+        return residentialFloorSpace[index];
+    }
+
+    public double getNonResidentialFloorSpace(int index) {
+        return nonResidentialFloorSpace[index];
+    }
+
+    /**
+     * @param index
+     * @return the sum of the residential and the non-residential floor space
+     */
+    public double getCombinedFloorSpace(int index) {
+        return residentialFloorSpace[index] + nonResidentialFloorSpace[index];
+    }
+
+    public String getDistrict(int index) {
+        return districts[index];
+    }
+
+    public String getQuarter(int index) {
+        return quarters[index];
+    }
+
+    public String getStatisticalArea(int index) {
+        return statisticalAreas[index];
+    }
+
+    public String getCityBlock(int index) {
+        return cityBlocks[index];
+    }
+
+    /**
+     * @param index
+     * @return the year of construction or 0 if unknown
+     */
+    public int getYearOfConstruction(int index) {
+        return yearOfConstruction[index];
+    }
+
+    /**
+     * @param index
+     * @return false if the year of construction of the building is unknown
+     */
+    public boolean hasYearOfConstruction(int index) {
+        return knownYearOfConstruction[index];
+    }
+
+    /**
+     * @param index
+     * @return the mean year of the construction age class or 0 if unknown
+     */
+    public int getConstructionAgeClassMean(int index) {
+        return constructionAgeClassMean[index];
+    }
+
+    /**
+     * @param index
+     * @return the last year of renovation or 0 if unknown
+     */
+    public int getYearOfRenovation(int index) {
+        return yearOfRenovation[index];
+    }
+
+    public RenovationLevel getRenovationLevel(int index) {
+        return RENOVATION_LEVELS[renovationLevel[index]];
+    }
+
+    public byte getRenovationLevelCode(int index) {
+        return renovationLevel[index];
+    }
+
+    /**
+     * Returns the number of buildings with the given renovation level. The numbers are kept up to date by each renovation, so counting takes constant time.
+     *
+     * @param renovationLevel
+     * @return the number of buildings with the given renovation level
+     */
+    public int countRenovationLevel(RenovationLevel renovationLevel) {
+        return renovationLevelCounts.get(renovationLevel.ordinal());
+    }
+
+    public HeatingType getHeatingType(int index) {
+        byte code = heatingType[index];
+        return code >= 0 ? HEATING_TYPES[code] : null;
+    }
+
+    public byte getHeatingTypeCode(int index) {
+        return heatingType[index];
+    }
+
+    /**
+     * @param index
+     * @return the residential building type (IWU) or <code>null</code> if the building has no residential part
+     */
+    public String getResidentialType(int index) {
+        return typeOf(residentialType[index]);
+    }
+
+    public short getResidentialTypeCode(int index) {
+        return residentialType[index];
+    }
+
+    /**
+     * @param index
+     * @return the non-residential building type or <code>null</code> if the building has no non-residential part
+     */
+    public String getNonResidentialType(int index) {
+        return typeOf(nonResidentialType[index]);
+    }
+
+    public short getNonResidentialTypeCode(int index) {
+        return nonResidentialType[index];
+    }
+
+    public String getOwnership(int index) {
+        return ownerships[index];
+    }
+
+    public String getClusterID(int index) {
+        return clusterIDs[index];
+    }
+
+    /**
+     * @param index
+     * @return the distance to the nearest district heating outlet or 0 if unknown
+     */
+    public int getDistrictHeatingOutletDistance(int index) {
+        return districtHeatingOutletDistance[index];
+    }
+
+    /**
+     * @param index
+     * @return false if the district heating outlet distance of the building is unknown
+     */
+    public boolean hasDistrictHeatingOutletDistance(int index) {
+        return knownDistrictHeatingOutletDistance[index];
+    }
+
+    public boolean hasAccessDistrictHeating(int index) {
+        return accessDistrictHeating[index];
+    }
+
+    public double getAccumulatedRenovationCosts(int index) {
+        return accumulatedRenovationCosts[index];
+    }
+
+    /**
+     * @return the precomputed energy values of the buildings or <code>null</code> if they have not been calculated
+     */
+    public BuildingEnergyCoefficients getEnergyCoefficients() {
+        return energyCoefficients;
+    }
+
+    /**
+     * Set the precomputed energy values of the buildings, see {@link EnergyCalculator#calcEnergyCoefficients(BuildingTable)}. They are dropped as soon as further
+     * buildings are added.
+     *
+     * @param energyCoefficients
+     */
+    public void setEnergyCoefficients(BuildingEnergyCoefficients energyCoefficients) {
+        if (energyCoefficients != null && energyCoefficients.size() != size) {
+            throw new IllegalArgumentException("Energy coefficients for " + energyCoefficients.size() + " buildings do not match the " + size + " buildings of the table");
+        }
+        this.energyCoefficients = energyCoefficients;
+    }
+
+    /**
+     * @return the precomputed renovation costs of the buildings or <code>null</code> if they have not been calculated
+     */
+    public RenovationCosts getRenovationCosts() {
+        return renovationCosts;
+    }
+
+    /**
+     * Set the precomputed renovation costs of the buildings, see {@link EnergyCalculator#calcRenovationCosts(BuildingTable)}. They are dropped as soon as further
+     * buildings are added.
+     *
+     * @param renovationCosts
+     */
+    public void setRenovationCosts(RenovationCosts renovationCosts) {
+        if (renovationCosts != null && renovationCosts.size() != size) {
+            throw new IllegalArgumentException("Renovation costs for " + renovationCosts.size() + " buildings do not match the " + size + " buildings of the table");
+        }
+        this.renovationCosts = renovationCosts;
+    }
+
+    /**
+     * Returns the number of times the building at the given index has been changed by {@link #renovate(int, RenovationLevel, int)} or
+     * {@link #exchangeHeatingSystem(int, HeatingType)}. Consumers caching derived values can compare it to a previously seen count to detect changed buildings.
+     *
+     * @param index
+     * @return the modification count of the building
+     */
+    public int getModificationCount(int index) {
+        return modificationCounts[index];
+    }
+
+    /**
+     * @return the dictionary of the building types of the table, containing the types of all added buildings
+     */
+    public BuildingTypeDictionary getBuildingTypes() {
+        return buildingTypes;
+    }
+
+    private short codeOf(String buildingType) {
+        buildingTypes = buildingTypes.with(buildingType);
+        return buildingTypes.getId(buildingType);
+    }
+
+    private String typeOf(short code) {
+        return buildingTypes.get(code);
+    }
+
+    private static double valueOf(Double value) {
+        return value != null ? value : 0d;
+    }
+
+    private static int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private void allocate(int capacity) {
+        if (alkisIDs == null) {
+            alkisIDs = new String[capacity];
+            geometries = new Geometry[capacity];
+            residentialFloorSpace = new double[capacity];
+            nonResidentialFloorSpace = new double[capacity];
+            districts = new String[capacity];
+            quarters = new String[capacity];
+            statisticalAreas = new String[capacity];
+            cityBlocks = new String[capacity];
+            yearOfConstruction = new int[capacity];
+            knownYearOfConstruction = new boolean[capacity];
+            constructionAgeClassMean = new int[capacity];
+            residentialType = new short[capacity];
+            nonResidentialType = new short[capacity];
+            ownerships = new String[capacity];
+            clusterIDs = new String[capacity];
+            districtHeatingOutletDistance = new int[capacity];
+            knownDistrictHeatingOutletDistance = new boolean[capacity];
+            accessDistrictHeating = new boolean[capacity];
+            yearOfRenovation = new int[capacity];
+            renovationLevel = new byte[capacity];
+            heatingType = new byte[capacity];
+            accumulatedRenovationCosts = new double[capacity];
+            modificationCounts = new int[capacity];
+        } else {
+            alkisIDs = Arrays.copyOf(alkisIDs, capacity);
+            geometries = Arrays.copyOf(geometries, capacity);
+            residentialFloorSpace = Arrays.copyOf(residentialFloorSpace, capacity);
+            nonResidentialFloorSpace = Arrays.copyOf(nonResidentialFloorSpace, capacity);
+            districts = Arrays.copyOf(districts, capacity);
+            quarters = Arrays.copyOf(quarters, capacity);
+            statisticalAreas = Arrays.copyOf(statisticalAreas, capacity);
+            cityBlocks = Arrays.copyOf(cityBlocks, capacity);
+            yearOfConstruction = Arrays.copyOf(yearOfConstruction, capacity);
+            knownYearOfConstruction = Arrays.copyOf(knownYearOfConstruction, capacity);
+            constructionAgeClassMean = Arrays.copyOf(constructionAgeClassMean, capacity);
+            residentialType = Arrays.copyOf(residentialType, capacity);
+            nonResidentialType = Arrays.copyOf(nonResidentialType, capacity);
+            ownerships = Arrays.copyOf(ownerships, capacity);
+            clusterIDs = Arrays.copyOf(clusterIDs, capacity);
+            districtHeatingOutletDistance = Arrays.copyOf(districtHeatingOutletDistance, capacity);
+            knownDistrictHeatingOutletDistance = Arrays.copyOf(knownDistrictHeatingOutletDistance, capacity);
+            accessDistrictHeating = Arrays.copyOf(accessDistrictHeating, capacity);
+            yearOfRenovation = Arrays.copyOf(yearOfRenovation, capacity);
+            renovationLevel = Arrays.copyOf(renovationLevel, capacity);
+            heatingType = Arrays.copyOf(heatingType, capacity);
+            accumulatedRenovationCosts = Arrays.copyOf(accumulatedRenovationCosts, capacity);
+            modificationCounts = Arrays.copyOf(modificationCounts, capacity);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package de.hawhh.gewiss.get.core.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable dictionary mapping the residential (IWU) and non-residential (NWG) building types to dense ids, so that building types can be used as array indices.
+ * The {@link de.hawhh.gewiss.get.core.calc.EnergyCalculator} creates the dictionary of the building types of its reference tables, a {@link BuildingTable} is
+ * created with this dictionary and extends it by the types of its buildings without reference data (see {@link #with(String)}). Thus the ids of the reference
+ * types are the same in every building stock loaded, while types unknown to the reference tables get ids of their building stock only.
+ *
+ * @author Thomas Preisler
+ */
+public final class BuildingTypeDictionary {
+
+    /**
+     * Id used for a missing building type.
+     */
+    public static final short NO_TYPE = -1;
+
+    /**
+     * Dictionary without any building types.
+     */
+    public static final BuildingTypeDictionary EMPTY = new BuildingTypeDictionary(Collections.emptyList());
+
+    private final String[] types;
+    private final Map<String, Short> ids;
+
+    /**
+     * Creates a dictionary of the given building types, the ids are assigned in the iteration order of the types. Duplicates and <code>null</code> are ignored.
+     *
+     * @param buildingTypes the building types
+     */
+    public BuildingTypeDictionary(Collection<String> buildingTypes) {
+        this.ids = new HashMap<>();
+        String[] distinctTypes = new String[buildingTypes.size()];
+        for (String buildingType : buildingTypes) {
+            if (buildingType != null && !ids.containsKey(buildingType)) {
+                ids.put(buildingType, (short) ids.size());
+                distinctTypes[ids.size() - 1] = buildingType;
+            }
+        }
+        this.types = Arrays.copyOf(distinctTypes, ids.size());
+    }
+
+    private BuildingTypeDictionary(BuildingTypeDictionary source, String buildingType) {
+        if (source.types.length == Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many building types");
+        }
+        this.ids = new HashMap<>(source.ids);
+        this.types = Arrays.copyOf(source.types, source.types.length + 1);
+        this.types[source.types.length] = buildingType;
+        this.ids.put(buildingType, (short) source.types.length);
+    }
+
+    /**
+     * Returns a dictionary with the types of this dictionary and the given type, which keeps the ids of this dictionary. This dictionary is returned if it already
+     * contains the type.
+     *
+     * @param buildingType the building type to add
+     * @return the dictionary containing the given type
+     */
+    public BuildingTypeDictionary with(String buildingType) {
+        return buildingType == null || ids.containsKey(buildingType) ? this : new BuildingTypeDictionary(this, buildingType);
+    }
+
+    /**
+     * Returns the id of the given building type.
+     *
+     * @param buildingType the building type
+     * @return the id of the building type, {@link #NO_TYPE} if the given type is <code>null</code>
+     * @throws IllegalArgumentException if the type is not contained in the dictionary
+     */
+    public short getId(String buildingType) {
+        if (buildingType == null) {
+            return NO_TYPE;
+        }
+        Short id = ids.get(buildingType);
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown building type " + buildingType);
+        }
+        return id;
+    }
+
+    /**
+     * @param buildingType
+     * @return whether the dictionary contains the given building type
+     */
+    public boolean contains(String buildingType) {
+        return ids.containsKey(buildingType);
+    }
+
+    /**
+     * Returns the building type of the given id.
+     *
+     * @param id
+     * @return the building type or <code>null</code> for {@link #NO_TYPE}
+     */
+    public String get(short id) {
+        return id != NO_TYPE ? types[id] : null;
+    }
+
+    /**
+     * @return the number of building types, all ids are smaller than this value
+     */
+    public int size() {
+        return types.length;
+    }
+}
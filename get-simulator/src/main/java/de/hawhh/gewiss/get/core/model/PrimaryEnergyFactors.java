@@ -1,7 +1,6 @@
 package de.hawhh.gewiss.get.core.model;
 
 import lombok.Data;
-import java.util.Map;
 
 /**
  * Primary Energy Factors data class.
@@ -18,10 +17,4 @@ public class PrimaryEnergyFactors {
     private Double co2Start;
     private Double co2Mid;
     private Double co2Final;
-    // value set in EnergyCalculator class using relevant SimulationParameter variables
-    private Map<Integer, Double> yearlyCO2Emissions; // <year, CO2_emissions>
-
-    public Double getCO2DataForYear(Integer year) {
-        return yearlyCO2Emissions.get(year);
-    }
 }
@@ -0,0 +1,108 @@
+package de.hawhh.gewiss.get.core.output;
+
+import de.hawhh.gewiss.get.core.model.RenovationLevel;
+import org.javatuples.Triplet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps only the yearly totals of the building stock instead of the outputs of all buildings. The totals equal the ones of a {@link SimulationResult} holding all
+ * outputs (e.g. {@link SimulationResult#getYearlyHeatDemand(String)} without a quarter), while the outputs of a year can be garbage collected as soon as they are
+ * summed up. If the result is aggregated into an {@link AggregationCube} during the simulation, which includes {@link AggregationLevel#CITY}, the totals are
+ * taken from the cube instead. The cube sums up the buildings by cell, so its totals may differ from the sums over all outputs in the last digits.
+ *
+ * @author Thomas Preisler
+ */
+public class AggregateOutputSink implements SimulationOutputSink {
+
+    private final Map<Integer, Double> heatDemand = new TreeMap<>();
+    private final Map<Integer, Double> co2Emissions = new TreeMap<>();
+    private final Map<Integer, Double> renovationCosts = new TreeMap<>();
+    private final Map<Integer, Triplet<Long, Long, Long>> renovationLevels = new TreeMap<>();
+    // result with a cube covering the whole city, null if the totals are summed up by the sink
+    private SimulationResult cubeResult;
+
+    @Override
+    public void open(SimulationResult result) {
+        AggregationCube cube = result.getCube();
+        cubeResult = cube != null && cube.getLevels().contains(AggregationLevel.CITY) ? result : null;
+    }
+
+    @Override
+    public void accept(int year, List<SimulationOutput> outputs) {
+        heatDemand.put(year, outputs.stream().mapToDouble(SimulationOutput::getHeatDemand).sum());
+        // transformation from g/year to tons/year.
+        co2Emissions.put(year, outputs.stream().mapToDouble(SimulationOutput::getCo2Emission).sum() / 1000000);
+        renovationCosts.put(year, outputs.stream().mapToDouble(SimulationOutput::getRenovationCost).sum());
+
+        long noRenovation = outputs.stream().filter(so -> RenovationLevel.NO_RENOVATION.equals(so.getRenovationLevel())).count();
+        long basicRenovation = outputs.stream().filter(so -> RenovationLevel.BASIC_RENOVATION.equals(so.getRenovationLevel())).count();
+        long goodRenovation = outputs.stream().filter(so -> RenovationLevel.GOOD_RENOVATION.equals(so.getRenovationLevel())).count();
+        renovationLevels.put(year, new Triplet<>(noRenovation, basicRenovation, goodRenovation));
+    }
+
+    @Override
+    public void accept(YearFrame frame) {
+        if (cubeResult != null) {
+            // already aggregated in the cube
+            return;
+        }
+        heatDemand.put(frame.getYear(), frame.sumHeatDemand(null));
+        // transformation from g/year to tons/year.
+        co2Emissions.put(frame.getYear(), frame.sumCO2Emission(null) / 1000000);
+        renovationCosts.put(frame.getYear(), frame.sumRenovationCost(null));
+        renovationLevels.put(frame.getYear(), new Triplet<>(frame.countRenovationLevel(RenovationLevel.NO_RENOVATION, null),
+                frame.countRenovationLevel(RenovationLevel.BASIC_RENOVATION, null), frame.countRenovationLevel(RenovationLevel.GOOD_RENOVATION, null)));
+    }
+
+    @Override
+    public boolean supportsConstantYears() {
+        return true;
+    }
+
+    @Override
+    public void acceptConstantYears(YearFrame frame, int lastYear) {
+        int firstYear = frame.getYear() + 1;
+        if (cubeResult != null) {
+            cubeResult.setConstantFromYear(firstYear);
+            cubeResult.setConstantUntilYear(lastYear);
+            return;
+        }
+        for (int year = firstYear; year <= lastYear; year++) {
+            heatDemand.put(year, heatDemand.get(frame.getYear()));
+            co2Emissions.put(year, co2Emissions.get(frame.getYear()));
+            renovationCosts.put(year, renovationCosts.get(frame.getYear()));
+            renovationLevels.put(year, renovationLevels.get(frame.getYear()));
+        }
+    }
+
+    /**
+     * @return the overall heat demand by year
+     */
+    public Map<Integer, Double> getHeatDemand() {
+        return cubeResult != null ? cubeResult.getYearlyHeatDemand(null) : heatDemand;
+    }
+
+    /**
+     * @return the overall CO2 emissions in tons by year
+     */
+    public Map<Integer, Double> getCO2Emissions() {
+        return cubeResult != null ? cubeResult.getCO2Emissions(null) : co2Emissions;
+    }
+
+    /**
+     * @return the overall accumulated renovation costs by year
+     */
+    public Map<Integer, Double> getRenovationCosts() {
+        return cubeResult != null ? cubeResult.getRenovationCosts(null) : renovationCosts;
+    }
+
+    /**
+     * @return the number of buildings in the three renovation levels by year
+     */
+    public Map<Integer, Triplet<Long, Long, Long>> getRenovationLevels() {
+        return cubeResult != null ? cubeResult.getRenovationLevels(null) : renovationLevels;
+    }
+}
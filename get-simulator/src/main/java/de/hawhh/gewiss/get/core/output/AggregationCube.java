@@ -0,0 +1,314 @@
+package de.hawhh.gewiss.get.core.output;
+
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.core.model.HeatingType;
+import de.hawhh.gewiss.get.core.model.RenovationLevel;
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Pre-aggregated outputs of a simulation run by year, {@link AggregationLevel} and area, heating type and renovation level. A cell of the cube holds the number of
+ * buildings and the sums of their heat demand, final energy, CO2 emissions, accumulated renovation costs and combined floor space. The cube is filled year by year
+ * while the simulation is running, so queries only touch the cells of a year instead of the outputs of all buildings.
+ *
+ * The levels of a year are aggregated concurrently, each in the order of the buildings, so the sums do not depend on the number of threads. The sums of the
+ * cells and the sums over the cells of a query are compensated (Kahan summation) like {@link java.util.stream.DoubleStream#sum()}, they may still differ from the
+ * sums over the outputs of all buildings in the last digits as the values are grouped by cell. Only non-empty cells are stored. An area is addressed by its name, buildings without an area at a level form an area without a name, which is only included when querying all areas.
+ *
+ * @author Thomas Preisler
+ */
+@EqualsAndHashCode
+public class AggregationCube {
+
+    /**
+     * Summed up values of the buildings of a cell.
+     */
+    public enum Measure {
+        HEAT_DEMAND, FINAL_ENERGY, CO2_EMISSION, RENOVATION_COST, FLOOR_AREA
+    }
+
+    private static final HeatingType[] HEATING_TYPES = HeatingType.values();
+    private static final int RENOVATION_LEVELS = RenovationLevel.values().length;
+    private static final int MEASURES = Measure.values().length;
+    private static final int CELLS_PER_AREA = HEATING_TYPES.length * RENOVATION_LEVELS;
+
+    private final Map<AggregationLevel, Areas> areas;
+    private final SortedMap<Integer, Map<AggregationLevel, Cells>> years = new TreeMap<>();
+
+    /**
+     * Areas of a level and the area of each building.
+     */
+    @EqualsAndHashCode(exclude = "buildingAreas")
+    private static class Areas {
+
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final int[] buildingAreas;
+
+        private Areas(BuildingTable buildings, AggregationLevel level) {
+            this.buildingAreas = new int[buildings.size()];
+            for (int index = 0; index < buildings.size(); index++) {
+                String area = areaOf(buildings, level, index);
+                Integer code = codes.get(area);
+                if (code == null) {
+                    code = names.size();
+                    codes.put(area, code);
+                    names.add(area);
+                }
+                buildingAreas[index] = code;
+            }
+        }
+    }
+
+    /**
+     * Non-empty cells of a level in one year, sorted by their key (area, heating type and renovation level).
+     */
+    @EqualsAndHashCode
+    private static class Cells {
+
+        private final int[] keys;
+        private final int[] counts;
+        private final double[] sums; // [cell * MEASURES + measure]
+
+        private Cells(int[] keys, int[] counts, double[] sums) {
+            this.keys = keys;
+            this.counts = counts;
+            this.sums = sums;
+        }
+    }
+
+    /**
+     * Creates an empty cube for the given buildings and levels.
+     *
+     * @param buildings the building stock of the simulation run
+     * @param levels the levels to aggregate on
+     */
+    public AggregationCube(BuildingTable buildings, Set<AggregationLevel> levels) {
+        this.areas = new EnumMap<>(AggregationLevel.class);
+        levels.forEach(level -> areas.put(level, new Areas(buildings, level)));
+    }
+
+    private AggregationCube(Map<AggregationLevel, Areas> areas) {
+        this.areas = areas;
+    }
+
+    /**
+     * @return an empty cube with the same levels and areas, e.g. for another scenario over the same buildings
+     */
+    public AggregationCube emptyCopy() {
+        return new AggregationCube(areas);
+    }
+
+    private static String areaOf(BuildingTable buildings, AggregationLevel level, int index) {
+        switch (level) {
+            case DISTRICT:
+                return buildings.getDistrict(index);
+            case QUARTER:
+                return buildings.getQuarter(index);
+            case STATISTICAL_AREA:
+                return buildings.getStatisticalArea(index);
+            case CITY_BLOCK:
+                return buildings.getCityBlock(index);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Aggregates the outputs of a year. The frame has to contain the buildings the cube has been created for, in the same order.
+     *
+     * @param frame the outputs of the year
+     */
+    public void add(YearFrame frame) {
+        List<AggregationLevel> levels = new ArrayList<>(areas.keySet());
+        List<Cells> cells = levels.parallelStream().map(level -> aggregate(areas.get(level), frame)).collect(Collectors.toList());
+
+        Map<AggregationLevel, Cells> year = new EnumMap<>(AggregationLevel.class);
+        for (int level = 0; level < levels.size(); level++) {
+            year.put(levels.get(level), cells.get(level));
+        }
+        years.put(frame.getYear(), year);
+    }
+
+    private static Cells aggregate(Areas areas, YearFrame frame) {
+        if (frame.size() != areas.buildingAreas.length) {
+            throw new IllegalArgumentException("Expected outputs of " + areas.buildingAreas.length + " buildings, got " + frame.size());
+        }
+        int[] counts = new int[areas.names.size() * CELLS_PER_AREA];
+        double[] sums = new double[counts.length * MEASURES];
+        double[] compensations = new double[sums.length];
+        for (int index = 0; index < frame.size(); index++) {
+            int key = (areas.buildingAreas[index] * HEATING_TYPES.length + frame.getHeatingTypeCode(index)) * RENOVATION_LEVELS + frame.getRenovationLevelCode(index);
+            counts[key]++;
+            add(sums, compensations, key * MEASURES + Measure.HEAT_DEMAND.ordinal(), frame.getHeatDemand(index));
+            add(sums, compensations, key * MEASURES + Measure.FINAL_ENERGY.ordinal(), frame.getFinalEnergy(index));
+            add(sums, compensations, key * MEASURES + Measure.CO2_EMISSION.ordinal(), frame.getCO2Emission(index));
+            add(sums, compensations, key * MEASURES + Measure.RENOVATION_COST.ordinal(), frame.getRenovationCost(index));
+            add(sums, compensations, key * MEASURES + Measure.FLOOR_AREA.ordinal(), frame.getDictionary().getCombinedArea(index));
+        }
+
+        // keep the non-empty cells only
+        int cellCount = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                cellCount++;
+            }
+        }
+        int[] cellKeys = new int[cellCount];
+        int[] cellCounts = new int[cellCount];
+        double[] cellSums = new double[cellCount * MEASURES];
+        int cell = 0;
+        for (int key = 0; key < counts.length; key++) {
+            if (counts[key] > 0) {
+                cellKeys[cell] = key;
+                cellCounts[cell] = counts[key];
+                System.arraycopy(sums, key * MEASURES, cellSums, cell * MEASURES, MEASURES);
+                cell++;
+            }
+        }
+        return new Cells(cellKeys, cellCounts, cellSums);
+    }
+
+    /**
+     * Adds the value to the sum at the given position with Kahan summation, the compensation keeps the low-order bits lost by the previous additions.
+     */
+    private static void add(double[] sums, double[] compensations, int position, double value) {
+        double compensated = value - compensations[position];
+        double sum = sums[position] + compensated;
+        compensations[position] = (sum - sums[position]) - compensated;
+        sums[position] = sum;
+    }
+
+    /**
+     * Takes over the aggregates of a year for another year, e.g. for the constant years of a steady state.
+     *
+     * @param fromYear the aggregated year
+     * @param toYear the year with the same aggregates
+     */
+    public void copyYear(int fromYear, int toYear) {
+        years.put(toYear, years.get(fromYear));
+    }
+
+    /**
+     * @return the aggregated years
+     */
+    public Set<Integer> getYears() {
+        return Collections.unmodifiableSet(years.keySet());
+    }
+
+    /**
+     * @return the aggregated levels
+     */
+    public Set<AggregationLevel> getLevels() {
+        return Collections.unmodifiableSet(areas.keySet());
+    }
+
+    /**
+     * @param level an aggregated level
+     * @return the names of the areas of the level in the order of their first building, {@link AggregationLevel#CITY} has a single area without a name
+     */
+    public List<String> getAreas(AggregationLevel level) {
+        return Collections.unmodifiableList(areas.get(level).names);
+    }
+
+    /**
+     * Sums up a measure over the matching cells of a year.
+     *
+     * @param year the year
+     * @param measure the measure to sum up
+     * @param level an aggregated level
+     * @param area the name of an area of the level or <code>null</code> for all areas
+     * @param heatingType a heating type or <code>null</code> for all heating types
+     * @param renovationLevel a renovation level or <code>null</code> for all renovation levels
+     * @return the sum of the measure, 0 if the year has not been aggregated or no cell matches
+     */
+    public double sum(int year, Measure measure, AggregationLevel level, String area, HeatingType heatingType, RenovationLevel renovationLevel) {
+        Cells cells = cellsOf(year, level);
+        double[] sum = new double[1];
+        double[] compensation = new double[1];
+        if (cells != null) {
+            int[] range = range(cells, level, area);
+            for (int cell = range[0]; cell < range[1]; cell++) {
+                if (matches(cells.keys[cell], heatingType, renovationLevel)) {
+                    add(sum, compensation, 0, cells.sums[cell * MEASURES + measure.ordinal()]);
+                }
+            }
+        }
+        return sum[0];
+    }
+
+    /**
+     * Counts the buildings of the matching cells of a year.
+     *
+     * @param year the year
+     * @param level an aggregated level
+     * @param area the name of an area of the level or <code>null</code> for all areas
+     * @param heatingType a heating type or <code>null</code> for all heating types
+     * @param renovationLevel a renovation level or <code>null</code> for all renovation levels
+     * @return the number of buildings, 0 if the year has not been aggregated or no cell matches
+     */
+    public long count(int year, AggregationLevel level, String area, HeatingType heatingType, RenovationLevel renovationLevel) {
+        Cells cells = cellsOf(year, level);
+        long count = 0;
+        if (cells != null) {
+            int[] range = range(cells, level, area);
+            for (int cell = range[0]; cell < range[1]; cell++) {
+                if (matches(cells.keys[cell], heatingType, renovationLevel)) {
+                    count += cells.counts[cell];
+                }
+            }
+        }
+        return count;
+    }
+
+    private Cells cellsOf(int year, AggregationLevel level) {
+        if (!areas.containsKey(level)) {
+            throw new IllegalArgumentException("Level " + level + " is not aggregated");
+        }
+        Map<AggregationLevel, Cells> cells = years.get(year);
+        return cells != null ? cells.get(level) : null;
+    }
+
+    /**
+     * @return the positions [from, to) of the cells of the given area, the keys of an area are consecutive
+     */
+    private int[] range(Cells cells, AggregationLevel level, String area) {
+        if (area == null) {
+            return new int[]{0, cells.keys.length};
+        }
+        Integer code = areas.get(level).codes.get(area);
+        if (code == null) {
+            return new int[]{0, 0};
+        }
+        return new int[]{lowerBound(cells.keys, code * CELLS_PER_AREA), lowerBound(cells.keys, (code + 1) * CELLS_PER_AREA)};
+    }
+
+    private static int lowerBound(int[] keys, int key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean matches(int key, HeatingType heatingType, RenovationLevel renovationLevel) {
+        return (heatingType == null || (key / RENOVATION_LEVELS) % HEATING_TYPES.length == heatingType.ordinal())
+                && (renovationLevel == null || key % RENOVATION_LEVELS == renovationLevel.ordinal());
+    }
+}
@@ -0,0 +1,34 @@
+package de.hawhh.gewiss.get.core.output;
+
+/**
+ * Enumeration of the spatial levels the outputs of the buildings are aggregated on, see {@link AggregationCube}.
+ *
+ * @author Thomas Preisler
+ */
+public enum AggregationLevel {
+
+    /**
+     * All buildings of the city in a single area.
+     */
+    CITY,
+
+    /**
+     * Bezirk
+     */
+    DISTRICT,
+
+    /**
+     * Stadtteil
+     */
+    QUARTER,
+
+    /**
+     * Statistisches Gebiet
+     */
+    STATISTICAL_AREA,
+
+    /**
+     * Baublock
+     */
+    CITY_BLOCK
+}
@@ -0,0 +1,103 @@
+package de.hawhh.gewiss.get.core.output;
+
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import lombok.EqualsAndHashCode;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Static attributes of the buildings of a simulation run, shared by all {@link YearFrame}s of the run. A building is addressed by its dense index, which is the
+ * index of the building in the {@link BuildingTable} of the run.
+ *
+ * @author Thomas Preisler
+ */
+@EqualsAndHashCode(exclude = "indexById")
+public class BuildingDictionary {
+
+    private final String[] buildingIds;
+    private final String[] clusterIds;
+    private final String[] quarters;
+    private final double[] residentialAreas;
+    private final double[] nonResidentialAreas;
+    private final double[] combinedAreas;
+
+    // index of the building ids, created on first use
+    private volatile Map<String, Integer> indexById;
+
+    /**
+     * Takes the static attributes of the given buildings.
+     *
+     * @param buildings the building stock
+     */
+    public BuildingDictionary(BuildingTable buildings) {
+        int size = buildings.size();
+        this.buildingIds = new String[size];
+        this.clusterIds = new String[size];
+        this.quarters = new String[size];
+        this.residentialAreas = new double[size];
+        this.nonResidentialAreas = new double[size];
+        this.combinedAreas = new double[size];
+        for (int index = 0; index < size; index++) {
+            buildingIds[index] = buildings.getAlkisID(index);
+            clusterIds[index] = buildings.getClusterID(index);
+            quarters[index] = buildings.getQuarter(index);
+            residentialAreas[index] = buildings.getResidentialFloorSpace(index);
+            nonResidentialAreas[index] = buildings.getNonResidentialFloorSpace(index);
+            combinedAreas[index] = buildings.getCombinedFloorSpace(index);
+        }
+    }
+
+    public int size() {
+        return buildingIds.length;
+    }
+
+    public String getBuildingId(int index) {
+        return buildingIds[index];
+    }
+
+    public String getClusterId(int index) {
+        return clusterIds[index];
+    }
+
+    public String getQuarter(int index) {
+        return quarters[index];
+    }
+
+    public double getResidentialArea(int index) {
+        return residentialAreas[index];
+    }
+
+    public double getNonResidentialArea(int index) {
+        return nonResidentialAreas[index];
+    }
+
+    public double getCombinedArea(int index) {
+        return combinedAreas[index];
+    }
+
+    /**
+     * @param buildingId the alkis id of a building
+     * @return the index of the building or -1 if there is no building with the given id
+     */
+    public int indexOf(String buildingId) {
+        Map<String, Integer> index = indexById;
+        if (index == null) {
+            index = new HashMap<>(2 * buildingIds.length);
+            for (int building = 0; building < buildingIds.length; building++) {
+                index.put(buildingIds[building], building);
+            }
+            indexById = index;
+        }
+        return index.getOrDefault(buildingId, -1);
+    }
+
+    /**
+     * @param quarter the quarter
+     * @return the indices of the buildings in the given quarter in ascending order
+     */
+    public int[] indicesOfQuarter(String quarter) {
+        return IntStream.range(0, quarters.length).filter(index -> quarter.equals(quarters[index])).toArray();
+    }
+}
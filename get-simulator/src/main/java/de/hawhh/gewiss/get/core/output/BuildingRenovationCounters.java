@@ -0,0 +1,153 @@
+package de.hawhh.gewiss.get.core.output;
+
+import de.hawhh.gewiss.get.core.model.HeatingType;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per building counters over the runs of an ensemble: in how many runs a building has been renovated in each simulated year and in how many runs it ended up with
+ * each {@link HeatingType}. Every year in which a building is changed counts, so a building renovated twice in a run counts in both years. The counters are updated
+ * once per finished run and the run is discarded afterwards, so the memory needed does not grow with the number of runs.
+ *
+ * @author Thomas Preisler
+ */
+public class BuildingRenovationCounters {
+
+    private static final HeatingType[] HEATING_TYPES = HeatingType.values();
+
+    private final String[] buildingIds;
+    private final int firstYear;
+    private final int years;
+
+    private final int[] renovationCounts; // [building][year - firstYear]
+    private final int[] heatingTypeCounts; // [building][heating type]
+    private int runs;
+
+    /**
+     * @param buildingIds the ids of the buildings, indexed by the building index
+     * @param firstYear the first simulated year
+     * @param lastYear the last simulated year
+     */
+    public BuildingRenovationCounters(String[] buildingIds, int firstYear, int lastYear) {
+        this.buildingIds = buildingIds;
+        this.firstYear = firstYear;
+        this.years = lastYear - firstYear + 1;
+        this.renovationCounts = new int[buildingIds.length * years];
+        this.heatingTypeCounts = new int[buildingIds.length * HEATING_TYPES.length];
+    }
+
+    /**
+     * Counts the outcome of one run.
+     *
+     * @param renovated the buildings renovated in each year, indexed by year - first year
+     * @param finalHeatingTypes the heating type ordinals of the buildings in the last year, -1 for buildings without heating type
+     */
+    public void addRun(BitSet[] renovated, byte[] finalHeatingTypes) {
+        if (renovated.length != years || finalHeatingTypes.length != buildingIds.length) {
+            throw new IllegalArgumentException("Run of " + renovated.length + " years and " + finalHeatingTypes.length + " buildings does not match the counters");
+        }
+        for (BitSet yearRenovated : renovated) {
+            if (yearRenovated.length() > buildingIds.length) {
+                throw new IllegalArgumentException("Renovated building " + (yearRenovated.length() - 1) + " is not one of the " + buildingIds.length + " buildings of the counters");
+            }
+        }
+        for (int year = 0; year < years; year++) {
+            for (int index = renovated[year].nextSetBit(0); index >= 0; index = renovated[year].nextSetBit(index + 1)) {
+                renovationCounts[index * years + year]++;
+            }
+        }
+        for (int index = 0; index < finalHeatingTypes.length; index++) {
+            if (finalHeatingTypes[index] >= 0) {
+                heatingTypeCounts[index * HEATING_TYPES.length + finalHeatingTypes[index]]++;
+            }
+        }
+        runs++;
+    }
+
+    /**
+     * @return the number of counted runs
+     */
+    public int getRuns() {
+        return runs;
+    }
+
+    /**
+     * @return the number of buildings
+     */
+    public int size() {
+        return buildingIds.length;
+    }
+
+    public String getBuildingId(int index) {
+        return buildingIds[index];
+    }
+
+    /**
+     * @param index the index of the building
+     * @param year the simulated year
+     * @return the share of runs in which the building has been renovated in the given year
+     */
+    public double getRenovationProbability(int index, int year) {
+        return runs > 0 ? renovationCounts[index * years + year - firstYear] / (double) runs : 0d;
+    }
+
+    /**
+     * @param index the index of the building
+     * @param year the simulated year
+     * @return the average number of renovations of the building up to and including the given year
+     */
+    public double getExpectedRenovations(int index, int year) {
+        int renovations = 0;
+        for (int offset = 0; offset <= year - firstYear; offset++) {
+            renovations += renovationCounts[index * years + offset];
+        }
+        return runs > 0 ? renovations / (double) runs : 0d;
+    }
+
+    /**
+     * @param index the index of the building
+     * @param heatingType
+     * @return the share of runs in which the building has the given heating type in the last simulated year
+     */
+    public double getHeatingTypeProbability(int index, HeatingType heatingType) {
+        return runs > 0 ? heatingTypeCounts[index * HEATING_TYPES.length + heatingType.ordinal()] / (double) runs : 0d;
+    }
+
+    /**
+     * @param index the index of the building
+     * @return the most frequent heating type of the building in the last simulated year or <code>null</code> if the building has no heating type
+     */
+    public HeatingType getMostLikelyHeatingType(int index) {
+        HeatingType mostLikely = null;
+        int maxCount = 0;
+        for (HeatingType heatingType : HEATING_TYPES) {
+            int count = heatingTypeCounts[index * HEATING_TYPES.length + heatingType.ordinal()];
+            if (count > maxCount) {
+                mostLikely = heatingType;
+                maxCount = count;
+            }
+        }
+        return mostLikely;
+    }
+
+    /**
+     * Creates the properties of the building for the GeoJSON export of the given year.
+     *
+     * @param index the index of the building
+     * @param year the exported year
+     * @return the properties of the GeoJSON feature of the building
+     */
+    public Map<String, Object> getFeatureProperties(int index, int year) {
+        HeatingType heatingType = getMostLikelyHeatingType(index);
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("building_id", buildingIds[index]);
+        properties.put("renovation_probability", getRenovationProbability(index, year));
+        properties.put("expected_renovations", getExpectedRenovations(index, year));
+        properties.put("heating_system", heatingType != null ? heatingType.toString() : null);
+        properties.put("heating_system_probability", heatingType != null ? getHeatingTypeProbability(index, heatingType) : 0d);
+        return properties;
+    }
+}
@@ -0,0 +1,89 @@
+package de.hawhh.gewiss.get.core.output;
+
+import au.com.bytecode.opencsv.CSVWriter;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes the outputs of all years to a CSV file while the simulation is running, with the same columns as the CSV export of the user interface. Only the outputs of
+ * the current year are held in memory.
+ *
+ * @author Thomas Preisler
+ */
+public class CsvFileOutputSink implements SimulationOutputSink {
+
+    private final static Logger LOGGER = Logger.getLogger(CsvFileOutputSink.class.getName());
+
+    private static final String[] HEADER = {"Year", "Building ID", "Cluster ID", "Quarter", "Heat Demand", "Head Demand m^2", "Final Energy", "CO2 emission",
+        "Renovation Level", "Heating Type", "Renovation Cost", "Residential Floor Space", "Combined Floor Space"};
+
+    private final File file;
+    private CSVWriter csvWriter;
+    private Map<String, BuildingInformation> buildings;
+
+    /**
+     * @param file the CSV file, replaced if it exists
+     */
+    public CsvFileOutputSink(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public void open(SimulationResult result) {
+        LOGGER.log(Level.INFO, "Writing simulation outputs to CSV file: {0}", file);
+        this.buildings = result.getBuildings();
+        try {
+            this.csvWriter = new CSVWriter(new BufferedWriter(new FileWriter(file)));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open " + file, ex);
+        }
+        csvWriter.writeNext(HEADER);
+    }
+
+    @Override
+    public void accept(int year, List<SimulationOutput> outputs) {
+        LOGGER.log(Level.INFO, "Writing data to CSV file for {0}", Integer.toString(year));
+        for (SimulationOutput so : outputs) {
+            BuildingInformation building = buildings.get(so.getBuildingId());
+            csvWriter.writeNext(new String[]{
+                String.valueOf(so.getYear()),
+                so.getBuildingId(),
+                building != null ? building.getClusterId() : null,
+                building != null ? building.getQuarter() : null,
+                String.valueOf(so.getHeatDemand()),
+                String.valueOf(so.getHeatDemandM2()),
+                String.valueOf(so.getFinalEnergy()),
+                String.valueOf(so.getCo2Emission()),
+                so.getRenovationLevelString(),
+                so.getHeatingTypeString(),
+                String.valueOf(so.getRenovationCost()),
+                String.valueOf(so.getResidentialArea()),
+                String.valueOf(so.getCombinedArea())
+            });
+        }
+        if (csvWriter.checkError()) {
+            throw new UncheckedIOException(new IOException("Could not write to " + file));
+        }
+    }
+
+    @Override
+    public void close(SimulationResult result) {
+        if (csvWriter == null) {
+            return;
+        }
+        try {
+            csvWriter.close();
+            LOGGER.info("Finished writing CSV file");
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not close " + file, ex);
+        }
+    }
+}
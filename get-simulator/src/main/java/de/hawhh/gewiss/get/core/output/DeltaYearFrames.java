@@ -0,0 +1,515 @@
+package de.hawhh.gewiss.get.core.output;
+
+import de.hawhh.gewiss.get.core.calc.CO2Schedule;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+/**
+ * Delta-encoded {@link YearFrame}s of consecutive years. Between two years only the renovated buildings change their renovation level, heating type, accumulated
+ * renovation costs, heat demand and final energy, so only a keyframe with the values of all buildings is stored every {@link #getKeyframeInterval()} years and
+ * the years in between are stored as sparse lists of the changed buildings. The CO2 emissions of the years between the keyframes are not stored, they are
+ * recalculated from the final energy with the CO2 factors of the schedule.
+ *
+ * The frames are reconstructed on access: {@link #get(Object)} applies the changes since the last keyframe, iterating over the frames applies the changes year by
+ * year and {@link #getTrajectory(String)} follows a single building. Frames can only be added in the order of the years, the map is read-only otherwise. The
+ * range views ({@link #subMap(Integer, Integer)}, {@link #headMap(Integer)} and {@link #tailMap(Integer)}) are read-only and reconstruct their frames the same
+ * way, starting at the last keyframe before their first year.
+ *
+ * @author Thomas Preisler
+ */
+public class DeltaYearFrames extends AbstractMap<Integer, YearFrame> implements SortedMap<Integer, YearFrame> {
+
+    private final CO2Schedule co2Schedule;
+    private final int keyframeInterval;
+
+    private final TreeMap<Integer, YearFrame> keyframes = new TreeMap<>();
+    private final TreeMap<Integer, YearDelta> deltas = new TreeMap<>();
+    // last added frame, the base of the changes of the next year
+    private YearFrame last;
+
+    /**
+     * Changed values of the buildings in one year, sorted by the building index.
+     */
+    private static class YearDelta {
+
+        private final int[] indices;
+        private final double[] heatDemand;
+        private final double[] renovationCost;
+        private final double[] residentialFinalEnergy;
+        private final double[] nonResidentialFinalEnergy;
+        private final byte[] renovationLevel;
+        private final byte[] heatingType;
+
+        private YearDelta(YearFrame previous, YearFrame frame) {
+            this.indices = IntStream.range(0, frame.size()).filter(index -> changed(previous, frame, index)).toArray();
+            this.heatDemand = new double[indices.length];
+            this.renovationCost = new double[indices.length];
+            this.residentialFinalEnergy = new double[indices.length];
+            this.nonResidentialFinalEnergy = new double[indices.length];
+            this.renovationLevel = new byte[indices.length];
+            this.heatingType = new byte[indices.length];
+            for (int change = 0; change < indices.length; change++) {
+                int index = indices[change];
+                heatDemand[change] = frame.getHeatDemand(index);
+                renovationCost[change] = frame.getRenovationCost(index);
+                residentialFinalEnergy[change] = frame.getResidentialFinalEnergy(index);
+                nonResidentialFinalEnergy[change] = frame.getNonResidentialFinalEnergy(index);
+                renovationLevel[change] = frame.getRenovationLevelCode(index);
+                heatingType[change] = frame.getHeatingTypeCode(index);
+            }
+        }
+
+        private static boolean changed(YearFrame previous, YearFrame frame, int index) {
+            return previous.getRenovationLevelCode(index) != frame.getRenovationLevelCode(index) || previous.getHeatingTypeCode(index) != frame.getHeatingTypeCode(index)
+                    || Double.compare(previous.getHeatDemand(index), frame.getHeatDemand(index)) != 0
+                    || Double.compare(previous.getRenovationCost(index), frame.getRenovationCost(index)) != 0
+                    || Double.compare(previous.getResidentialFinalEnergy(index), frame.getResidentialFinalEnergy(index)) != 0
+                    || Double.compare(previous.getNonResidentialFinalEnergy(index), frame.getNonResidentialFinalEnergy(index)) != 0;
+        }
+    }
+
+    /**
+     * Values of all buildings while the changes of the years are applied.
+     */
+    private class State {
+
+        private final BuildingDictionary dictionary;
+        private final double[] heatDemand;
+        private final double[] renovationCost;
+        private final double[] residentialFinalEnergy;
+        private final double[] nonResidentialFinalEnergy;
+        private final byte[] renovationLevel;
+        private final byte[] heatingType;
+
+        private State(YearFrame keyframe) {
+            this.dictionary = keyframe.getDictionary();
+            int size = keyframe.size();
+            this.heatDemand = new double[size];
+            this.renovationCost = new double[size];
+            this.residentialFinalEnergy = new double[size];
+            this.nonResidentialFinalEnergy = new double[size];
+            this.renovationLevel = new byte[size];
+            this.heatingType = new byte[size];
+            for (int index = 0; index < size; index++) {
+                heatDemand[index] = keyframe.getHeatDemand(index);
+                renovationCost[index] = keyframe.getRenovationCost(index);
+                residentialFinalEnergy[index] = keyframe.getResidentialFinalEnergy(index);
+                nonResidentialFinalEnergy[index] = keyframe.getNonResidentialFinalEnergy(index);
+                renovationLevel[index] = keyframe.getRenovationLevelCode(index);
+                heatingType[index] = keyframe.getHeatingTypeCode(index);
+            }
+        }
+
+        private void apply(YearDelta delta) {
+            for (int change = 0; change < delta.indices.length; change++) {
+                int index = delta.indices[change];
+                heatDemand[index] = delta.heatDemand[change];
+                renovationCost[index] = delta.renovationCost[change];
+                residentialFinalEnergy[index] = delta.residentialFinalEnergy[change];
+                nonResidentialFinalEnergy[index] = delta.nonResidentialFinalEnergy[change];
+                renovationLevel[index] = delta.renovationLevel[change];
+                heatingType[index] = delta.heatingType[change];
+            }
+        }
+
+        private YearFrame toFrame(int year) {
+            YearFrame frame = new YearFrame(year, dictionary);
+            for (int index = 0; index < heatDemand.length; index++) {
+                frame.set(index, heatDemand[index], co2Emission(dictionary, index, year, heatingType[index], residentialFinalEnergy[index],
+                        nonResidentialFinalEnergy[index]), renovationLevel[index], heatingType[index], renovationCost[index], residentialFinalEnergy[index],
+                        nonResidentialFinalEnergy[index]);
+            }
+            return frame;
+        }
+    }
+
+    /**
+     * @param co2Schedule the CO2 factors the CO2 emissions of the frames have been calculated with
+     * @param keyframeInterval number of years between two keyframes
+     */
+    public DeltaYearFrames(CO2Schedule co2Schedule, int keyframeInterval) {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("Keyframe interval must be at least 1, got " + keyframeInterval);
+        }
+        this.co2Schedule = co2Schedule;
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    /**
+     * @return the number of stored keyframes
+     */
+    public int getKeyframeCount() {
+        return keyframes.size();
+    }
+
+    /**
+     * @return the number of stored building changes of the years between the keyframes
+     */
+    public long getChangeCount() {
+        return deltas.values().stream().mapToLong(delta -> delta.indices.length).sum();
+    }
+
+    /**
+     * Adds the frame of the year following the last added year, only the changes to the last added frame are stored unless the year is due for a keyframe.
+     *
+     * @param year the year of the frame
+     * @param frame the frame of the year
+     * @return <code>null</code>, there is no previous frame of the year
+     */
+    @Override
+    public YearFrame put(Integer year, YearFrame frame) {
+        if (year != frame.getYear()) {
+            throw new IllegalArgumentException("Frame of year " + frame.getYear() + " added for year " + year);
+        }
+        if (last != null && (year != last.getYear() + 1 || frame.getDictionary() != last.getDictionary())) {
+            throw new IllegalArgumentException("Expected a frame of year " + (last.getYear() + 1) + " with the buildings of the previous frames, got year " + year);
+        }
+
+        if (last == null || year - keyframes.lastKey() >= keyframeInterval) {
+            keyframes.put(year, frame);
+        } else {
+            deltas.put(year, new YearDelta(last, frame));
+        }
+        last = frame;
+        return null;
+    }
+
+    /**
+     * Reconstructs the frame of the given year from the last keyframe and the changes since.
+     *
+     * @param key the year
+     * @return the frame of the year or <code>null</code> if the year has not been added
+     */
+    @Override
+    public YearFrame get(Object key) {
+        if (!containsKey(key)) {
+            return null;
+        }
+        int year = (Integer) key;
+        Map.Entry<Integer, YearFrame> keyframe = keyframes.floorEntry(year);
+        if (keyframe.getKey() == year) {
+            return keyframe.getValue();
+        }
+
+        State state = new State(keyframe.getValue());
+        deltas.subMap(keyframe.getKey(), false, year, true).values().forEach(state::apply);
+        return state.toFrame(year);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && (keyframes.containsKey(key) || deltas.containsKey(key));
+    }
+
+    @Override
+    public int size() {
+        return keyframes.size() + deltas.size();
+    }
+
+    /**
+     * Reconstructs the outputs of a single building in all years, only the changes of the building are applied.
+     *
+     * @param buildingId the alkis id of the building
+     * @return the outputs of the building by year, empty if the building is unknown
+     */
+    public SortedMap<Integer, SimulationOutput> getTrajectory(String buildingId) {
+        SortedMap<Integer, SimulationOutput> trajectory = new TreeMap<>();
+        if (last == null || last.getDictionary().indexOf(buildingId) < 0) {
+            return trajectory;
+        }
+        BuildingDictionary dictionary = last.getDictionary();
+        int index = dictionary.indexOf(buildingId);
+
+        double heatDemand = 0d, renovationCost = 0d, residentialFinalEnergy = 0d, nonResidentialFinalEnergy = 0d;
+        byte renovationLevel = 0, heatingType = 0;
+        for (int year = firstKey(); year <= lastKey(); year++) {
+            YearFrame keyframe = keyframes.get(year);
+            if (keyframe != null) {
+                heatDemand = keyframe.getHeatDemand(index);
+                renovationCost = keyframe.getRenovationCost(index);
+                residentialFinalEnergy = keyframe.getResidentialFinalEnergy(index);
+                nonResidentialFinalEnergy = keyframe.getNonResidentialFinalEnergy(index);
+                renovationLevel = keyframe.getRenovationLevelCode(index);
+                heatingType = keyframe.getHeatingTypeCode(index);
+            } else {
+                YearDelta delta = deltas.get(year);
+                int change = Arrays.binarySearch(delta.indices, index);
+                if (change >= 0) {
+                    heatDemand = delta.heatDemand[change];
+                    renovationCost = delta.renovationCost[change];
+                    residentialFinalEnergy = delta.residentialFinalEnergy[change];
+                    nonResidentialFinalEnergy = delta.nonResidentialFinalEnergy[change];
+                    renovationLevel = delta.renovationLevel[change];
+                    heatingType = delta.heatingType[change];
+                }
+            }
+            double co2Emission = keyframe != null ? keyframe.getCO2Emission(index)
+                    : co2Emission(dictionary, index, year, heatingType, residentialFinalEnergy, nonResidentialFinalEnergy);
+            trajectory.put(year, YearFrame.toOutput(dictionary, index, year, heatDemand, co2Emission, renovationLevel, heatingType, renovationCost,
+                    residentialFinalEnergy, nonResidentialFinalEnergy));
+        }
+        return trajectory;
+    }
+
+    /**
+     * Calculates the CO2 emissions of a building with the same arithmetic as
+     * {@link de.hawhh.gewiss.get.core.calc.EnergyCalculator#calcCO2Emission(double, double, double, double, double)}.
+     */
+    private double co2Emission(BuildingDictionary dictionary, int index, int year, byte heatingType, double residentialFinalEnergy,
+                               double nonResidentialFinalEnergy) {
+        double co2 = co2Schedule.getFactor(heatingType, year);
+        double co2Emission = 0d;
+
+        if (!Double.isNaN(residentialFinalEnergy)) {
+            co2Emission += (co2 * residentialFinalEnergy * dictionary.getResidentialArea(index));
+        }
+
+        if (!Double.isNaN(nonResidentialFinalEnergy)) {
+            co2Emission += (co2 * nonResidentialFinalEnergy * dictionary.getNonResidentialArea(index));
+        }
+
+        return co2Emission;
+    }
+
+    /**
+     * @return the years of the frames, without reconstructing the frames
+     */
+    @Override
+    public Set<Integer> keySet() {
+        TreeSet<Integer> years = new TreeSet<>(keyframes.keySet());
+        years.addAll(deltas.keySet());
+        return Collections.unmodifiableSortedSet(years);
+    }
+
+    /**
+     * @return the frames in the order of the years, reconstructed one after the other by applying the changes of each year
+     */
+    @Override
+    public Set<Map.Entry<Integer, YearFrame>> entrySet() {
+        return new AbstractSet<Map.Entry<Integer, YearFrame>>() {
+            @Override
+            public Iterator<Map.Entry<Integer, YearFrame>> iterator() {
+                return isEmpty() ? Collections.emptyIterator() : frames(firstKey(), lastKey());
+            }
+
+            @Override
+            public int size() {
+                return DeltaYearFrames.this.size();
+            }
+        };
+    }
+
+    /**
+     * @return the frames of the given years, the first one is reconstructed from its keyframe and the following ones by applying the changes of each year
+     */
+    private Iterator<Map.Entry<Integer, YearFrame>> frames(int fromYear, int toYear) {
+        return new Iterator<Map.Entry<Integer, YearFrame>>() {
+            private int year = fromYear;
+            private State state;
+
+            @Override
+            public boolean hasNext() {
+                return year <= toYear;
+            }
+
+            @Override
+            public Map.Entry<Integer, YearFrame> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int current = year++;
+                YearFrame keyframe = keyframes.get(current);
+                if (keyframe != null) {
+                    // the state is only created once changes have to be applied
+                    state = null;
+                    return new SimpleImmutableEntry<>(current, keyframe);
+                }
+                if (state == null) {
+                    state = new State(keyframes.floorEntry(current).getValue());
+                    deltas.subMap(keyframes.floorKey(current), false, current, false).values().forEach(state::apply);
+                }
+                state.apply(deltas.get(current));
+                return new SimpleImmutableEntry<>(current, state.toFrame(current));
+            }
+        };
+    }
+
+    @Override
+    public Comparator<? super Integer> comparator() {
+        return null;
+    }
+
+    @Override
+    public Integer firstKey() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return keyframes.firstKey();
+    }
+
+    @Override
+    public Integer lastKey() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return last.getYear();
+    }
+
+    @Override
+    public SortedMap<Integer, YearFrame> subMap(Integer fromKey, Integer toKey) {
+        if (fromKey > toKey) {
+            throw new IllegalArgumentException("fromKey " + fromKey + " > toKey " + toKey);
+        }
+        return new Range(fromKey, toKey);
+    }
+
+    @Override
+    public SortedMap<Integer, YearFrame> headMap(Integer toKey) {
+        return new Range(Long.MIN_VALUE, toKey);
+    }
+
+    @Override
+    public SortedMap<Integer, YearFrame> tailMap(Integer fromKey) {
+        return new Range(fromKey, Long.MAX_VALUE);
+    }
+
+    /**
+     * Read-only view of the frames of the years from the lower bound (inclusive) to the upper bound (exclusive), reflecting frames added later. The frames are
+     * reconstructed on access like the frames of the whole map.
+     */
+    private class Range extends AbstractMap<Integer, YearFrame> implements SortedMap<Integer, YearFrame> {
+
+        private final long fromYear;
+        private final long toYear;
+
+        private Range(long fromYear, long toYear) {
+            this.fromYear = fromYear;
+            this.toYear = toYear;
+        }
+
+        private boolean inRange(Object key) {
+            return key instanceof Integer && (Integer) key >= fromYear && (Integer) key < toYear;
+        }
+
+        /**
+         * @return the first year of the range contained in the frames, greater than {@link #highest()} if there is none
+         */
+        private long lowest() {
+            return DeltaYearFrames.this.isEmpty() ? 0 : Math.max(fromYear, DeltaYearFrames.this.firstKey());
+        }
+
+        /**
+         * @return the last year of the range contained in the frames
+         */
+        private long highest() {
+            return DeltaYearFrames.this.isEmpty() ? -1 : Math.min(toYear - 1, DeltaYearFrames.this.lastKey());
+        }
+
+        @Override
+        public YearFrame get(Object key) {
+            return inRange(key) ? DeltaYearFrames.this.get(key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return inRange(key) && DeltaYearFrames.this.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return (int) Math.max(0, highest() - lowest() + 1);
+        }
+
+        @Override
+        public Set<Integer> keySet() {
+            TreeSet<Integer> years = new TreeSet<>();
+            for (long year = lowest(); year <= highest(); year++) {
+                years.add((int) year);
+            }
+            return Collections.unmodifiableSortedSet(years);
+        }
+
+        @Override
+        public Set<Map.Entry<Integer, YearFrame>> entrySet() {
+            return new AbstractSet<Map.Entry<Integer, YearFrame>>() {
+                @Override
+                public Iterator<Map.Entry<Integer, YearFrame>> iterator() {
+                    return isEmpty() ? Collections.emptyIterator() : frames((int) lowest(), (int) highest());
+                }
+
+                @Override
+                public int size() {
+                    return Range.this.size();
+                }
+            };
+        }
+
+        @Override
+        public Comparator<? super Integer> comparator() {
+            return null;
+        }
+
+        @Override
+        public Integer firstKey() {
+            if (isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return (int) lowest();
+        }
+
+        @Override
+        public Integer lastKey() {
+            if (isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return (int) highest();
+        }
+
+        @Override
+        public SortedMap<Integer, YearFrame> subMap(Integer fromKey, Integer toKey) {
+            if (fromKey > toKey) {
+                throw new IllegalArgumentException("fromKey " + fromKey + " > toKey " + toKey);
+            }
+            checkInRange(fromKey);
+            checkInRange(toKey);
+            return new Range(fromKey, toKey);
+        }
+
+        @Override
+        public SortedMap<Integer, YearFrame> headMap(Integer toKey) {
+            checkInRange(toKey);
+            return new Range(fromYear, toKey);
+        }
+
+        @Override
+        public SortedMap<Integer, YearFrame> tailMap(Integer fromKey) {
+            checkInRange(fromKey);
+            return new Range(fromKey, toYear);
+        }
+
+        /**
+         * The bounds of a range of this range may include the upper bound of this range, but nothing outside.
+         */
+        private void checkInRange(int key) {
+            if (key < fromYear || key > toYear) {
+                throw new IllegalArgumentException("Key " + key + " out of range");
+            }
+        }
+    }
+}
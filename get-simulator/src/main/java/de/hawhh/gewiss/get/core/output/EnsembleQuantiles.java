@@ -0,0 +1,101 @@
+package de.hawhh.gewiss.get.core.output;
+
+import de.hawhh.gewiss.get.core.util.QuantileSketch;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Yearly distribution of an aggregated quantity (e.g. the overall heat demand) over the runs of an ensemble, for the whole building stock and per quarter. Each run
+ * adds one value per year and quarter, the values are summarized by a {@link QuantileSketch}, so the memory needed does not grow with the number of runs.
+ *
+ * @author Thomas Preisler
+ */
+public class EnsembleQuantiles {
+
+    private final int firstYear;
+    private final int lastYear;
+    private final QuantileSketch[] overall;
+    private final Map<String, QuantileSketch[]> quarters = new TreeMap<>();
+
+    /**
+     * @param firstYear the first simulated year
+     * @param lastYear the last simulated year
+     */
+    public EnsembleQuantiles(int firstYear, int lastYear) {
+        this.firstYear = firstYear;
+        this.lastYear = lastYear;
+        this.overall = newSketches();
+    }
+
+    /**
+     * Adds the value of one run.
+     *
+     * @param quarter the quarter the value belongs to or <code>null</code> for the whole building stock
+     * @param year the simulated year
+     * @param value the aggregated value of the run
+     */
+    public void add(String quarter, int year, double value) {
+        sketchesOf(quarter)[year - firstYear].add(value);
+    }
+
+    /**
+     * Adds all values of the given quantiles (e.g. collected by another thread) to these quantiles.
+     *
+     * @param other quantiles of the same years
+     */
+    public void merge(EnsembleQuantiles other) {
+        if (other.firstYear != firstYear || other.lastYear != lastYear) {
+            throw new IllegalArgumentException("Cannot merge quantiles of the years " + other.firstYear + "-" + other.lastYear + " into " + firstYear + "-" + lastYear);
+        }
+        for (int year = 0; year < overall.length; year++) {
+            overall[year].merge(other.overall[year]);
+        }
+        other.quarters.forEach((quarter, sketches) -> {
+            QuantileSketch[] own = sketchesOf(quarter);
+            for (int year = 0; year < own.length; year++) {
+                own[year].merge(sketches[year]);
+            }
+        });
+    }
+
+    /**
+     * Returns a map where the years of the simulation are the keys and the given quantile of the runs is the value, e.g. 0.5 for the median.
+     *
+     * @param quarter specify a quarter if just results for this quarter should be considered, otherwise provide <code>null</code>
+     * @param quantile the quantile, between 0 and 1
+     * @return the yearly quantiles, empty if there are no values for the quarter
+     */
+    public Map<Integer, Double> getQuantiles(String quarter, double quantile) {
+        Map<Integer, Double> quantiles = new TreeMap<>();
+        QuantileSketch[] sketches = quarter == null ? overall : quarters.get(quarter);
+        if (sketches != null) {
+            for (int year = firstYear; year <= lastYear; year++) {
+                quantiles.put(year, sketches[year - firstYear].quantile(quantile));
+            }
+        }
+        return quantiles;
+    }
+
+    /**
+     * @param quarter the quarter or <code>null</code> for the whole building stock
+     * @param year the simulated year
+     * @return the sketch of the values of the given quarter and year or <code>null</code> if there are no values for the quarter
+     */
+    public QuantileSketch getSketch(String quarter, int year) {
+        QuantileSketch[] sketches = quarter == null ? overall : quarters.get(quarter);
+        return sketches != null ? sketches[year - firstYear] : null;
+    }
+
+    private QuantileSketch[] sketchesOf(String quarter) {
+        return quarter == null ? overall : quarters.computeIfAbsent(quarter, key -> newSketches());
+    }
+
+    private QuantileSketch[] newSketches() {
+        QuantileSketch[] sketches = new QuantileSketch[lastYear - firstYear + 1];
+        for (int year = 0; year < sketches.length; year++) {
+            sketches[year] = new QuantileSketch();
+        }
+        return sketches;
+    }
+}
@@ -0,0 +1,64 @@
+package de.hawhh.gewiss.get.core.output;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Data class for storing the results of an ensemble, i.e. the same simulation scenario run with different seeds. For each simulation year the statistics of the
+ * overall heat demand, CO2 emission and accumulated renovation costs of the building stock over all runs are stored.
+ *
+ * Additionally the distributions of the yearly heat demand and CO2 emission of the whole stock and per quarter are summarized by quantile sketches, and per building
+ * counters hold the renovation probability by year and the final heating types, e.g. for a GeoJSON export of the buildings.
+ *
+ * Ensembles are only run through the {@link de.hawhh.gewiss.get.simulator.EnsembleRunner} API so far, the charts and exports of the UI still show single
+ * {@link SimulationResult}s.
+ *
+ * @author Thomas Preisler
+ */
+@Data
+public class EnsembleResult {
+
+    private String name;
+    private String parameter;
+    private List<Long> seeds = new ArrayList<>();
+    private Map<Integer, EnsembleStatistics> heatDemand = new TreeMap<>();
+    private Map<Integer, EnsembleStatistics> co2Emission = new TreeMap<>();
+    private Map<Integer, EnsembleStatistics> renovationCosts = new TreeMap<>();
+    private EnsembleQuantiles heatDemandQuantiles;
+    private EnsembleQuantiles co2EmissionQuantiles;
+    private BuildingRenovationCounters buildingCounters;
+    private Map<String, BuildingInformation> buildings = new HashMap<>();
+    private Long runTime;
+
+    @Override
+    public String toString() {
+        return "Simulation ensemble: " + this.name + " (" + seeds.size() + " runs)";
+    }
+
+    /**
+     * Returns a map where years of the simulations are the keys and the given quantile of the overall yearly heat demand over all runs is the value.
+     *
+     * @param quarter specify a quarter if just results for this quarter should be considered, otherwise provide <code>null</code>
+     * @param quantile the quantile, e.g. 0.05, 0.5 or 0.95
+     * @return
+     */
+    public Map<Integer, Double> getYearlyHeatDemand(String quarter, double quantile) {
+        return heatDemandQuantiles.getQuantiles(quarter, quantile);
+    }
+
+    /**
+     * Returns a map where years of the simulations are the keys and the given quantile of the overall yearly CO2 emissions over all runs is the value.
+     *
+     * @param quarter specify a quarter if just results for this quarter should be considered, otherwise provide <code>null</code>
+     * @param quantile the quantile, e.g. 0.05, 0.5 or 0.95
+     * @return
+     */
+    public Map<Integer, Double> getCO2Emissions(String quarter, double quantile) {
+        return co2EmissionQuantiles.getQuantiles(quarter, quantile);
+    }
+}
@@ -0,0 +1,93 @@
+package de.hawhh.gewiss.get.core.output;
+
+import lombok.Data;
+
+/**
+ * Data class for the statistics of one value (e.g. the overall heat demand of a year) over the runs of an ensemble.
+ *
+ * The confidence band is the 95% confidence interval of the mean, approximated by the normal distribution (mean +/- 1.96 standard errors). For small ensembles
+ * the interval is therefore slightly too narrow.
+ *
+ * @author Thomas Preisler
+ */
+@Data
+public class EnsembleStatistics {
+
+    private static final double Z_95 = 1.959963984540054;
+
+    private int count;
+    private double mean;
+    private double standardDeviation;
+    private double min;
+    private double max;
+    private double lowerBound;
+    private double upperBound;
+
+    /**
+     * Calculates the statistics of the given values.
+     *
+     * @param values the values of the runs, at least one
+     * @return the statistics
+     */
+    public static EnsembleStatistics of(double[] values) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("No values given");
+        }
+
+        Accumulator accumulator = new Accumulator();
+        for (double value : values) {
+            accumulator.add(value);
+        }
+        return accumulator.toStatistics();
+    }
+
+    /**
+     * Streaming accumulator of the statistics of one value, the values of the runs are added one by one and do not have to be kept. The mean and the standard
+     * deviation are updated with Welford's algorithm, which avoids the cancellation of summing up the squares of large values.
+     */
+    public static final class Accumulator {
+
+        private int count;
+        private double mean;
+        private double squares; // sum of the squared differences from the mean
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        /**
+         * Adds the value of a run.
+         *
+         * @param value
+         */
+        public void add(double value) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            squares += delta * (value - mean);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        /**
+         * @return the statistics of the values added so far
+         */
+        public EnsembleStatistics toStatistics() {
+            if (count == 0) {
+                throw new IllegalStateException("No values added");
+            }
+
+            // sample standard deviation
+            double standardDeviation = count > 1 ? Math.sqrt(squares / (count - 1)) : 0d;
+            double halfWidth = Z_95 * standardDeviation / Math.sqrt(count);
+
+            EnsembleStatistics statistics = new EnsembleStatistics();
+            statistics.setCount(count);
+            statistics.setMean(mean);
+            statistics.setStandardDeviation(standardDeviation);
+            statistics.setMin(min);
+            statistics.setMax(max);
+            statistics.setLowerBound(mean - halfWidth);
+            statistics.setUpperBound(mean + halfWidth);
+            return statistics;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package de.hawhh.gewiss.get.core.output;
+
+import java.util.List;
+
+/**
+ * Stores all outputs in the {@link SimulationResult} of the simulation run, the {@link YearFrame}s of the simulator as frames and outputs passed as beans in
+ * {@link SimulationResult#getOutput()}. Constant years of a steady state are stored as a marker in the result.
+ *
+ * @author Thomas Preisler
+ */
+public class InMemoryOutputSink implements SimulationOutputSink {
+
+    private SimulationResult result;
+
+    @Override
+    public void open(SimulationResult result) {
+        this.result = result;
+    }
+
+    @Override
+    public void accept(int year, List<SimulationOutput> outputs) {
+        result.getOutput().putAll(year, outputs);
+    }
+
+    @Override
+    public void accept(YearFrame frame) {
+        result.getFrames().put(frame.getYear(), frame);
+    }
+
+    @Override
+    public boolean supportsConstantYears() {
+        return true;
+    }
+
+    @Override
+    public void acceptConstantYears(YearFrame frame, int lastYear) {
+        result.setConstantFromYear(frame.getYear() + 1);
+        result.setConstantUntilYear(lastYear);
+    }
+}
@@ -0,0 +1,28 @@
+package de.hawhh.gewiss.get.core.output;
+
+import lombok.Data;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Data class for the compact results of one scenario of a parameter sweep: the overall yearly heat demand, CO2 emission, accumulated renovation costs and number of
+ * renovated buildings of the building stock instead of the per building outputs of a {@link SimulationResult}.
+ *
+ * @author Thomas Preisler
+ */
+@Data
+public class ScenarioAggregate {
+
+    private String name;
+    private Double renovationRate;
+    private Double passiveHouseRate;
+    private String co2Trajectory;
+    private String modifierSet;
+    private Long seed;
+    private Map<Integer, Double> heatDemand = new TreeMap<>();
+    private Map<Integer, Double> co2Emission = new TreeMap<>();
+    private Map<Integer, Double> renovationCosts = new TreeMap<>();
+    private Map<Integer, Integer> renovatedBuildings = new TreeMap<>();
+    private Long runTime;
+}
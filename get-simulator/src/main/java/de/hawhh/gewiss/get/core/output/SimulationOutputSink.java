@@ -0,0 +1,81 @@
+package de.hawhh.gewiss.get.core.output;
+
+import java.util.List;
+
+/**
+ * Receiver of the {@link SimulationOutput}s of a simulation run, called with the outputs of each year as soon as the year has been simulated. Implementations decide
+ * what is kept of the outputs, e.g. all of them in the {@link SimulationResult} ({@link InMemoryOutputSink}), only yearly totals ({@link AggregateOutputSink}) or
+ * nothing but a file ({@link CsvFileOutputSink}), so that long runs do not need to hold all outputs in memory.
+ *
+ * The methods of a sink are called by one thread at a time, the years in ascending order.
+ *
+ * @author Thomas Preisler
+ */
+public interface SimulationOutputSink {
+
+    /**
+     * Called once before the first year is simulated.
+     *
+     * @param result the result of the simulation run, with the name, parameter, seed and buildings already set
+     */
+    default void open(SimulationResult result) {
+    }
+
+    /**
+     * Receives the outputs of all buildings for a simulated year.
+     *
+     * @param year the simulated year
+     * @param outputs the outputs in the order of the buildings
+     */
+    void accept(int year, List<SimulationOutput> outputs);
+
+    /**
+     * Receives the outputs of all buildings for a simulated year as {@link YearFrame}, called by the simulator. By default the outputs are created as beans and
+     * passed to {@link #accept(int, List)}.
+     *
+     * @param frame the outputs of the simulated year
+     */
+    default void accept(YearFrame frame) {
+        accept(frame.getYear(), frame.toOutputs());
+    }
+
+    /**
+     * @return whether the sink stores the constant years of a steady state as a marker, see {@link #acceptConstantYears(YearFrame, int)}
+     */
+    default boolean supportsConstantYears() {
+        return false;
+    }
+
+    /**
+     * Receives the remaining years if the simulation has reached a steady state and the outputs of all years up to the given last year equal those of the given
+     * frame, see {@link SimulationResult#getConstantFromYear()}. The simulator only calls this method if the sink supports constant years, otherwise the sink
+     * receives the outputs of the constant years one by one. By default each constant year is passed to {@link #accept(YearFrame)} with the values of the frame.
+     *
+     * @param frame the outputs of the last simulated year
+     * @param lastYear the last constant year
+     */
+    default void acceptConstantYears(YearFrame frame, int lastYear) {
+        for (int year = frame.getYear() + 1; year <= lastYear; year++) {
+            accept(frame.withYear(year));
+        }
+    }
+
+    /**
+     * Called once after the last year has been received, if the simulation has completed normally.
+     *
+     * @param result the result of the simulation run
+     */
+    default void close(SimulationResult result) {
+    }
+
+    /**
+     * Called once instead of {@link #close(SimulationResult)} if the simulation failed, either in the simulation itself or in this sink. The outputs received so
+     * far belong to an incomplete run. By default the sink is closed like after a completed run.
+     *
+     * @param result the result of the simulation run
+     * @param cause the failure of the simulation, rethrown by the simulator afterwards
+     */
+    default void abort(SimulationResult result, Throwable cause) {
+        close(result);
+    }
+}
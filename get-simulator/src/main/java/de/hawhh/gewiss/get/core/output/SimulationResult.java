@@ -4,42 +4,66 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.MultimapBuilder;
 import de.hawhh.gewiss.get.core.model.RenovationLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import org.javatuples.Triplet;
 
 import java.util.*;
 import java.util.stream.Collectors;
 
 /**
- * Data class for storing the results of a simulation scenario.
+ * Data class for storing the results of a simulation scenario. The outputs of the simulated years are either stored as {@link YearFrame}s or as
+ * {@link SimulationOutput} beans, {@link #getOutput()} provides the outputs as beans in both cases. If an {@link AggregationCube} has been filled during the
+ * simulation, the yearly values for the whole city and the quarters are taken from it instead of the outputs.
+ *
+ * Results are compared by their scenario (seed, name, parameter, run time and constant years) only. Comparing the outputs, frames, cube and buildings would create
+ * the output beans of all years, see {@link #getOutput()}.
  *
  * @author Thomas Preisler
  */
 @Data
+@EqualsAndHashCode(exclude = {"output", "frames", "cube", "buildings"})
 public class SimulationResult {
 
     private Long seed;
     private String name;
     private String parameter;
     private Multimap<Integer, SimulationOutput> output = MultimapBuilder.treeKeys().arrayListValues().build();
+    // outputs by year in columnar form (possibly delta-encoded), used instead of the output beans if not empty
+    private SortedMap<Integer, YearFrame> frames = new TreeMap<>();
+    // outputs aggregated during the simulation, used by the yearly getters if it covers the requested level (null if not aggregated)
+    private AggregationCube cube;
     private Map<String, BuildingInformation> buildings = new HashMap<>();
     private Long runTime;
+    // years equal to the year before constantFromYear, stored as a marker instead of outputs (null if all years are stored as outputs)
+    private Integer constantFromYear;
+    private Integer constantUntilYear;
 
     @Override
     public String toString() {
         return "Simulation scenario: " + this.name;
     }
 
+    /**
+     * Returns the outputs of all buildings by year. If the outputs are stored as {@link YearFrame}s, a read-only view of the frames is returned, which creates the
+     * output beans on access.
+     *
+     * @return
+     */
+    public Multimap<Integer, SimulationOutput> getOutput() {
+        return frames.isEmpty() ? output : new YearFrameMultimap(frames);
+    }
+
     /**
      * Returns the min overall yel
      *
      * @return
      */
     public Double getMinHeatHemand() {
-        return output.values().stream().min((o1, o2) -> Double.compare(o1.getHeatDemand(), o2.getHeatDemand())).get().getHeatDemand();
+        return getOutput().values().stream().min((o1, o2) -> Double.compare(o1.getHeatDemand(), o2.getHeatDemand())).get().getHeatDemand();
     }
 
     public Double getMaxHeatHemand() {
-        return output.values().stream().max((o1, o2) -> Double.compare(o1.getHeatDemand(), o2.getHeatDemand())).get().getHeatDemand();
+        return getOutput().values().stream().max((o1, o2) -> Double.compare(o1.getHeatDemand(), o2.getHeatDemand())).get().getHeatDemand();
     }
 
     /**
@@ -51,6 +75,18 @@ public class SimulationResult {
     public Map<Integer, Double> getYearlyHeatDemand(String quarter) {
         Map<Integer, Double> heatDemandMap = new TreeMap<>();
 
+        if (cubeCovers(quarter)) {
+            AggregationLevel level = cubeLevel(quarter);
+            cube.getYears().forEach(year -> heatDemandMap.put(year, cube.sum(year, AggregationCube.Measure.HEAT_DEMAND, level, quarter, null, null)));
+            return withConstantYears(heatDemandMap);
+        }
+
+        if (!frames.isEmpty()) {
+            int[] indices = frameIndices(quarter);
+            frames.forEach((year, frame) -> heatDemandMap.put(year, frame.sumHeatDemand(indices)));
+            return withConstantYears(heatDemandMap);
+        }
+
         final Set<String> quarterBuildings = new HashSet<>();
 
         if (quarter != null) {
@@ -72,7 +108,7 @@ public class SimulationResult {
             heatDemandMap.put(year, heatDemand);
         });
 
-        return heatDemandMap;
+        return withConstantYears(heatDemandMap);
     }
 
     /**
@@ -84,6 +120,20 @@ public class SimulationResult {
     public Map<Integer, Triplet<Long, Long, Long>> getRenovationLevels(String quarter) {
         Map<Integer, Triplet<Long, Long, Long>> renovationLevelMap = new TreeMap<>();
 
+        if (cubeCovers(quarter)) {
+            AggregationLevel level = cubeLevel(quarter);
+            cube.getYears().forEach(year -> renovationLevelMap.put(year, new Triplet<>(cube.count(year, level, quarter, null, RenovationLevel.NO_RENOVATION),
+                    cube.count(year, level, quarter, null, RenovationLevel.BASIC_RENOVATION), cube.count(year, level, quarter, null, RenovationLevel.GOOD_RENOVATION))));
+            return withConstantYears(renovationLevelMap);
+        }
+
+        if (!frames.isEmpty()) {
+            int[] indices = frameIndices(quarter);
+            frames.forEach((year, frame) -> renovationLevelMap.put(year, new Triplet<>(frame.countRenovationLevel(RenovationLevel.NO_RENOVATION, indices),
+                    frame.countRenovationLevel(RenovationLevel.BASIC_RENOVATION, indices), frame.countRenovationLevel(RenovationLevel.GOOD_RENOVATION, indices))));
+            return withConstantYears(renovationLevelMap);
+        }
+
         final Set<String> quarterBuildings = new HashSet<>();
 
         if (quarter != null) {
@@ -110,7 +160,7 @@ public class SimulationResult {
             renovationLevelMap.put(year, data);
         });
 
-        return renovationLevelMap;
+        return withConstantYears(renovationLevelMap);
     }
 
     /**
@@ -122,6 +172,20 @@ public class SimulationResult {
     public Map<Integer, Double> getCO2Emissions(String quarter) {
         Map<Integer, Double> emissionsMap = new TreeMap<>();
 
+        if (cubeCovers(quarter)) {
+            AggregationLevel level = cubeLevel(quarter);
+            // transformation from g/year to tons/year.
+            cube.getYears().forEach(year -> emissionsMap.put(year, cube.sum(year, AggregationCube.Measure.CO2_EMISSION, level, quarter, null, null) / 1000000));
+            return withConstantYears(emissionsMap);
+        }
+
+        if (!frames.isEmpty()) {
+            int[] indices = frameIndices(quarter);
+            // transformation from g/year to tons/year.
+            frames.forEach((year, frame) -> emissionsMap.put(year, frame.sumCO2Emission(indices) / 1000000));
+            return withConstantYears(emissionsMap);
+        }
+
         final Set<String> quarterBuildings = new HashSet<>();
 
         if (quarter != null) {
@@ -144,7 +208,7 @@ public class SimulationResult {
             emissionsMap.put(year, emission);
         });
 
-        return emissionsMap;
+        return withConstantYears(emissionsMap);
     }
 
     /**
@@ -156,6 +220,18 @@ public class SimulationResult {
     public Map<Integer, Double> getRenovationCosts(String quarter) {
         Map<Integer, Double> costsMap = new TreeMap<>();
 
+        if (cubeCovers(quarter)) {
+            AggregationLevel level = cubeLevel(quarter);
+            cube.getYears().forEach(year -> costsMap.put(year, cube.sum(year, AggregationCube.Measure.RENOVATION_COST, level, quarter, null, null)));
+            return withConstantYears(costsMap);
+        }
+
+        if (!frames.isEmpty()) {
+            int[] indices = frameIndices(quarter);
+            frames.forEach((year, frame) -> costsMap.put(year, frame.sumRenovationCost(indices)));
+            return withConstantYears(costsMap);
+        }
+
         final Set<String> quarterBuildings = new HashSet<>();
 
         if (quarter != null) {
@@ -175,7 +251,84 @@ public class SimulationResult {
             costsMap.put(year, cost);
         });
 
-        return costsMap;
+        return withConstantYears(costsMap);
+    }
+
+    /**
+     * Replaces the marker of the constant years by outputs, i.e. copies the outputs of the year before the constant years for each constant year.
+     */
+    public void expandConstantYears() {
+        if (constantFromYear == null) {
+            return;
+        }
+        if (cube != null) {
+            for (int year = constantFromYear; year <= constantUntilYear; year++) {
+                cube.copyYear(constantFromYear - 1, year);
+            }
+        }
+        if (!frames.isEmpty()) {
+            YearFrame lastFrame = frames.get(constantFromYear - 1);
+            for (int year = constantFromYear; year <= constantUntilYear; year++) {
+                frames.put(year, lastFrame.withYear(year));
+            }
+            constantFromYear = null;
+            constantUntilYear = null;
+            return;
+        }
+        List<SimulationOutput> lastOutputs = new ArrayList<>(output.get(constantFromYear - 1));
+        for (int year = constantFromYear; year <= constantUntilYear; year++) {
+            for (SimulationOutput lastOutput : lastOutputs) {
+                SimulationOutput yearOutput = new SimulationOutput();
+                yearOutput.setBuildingId(lastOutput.getBuildingId());
+                yearOutput.setYear(year);
+                yearOutput.setHeatDemandM2(lastOutput.getHeatDemandM2());
+                yearOutput.setHeatDemand(lastOutput.getHeatDemand());
+                yearOutput.setRenovationLevel(lastOutput.getRenovationLevel());
+                yearOutput.setHeatingType(lastOutput.getHeatingType());
+                yearOutput.setRenovationCost(lastOutput.getRenovationCost());
+                yearOutput.setCo2Emission(lastOutput.getCo2Emission());
+                yearOutput.setResidentialArea(lastOutput.getResidentialArea());
+                yearOutput.setCombinedArea(lastOutput.getCombinedArea());
+                yearOutput.setFinalEnergy(lastOutput.getFinalEnergy());
+                output.put(year, yearOutput);
+            }
+        }
+        constantFromYear = null;
+        constantUntilYear = null;
+    }
+
+    /**
+     * @return the level of the cube answering queries for the given quarter or all buildings if no quarter is given
+     */
+    private static AggregationLevel cubeLevel(String quarter) {
+        return quarter != null ? AggregationLevel.QUARTER : AggregationLevel.CITY;
+    }
+
+    /**
+     * @return <code>true</code> if the yearly values for the given quarter can be taken from the cube
+     */
+    private boolean cubeCovers(String quarter) {
+        return cube != null && cube.getLevels().contains(cubeLevel(quarter));
+    }
+
+    /**
+     * @return the indices of the buildings of the frames in the given quarter or <code>null</code> for all buildings if no quarter is given
+     */
+    private int[] frameIndices(String quarter) {
+        return quarter != null ? frames.get(frames.firstKey()).getDictionary().indicesOfQuarter(quarter) : null;
+    }
+
+    /**
+     * Adds the value of the year before the constant years to the given yearly values for each constant year.
+     */
+    private <T> Map<Integer, T> withConstantYears(Map<Integer, T> yearlyValues) {
+        if (constantFromYear != null && yearlyValues.containsKey(constantFromYear - 1)) {
+            T lastValue = yearlyValues.get(constantFromYear - 1);
+            for (int year = constantFromYear; year <= constantUntilYear; year++) {
+                yearlyValues.put(year, lastValue);
+            }
+        }
+        return yearlyValues;
     }
 
     /**
@@ -185,8 +338,8 @@ public class SimulationResult {
         System.out.println("Heat demand for simulation: " + name);
         System.out.println("Year\tHeat Demand (kWh/m^2)");
 
-        output.keySet().forEach((year) -> {
-            Collection<SimulationOutput> outputs = output.get(year);
+        getOutput().keySet().forEach((year) -> {
+            Collection<SimulationOutput> outputs = getOutput().get(year);
             Double heatDemand = outputs.stream().mapToDouble(SimulationOutput::getHeatDemand).sum();
             System.out.print(year + "\t");
             System.out.printf("%f\n", heatDemand);
@@ -200,8 +353,8 @@ public class SimulationResult {
         System.out.println("Renovation level for simulation: " + name);
         System.out.println("Year\tLevel0\tLevel1\tLevel2");
 
-        output.keySet().forEach((year) -> {
-            Collection<SimulationOutput> outputs = output.get(year);
+        getOutput().keySet().forEach((year) -> {
+            Collection<SimulationOutput> outputs = getOutput().get(year);
             Long ren0 = outputs.stream().filter(so -> so.getRenovationLevel().equals(RenovationLevel.NO_RENOVATION)).count();
             Long ren1 = outputs.stream().filter(so -> so.getRenovationLevel().equals(RenovationLevel.BASIC_RENOVATION)).count();
             Long ren2 = outputs.stream().filter(so -> so.getRenovationLevel().equals(RenovationLevel.GOOD_RENOVATION)).count();
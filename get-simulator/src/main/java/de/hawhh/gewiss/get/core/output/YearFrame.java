@@ -0,0 +1,298 @@
+package de.hawhh.gewiss.get.core.output;
+
+import de.hawhh.gewiss.get.core.model.HeatingType;
+import de.hawhh.gewiss.get.core.model.RenovationLevel;
+import lombok.EqualsAndHashCode;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Columnar representation of the outputs of all buildings for one simulated year. Instead of one {@link SimulationOutput} bean per building, the yearly values
+ * are stored in primitive arrays indexed by the dense building index of the shared {@link BuildingDictionary}, renovation levels and heating types as their enum
+ * ordinals. The static values of a building (id, quarter, cluster and floor spaces) are only stored once in the dictionary. The final energy is stored for the
+ * residential and the non-residential type of a building (<code>NaN</code> if the building has no such type), so the CO2 emissions can be recalculated for other
+ * CO2 factors.
+ *
+ * A frame is filled once by its creator and not changed afterwards, so it can be shared between threads and results. {@link #toOutputs()} provides the outputs
+ * as beans for existing callers.
+ *
+ * @author Thomas Preisler
+ */
+@EqualsAndHashCode
+public class YearFrame {
+
+    private static final RenovationLevel[] RENOVATION_LEVELS = RenovationLevel.values();
+    private static final HeatingType[] HEATING_TYPES = HeatingType.values();
+
+    private final int year;
+    private final BuildingDictionary dictionary;
+    private final double[] heatDemand;
+    private final double[] co2Emission;
+    private final double[] renovationCost;
+    private final double[] residentialFinalEnergy;
+    private final double[] nonResidentialFinalEnergy;
+    private final byte[] renovationLevel;
+    private final byte[] heatingType;
+
+    /**
+     * Creates an empty frame for all buildings of the given dictionary, to be filled with {@link #set(int, double, double, byte, byte, double, double, double)}.
+     *
+     * @param year the simulated year
+     * @param dictionary the static attributes of the buildings
+     */
+    public YearFrame(int year, BuildingDictionary dictionary) {
+        this(year, dictionary, new double[dictionary.size()], new double[dictionary.size()], new double[dictionary.size()], new double[dictionary.size()],
+                new double[dictionary.size()], new byte[dictionary.size()], new byte[dictionary.size()]);
+    }
+
+    private YearFrame(int year, BuildingDictionary dictionary, double[] heatDemand, double[] co2Emission, double[] renovationCost,
+                      double[] residentialFinalEnergy, double[] nonResidentialFinalEnergy, byte[] renovationLevel, byte[] heatingType) {
+        this.year = year;
+        this.dictionary = dictionary;
+        this.heatDemand = heatDemand;
+        this.co2Emission = co2Emission;
+        this.renovationCost = renovationCost;
+        this.residentialFinalEnergy = residentialFinalEnergy;
+        this.nonResidentialFinalEnergy = nonResidentialFinalEnergy;
+        this.renovationLevel = renovationLevel;
+        this.heatingType = heatingType;
+    }
+
+    /**
+     * Creates a frame from the given outputs of a year. The final energy of the outputs is taken as the final energy of the residential type.
+     *
+     * @param year the simulated year
+     * @param dictionary the static attributes of the buildings
+     * @param outputs the outputs of the buildings of the dictionary
+     * @return the frame
+     */
+    public static YearFrame of(int year, BuildingDictionary dictionary, List<SimulationOutput> outputs) {
+        if (outputs.size() != dictionary.size()) {
+            throw new IllegalArgumentException("Expected outputs for " + dictionary.size() + " buildings, got " + outputs.size());
+        }
+        YearFrame frame = new YearFrame(year, dictionary);
+        for (int position = 0; position < outputs.size(); position++) {
+            SimulationOutput output = outputs.get(position);
+            int index = output.getBuildingId().equals(dictionary.getBuildingId(position)) ? position : dictionary.indexOf(output.getBuildingId());
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown building " + output.getBuildingId());
+            }
+            frame.set(index, output.getHeatDemand(), output.getCo2Emission(), (byte) output.getRenovationLevel().ordinal(), (byte) output.getHeatingType().ordinal(),
+                    output.getRenovationCost(), output.getFinalEnergy(), Double.NaN);
+        }
+        return frame;
+    }
+
+    /**
+     * Sets the values of a building, only called while the frame is created.
+     *
+     * @param index the index of the building
+     * @param heatDemand
+     * @param co2Emission
+     * @param renovationLevel the ordinal of the {@link RenovationLevel}
+     * @param heatingType the ordinal of the {@link HeatingType}
+     * @param renovationCost the accumulated renovation costs
+     * @param residentialFinalEnergy final energy of the residential type or <code>NaN</code> if the building has no residential type
+     * @param nonResidentialFinalEnergy final energy of the non-residential type or <code>NaN</code> if the building has no non-residential type
+     */
+    public void set(int index, double heatDemand, double co2Emission, byte renovationLevel, byte heatingType, double renovationCost, double residentialFinalEnergy,
+                    double nonResidentialFinalEnergy) {
+        this.heatDemand[index] = heatDemand;
+        this.co2Emission[index] = co2Emission;
+        this.renovationLevel[index] = renovationLevel;
+        this.heatingType[index] = heatingType;
+        this.renovationCost[index] = renovationCost;
+        this.residentialFinalEnergy[index] = residentialFinalEnergy;
+        this.nonResidentialFinalEnergy[index] = nonResidentialFinalEnergy;
+    }
+
+    /**
+     * @param year another year
+     * @return a frame with the values of this frame for the given year, the values are shared
+     */
+    public YearFrame withYear(int year) {
+        return new YearFrame(year, dictionary, heatDemand, co2Emission, renovationCost, residentialFinalEnergy, nonResidentialFinalEnergy, renovationLevel,
+                heatingType);
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public BuildingDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public int size() {
+        return heatDemand.length;
+    }
+
+    public double getHeatDemand(int index) {
+        return heatDemand[index];
+    }
+
+    /**
+     * @param index
+     * @return the heat demand per square meter of the combined floor space, 0 if the building has no floor space
+     */
+    public double getHeatDemandM2(int index) {
+        double combinedArea = dictionary.getCombinedArea(index);
+        return combinedArea != 0 ? heatDemand[index] / combinedArea : 0.0;
+    }
+
+    public double getCO2Emission(int index) {
+        return co2Emission[index];
+    }
+
+    public double getRenovationCost(int index) {
+        return renovationCost[index];
+    }
+
+    /**
+     * @param index
+     * @return the final energy of the residential type or, if the building has no residential type, of the non-residential type, 0 if the building has no type
+     */
+    public double getFinalEnergy(int index) {
+        return finalEnergyOf(residentialFinalEnergy[index], nonResidentialFinalEnergy[index]);
+    }
+
+    public double getResidentialFinalEnergy(int index) {
+        return residentialFinalEnergy[index];
+    }
+
+    public double getNonResidentialFinalEnergy(int index) {
+        return nonResidentialFinalEnergy[index];
+    }
+
+    public byte getRenovationLevelCode(int index) {
+        return renovationLevel[index];
+    }
+
+    public byte getHeatingTypeCode(int index) {
+        return heatingType[index];
+    }
+
+    public RenovationLevel getRenovationLevel(int index) {
+        return RENOVATION_LEVELS[renovationLevel[index]];
+    }
+
+    public HeatingType getHeatingType(int index) {
+        return HEATING_TYPES[heatingType[index]];
+    }
+
+    /**
+     * @param indices the indices of the buildings in ascending order or <code>null</code> for all buildings
+     * @return the sum of the heat demand of the buildings
+     */
+    public double sumHeatDemand(int[] indices) {
+        return sum(heatDemand, indices);
+    }
+
+    /**
+     * @param indices the indices of the buildings in ascending order or <code>null</code> for all buildings
+     * @return the sum of the CO2 emissions of the buildings
+     */
+    public double sumCO2Emission(int[] indices) {
+        return sum(co2Emission, indices);
+    }
+
+    /**
+     * @param indices the indices of the buildings in ascending order or <code>null</code> for all buildings
+     * @return the sum of the accumulated renovation costs of the buildings
+     */
+    public double sumRenovationCost(int[] indices) {
+        return sum(renovationCost, indices);
+    }
+
+    /**
+     * @param level the renovation level
+     * @param indices the indices of the buildings or <code>null</code> for all buildings
+     * @return the number of the buildings at the given renovation level
+     */
+    public long countRenovationLevel(RenovationLevel level, int[] indices) {
+        byte code = (byte) level.ordinal();
+        long count = 0;
+        if (indices == null) {
+            for (byte buildingLevel : renovationLevel) {
+                if (buildingLevel == code) {
+                    count++;
+                }
+            }
+        } else {
+            for (int index : indices) {
+                if (renovationLevel[index] == code) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Summed up in the order of the buildings with the compensated summation of the streams, i.e. to the same result as the sum of the {@link SimulationOutput}s.
+     */
+    private static double sum(double[] values, int[] indices) {
+        return indices == null ? Arrays.stream(values).sum() : Arrays.stream(indices).mapToDouble(index -> values[index]).sum();
+    }
+
+    private static double finalEnergyOf(double residentialFinalEnergy, double nonResidentialFinalEnergy) {
+        if (!Double.isNaN(residentialFinalEnergy)) {
+            return residentialFinalEnergy;
+        }
+        return !Double.isNaN(nonResidentialFinalEnergy) ? nonResidentialFinalEnergy : 0d;
+    }
+
+    /**
+     * @param index
+     * @return the output of the building as bean
+     */
+    public SimulationOutput toOutput(int index) {
+        return toOutput(dictionary, index, year, heatDemand[index], co2Emission[index], renovationLevel[index], heatingType[index], renovationCost[index],
+                residentialFinalEnergy[index], nonResidentialFinalEnergy[index]);
+    }
+
+    /**
+     * Creates the output bean of a building from the given values.
+     */
+    static SimulationOutput toOutput(BuildingDictionary dictionary, int index, int year, double heatDemand, double co2Emission, byte renovationLevel, byte heatingType,
+                                     double renovationCost, double residentialFinalEnergy, double nonResidentialFinalEnergy) {
+        double combinedArea = dictionary.getCombinedArea(index);
+
+        SimulationOutput output = new SimulationOutput();
+        output.setBuildingId(dictionary.getBuildingId(index));
+        output.setYear(year);
+        output.setHeatDemand(heatDemand);
+        output.setHeatDemandM2(combinedArea != 0 ? heatDemand / combinedArea : 0.0);
+        output.setRenovationLevel(RENOVATION_LEVELS[renovationLevel]);
+        output.setCo2Emission(co2Emission);
+        output.setHeatingType(HEATING_TYPES[heatingType]);
+        output.setRenovationCost(renovationCost);
+        output.setResidentialArea(dictionary.getResidentialArea(index));
+        output.setCombinedArea(combinedArea);
+        output.setFinalEnergy(finalEnergyOf(residentialFinalEnergy, nonResidentialFinalEnergy));
+        return output;
+    }
+
+    /**
+     * @return read-only view of the outputs of all buildings in the order of their index, the beans are created on access
+     */
+    public List<SimulationOutput> toOutputs() {
+        return new Outputs();
+    }
+
+    private class Outputs extends AbstractList<SimulationOutput> implements RandomAccess {
+
+        @Override
+        public SimulationOutput get(int index) {
+            return toOutput(index);
+        }
+
+        @Override
+        public int size() {
+            return heatDemand.length;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package de.hawhh.gewiss.get.core.output;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * Read-only view of the {@link YearFrame}s of a {@link SimulationResult} as the multimap of {@link SimulationOutput}s by year, see
+ * {@link SimulationResult#getOutput()}. The outputs are created on access, so the view does not hold any outputs itself.
+ *
+ * @author Thomas Preisler
+ */
+class YearFrameMultimap implements ListMultimap<Integer, SimulationOutput> {
+
+    private final SortedMap<Integer, YearFrame> frames;
+
+    YearFrameMultimap(SortedMap<Integer, YearFrame> frames) {
+        this.frames = frames;
+    }
+
+    @Override
+    public int size() {
+        return frames.values().stream().mapToInt(YearFrame::size).sum();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return frames.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return values().contains(value);
+    }
+
+    @Override
+    public boolean containsEntry(Object key, Object value) {
+        YearFrame frame = frames.get(key);
+        return frame != null && frame.toOutputs().contains(value);
+    }
+
+    @Override
+    public List<SimulationOutput> get(Integer key) {
+        YearFrame frame = frames.get(key);
+        return frame != null ? frame.toOutputs() : ImmutableList.of();
+    }
+
+    @Override
+    public Set<Integer> keySet() {
+        return Collections.unmodifiableSet(frames.keySet());
+    }
+
+    @Override
+    public Multiset<Integer> keys() {
+        ImmutableMultiset.Builder<Integer> keys = ImmutableMultiset.builder();
+        frames.forEach((year, frame) -> keys.addCopies(year, frame.size()));
+        return keys.build();
+    }
+
+    @Override
+    public Collection<SimulationOutput> values() {
+        return new AbstractCollection<SimulationOutput>() {
+            @Override
+            public Iterator<SimulationOutput> iterator() {
+                return frames.values().stream().flatMap(frame -> frame.toOutputs().stream()).iterator();
+            }
+
+            @Override
+            public int size() {
+                return YearFrameMultimap.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Collection<Map.Entry<Integer, SimulationOutput>> entries() {
+        return new AbstractCollection<Map.Entry<Integer, SimulationOutput>>() {
+            @Override
+            public Iterator<Map.Entry<Integer, SimulationOutput>> iterator() {
+                return frames.entrySet().stream()
+                        .flatMap(frame -> frame.getValue().toOutputs().stream().map(output -> Maps.immutableEntry(frame.getKey(), output))).iterator();
+            }
+
+            @Override
+            public int size() {
+                return YearFrameMultimap.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Map<Integer, Collection<SimulationOutput>> asMap() {
+        return Collections.unmodifiableMap(Maps.transformValues(frames, YearFrame::toOutputs));
+    }
+
+    @Override
+    public boolean put(Integer key, SimulationOutput value) {
+        throw new UnsupportedOperationException("The outputs of year frames are read-only");
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        throw new UnsupportedOperationException("The outputs of year frames are read-only");
+    }
+
+    @Override
+    public boolean putAll(Integer key, Iterable<? extends SimulationOutput> values) {
+        throw new UnsupportedOperationException("The outputs of year frames are read-only");
+    }
+
+    @Override
+    public boolean putAll(Multimap<? extends Integer, ? extends SimulationOutput> multimap) {
+        throw new UnsupportedOperationException("The outputs of year frames are read-only");
+    }
+
+    @Override
+    public List<SimulationOutput> replaceValues(Integer key, Iterable<? extends SimulationOutput> values) {
+        throw new UnsupportedOperationException("The outputs of year frames are read-only");
+    }
+
+    @Override
+    public List<SimulationOutput> removeAll(Object key) {
+        throw new UnsupportedOperationException("The outputs of year frames are read-only");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("The outputs of year frames are read-only");
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return object == this || object instanceof Multimap && asMap().equals(((Multimap<?, ?>) object).asMap());
+    }
+
+    @Override
+    public int hashCode() {
+        return asMap().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
+}
@@ -0,0 +1,210 @@
+package de.hawhh.gewiss.get.core.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Mergeable streaming summary of a distribution of values, answering quantile queries (e.g. the 5th, 50th and 95th percentile) in constant memory. The sketch
+ * follows the merging t-digest: values are collected in a small buffer and merged into a sorted list of centroids (mean and weight), where the arcsine scale
+ * function limits the size of the centroids so that they stay small in the tails and the extreme quantiles are the most accurate ones. As long as fewer values
+ * than about the compression have been added, every value is its own centroid and the quantiles are exact.
+ *
+ * Sketches of the same quantity built independently (e.g. one per simulation run) can be combined with {@link #merge(QuantileSketch)}. A sketch is not thread
+ * safe.
+ *
+ * @author Thomas Preisler
+ */
+public class QuantileSketch {
+
+    /**
+     * Default compression, the sketch keeps at most about twice as many centroids.
+     */
+    public static final double DEFAULT_COMPRESSION = 100d;
+
+    private final double compression;
+
+    // merged centroids, sorted by their mean
+    private double[] means;
+    private double[] weights;
+    private int centroids;
+
+    // values and centroids not merged yet
+    private final double[] bufferMeans;
+    private final double[] bufferWeights;
+    private int buffered;
+
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public QuantileSketch() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param compression controls the accuracy and size of the sketch, larger values keep more centroids
+     */
+    public QuantileSketch(double compression) {
+        if (compression < 10d) {
+            throw new IllegalArgumentException("Compression must be at least 10, got " + compression);
+        }
+        this.compression = compression;
+
+        int capacity = (int) Math.ceil(2 * compression) + 10;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.bufferMeans = new double[5 * capacity];
+        this.bufferWeights = new double[5 * capacity];
+    }
+
+    /**
+     * Adds a value to the summarized distribution. <code>NaN</code> values are ignored.
+     *
+     * @param value
+     */
+    public void add(double value) {
+        add(value, 1d);
+    }
+
+    private void add(double mean, double weight) {
+        if (Double.isNaN(mean)) {
+            return;
+        }
+        if (buffered == bufferMeans.length) {
+            compress();
+        }
+        bufferMeans[buffered] = mean;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        totalWeight += weight;
+        min = Math.min(min, mean);
+        max = Math.max(max, mean);
+    }
+
+    /**
+     * Adds all values summarized by the given sketch to this sketch. The given sketch is not changed.
+     *
+     * @param other
+     */
+    public void merge(QuantileSketch other) {
+        other.compress();
+        for (int centroid = 0; centroid < other.centroids; centroid++) {
+            add(other.means[centroid], other.weights[centroid]);
+        }
+        // the extremes of the other sketch might lie within its outer centroids
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @return the number of summarized values
+     */
+    public long size() {
+        return Math.round(totalWeight);
+    }
+
+    public double getMin() {
+        return totalWeight > 0 ? min : Double.NaN;
+    }
+
+    public double getMax() {
+        return totalWeight > 0 ? max : Double.NaN;
+    }
+
+    /**
+     * Estimates the quantile of the summarized distribution. The values between the centroids are interpolated linearly.
+     *
+     * @param q the quantile, between 0 and 1 (e.g. 0.95 for the 95th percentile)
+     * @return the estimated quantile or <code>NaN</code> if no values have been added
+     */
+    public double quantile(double q) {
+        if (q < 0d || q > 1d) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1, got " + q);
+        }
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        if (centroids == 1) {
+            return means[0];
+        }
+
+        // the weight of a centroid is centered at its mean, the extremes are at the outer edges of the distribution
+        double index = q * totalWeight;
+        if (index <= weights[0] / 2) {
+            return min + (means[0] - min) * index / (weights[0] / 2);
+        }
+
+        double weightSoFar = weights[0] / 2;
+        for (int centroid = 0; centroid < centroids - 1; centroid++) {
+            double step = (weights[centroid] + weights[centroid + 1]) / 2;
+            if (index <= weightSoFar + step) {
+                return means[centroid] + (means[centroid + 1] - means[centroid]) * (index - weightSoFar) / step;
+            }
+            weightSoFar += step;
+        }
+
+        double lastHalf = weights[centroids - 1] / 2;
+        return means[centroids - 1] + (max - means[centroids - 1]) * Math.min(1d, (index - weightSoFar) / lastHalf);
+    }
+
+    /**
+     * Merges the buffered values into the centroids.
+     */
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+
+        int count = centroids + buffered;
+        double[] allMeans = Arrays.copyOf(means, count);
+        double[] allWeights = Arrays.copyOf(weights, count);
+        System.arraycopy(bufferMeans, 0, allMeans, centroids, buffered);
+        System.arraycopy(bufferWeights, 0, allWeights, centroids, buffered);
+        buffered = 0;
+
+        int[] order = IntStream.range(0, count).boxed().sorted(Comparator.comparingDouble(i -> allMeans[i])).mapToInt(Integer::intValue).toArray();
+
+        double[] mergedMeans = new double[means.length];
+        double[] mergedWeights = new double[means.length];
+        int merged = 0;
+
+        double weightSoFar = 0d;
+        double currentMean = allMeans[order[0]];
+        double currentWeight = allWeights[order[0]];
+        double weightLimit = totalWeight * limit(0d);
+        for (int i = 1; i < count; i++) {
+            double mean = allMeans[order[i]];
+            double weight = allWeights[order[i]];
+            if (weightSoFar + currentWeight + weight <= weightLimit) {
+                // merge into the current centroid
+                currentWeight += weight;
+                currentMean += (mean - currentMean) * weight / currentWeight;
+            } else {
+                mergedMeans[merged] = currentMean;
+                mergedWeights[merged] = currentWeight;
+                merged++;
+                weightSoFar += currentWeight;
+                weightLimit = totalWeight * limit(weightSoFar / totalWeight);
+                currentMean = mean;
+                currentWeight = weight;
+            }
+        }
+        mergedMeans[merged] = currentMean;
+        mergedWeights[merged] = currentWeight;
+        merged++;
+
+        this.means = mergedMeans;
+        this.weights = mergedWeights;
+        this.centroids = merged;
+    }
+
+    /**
+     * Arcsine scale function k(q) = compression / (2 pi) * asin(2q - 1), a centroid starting at quantile q may grow up to the quantile k^-1(k(q) + 1).
+     */
+    private double limit(double q) {
+        double k = compression / (2 * Math.PI) * Math.asin(2 * q - 1);
+        return Math.min(1d, (Math.sin((k + 1) * 2 * Math.PI / compression) + 1) / 2);
+    }
+}
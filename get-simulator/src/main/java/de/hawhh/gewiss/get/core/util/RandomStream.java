@@ -0,0 +1,64 @@
+package de.hawhh.gewiss.get.core.util;
+
+/**
+ * Counter-based pseudo random numbers for a simulation run. Every random number is derived by hashing the seed of the run together with the simulation year, the
+ * index of the building and the purpose of the random decision (SplitMix64 finalizer). As no state is shared between the draws, a decision for a building does not
+ * depend on the order in which the buildings are processed, so that the buildings can be renovated in parallel and a seed still yields the same results at any
+ * thread count.
+ *
+ * @author Thomas Preisler
+ */
+public final class RandomStream {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    /**
+     * The random decisions made for a building in a simulation year.
+     */
+    public enum Purpose {
+        RENOVATION_LEVEL,
+        HEATING_EXCHANGE
+    }
+
+    private final long seed;
+
+    /**
+     * @param seed the seed of the simulation run
+     */
+    public RandomStream(long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @param year the simulation year
+     * @param index the index of the building
+     * @param purpose the decision the random number is used for
+     * @return a uniformly distributed random number in [0, 1)
+     */
+    public double nextDouble(int year, int index, Purpose purpose) {
+        return (nextLong(year, index, purpose) >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * @param year the simulation year
+     * @param index the index of the building
+     * @param purpose the decision the random number is used for
+     * @return a uniformly distributed random long
+     */
+    public long nextLong(int year, int index, Purpose purpose) {
+        long z = mix64(seed + GOLDEN_GAMMA * (year + 1L));
+        z = mix64(z + GOLDEN_GAMMA * (index + 1L));
+        return mix64(z + GOLDEN_GAMMA * (purpose.ordinal() + 1L));
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
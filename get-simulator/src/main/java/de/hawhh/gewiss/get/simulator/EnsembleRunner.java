@@ -0,0 +1,323 @@
+package de.hawhh.gewiss.get.simulator;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import de.hawhh.gewiss.get.core.calc.CO2Schedule;
+import de.hawhh.gewiss.get.core.calc.EnergyCalculator;
+import de.hawhh.gewiss.get.core.input.InputValidationException;
+import de.hawhh.gewiss.get.core.input.SimulationParameter;
+import de.hawhh.gewiss.get.core.model.BuildingAttributeIndex;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.core.output.BuildingInformation;
+import de.hawhh.gewiss.get.core.output.BuildingRenovationCounters;
+import de.hawhh.gewiss.get.core.output.EnsembleQuantiles;
+import de.hawhh.gewiss.get.core.output.EnsembleResult;
+import de.hawhh.gewiss.get.core.output.EnsembleStatistics;
+import de.hawhh.gewiss.get.core.util.RandomStream;
+import de.hawhh.gewiss.get.simulator.renovation.IRenovationStrategy;
+import de.hawhh.gewiss.get.simulator.scoring.ScoringMethod;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Runs a simulation scenario with several seeds concurrently and aggregates the results to an {@link EnsembleResult}. The building stock is loaded and its energy
+ * values, renovation costs, the bitmap index and the CO2 schedule are calculated only once and shared read-only by all runs. Each run simulates its own
+ * {@link BuildingTable#copy()} of the building stock and only keeps a compact summary: the overall and per quarter heat demand and CO2 emission of each year, the
+ * buildings renovated in each year and the final heating types. Instead of the per building outputs of a {@link de.hawhh.gewiss.get.core.output.SimulationResult}
+ * only a few primitive columns are needed per run.
+ *
+ * The summaries are added to the quantile sketches and building counters of the result in the order of the seeds and discarded, at most twice as many summaries
+ * as concurrent runs are held at a time. Thus the memory needed does not grow with the number of runs and the result does not depend on the order in which the runs
+ * finish. The yearly statistics of the totals are accumulated the same way, so only the summaries of the pending runs are kept. A run yields the same yearly values
+ * as a single simulation with the same seed. Registered {@link RunListener}s are notified on the calling thread with the seed of each run once its summary has
+ * been added.
+ *
+ * @author Thomas Preisler
+ */
+public class EnsembleRunner {
+
+    private final static Logger LOGGER = Logger.getLogger(EnsembleRunner.class.getName());
+
+    // indices of the yearly totals of a run
+    private static final int HEAT_DEMAND = 0;
+    private static final int CO2_EMISSION = 1;
+    private static final int RENOVATION_COSTS = 2;
+
+    private final Simulator simulator;
+    private final int parallelism;
+    private final List<RunListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Listener notified about the progress of an ensemble.
+     */
+    @FunctionalInterface
+    public interface RunListener {
+
+        /**
+         * Called on the thread running the ensemble after the summary of a run has been added to the result, in the order of the seeds.
+         *
+         * @param seed the seed of the finished run
+         */
+        void runFinished(long seed);
+    }
+
+    /**
+     * Creates a runner using a new {@link Simulator} and running as many runs concurrently as processors are available.
+     */
+    public EnsembleRunner() {
+        this(new Simulator(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param simulator the simulator loading the buildings and performing the runs
+     * @param parallelism the maximum number of concurrent runs
+     */
+    public EnsembleRunner(Simulator simulator, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+        }
+        this.simulator = simulator;
+        this.parallelism = parallelism;
+    }
+
+    public void addRunListener(RunListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeRunListener(RunListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Runs the scenario with the seeds baseSeed, baseSeed + 1, ..., baseSeed + runs - 1.
+     *
+     * @param parameter the encapusalted simulation parameters
+     * @param scoringMethods List of different scoring methods to be applied
+     * @param renovationStrategy the selected renovation strategy, shared by all runs
+     * @param runs the number of runs
+     * @param baseSeed the seed of the first run
+     * @return the aggregated results
+     * @throws InputValidationException
+     */
+    public EnsembleResult run(SimulationParameter parameter, List<ScoringMethod> scoringMethods, IRenovationStrategy renovationStrategy, int runs, long baseSeed)
+            throws InputValidationException {
+        return run(parameter, scoringMethods, renovationStrategy, LongStream.range(0, runs).mapToObj(run -> baseSeed + run).collect(Collectors.toList()));
+    }
+
+    /**
+     * Runs the scenario once for each of the given seeds.
+     *
+     * @param parameter the encapusalted simulation parameters
+     * @param scoringMethods List of different scoring methods to be applied
+     * @param renovationStrategy the selected renovation strategy, shared by all runs
+     * @param seeds the seeds of the runs
+     * @return the aggregated results
+     * @throws InputValidationException
+     */
+    public EnsembleResult run(SimulationParameter parameter, List<ScoringMethod> scoringMethods, IRenovationStrategy renovationStrategy, List<Long> seeds)
+            throws InputValidationException {
+        long startTime = System.currentTimeMillis();
+
+        if (seeds.isEmpty()) {
+            throw new InputValidationException("An ensemble needs at least one seed");
+        }
+
+        // Validate the input factors
+        parameter.validate();
+
+        // Shared read-only state of all runs
+        CO2Schedule co2Schedule = EnergyCalculator.getInstance().createCO2Schedule(parameter.getYearlyCO2Factors(), parameter.getMidCO2Year(),
+                parameter.getFinalCO2Year());
+        BuildingTable buildings = simulator.loadBuildings();
+        BuildingAttributeIndex attributeIndex = new BuildingAttributeIndex(buildings);
+
+        // Quarters of the buildings, the per quarter values of a run are indexed by the position of the quarter
+        String[] quarters = IntStream.range(0, buildings.size()).mapToObj(buildings::getQuarter).filter(quarter -> quarter != null)
+                .collect(Collectors.toCollection(TreeSet::new)).toArray(new String[0]);
+        int[] quarterOfBuilding = IntStream.range(0, buildings.size())
+                .map(index -> buildings.getQuarter(index) != null ? Arrays.binarySearch(quarters, buildings.getQuarter(index)) : -1).toArray();
+
+        EnsembleResult result = new EnsembleResult();
+        result.setName(parameter.getName());
+        result.setSeeds(new ArrayList<>(seeds));
+        result.setHeatDemandQuantiles(new EnsembleQuantiles(SimulationParameter.FIRST_YEAR, parameter.getStopYear()));
+        result.setCo2EmissionQuantiles(new EnsembleQuantiles(SimulationParameter.FIRST_YEAR, parameter.getStopYear()));
+        result.setBuildingCounters(new BuildingRenovationCounters(IntStream.range(0, buildings.size()).mapToObj(buildings::getAlkisID).toArray(String[]::new),
+                SimulationParameter.FIRST_YEAR, parameter.getStopYear()));
+
+        // Convert parameter to string representation for storage
+        ObjectMapper mapper = new ObjectMapper().registerModule(new GuavaModule());
+        mapper.enable(SerializationFeature.WRITE_ENUMS_USING_TO_STRING);
+        try {
+            result.setParameter(mapper.writeValueAsString(parameter));
+        } catch (JsonProcessingException ex) {
+            LOGGER.log(Level.SEVERE, null, ex);
+        }
+
+        LOGGER.log(Level.INFO, "Running ensemble of {0} runs with up to {1} concurrent runs", new Object[]{seeds.size(), parallelism});
+        int threads = Math.min(parallelism, seeds.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        // [year][total], each run is added as soon as its summary is collected
+        EnsembleStatistics.Accumulator[][] statistics = new EnsembleStatistics.Accumulator[parameter.getSimDuration()][3];
+        for (EnsembleStatistics.Accumulator[] yearlyStatistics : statistics) {
+            for (int total = 0; total < yearlyStatistics.length; total++) {
+                yearlyStatistics[total] = new EnsembleStatistics.Accumulator();
+            }
+        }
+        try {
+            // Submit the runs in a sliding window and add their summaries in the order of the seeds
+            Deque<Future<RunSummary>> pending = new ArrayDeque<>();
+            Iterator<Long> seedIterator = seeds.iterator();
+            while (seedIterator.hasNext() || !pending.isEmpty()) {
+                while (seedIterator.hasNext() && pending.size() < 2 * threads) {
+                    Long seed = seedIterator.next();
+                    pending.add(executor.submit(() -> simulateRun(buildings, attributeIndex, parameter, co2Schedule, scoringMethods, renovationStrategy, seed,
+                            quarters, quarterOfBuilding)));
+                }
+
+                RunSummary summary = pending.poll().get();
+                addRun(result, statistics, summary, quarters);
+
+                // Notify listeners that the run is finished
+                listeners.forEach(listener -> listener.runFinished(summary.seed));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ensemble run interrupted", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException("Ensemble run failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int year = SimulationParameter.FIRST_YEAR; year <= parameter.getStopYear(); year++) {
+            int offset = year - SimulationParameter.FIRST_YEAR;
+            result.getHeatDemand().put(year, statistics[offset][HEAT_DEMAND].toStatistics());
+            result.getCo2Emission().put(year, statistics[offset][CO2_EMISSION].toStatistics());
+            result.getRenovationCosts().put(year, statistics[offset][RENOVATION_COSTS].toStatistics());
+        }
+
+        // Map Buildings to BuildingInformation and store them in the result object.
+        Map<String, BuildingInformation> resultBuildings = IntStream.range(0, buildings.size()).boxed().collect(Collectors.toMap(buildings::getAlkisID,
+                index -> BuildingInformation.create(buildings.getAlkisID(index), buildings.getClusterID(index), buildings.getQuarter(index), buildings.getGeometry(index))));
+        result.setBuildings(resultBuildings);
+
+        long endTime = System.currentTimeMillis();
+        result.setRunTime(endTime - startTime);
+
+        return result;
+    }
+
+    /**
+     * Simulates a copy of the given buildings with the given seed.
+     *
+     * @return the summary of the run
+     */
+    private RunSummary simulateRun(BuildingTable sharedBuildings, BuildingAttributeIndex sharedIndex, SimulationParameter parameter, CO2Schedule co2Schedule,
+                                   List<ScoringMethod> scoringMethods, IRenovationStrategy renovationStrategy, long seed, String[] quarters, int[] quarterOfBuilding) {
+        LOGGER.log(Level.INFO, "Starting ensemble run with seed {0}", seed);
+        BuildingTable buildings = sharedBuildings.copy();
+        RunSummary summary = new RunSummary(seed, parameter.getSimDuration(), quarters.length, buildings.size());
+        int[] modificationCounts = IntStream.range(0, buildings.size()).map(buildings::getModificationCount).toArray();
+
+        simulator.run(buildings, sharedIndex.withBuildings(buildings), parameter, co2Schedule, scoringMethods, renovationStrategy, new RandomStream(seed),
+                (year, metrics) -> {
+                    int offset = year - SimulationParameter.FIRST_YEAR;
+                    // summed up in index order, so that the totals do not depend on the number of threads
+                    double[] totals = summary.totals[offset];
+                    for (int index = 0; index < buildings.size(); index++) {
+                        double heatDemand = metrics.getHeatDemand(index);
+                        double co2Emission = metrics.getCO2Emission(index);
+                        totals[HEAT_DEMAND] += heatDemand;
+                        totals[CO2_EMISSION] += co2Emission;
+                        totals[RENOVATION_COSTS] += buildings.getAccumulatedRenovationCosts(index);
+
+                        if (quarterOfBuilding[index] >= 0) {
+                            summary.quarterHeatDemand[offset][quarterOfBuilding[index]] += heatDemand;
+                            summary.quarterCO2Emission[offset][quarterOfBuilding[index]] += co2Emission;
+                        }
+
+                        // the buildings are only changed by the renovation strategy
+                        int modificationCount = buildings.getModificationCount(index);
+                        if (modificationCount != modificationCounts[index]) {
+                            summary.renovated[offset].set(index);
+                            modificationCounts[index] = modificationCount;
+                        }
+                    }
+
+                    if (year == parameter.getStopYear()) {
+                        for (int index = 0; index < buildings.size(); index++) {
+                            summary.finalHeatingTypes[index] = buildings.getHeatingTypeCode(index);
+                        }
+                    }
+                });
+        return summary;
+    }
+
+    /**
+     * Adds the summary of a run to the statistics, sketches and counters of the result.
+     */
+    private static void addRun(EnsembleResult result, EnsembleStatistics.Accumulator[][] statistics, RunSummary summary, String[] quarters) {
+        for (int offset = 0; offset < summary.totals.length; offset++) {
+            int year = SimulationParameter.FIRST_YEAR + offset;
+            for (int total = 0; total < summary.totals[offset].length; total++) {
+                statistics[offset][total].add(summary.totals[offset][total]);
+            }
+            result.getHeatDemandQuantiles().add(null, year, summary.totals[offset][HEAT_DEMAND]);
+            result.getCo2EmissionQuantiles().add(null, year, summary.totals[offset][CO2_EMISSION]);
+            for (int quarter = 0; quarter < quarters.length; quarter++) {
+                result.getHeatDemandQuantiles().add(quarters[quarter], year, summary.quarterHeatDemand[offset][quarter]);
+                result.getCo2EmissionQuantiles().add(quarters[quarter], year, summary.quarterCO2Emission[offset][quarter]);
+            }
+        }
+        result.getBuildingCounters().addRun(summary.renovated, summary.finalHeatingTypes);
+    }
+
+    /**
+     * Compact results of a single run, discarded once added to the {@link EnsembleResult}.
+     */
+    private static final class RunSummary {
+
+        private final long seed;
+        private final double[][] totals; // [year][total]
+        private final double[][] quarterHeatDemand; // [year][quarter]
+        private final double[][] quarterCO2Emission; // [year][quarter]
+        private final BitSet[] renovated; // [year]
+        private final byte[] finalHeatingTypes;
+
+        private RunSummary(long seed, int years, int quarters, int buildings) {
+            this.seed = seed;
+            this.totals = new double[years][3];
+            this.quarterHeatDemand = new double[years][quarters];
+            this.quarterCO2Emission = new double[years][quarters];
+            this.renovated = new BitSet[years];
+            for (int year = 0; year < years; year++) {
+                this.renovated[year] = new BitSet(buildings);
+            }
+            this.finalHeatingTypes = new byte[buildings];
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package de.hawhh.gewiss.get.simulator;
+
+import de.hawhh.gewiss.get.core.calc.BuildingMetrics;
+import de.hawhh.gewiss.get.core.calc.CO2Schedule;
+import de.hawhh.gewiss.get.core.input.CompiledModifier;
+import de.hawhh.gewiss.get.core.input.Modifier;
+import de.hawhh.gewiss.get.core.input.SimulationParameter;
+import de.hawhh.gewiss.get.core.model.BuildingAttributeIndex;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.core.util.RandomStream;
+import de.hawhh.gewiss.get.simulator.model.BuildingScores;
+import de.hawhh.gewiss.get.simulator.ranking.IncrementalRanking;
+import de.hawhh.gewiss.get.simulator.ranking.RankingMode;
+import de.hawhh.gewiss.get.simulator.renovation.IRenovationStrategy;
+import de.hawhh.gewiss.get.simulator.scoring.ScoringMethod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Simulates several scenarios over the same building stock in lockstep, i.e. all scenarios advance year by year together. Each scenario (lane) only holds its own
+ * dynamic building state as a {@link BuildingTable#copy()}, its metrics and scores, while the static attributes, precomputed energy values and renovation costs
+ * are shared.
+ *
+ * The status quo is calculated once and taken over by all lanes and modifiers used by several scenarios are compiled only once. In the following years the metrics
+ * and raw scores are still calculated per lane, as the buildings of the lanes differ, but the updates of all lanes are fused into one parallel pass over the
+ * buildings instead of one pass per lane. Normalization, ranking and renovation are performed per lane with the configuration of the {@link Simulator}, i.e. its
+ * ranking mode and active set. Each lane yields the same results as a single simulation of its scenario with the same seed; the steady state of a lane is not
+ * detected, its remaining years are simulated like the other years.
+ *
+ * @author Thomas Preisler
+ */
+class LockstepSimulation {
+
+    private final static Logger LOGGER = Logger.getLogger(LockstepSimulation.class.getName());
+
+    private final Simulator simulator;
+    private final List<ScoringMethod> scoringMethods;
+    private final List<Lane> lanes = new ArrayList<>();
+
+    /**
+     * State of one scenario.
+     */
+    private static class Lane {
+
+        private final SimulationParameter parameter;
+        private final IRenovationStrategy renovationStrategy;
+        private final CO2Schedule co2Schedule;
+        private final BuildingTable buildings;
+        private final List<CompiledModifier> modifiers;
+        private final BuildingScores scores;
+        private final IncrementalRanking incrementalRanking;
+        private BuildingMetrics metrics;
+        // buildings the renovation strategy can still renovate, null if all buildings are scored
+        private int[] activeBuildings;
+        private BitSet activeMask;
+
+        private Lane(SimulationParameter parameter, IRenovationStrategy renovationStrategy, CO2Schedule co2Schedule, BuildingTable buildings,
+                     List<CompiledModifier> modifiers, BuildingScores scores, IncrementalRanking incrementalRanking) {
+            this.parameter = parameter;
+            this.renovationStrategy = renovationStrategy;
+            this.co2Schedule = co2Schedule;
+            this.buildings = buildings;
+            this.modifiers = modifiers;
+            this.scores = scores;
+            this.incrementalRanking = incrementalRanking;
+        }
+
+        private void setActiveBuildings(int[] activeBuildings) {
+            this.activeBuildings = activeBuildings;
+            this.activeMask = new BitSet(buildings.size());
+            Arrays.stream(activeBuildings).forEach(activeMask::set);
+        }
+
+        private boolean isScored(int index) {
+            return activeMask == null || activeMask.get(index);
+        }
+    }
+
+    /**
+     * @param simulator the simulator providing the scoring, ranking and normalization
+     * @param sharedBuildings the loaded building stock, not changed by the simulation
+     * @param attributeIndex the bitmap index of the building stock
+     * @param parameters the validated parameters of the scenarios
+     * @param co2Schedules the CO2 schedules of the scenarios
+     * @param scoringMethods the scoring methods of all scenarios
+     * @param renovationStrategies the renovation strategies of the scenarios
+     */
+    LockstepSimulation(Simulator simulator, BuildingTable sharedBuildings, BuildingAttributeIndex attributeIndex, List<SimulationParameter> parameters,
+                       List<CO2Schedule> co2Schedules, List<ScoringMethod> scoringMethods, List<IRenovationStrategy> renovationStrategies) {
+        this.simulator = simulator;
+        this.scoringMethods = scoringMethods;
+
+        // Compile every modifier once, the lanes only rebind the compiled modifiers to their buildings
+        Map<Modifier, CompiledModifier> compiledModifiers = new IdentityHashMap<>();
+        for (int lane = 0; lane < parameters.size(); lane++) {
+            SimulationParameter parameter = parameters.get(lane);
+            BuildingTable buildings = sharedBuildings.copy();
+            List<Modifier> modifiers = parameter.getModifiers() != null ? parameter.getModifiers() : new ArrayList<>();
+            List<CompiledModifier> laneModifiers = modifiers.stream()
+                    .map(modifier -> compiledModifiers.computeIfAbsent(modifier, key -> key.compile(attributeIndex)).withBuildings(buildings))
+                    .collect(Collectors.toList());
+
+            Lane state = new Lane(parameter, renovationStrategies.get(lane), co2Schedules.get(lane), buildings, laneModifiers,
+                    new BuildingScores(scoringMethods, buildings.size()), simulator.getRankingMode() == RankingMode.INCREMENTAL ? new IncrementalRanking() : null);
+            if (simulator.isActiveSet()) {
+                state.setActiveBuildings(Simulator.filterActiveBuildings(buildings, IntStream.range(0, buildings.size()), state.renovationStrategy));
+            }
+            lanes.add(state);
+        }
+    }
+
+    /**
+     * Simulates all scenarios from {@link SimulationParameter#FIRST_YEAR} up to the latest stop year of the scenarios, a scenario is not simulated beyond its own
+     * stop year.
+     *
+     * @param randomStream the random numbers of all scenarios
+     * @param listener called after each simulated year of each scenario
+     */
+    void run(RandomStream randomStream, Simulator.ScenarioListener listener) {
+        int lastYear = lanes.stream().mapToInt(lane -> lane.parameter.getStopYear()).max().orElse(SimulationParameter.FIRST_YEAR - 1);
+
+        // The status quo is the same for all lanes, only the CO2 emissions depend on the CO2 schedule
+        Lane first = lanes.get(0);
+        first.metrics = new BuildingMetrics(first.buildings, first.co2Schedule);
+        first.metrics.update(SimulationParameter.FIRST_YEAR);
+        lanes.stream().skip(1).forEach(lane -> lane.metrics = new BuildingMetrics(first.metrics, lane.buildings, lane.co2Schedule));
+
+        for (int year = SimulationParameter.FIRST_YEAR; year <= lastYear; year++) {
+            final int simYear = year;
+            List<Lane> active = lanes.stream().filter(lane -> lane.parameter.getStopYear() >= simYear).collect(Collectors.toList());
+            LOGGER.log(Level.INFO, "Simulating year {0} of {1} scenarios", new Object[]{simYear, active.size()});
+
+            // Don't perform a simulation in the first year; just calculate the status quo
+            if (year > SimulationParameter.FIRST_YEAR) {
+                // Update the metrics and calculate the raw scores of all lanes in one pass over the buildings
+                active.forEach(lane -> lane.metrics.beginUpdate(simYear));
+                IntStream.range(0, first.buildings.size()).parallel().forEach(index -> {
+                    for (Lane lane : active) {
+                        lane.metrics.updateBuilding(index);
+                        if (lane.isScored(index)) {
+                            for (int method = 0; method < scoringMethods.size(); method++) {
+                                lane.scores.setScore(method, index, scoringMethods.get(method).calcBaseScore(lane.buildings, lane.metrics, index, simYear));
+                            }
+                        }
+                    }
+                });
+
+                for (Lane lane : active) {
+                    simulator.renovateScored(lane.buildings, lane.scores, lane.modifiers, lane.renovationStrategy, randomStream, simYear, lane.incrementalRanking,
+                            lane.activeBuildings);
+                    if (lane.activeBuildings != null) {
+                        lane.setActiveBuildings(Simulator.filterActiveBuildings(lane.buildings, Arrays.stream(lane.activeBuildings), lane.renovationStrategy));
+                    }
+                }
+            }
+
+            // Calc heat demand of all lanes in one pass, only the buildings changed by the renovation strategies are recalculated
+            active.forEach(lane -> lane.metrics.beginUpdate(simYear));
+            IntStream.range(0, first.buildings.size()).parallel().forEach(index -> {
+                for (Lane lane : active) {
+                    lane.metrics.updateBuilding(index);
+                }
+            });
+
+            for (int lane = 0; lane < lanes.size(); lane++) {
+                if (lanes.get(lane).parameter.getStopYear() >= simYear) {
+                    listener.yearSimulated(lane, simYear, lanes.get(lane).buildings, lanes.get(lane).metrics);
+                }
+            }
+        }
+    }
+}
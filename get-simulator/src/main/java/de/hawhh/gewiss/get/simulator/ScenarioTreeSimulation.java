@@ -0,0 +1,260 @@
+package de.hawhh.gewiss.get.simulator;
+
+import de.hawhh.gewiss.get.core.calc.BuildingMetrics;
+import de.hawhh.gewiss.get.core.calc.CO2Schedule;
+import de.hawhh.gewiss.get.core.input.CompiledModifier;
+import de.hawhh.gewiss.get.core.input.Modifier;
+import de.hawhh.gewiss.get.core.input.SimulationParameter;
+import de.hawhh.gewiss.get.core.model.BuildingAttributeIndex;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.core.model.HeatingType;
+import de.hawhh.gewiss.get.core.util.RandomStream;
+import de.hawhh.gewiss.get.simulator.ranking.IncrementalRanking;
+import de.hawhh.gewiss.get.simulator.ranking.RankingMode;
+import de.hawhh.gewiss.get.simulator.renovation.IRenovationStrategy;
+import de.hawhh.gewiss.get.simulator.scoring.ScoringMethod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Simulates several scenarios as a tree sharing their common prefixes. Scenarios whose inputs of a year are equal renovate the same buildings in this year, so as
+ * long as two scenarios had equal inputs in all previous years, they are simulated together as one branch. The inputs of a year are the CO2 factors of the year, the
+ * modifiers active in the year (compared by their conditions and impact factor) and the effective renovation strategy of the year (see
+ * {@link IRenovationStrategy#getEffectiveStrategy(int)}, compared by its parameters via <code>equals</code>). The scoring methods and the random numbers are the same
+ * for all scenarios.
+ *
+ * The branches are ranked with the ranking mode of the {@link Simulator}. With the active set of the simulator, the active buildings of a scenario are filtered with
+ * its whole renovation strategy, so scenarios additionally need equal renovation strategies to share a branch after the first year. The steady state of a branch is
+ * not detected, its remaining years are simulated like the other years and yield the same outputs.
+ *
+ * At the first year in which the inputs of the scenarios of a branch differ, the branch is split. One part continues with the building state of the branch, the
+ * other parts fork it: the dynamic building attributes and cached metrics are copied while the static attributes stay shared (see {@link BuildingTable#copy()}).
+ * Each scenario yields the same results as a single simulation with the same seed.
+ *
+ * @author Thomas Preisler
+ */
+class ScenarioTreeSimulation {
+
+    private final static Logger LOGGER = Logger.getLogger(ScenarioTreeSimulation.class.getName());
+
+    private static final HeatingType[] HEATING_TYPES = HeatingType.values();
+
+    private final Simulator simulator;
+    private final BuildingTable sharedBuildings;
+    private final BuildingAttributeIndex attributeIndex;
+    private final List<SimulationParameter> parameters;
+    private final List<CO2Schedule> co2Schedules;
+    private final List<ScoringMethod> scoringMethods;
+    private final List<IRenovationStrategy> renovationStrategies;
+
+    // every modifier is compiled once, the branches only rebind the compiled modifiers to their buildings
+    private final Map<Modifier, CompiledModifier> compiledModifiers = new IdentityHashMap<>();
+
+    /**
+     * Scenarios simulated together on one building state. The first scenario of a branch provides the inputs of the branch.
+     */
+    private class Branch {
+
+        private final List<Integer> scenarios;
+        private final BuildingTable buildings;
+        private final BuildingMetrics metrics;
+        private final List<CompiledModifier> modifiers;
+        private final IncrementalRanking incrementalRanking;
+        // buildings the renovation strategy can still renovate, null if all buildings are scored
+        private int[] activeBuildings;
+
+        private Branch(List<Integer> scenarios, BuildingTable buildings, BuildingMetrics metrics, int[] activeBuildings) {
+            this.scenarios = scenarios;
+            this.buildings = buildings;
+            this.metrics = metrics;
+            this.activeBuildings = activeBuildings;
+            this.incrementalRanking = simulator.getRankingMode() == RankingMode.INCREMENTAL ? new IncrementalRanking() : null;
+
+            List<Modifier> leadModifiers = parameters.get(lead()).getModifiers() != null ? parameters.get(lead()).getModifiers() : new ArrayList<>();
+            this.modifiers = leadModifiers.stream().map(modifier -> compiledModifiers.computeIfAbsent(modifier, key -> key.compile(attributeIndex))
+                    .withBuildings(buildings)).collect(Collectors.toList());
+        }
+
+        private int lead() {
+            return scenarios.get(0);
+        }
+    }
+
+    /**
+     * @param simulator the simulator performing the renovation step of each year
+     * @param sharedBuildings the loaded building stock, not changed by the simulation
+     * @param attributeIndex the bitmap index of the building stock
+     * @param parameters the validated parameters of the scenarios
+     * @param co2Schedules the CO2 schedules of the scenarios
+     * @param scoringMethods the scoring methods of all scenarios
+     * @param renovationStrategies the renovation strategies of the scenarios
+     */
+    ScenarioTreeSimulation(Simulator simulator, BuildingTable sharedBuildings, BuildingAttributeIndex attributeIndex, List<SimulationParameter> parameters,
+                           List<CO2Schedule> co2Schedules, List<ScoringMethod> scoringMethods, List<IRenovationStrategy> renovationStrategies) {
+        this.simulator = simulator;
+        this.sharedBuildings = sharedBuildings;
+        this.attributeIndex = attributeIndex;
+        this.parameters = parameters;
+        this.co2Schedules = co2Schedules;
+        this.scoringMethods = scoringMethods;
+        this.renovationStrategies = renovationStrategies;
+    }
+
+    /**
+     * Simulates all scenarios from {@link SimulationParameter#FIRST_YEAR} up to their stop years.
+     *
+     * @param randomStream the random numbers of all scenarios
+     * @param listener called after each simulated year of each scenario
+     */
+    void run(RandomStream randomStream, Simulator.ScenarioListener listener) {
+        int lastYear = parameters.stream().mapToInt(SimulationParameter::getStopYear).max().orElse(SimulationParameter.FIRST_YEAR - 1);
+
+        BuildingTable rootBuildings = sharedBuildings.copy();
+        List<Integer> all = IntStream.range(0, parameters.size()).boxed().collect(Collectors.toList());
+        List<Branch> branches = new ArrayList<>();
+        branches.add(new Branch(all, rootBuildings, new BuildingMetrics(rootBuildings, co2Schedules.get(0)), initialActiveBuildings(rootBuildings, 0)));
+
+        for (int year = SimulationParameter.FIRST_YEAR; year <= lastYear; year++) {
+            final int simYear = year;
+
+            List<Branch> yearBranches = new ArrayList<>();
+            branches.forEach(branch -> yearBranches.addAll(split(branch, simYear)));
+            branches = yearBranches;
+            LOGGER.log(Level.INFO, "Simulating year {0} in {1} branches", new Object[]{Integer.toString(simYear), branches.size()});
+
+            for (Branch branch : branches) {
+                // Don't perform a simulation in the first year; just calculate the status quo
+                if (year > SimulationParameter.FIRST_YEAR) {
+                    IRenovationStrategy renovationStrategy = renovationStrategies.get(branch.lead());
+                    simulator.renovate(branch.buildings, branch.metrics, branch.modifiers, scoringMethods, renovationStrategy, randomStream, simYear,
+                            branch.incrementalRanking, branch.activeBuildings);
+                    if (branch.activeBuildings != null) {
+                        branch.activeBuildings = Simulator.filterActiveBuildings(branch.buildings, Arrays.stream(branch.activeBuildings), renovationStrategy);
+                    }
+                }
+
+                branch.metrics.update(simYear);
+                for (int scenario : branch.scenarios) {
+                    listener.yearSimulated(scenario, simYear, branch.buildings, branch.metrics);
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits the scenarios of the branch still simulated in the given year into groups of scenarios with equal inputs of the year. The group of the lead scenario
+     * (or the first group, if the lead scenario has stopped) continues with the building state of the branch, the others fork it.
+     */
+    private List<Branch> split(Branch branch, int year) {
+        List<List<Integer>> groups = new ArrayList<>();
+        for (int scenario : branch.scenarios) {
+            if (parameters.get(scenario).getStopYear() < year) {
+                continue;
+            }
+            List<Integer> group = groups.stream().filter(candidate -> sameInputs(candidate.get(0), scenario, year)).findFirst().orElse(null);
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.add(group);
+            }
+            group.add(scenario);
+        }
+
+        if (groups.size() == 1 && groups.get(0).size() == branch.scenarios.size()) {
+            return Collections.singletonList(branch);
+        }
+
+        List<Branch> branches = new ArrayList<>();
+        for (int i = 0; i < groups.size(); i++) {
+            List<Integer> group = groups.get(i);
+            boolean continues = group.contains(branch.lead()) || (i == 0 && groups.stream().noneMatch(candidate -> candidate.contains(branch.lead())));
+            // with the active set, scenarios with different renovation strategies only share the status quo, so no building has been renovated yet
+            int[] activeBuildings = branch.activeBuildings == null || sameStrategy(group.get(0), branch.lead()) ? branch.activeBuildings
+                    : initialActiveBuildings(branch.buildings, group.get(0));
+            if (continues && group.get(0) == branch.lead()) {
+                branches.add(new Branch(group, branch.buildings, branch.metrics, activeBuildings));
+            } else if (continues) {
+                // same building state, but the metrics have to use the CO2 factors of the new lead scenario
+                branches.add(new Branch(group, branch.buildings, new BuildingMetrics(branch.metrics, branch.buildings, co2Schedules.get(group.get(0))),
+                        activeBuildings));
+            } else {
+                LOGGER.log(Level.INFO, "Scenarios {0} diverge from scenario {1} in {2}", new Object[]{group, branch.lead(), Integer.toString(year)});
+                BuildingTable buildings = branch.buildings.copy();
+                branches.add(new Branch(group, buildings, new BuildingMetrics(branch.metrics, buildings, co2Schedules.get(group.get(0))), activeBuildings));
+            }
+        }
+        return branches;
+    }
+
+    /**
+     * @return the buildings the renovation strategy of the given scenario can renovate, <code>null</code> if the simulator does not use the active set
+     */
+    private int[] initialActiveBuildings(BuildingTable buildings, int scenario) {
+        return simulator.isActiveSet() ? Simulator.filterActiveBuildings(buildings, IntStream.range(0, buildings.size()), renovationStrategies.get(scenario)) : null;
+    }
+
+    private boolean sameStrategy(int scenario, int other) {
+        return Objects.equals(renovationStrategies.get(scenario), renovationStrategies.get(other));
+    }
+
+    /**
+     * Checks whether the given scenarios have the same inputs in the given year, i.e. renovate the same buildings and yield the same outputs in this year if their
+     * buildings are in the same state.
+     */
+    private boolean sameInputs(int scenario, int other, int year) {
+        for (HeatingType heatingType : HEATING_TYPES) {
+            if (Double.compare(co2Schedules.get(scenario).getFactor(heatingType, year), co2Schedules.get(other).getFactor(heatingType, year)) != 0) {
+                return false;
+            }
+        }
+        if (year == SimulationParameter.FIRST_YEAR) {
+            // no renovation in the first year
+            return true;
+        }
+
+        if (!Objects.equals(renovationStrategies.get(scenario).getEffectiveStrategy(year), renovationStrategies.get(other).getEffectiveStrategy(year))) {
+            return false;
+        }
+        if (simulator.isActiveSet() && !sameStrategy(scenario, other)) {
+            return false;
+        }
+
+        List<Modifier> modifiers = activeModifiers(scenario, year);
+        List<Modifier> otherModifiers = activeModifiers(other, year);
+        if (modifiers.size() != otherModifiers.size()) {
+            return false;
+        }
+        // the impact factors are multiplied in the order of the modifiers
+        for (int i = 0; i < modifiers.size(); i++) {
+            if (!sameEffect(modifiers.get(i), otherModifiers.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Modifier> activeModifiers(int scenario, int year) {
+        List<Modifier> modifiers = parameters.get(scenario).getModifiers();
+        return modifiers == null ? new ArrayList<>() : modifiers.stream().filter(modifier -> modifier.isActive(year)).collect(Collectors.toList());
+    }
+
+    private static boolean sameEffect(Modifier modifier, Modifier other) {
+        return modifier == other || (Objects.equals(modifier.getImpactFactor(), other.getImpactFactor())
+                && Objects.equals(modifier.getTargetQuarters(), other.getTargetQuarters())
+                && Objects.equals(modifier.getTargetBuildingsTypes(), other.getTargetBuildingsTypes())
+                && Objects.equals(modifier.getTargetOwnershipTypes(), other.getTargetOwnershipTypes())
+                && Objects.equals(modifier.getTargetRenovationLevels(), other.getTargetRenovationLevels())
+                && Objects.equals(modifier.getTargetHeatingSystems(), other.getTargetHeatingSystems())
+                && Objects.equals(modifier.getMaxDistrictHeatingDistance(), other.getMaxDistrictHeatingDistance())
+                && Objects.equals(modifier.getYearOfConstructionRange(), other.getYearOfConstructionRange()));
+    }
+}
@@ -4,19 +4,31 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.guava.GuavaModule;
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Multimap;
+import de.hawhh.gewiss.get.core.calc.BuildingMetrics;
+import de.hawhh.gewiss.get.core.calc.CO2Schedule;
 import de.hawhh.gewiss.get.core.calc.EnergyCalculator;
 import de.hawhh.gewiss.get.core.input.*;
-import de.hawhh.gewiss.get.core.model.Building;
+import de.hawhh.gewiss.get.core.model.BuildingAttributeIndex;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
 import de.hawhh.gewiss.get.core.model.HeatingType;
 import de.hawhh.gewiss.get.core.model.RenovationType;
+import de.hawhh.gewiss.get.core.output.AggregateOutputSink;
+import de.hawhh.gewiss.get.core.output.AggregationCube;
+import de.hawhh.gewiss.get.core.output.AggregationLevel;
+import de.hawhh.gewiss.get.core.output.BuildingDictionary;
 import de.hawhh.gewiss.get.core.output.BuildingInformation;
-import de.hawhh.gewiss.get.core.output.SimulationOutput;
+import de.hawhh.gewiss.get.core.output.DeltaYearFrames;
+import de.hawhh.gewiss.get.core.output.InMemoryOutputSink;
+import de.hawhh.gewiss.get.core.output.SimulationOutputSink;
 import de.hawhh.gewiss.get.core.output.SimulationResult;
+import de.hawhh.gewiss.get.core.output.YearFrame;
+import de.hawhh.gewiss.get.core.util.RandomStream;
 import de.hawhh.gewiss.get.simulator.db.dao.BuildingDAO;
 import de.hawhh.gewiss.get.simulator.db.dao.SQLiteBuildingDAO;
-import de.hawhh.gewiss.get.simulator.model.ScoredBuilding;
+import de.hawhh.gewiss.get.simulator.model.BuildingScores;
+import de.hawhh.gewiss.get.simulator.ranking.IncrementalRanking;
+import de.hawhh.gewiss.get.simulator.ranking.RankingMode;
+import de.hawhh.gewiss.get.simulator.ranking.TopKSelector;
 import de.hawhh.gewiss.get.simulator.renovation.IRenovationStrategy;
 import de.hawhh.gewiss.get.simulator.renovation.RenovationHeatExchangeRateStrategy;
 import de.hawhh.gewiss.get.simulator.scoring.BuildingAgeFactor;
@@ -26,9 +38,15 @@ import de.hawhh.gewiss.get.simulator.scoring.ScoringMethod;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * The main simulator class.
@@ -41,12 +59,121 @@ public class Simulator extends Observable {
 
     private final BuildingDAO buildingDAO;
     private final EnergyCalculator energyCalculator;
-    private final Random randomGenerator;
+    private RankingMode rankingMode;
+    private boolean pipelinedOutput;
+    private boolean steadyStateMarker;
+    private boolean activeSet;
+    private int keyframeInterval;
+    private Set<AggregationLevel> aggregationLevels;
 
     public Simulator() {
         this.buildingDAO = new SQLiteBuildingDAO();
         this.energyCalculator = EnergyCalculator.getInstance();
-        this.randomGenerator = new Random();
+        this.rankingMode = RankingMode.TOP_K;
+        this.pipelinedOutput = false;
+        this.steadyStateMarker = false;
+        this.activeSet = false;
+        this.keyframeInterval = 0;
+        this.aggregationLevels = EnumSet.allOf(AggregationLevel.class);
+    }
+
+    public RankingMode getRankingMode() {
+        return rankingMode;
+    }
+
+    /**
+     * Set the way the scored buildings are ranked each year. All modes produce the same renovations, {@link RankingMode#TOP_K} only avoids sorting the part of the
+     * building stock the renovation strategy never looks at and {@link RankingMode#INCREMENTAL} additionally reuses the ranking of the unchanged scores of the
+     * previous year within a simulation run. The default is {@link RankingMode#TOP_K}, as {@link RankingMode#INCREMENTAL} only helps if the scores of most
+     * buildings do not change between the years (see {@link IncrementalRanking}).
+     *
+     * @param rankingMode the ranking mode
+     */
+    public void setRankingMode(RankingMode rankingMode) {
+        this.rankingMode = rankingMode;
+    }
+
+    public boolean isPipelinedOutput() {
+        return pipelinedOutput;
+    }
+
+    /**
+     * Set whether {@link #simulate(SimulationParameter, CO2Schedule, List, IRenovationStrategy, Long)} creates the outputs of a year on a separate worker. In the
+     * pipelined mode a snapshot of the buildings and metrics of a year is handed to the output worker, while the scoring and renovation of the next year already
+     * starts on the copied state. The results are the same in both modes, the observers are notified from the output worker in the pipelined mode.
+     *
+     * @param pipelinedOutput whether the outputs are created on a separate worker
+     */
+    public void setPipelinedOutput(boolean pipelinedOutput) {
+        this.pipelinedOutput = pipelinedOutput;
+    }
+
+    public boolean isActiveSet() {
+        return activeSet;
+    }
+
+    /**
+     * Set whether a simulation run only scores and ranks the buildings its renovation strategy can still renovate (see
+     * {@link IRenovationStrategy#canRenovate(BuildingTable, int)}), e.g. no buildings at the good renovation level. The set of these active buildings shrinks
+     * as the building stock is renovated. The number of renovated buildings is still calculated from the whole building stock.
+     *
+     * The results differ from a run ranking all buildings: the inactive buildings neither take positions in the ranking nor count for the bounds of the score
+     * normalization. The incremental ranking is not used with the active set.
+     *
+     * @param activeSet whether only the active buildings are scored and ranked
+     */
+    public void setActiveSet(boolean activeSet) {
+        this.activeSet = activeSet;
+    }
+
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    /**
+     * Set whether the results store the outputs of the years delta-encoded (see {@link DeltaYearFrames}), i.e. a keyframe with the outputs of all buildings every
+     * given number of years and only the changed buildings in the years between. The outputs of a year are reconstructed on access and equal the outputs stored in
+     * full.
+     *
+     * @param keyframeInterval number of years between two keyframes, 0 to store the outputs of all years in full
+     */
+    public void setKeyframeInterval(int keyframeInterval) {
+        if (keyframeInterval < 0) {
+            throw new IllegalArgumentException("Keyframe interval must not be negative, got " + keyframeInterval);
+        }
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    public Set<AggregationLevel> getAggregationLevels() {
+        return Collections.unmodifiableSet(aggregationLevels);
+    }
+
+    /**
+     * Set the levels the outputs are aggregated on during a simulation run (see {@link AggregationCube}). The yearly values of the result for the whole city and for
+     * a quarter are taken from the cube if it contains {@link AggregationLevel#CITY} or {@link AggregationLevel#QUARTER}, otherwise they are calculated from the
+     * outputs.
+     *
+     * @param aggregationLevels the levels to aggregate on, an empty set to not aggregate the outputs
+     */
+    public void setAggregationLevels(Set<AggregationLevel> aggregationLevels) {
+        this.aggregationLevels = EnumSet.noneOf(AggregationLevel.class);
+        this.aggregationLevels.addAll(aggregationLevels);
+    }
+
+    public boolean isSteadyStateMarker() {
+        return steadyStateMarker;
+    }
+
+    /**
+     * Set how {@link #simulate(SimulationParameter, CO2Schedule, List, IRenovationStrategy, Long)} stores the years after the simulation has reached a steady state
+     * (see {@link #isSteadyState(BuildingTable, CO2Schedule, IRenovationStrategy, int)}). The remaining years are never simulated, by default their outputs are
+     * created from the last simulated state. With the marker only the range of the constant years is stored in the {@link SimulationResult}, see
+     * {@link SimulationResult#getConstantFromYear()}.
+     *
+     * @param steadyStateMarker whether the constant years are stored as a marker instead of outputs
+     */
+    public void setSteadyStateMarker(boolean steadyStateMarker) {
+        this.steadyStateMarker = steadyStateMarker;
     }
 
     /**
@@ -54,6 +181,8 @@ public class Simulator extends Observable {
      * (year) the renovation score is calculated for each building. Based on these scores the renovation strategy is applied and the selected buildings are renovated.
      * Afterwards the current heat demand of each building is calculated.
      *
+     * The yearly CO2 factors are linearly interpolated from the start, mid and final CO2 factors of the parameters.
+     *
      * @param parameter the encapusalted simulation parameters
      * @param scoringMethods List of different scoring methods to be applied
      * @param renovationStrategy the selected renovation strategy
@@ -62,31 +191,346 @@ public class Simulator extends Observable {
      * @throws de.hawhh.gewiss.get.core.input.InputValidationException
      */
     public SimulationResult simulate(SimulationParameter parameter, List<ScoringMethod> scoringMethods, IRenovationStrategy renovationStrategy, Long rgSeed) throws InputValidationException {
+        // Validate the input factors
+        parameter.validate();
+
+        // Interpolate the CO2 yearly factors of the simulation run
+        CO2Schedule co2Schedule = energyCalculator.createCO2Schedule(parameter.getYearlyCO2Factors(), parameter.getMidCO2Year(), parameter.getFinalCO2Year());
+
+        return simulateValidated(parameter, co2Schedule, scoringMethods, renovationStrategy, rgSeed, new InMemoryOutputSink());
+    }
+
+    /**
+     * Performs the simulation using the given yearly CO2 factors instead of the CO2 factors of the parameters. The schedule is not modified, so the same schedule
+     * can be used by several simulations.
+     *
+     * @param parameter the encapusalted simulation parameters
+     * @param co2Schedule the yearly CO2 factors of the simulation run
+     * @param scoringMethods List of different scoring methods to be applied
+     * @param renovationStrategy the selected renovation strategy
+     * @param rgSeed seed for the pseudorandom number generator
+     * @return
+     * @throws de.hawhh.gewiss.get.core.input.InputValidationException
+     */
+    public SimulationResult simulate(SimulationParameter parameter, CO2Schedule co2Schedule, List<ScoringMethod> scoringMethods, IRenovationStrategy renovationStrategy,
+                                     Long rgSeed) throws InputValidationException {
+        return simulate(parameter, co2Schedule, scoringMethods, renovationStrategy, rgSeed, new InMemoryOutputSink());
+    }
+
+    /**
+     * Performs the simulation and hands the outputs of each simulated year to the given sink, instead of collecting all outputs in the result. The returned result
+     * only holds the outputs stored by the sink, e.g. none for an {@link AggregateOutputSink}, so long runs over the whole building stock can be performed in bounded
+     * memory.
+     *
+     * @param parameter the encapusalted simulation parameters
+     * @param co2Schedule the yearly CO2 factors of the simulation run
+     * @param scoringMethods List of different scoring methods to be applied
+     * @param renovationStrategy the selected renovation strategy
+     * @param rgSeed seed for the pseudorandom number generator
+     * @param sink receives the outputs of each simulated year
+     * @return
+     * @throws de.hawhh.gewiss.get.core.input.InputValidationException
+     */
+    public SimulationResult simulate(SimulationParameter parameter, CO2Schedule co2Schedule, List<ScoringMethod> scoringMethods, IRenovationStrategy renovationStrategy,
+                                     Long rgSeed, SimulationOutputSink sink) throws InputValidationException {
+        // Validate the input factors
+        parameter.validate();
+
+        return simulateValidated(parameter, co2Schedule, scoringMethods, renovationStrategy, rgSeed, sink);
+    }
+
+    /**
+     * Performs the simulation with parameters already validated by the caller.
+     */
+    private SimulationResult simulateValidated(SimulationParameter parameter, CO2Schedule co2Schedule, List<ScoringMethod> scoringMethods,
+                                               IRenovationStrategy renovationStrategy, Long rgSeed, SimulationOutputSink sink) throws InputValidationException {
         long startTime = System.currentTimeMillis();
 
         // if seed is not explicitly set, use system time in nano second to create new "random" seed for each run.
         if (rgSeed == null) {
             rgSeed = System.nanoTime();
         }
-        // set the seed for the random generator
+        // the random numbers of the run are derived from the seed
         LOGGER.log(Level.INFO, "The seed for the simulation is {0}", rgSeed);
-        this.randomGenerator.setSeed(rgSeed);
-
-        // Validate the input factors
-        parameter.validate();
-
-        // Populate the CO2 yearly factors list for linear interpolation
-        this.energyCalculator.prepCO2YearlyRates(parameter.getYearlyCO2Factors(), parameter.getMidCO2Year(), parameter.getFinalCO2Year());
+        RandomStream randomStream = new RandomStream(rgSeed);
 
-        // Fetch the building from the DB
-        List<Building> buildings = fetchBuildings();
+        // Fetch the building from the DB and precompute their energy values and renovation costs
+        BuildingTable buildings = loadBuildings();
         
         // Limit the number of buildings, only for debug purposes!
         //buildings = buildings.subList(0, 20);
 
+        SimulationResult result = createResult(parameter, co2Schedule, rgSeed);
+
+        // Map Buildings to BuildingInformation and store them in the result object, the static information is available to the sink from the start
+        result.setBuildings(createBuildingInformation(buildings));
+        BuildingDictionary dictionary = new BuildingDictionary(buildings);
+        if (!aggregationLevels.isEmpty()) {
+            result.setCube(new AggregationCube(buildings, aggregationLevels));
+        }
+
+        // Bitmap index of the static building attributes the modifiers are compiled against
+        BuildingAttributeIndex attributeIndex = new BuildingAttributeIndex(buildings);
+
+        sink.open(result);
+        try {
+            if (pipelinedOutput) {
+                runPipelined(buildings, dictionary, attributeIndex, parameter, co2Schedule, scoringMethods, renovationStrategy, randomStream, sink, result.getCube());
+            } else {
+                run(buildings, attributeIndex, parameter, co2Schedule, scoringMethods, renovationStrategy, randomStream,
+                        resultListener(sink, dictionary, buildings, (simYear, metrics) -> storeOutputs(sink, result.getCube(), dictionary, buildings, metrics, simYear), Runnable::run));
+            }
+        } catch (Throwable ex) {
+            // the sink must not keep the outputs of the incomplete run, a failure while aborting must not hide the failure of the run
+            try {
+                sink.abort(result, ex);
+            } catch (RuntimeException abortEx) {
+                ex.addSuppressed(abortEx);
+            }
+            throw ex;
+        }
+        sink.close(result);
+
+        long endTime = System.currentTimeMillis();
+        result.setRunTime(endTime - startTime);
+
+        return result;
+    }
+
+    /**
+     * Runs the simulation with the output stage on a separate worker. After the metrics of a year have been updated, they are handed to the worker as a snapshot of
+     * the buildings and metrics, while the simulation of the next year continues on the original state. The snapshots are double-buffered: the two snapshots are
+     * copied once (see {@link BuildingTable#copy()}) and afterwards alternately brought up to date by copying only the buildings changed since the snapshot was used
+     * two years before (see {@link BuildingTable#copyChangedFrom(BuildingTable)}), after the worker has finished with it. The worker stores the years in the order
+     * they were simulated.
+     */
+    private void runPipelined(BuildingTable buildings, BuildingDictionary dictionary, BuildingAttributeIndex attributeIndex, SimulationParameter parameter, CO2Schedule co2Schedule,
+                              List<ScoringMethod> scoringMethods, IRenovationStrategy renovationStrategy, RandomStream randomStream, SimulationOutputSink sink,
+                              AggregationCube cube) {
+        ExecutorService outputWorker = Executors.newSingleThreadExecutor();
+        List<Future<?>> pendingOutputs = new ArrayList<>();
+        Snapshot[] snapshots = {new Snapshot(), new Snapshot()};
+        try {
+            run(buildings, attributeIndex, parameter, co2Schedule, scoringMethods, renovationStrategy, randomStream, resultListener(sink, dictionary, buildings, new YearListener() {
+                private int next;
+
+                @Override
+                public void yearSimulated(int simYear, BuildingMetrics metrics) {
+                    Snapshot snapshot = snapshots[next];
+                    next = 1 - next;
+
+                    // Only read by the output worker until its outputs are stored
+                    if (snapshot.output != null) {
+                        await(snapshot.output);
+                    }
+                    if (snapshot.buildings == null) {
+                        snapshot.buildings = buildings.copy();
+                        snapshot.metrics = new BuildingMetrics(metrics, snapshot.buildings, co2Schedule);
+                    } else {
+                        snapshot.buildings.copyChangedFrom(buildings);
+                        snapshot.metrics.copyChangedFrom(metrics);
+                    }
+                    BuildingTable snapshotBuildings = snapshot.buildings;
+                    BuildingMetrics snapshotMetrics = snapshot.metrics;
+                    snapshot.output = outputWorker.submit(() -> storeOutputs(sink, cube, dictionary, snapshotBuildings, snapshotMetrics, simYear));
+                    pendingOutputs.add(snapshot.output);
+                }
+            }, task -> pendingOutputs.add(outputWorker.submit(task))));
+
+            for (Future<?> pendingOutput : pendingOutputs) {
+                await(pendingOutput);
+            }
+        } finally {
+            outputWorker.shutdownNow();
+        }
+    }
+
+    /**
+     * Buildings and metrics of a year handed to the output worker of {@link #runPipelined}.
+     */
+    private static class Snapshot {
+
+        private BuildingTable buildings;
+        private BuildingMetrics metrics;
+        private Future<?> output;
+    }
+
+    /**
+     * Waits for the output worker to store the outputs of a year, failures of the worker are rethrown.
+     */
+    private static void await(Future<?> output) {
+        try {
+            output.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException("Creating the simulation outputs failed", ex.getCause());
+        }
+    }
+
+    /**
+     * Wraps the given listener storing the outputs of a year in the sink, so that the years of a steady state are stored as a marker if configured and supported by
+     * the sink. The observers are notified about the marker by the given output stage, after the outputs of the previous years. The buildings are not changed
+     * any more once the steady state has been reached.
+     */
+    private YearListener resultListener(SimulationOutputSink sink, BuildingDictionary dictionary, BuildingTable buildings, YearListener storingListener,
+                                        Executor outputStage) {
+        return new YearListener() {
+            @Override
+            public void yearSimulated(int year, BuildingMetrics metrics) {
+                storingListener.yearSimulated(year, metrics);
+            }
+
+            @Override
+            public void steadyStateReached(int firstYear, int lastYear, BuildingMetrics metrics) {
+                if (!steadyStateMarker || !sink.supportsConstantYears()) {
+                    YearListener.super.steadyStateReached(firstYear, lastYear, metrics);
+                    return;
+                }
+
+                outputStage.execute(() -> {
+                    sink.acceptConstantYears(createFrame(dictionary, buildings, metrics, firstYear - 1), lastYear);
+
+                    // Notify observers that the simulation of all years is finished
+                    setChanged();
+                    notifyObservers(lastYear);
+                });
+            }
+        };
+    }
+
+    /**
+     * Hands the heat demand and further results of all buildings for a simulated year to the sink, aggregates them in the cube (if any) and notifies the observers.
+     */
+    private void storeOutputs(SimulationOutputSink sink, AggregationCube cube, BuildingDictionary dictionary, BuildingTable buildings, BuildingMetrics metrics, int simYear) {
+        YearFrame frame = createFrame(dictionary, buildings, metrics, simYear);
+        if (cube != null) {
+            cube.add(frame);
+        }
+        sink.accept(frame);
+
+        // Notify observers that the simulation of the year is finished
+        setChanged();
+        notifyObservers(simYear);
+    }
+
+    /**
+     * Simulates several scenarios over the same building stock in lockstep, see {@link LockstepSimulation}. The buildings are loaded once, the scenarios advance year
+     * by year together and share the per building work of each year where possible. Each result equals the result of
+     * {@link #simulate(SimulationParameter, List, IRenovationStrategy, Long)} for the scenario with the same seed, all scenarios use the same seed.
+     *
+     * @param parameters the parameters of the scenarios
+     * @param scoringMethods List of different scoring methods to be applied in all scenarios
+     * @param renovationStrategies the renovation strategies of the scenarios, one per parameters
+     * @param rgSeed seed for the pseudorandom number generator
+     * @return the results of the scenarios, in the order of the parameters
+     * @throws InputValidationException
+     */
+    public List<SimulationResult> simulateLockstep(List<SimulationParameter> parameters, List<ScoringMethod> scoringMethods, List<IRenovationStrategy> renovationStrategies,
+                                                   Long rgSeed) throws InputValidationException {
+        return simulateScenarios(parameters, renovationStrategies, rgSeed, (buildings, attributeIndex, co2Schedules, randomStream, listener)
+                -> new LockstepSimulation(this, buildings, attributeIndex, parameters, co2Schedules, scoringMethods, renovationStrategies).run(randomStream, listener));
+    }
+
+    /**
+     * Simulates several scenarios sharing the simulation of their common prefix, see {@link ScenarioTreeSimulation}. The buildings are loaded once, scenarios with
+     * the same inputs up to a year are simulated together up to this year and the building state is copied when they diverge. Each result equals the result of
+     * {@link #simulate(SimulationParameter, List, IRenovationStrategy, Long)} for the scenario with the same seed, all scenarios use the same seed.
+     *
+     * @param parameters the parameters of the scenarios
+     * @param scoringMethods List of different scoring methods to be applied in all scenarios
+     * @param renovationStrategies the renovation strategies of the scenarios, one per parameters
+     * @param rgSeed seed for the pseudorandom number generator
+     * @return the results of the scenarios, in the order of the parameters
+     * @throws InputValidationException
+     */
+    public List<SimulationResult> simulateScenarioTree(List<SimulationParameter> parameters, List<ScoringMethod> scoringMethods,
+                                                       List<IRenovationStrategy> renovationStrategies, Long rgSeed) throws InputValidationException {
+        return simulateScenarios(parameters, renovationStrategies, rgSeed, (buildings, attributeIndex, co2Schedules, randomStream, listener)
+                -> new ScenarioTreeSimulation(this, buildings, attributeIndex, parameters, co2Schedules, scoringMethods, renovationStrategies).run(randomStream, listener));
+    }
+
+    /**
+     * Loads the buildings once and simulates all scenarios with the given execution, collecting the outputs of each scenario in its own result.
+     */
+    private List<SimulationResult> simulateScenarios(List<SimulationParameter> parameters, List<IRenovationStrategy> renovationStrategies, Long rgSeed,
+                                                     ScenarioExecution execution) throws InputValidationException {
+        long startTime = System.currentTimeMillis();
+
+        if (parameters.isEmpty() || parameters.size() != renovationStrategies.size()) {
+            throw new InputValidationException("Expected one renovation strategy for each of the " + parameters.size() + " scenarios, got " + renovationStrategies.size());
+        }
+
+        // if seed is not explicitly set, use system time in nano second to create new "random" seed for each run.
+        if (rgSeed == null) {
+            rgSeed = System.nanoTime();
+        }
+        LOGGER.log(Level.INFO, "The seed for the simulation is {0}", rgSeed);
+
+        // Validate the input factors and interpolate the CO2 yearly factors of the scenarios
+        List<CO2Schedule> co2Schedules = new ArrayList<>();
+        for (SimulationParameter parameter : parameters) {
+            parameter.validate();
+            co2Schedules.add(energyCalculator.createCO2Schedule(parameter.getYearlyCO2Factors(), parameter.getMidCO2Year(), parameter.getFinalCO2Year()));
+        }
+
+        BuildingTable buildings = loadBuildings();
+        BuildingAttributeIndex attributeIndex = new BuildingAttributeIndex(buildings);
+        BuildingDictionary dictionary = new BuildingDictionary(buildings);
+
+        // the areas of the aggregation levels are the same in all scenarios
+        AggregationCube cube = aggregationLevels.isEmpty() ? null : new AggregationCube(buildings, aggregationLevels);
+
+        List<SimulationResult> results = new ArrayList<>();
+        for (int scenario = 0; scenario < parameters.size(); scenario++) {
+            SimulationResult result = createResult(parameters.get(scenario), co2Schedules.get(scenario), rgSeed);
+            if (cube != null) {
+                result.setCube(cube.emptyCopy());
+            }
+            results.add(result);
+        }
+
+        execution.execute(buildings, attributeIndex, co2Schedules, new RandomStream(rgSeed), (scenario, simYear, scenarioBuildings, metrics) -> {
+            SimulationResult result = results.get(scenario);
+            YearFrame frame = createFrame(dictionary, scenarioBuildings, metrics, simYear);
+            if (result.getCube() != null) {
+                result.getCube().add(frame);
+            }
+            result.getFrames().put(simYear, frame);
+
+            // Notify observers that the simulation of the year is finished
+            setChanged();
+            notifyObservers(simYear);
+        });
+
+        Map<String, BuildingInformation> resultBuildings = createBuildingInformation(buildings);
+        long runTime = System.currentTimeMillis() - startTime;
+        results.forEach(result -> {
+            result.setBuildings(resultBuildings);
+            result.setRunTime(runTime);
+        });
+        return results;
+    }
+
+    /**
+     * Creates an empty result for a simulation run with the given parameters.
+     *
+     * @param parameter the encapusalted simulation parameters
+     * @param co2Schedule the yearly CO2 factors of the simulation run
+     * @param rgSeed seed of the simulation run
+     * @return the result
+     */
+    SimulationResult createResult(SimulationParameter parameter, CO2Schedule co2Schedule, Long rgSeed) {
         SimulationResult result = new SimulationResult();
         result.setSeed(rgSeed);
         result.setName(parameter.getName());
+        if (keyframeInterval > 0) {
+            result.setFrames(new DeltaYearFrames(co2Schedule, keyframeInterval));
+        }
         
         // Convert parameter to string representation for storage in db
         // Add special support for Guava (Google) datatype for Jackson
@@ -98,127 +542,238 @@ public class Simulator extends Observable {
         } catch (JsonProcessingException ex) {
             Logger.getLogger(Simulator.class.getName()).log(Level.SEVERE, null, ex);
         }
+        return result;
+    }
+
+    /**
+     * Creates the outputs of all buildings for a simulated year.
+     *
+     * @param dictionary the static attributes of the buildings
+     * @param buildings the building stock
+     * @param metrics the metrics of the buildings in the simulated year
+     * @param simYear the simulated year
+     * @return the outputs indexed by the building indices
+     */
+    YearFrame createFrame(BuildingDictionary dictionary, BuildingTable buildings, BuildingMetrics metrics, int simYear) {
+        YearFrame frame = new YearFrame(simYear, dictionary);
+        IntStream.range(0, buildings.size()).parallel().forEach(index -> {
+            double residentialFinalEnergy = metrics.getResidentialFinalEnergy(index);
+            double nonResidentialFinalEnergy = metrics.getNonResidentialFinalEnergy(index);
+            if (Double.isNaN(residentialFinalEnergy) && Double.isNaN(nonResidentialFinalEnergy)) {
+                LOGGER.log(Level.INFO, "Could not calculate final energy for building {0}, year{1}; using 0 instead!", new Object[]{buildings.getAlkisID(index), simYear});
+            }
+
+            frame.set(index, metrics.getHeatDemand(index), metrics.getCO2Emission(index), buildings.getRenovationLevelCode(index), buildings.getHeatingTypeCode(index),
+                    buildings.getAccumulatedRenovationCosts(index), residentialFinalEnergy, nonResidentialFinalEnergy);
+        });
+        return frame;
+    }
+
+    /**
+     * Map the buildings to {@link BuildingInformation}s.
+     *
+     * @param buildings the building stock
+     * @return the information of the buildings by their id
+     */
+    Map<String, BuildingInformation> createBuildingInformation(BuildingTable buildings) {
+        return IntStream.range(0, buildings.size()).boxed().collect(Collectors.toMap(buildings::getAlkisID,
+                index -> BuildingInformation.create(buildings.getAlkisID(index), buildings.getClusterID(index), buildings.getQuarter(index), buildings.getGeometry(index))));
+    }
+
+    /**
+     * Simulation main loop. Simulates the given buildings year by year from {@link SimulationParameter#FIRST_YEAR} to the stop year of the parameters and reports
+     * the state of each year to the given listener. In the first year no renovation is performed, it only reports the status quo.
+     *
+     * Only the dynamic attributes of the given buildings are changed, so the run can work on a copy of a loaded building stock (see {@link BuildingTable#copy()})
+     * while further runs simulate other copies concurrently.
+     *
+     * @param buildings the building stock, changed by the renovation strategy
+     * @param attributeIndex the bitmap index of the given buildings
+     * @param parameter the validated simulation parameters
+     * @param co2Schedule the yearly CO2 factors of the simulation run
+     * @param scoringMethods List of different scoring methods to be applied
+     * @param renovationStrategy the selected renovation strategy
+     * @param randomStream the random numbers of the simulation run
+     * @param listener called after each simulated year
+     */
+    void run(BuildingTable buildings, BuildingAttributeIndex attributeIndex, SimulationParameter parameter, CO2Schedule co2Schedule, List<ScoringMethod> scoringMethods,
+             IRenovationStrategy renovationStrategy, RandomStream randomStream, YearListener listener) {
+        // Compile the modifiers against the bitmap index of the static building attributes
+        List<CompiledModifier> modifiers = parameter.getModifiers() == null ? Collections.emptyList()
+                : parameter.getModifiers().stream().map(modifier -> modifier.compile(attributeIndex)).collect(Collectors.toList());
+
+        // Metrics of the buildings, calculated once per building and year and shared by the scoring and output phase
+        BuildingMetrics metrics = new BuildingMetrics(buildings, co2Schedule);
+        // Ranking kept across the years of the run
+        IncrementalRanking incrementalRanking = rankingMode == RankingMode.INCREMENTAL ? new IncrementalRanking() : null;
+        // Buildings the renovation strategy can still renovate, shrinking as the building stock is renovated
+        int[] activeBuildings = activeSet ? filterActiveBuildings(buildings, IntStream.range(0, buildings.size()), renovationStrategy) : null;
 
-        // Simulation main loop
         for (Integer i = SimulationParameter.FIRST_YEAR; i <= parameter.getStopYear(); i++) {
             final Integer simYear = i;
             LOGGER.log(Level.INFO, "Simulating year {0}", simYear);
 
-            // Don't perform a simulation in the first year; just calculate the status quo (List<SimulationOutput> loop)
+            // Don't perform a simulation in the first year; just calculate the status quo
             if (i > SimulationParameter.FIRST_YEAR) {
-                // Use the stream api to calc the scores in parallel and store the building and scores in a new List
-                LOGGER.log(Level.INFO, "Calculating initial scoring values for year {0}", simYear);
-                List<ScoredBuilding> scoredBuildings = buildings.stream().parallel().map(building -> {
-                    ScoredBuilding scoredBuilding = new ScoredBuilding(building);
-
-                    // Calc and store the scores for all scoring methods
-                    scoringMethods.forEach(method -> {
-                        Double score = method.calcBaseScore(building, simYear);
-                        scoredBuilding.getScores().put(method, score);
-                    });
-
-                    return scoredBuilding;
-                }).collect(Collectors.toList());
-
-                //LOGGER.info("Scoring Values:");
-                //printScoredBuilding(scoredBuildings);
-
-                // Normalize the scoring values
-                LOGGER.info("Normalizing initial scoring values");
-                normalizeScores(scoredBuildings, scoringMethods);
-                //LOGGER.info("Normalized Scoring Values:");
-                //printScoredBuilding(scoredBuildings);
-
-                // Combine scores
-                LOGGER.info("Combining scoring values");
-                combineScores(scoredBuildings);
-                //LOGGER.info("Combined Normalized Scoring Values");
-                //printScoredBuilding(scoredBuildings);
-
-                // Apply modifiers
-                LOGGER.info("Applying modifiers to scoring values");
-                if (parameter.getModifiers() != null) {
-                    scoredBuildings.parallelStream().forEach(sb -> {
-                        parameter.getModifiers().stream().filter(modifier -> modifier.isActive(simYear) && modifier.checkConditions(sb.getBuilding())).forEach(modifier -> {
-                            sb.setCombinedScore(sb.getCombinedScore() * modifier.getImpactFactor());
-                        });
-                    });
+                renovate(buildings, metrics, modifiers, scoringMethods, renovationStrategy, randomStream, simYear, incrementalRanking, activeBuildings);
+                if (activeBuildings != null) {
+                    activeBuildings = filterActiveBuildings(buildings, Arrays.stream(activeBuildings), renovationStrategy);
+                    LOGGER.log(Level.INFO, "{0} of {1} buildings remain active", new Object[]{activeBuildings.length, buildings.size()});
                 }
-                //LOGGER.info("Combined Normalized Scoring Values with Modifiers");
-                //printScoredBuilding(scoredBuildings);
+            }
 
-                // Sort the List of scored buildings in a descending (reverse) order of scores
-                LOGGER.info("Sorting building (desc) according to scoring values");
-                scoredBuildings.sort((ScoredBuilding o1, ScoredBuilding o2) -> -o1.getCombinedScore().compareTo(o2.getCombinedScore()));
+            // Calc heat demand, only the buildings changed by the renovation strategy are recalculated
+            metrics.update(simYear);
+            listener.yearSimulated(simYear, metrics);
 
-                // Apply renovation strategy
-                renovationStrategy.performRenovation(scoredBuildings, i, this.randomGenerator);
+            // Skip the remaining years if neither the buildings nor the CO2 factors change any more
+            if (i < parameter.getStopYear() && isSteadyState(buildings, co2Schedule, renovationStrategy, simYear)) {
+                LOGGER.log(Level.INFO, "Steady state reached in {0}, the years {1} to {2} equal the year {0}",
+                        new Object[]{Integer.toString(simYear), Integer.toString(simYear + 1), Integer.toString(parameter.getStopYear())});
+                listener.steadyStateReached(simYear + 1, parameter.getStopYear(), metrics);
+                break;
             }
+        }
+    }
 
-            // Calc heat demand and store results
-            List<SimulationOutput> outputs = buildings.stream().parallel().map(building -> {
-                SimulationOutput output = new SimulationOutput();
-                Double heatDemand = energyCalculator.calcHeatDemand(building);
+    /**
+     * @return the given indices of the buildings the renovation strategy can still renovate
+     */
+    static int[] filterActiveBuildings(BuildingTable buildings, IntStream indices, IRenovationStrategy renovationStrategy) {
+        return indices.filter(index -> renovationStrategy.canRenovate(buildings, index)).toArray();
+    }
 
-                // calculate the CO2 Emissions for the given building
-                Double co2Emission = energyCalculator.calcCO2Emission(building, simYear);
+    /**
+     * Checks whether the given buildings stay in their state in all years after the given year: the CO2 factors are constant after the last year of the schedule and
+     * the renovation strategy has to be exhausted (see {@link IRenovationStrategy#isExhausted(BuildingTable, int)}). The heat demand does not depend on the year, so
+     * the metrics and outputs of all later years equal those of the given year.
+     *
+     * @param buildings the building stock
+     * @param co2Schedule the yearly CO2 factors of the simulation run
+     * @param renovationStrategy the selected renovation strategy
+     * @param simYear the last simulated year
+     * @return whether all later years equal the given year
+     */
+    boolean isSteadyState(BuildingTable buildings, CO2Schedule co2Schedule, IRenovationStrategy renovationStrategy, int simYear) {
+        return simYear >= co2Schedule.getLastYear() && renovationStrategy.isExhausted(buildings, simYear + 1);
+    }
 
-                Double combinedArea = building.getResidentialFloorSpace() + building.getNonResidentialFloorSpace();
+    /**
+     * Performs the renovation step of a simulation year: the buildings are scored, the scores are normalized, combined and modified, and the renovation strategy is
+     * applied to the ranked buildings.
+     *
+     * @param buildings the building stock, changed by the renovation strategy
+     * @param metrics the metrics of the buildings, updated to the given year
+     * @param modifiers the modifiers compiled for the given buildings
+     * @param scoringMethods List of different scoring methods to be applied
+     * @param renovationStrategy the selected renovation strategy
+     * @param randomStream the random numbers of the simulation run
+     * @param simYear the simulated year
+     * @param incrementalRanking the ranking of the previous years of the run or <code>null</code> to rank with {@link #rankBuildings(double[], int[], long)}
+     * @param activeBuildings the indices of the buildings the renovation strategy can still renovate, only these are scored and ranked, or <code>null</code> to
+     * score and rank all buildings
+     */
+    void renovate(BuildingTable buildings, BuildingMetrics metrics, List<CompiledModifier> modifiers, List<ScoringMethod> scoringMethods,
+                  IRenovationStrategy renovationStrategy, RandomStream randomStream, int simYear, IncrementalRanking incrementalRanking, int[] activeBuildings) {
+        // Use the stream api to calc the scores in parallel and store them in one primitive array per scoring method
+        LOGGER.log(Level.INFO, "Calculating initial scoring values for year {0}", simYear);
+        metrics.update(simYear);
+        BuildingScores scores = scoreBuildings(buildings, metrics, scoringMethods, simYear, activeBuildings);
 
-                output.setBuildingId(building.getAlkisID());
-                output.setHeatDemand(heatDemand);
-                if (combinedArea != 0) {
-                    output.setHeatDemandM2(heatDemand / combinedArea);
-                } else {
-                    output.setHeatDemandM2(0.0);
-                }
-                output.setRenovationLevel(building.getRenovationLevel());
+        renovateScored(buildings, scores, modifiers, renovationStrategy, randomStream, simYear, incrementalRanking, activeBuildings);
+    }
 
-                output.setYear(simYear);
-                output.setCo2Emission(co2Emission);
+    /**
+     * Performs the renovation step of a simulation year for buildings whose raw scores have already been calculated, see
+     * {@link #renovate(BuildingTable, BuildingMetrics, List, List, IRenovationStrategy, RandomStream, int, IncrementalRanking, int[])}.
+     *
+     * @param buildings the building stock, changed by the renovation strategy
+     * @param scores the raw scores of the buildings (of the active buildings if given) in the simulated year
+     * @param modifiers the modifiers compiled for the given buildings
+     * @param renovationStrategy the selected renovation strategy
+     * @param randomStream the random numbers of the simulation run
+     * @param simYear the simulated year
+     * @param incrementalRanking the ranking of the previous years of the run or <code>null</code> to rank with {@link #rankBuildings(double[], int[], long)}
+     * @param activeBuildings the indices of the active buildings or <code>null</code> if all buildings are scored and ranked
+     */
+    void renovateScored(BuildingTable buildings, BuildingScores scores, List<CompiledModifier> modifiers, IRenovationStrategy renovationStrategy,
+                        RandomStream randomStream, int simYear, IncrementalRanking incrementalRanking, int[] activeBuildings) {
+        // Determine the bounds of the scoring values for the normalization
+        LOGGER.info("Calculating bounds of the scoring values");
+        double[][] bounds = calcScoreBounds(scores, activeBuildings);
 
-                output.setHeatingType(building.getHeatingType());
-                output.setRenovationCost(building.getAccumulatedRenovationCosts());
+        // Normalize and combine scores and apply the modifiers in one pass
+        LOGGER.info("Normalizing and combining scoring values and applying modifiers");
+        List<CompiledModifier> activeModifiers = modifiers.stream().filter(modifier -> modifier.getModifier().isActive(simYear)).collect(Collectors.toList());
+        combineScores(scores, bounds, activeModifiers, activeBuildings);
+        //LOGGER.info("Combined Normalized Scoring Values with Modifiers");
+        //printScores(scores);
 
-                output.setResidentialArea(building.getResidentialFloorSpace());
-                output.setCombinedArea(combinedArea);
+        // Rank the scored buildings in a descending (reverse) order of scores
+        LOGGER.log(Level.INFO, "Ranking building (desc) according to scoring values using {0}", rankingMode);
+        IRenovationStrategy strategy = renovationStrategy.getEffectiveStrategy(simYear);
+        // the number of renovated buildings refers to the whole building stock, also if only the active buildings are ranked
+        long noRenovatedBuildings = strategy.getNumberOfRenovatedBuildings(buildings.size());
+        int[] ranking = incrementalRanking != null && activeBuildings == null
+                ? incrementalRanking.select(scores.getCombinedScores(), (int) Math.min(noRenovatedBuildings, buildings.size()))
+                : rankBuildings(scores.getCombinedScores(), activeBuildings, noRenovatedBuildings);
 
-                Double finalEnergy = energyCalculator.getBuildingFinalEnergy(building);
-                if (finalEnergy != null) {
-                    output.setFinalEnergy(finalEnergy);
-                } else {
-                    LOGGER.log(Level.INFO, "Could not calculate final energy for building {0}, year{1}; using 0 instead!", new Object[]{building.getAlkisID(), simYear});
-                    output.setFinalEnergy(0d);
-                }
+        // Apply renovation strategy
+        strategy.performRenovation(buildings, ranking, simYear, randomStream);
+    }
 
-                return output;
-            }).collect(Collectors.toList());
-            Multimap<Integer, SimulationOutput> mapOutput = ArrayListMultimap.create();
-            mapOutput.putAll(simYear, outputs);
-            result.getOutput().putAll(mapOutput);
+    /**
+     * Rank the buildings in descending order of their combined scores. Buildings with equal scores are ranked in ascending order of their index.
+     *
+     * @param combinedScores the combined scores, indexed by the building index
+     * @param noRenovatedBuildings the number of buildings the renovation strategy will renovate
+     * @return the indices of the ranked buildings, except in {@link RankingMode#FULL_SORT} mode only the first noRenovatedBuildings ones
+     */
+    int[] rankBuildings(double[] combinedScores, long noRenovatedBuildings) {
+        return rankBuildings(combinedScores, null, noRenovatedBuildings);
+    }
 
-            // Notify observers that the simulation of the year is finished
-            setChanged();
-            notifyObservers(i);
+    /**
+     * Rank the given candidates in descending order of their combined scores, see {@link #rankBuildings(double[], long)}.
+     *
+     * @param combinedScores the combined scores, indexed by the building index
+     * @param candidates the indices of the buildings to rank or <code>null</code> to rank all buildings
+     * @param noRenovatedBuildings the number of buildings the renovation strategy will renovate
+     * @return the indices of the ranked buildings, except in {@link RankingMode#FULL_SORT} mode only the first noRenovatedBuildings ones
+     */
+    int[] rankBuildings(double[] combinedScores, int[] candidates, long noRenovatedBuildings) {
+        // without a ranking of the previous years, the incremental mode selects the top k as well
+        if (rankingMode != RankingMode.FULL_SORT) {
+            return TopKSelector.select(combinedScores, candidates, (int) Math.min(noRenovatedBuildings, combinedScores.length));
         }
 
-        // Map Buildings to BuildingInformation and store them in the result object.
-        Map<String, BuildingInformation> resultBuildings = buildings.stream().collect(Collectors.toMap(Building::getAlkisID, building -> BuildingInformation.create(building.getAlkisID(), building.getClusterID(), building.getQuarter(), building.getGeometry())));
-        result.setBuildings(resultBuildings);
+        return indices(candidates, combinedScores.length).boxed()
+                .sorted((Integer o1, Integer o2) -> -Double.valueOf(combinedScores[o1]).compareTo(combinedScores[o2]))
+                .mapToInt(Integer::intValue).toArray();
+    }
 
-        long endTime = System.currentTimeMillis();
-        result.setRunTime(endTime - startTime);
+    /**
+     * Fetch all the buildings from the database and precompute their energy values and renovation costs.
+     *
+     * @return table of buildings ready to be simulated
+     * @throws InputValidationException if reference data for a building type is missing
+     */
+    public BuildingTable loadBuildings() throws InputValidationException {
+        BuildingTable buildings = fetchBuildings();
 
-        return result;
+        // Precompute the energy values of the buildings, fails if reference data for a building type is missing
+        buildings.setEnergyCoefficients(energyCalculator.calcEnergyCoefficients(buildings));
+        buildings.setRenovationCosts(energyCalculator.calcRenovationCosts(buildings));
+        return buildings;
     }
 
     /**
-     * Fetch all the building from the database and return them as a List.
+     * Fetch all the building from the database and return them as a columnar {@link BuildingTable}.
      *
-     * @return List of buildings
+     * @return table of buildings
      */
-    List<Building> fetchBuildings() {
-        return buildingDAO.findAll();
+    BuildingTable fetchBuildings() {
+        return buildingDAO.findAllAsTable();
     }
 
     public static void main(String[] args) throws InputValidationException {
@@ -285,48 +840,222 @@ public class Simulator extends Observable {
     }
 
     /**
-     * Normalizes the scores for all given scored buildings and all applied scoring methods.
+     * Calculates the raw scores of all buildings for all scoring methods, using the CO2 factors of the database.
+     *
+     * @param buildings the building stock
+     * @param scoringMethods the scoring methods
+     * @param simYear the current simulation year
+     * @return the raw scores
+     */
+    BuildingScores scoreBuildings(BuildingTable buildings, List<ScoringMethod> scoringMethods, int simYear) {
+        BuildingMetrics metrics = new BuildingMetrics(buildings, energyCalculator.getBaseCO2Schedule());
+        metrics.update(simYear);
+        return scoreBuildings(buildings, metrics, scoringMethods, simYear);
+    }
+
+    /**
+     * Calculates the raw scores of all buildings for all scoring methods using the given metrics of the current simulation year.
+     *
+     * @param buildings the building stock
+     * @param metrics the metrics of the buildings for the current simulation year
+     * @param scoringMethods the scoring methods
+     * @param simYear the current simulation year
+     * @return the raw scores
+     */
+    BuildingScores scoreBuildings(BuildingTable buildings, BuildingMetrics metrics, List<ScoringMethod> scoringMethods, int simYear) {
+        return scoreBuildings(buildings, metrics, scoringMethods, simYear, null);
+    }
+
+    /**
+     * Calculates the raw scores of the given candidates for all scoring methods using the given metrics of the current simulation year. The scores of the other
+     * buildings are left at 0.
      *
-     * @param scoredBuildings
+     * @param buildings the building stock
+     * @param metrics the metrics of the buildings for the current simulation year
+     * @param scoringMethods the scoring methods
+     * @param simYear the current simulation year
+     * @param candidates the indices of the buildings to score or <code>null</code> to score all buildings
+     * @return the raw scores
      */
-    void normalizeScores(List<ScoredBuilding> scoredBuildings, List<ScoringMethod> scoringMethods) {
-        scoringMethods.forEach(method -> {
-            Double min = scoredBuildings.parallelStream().mapToDouble(sb -> sb.getScores().get(method)).min().getAsDouble();
-            Double max = scoredBuildings.parallelStream().mapToDouble(sb -> sb.getScores().get(method)).max().getAsDouble();
+    BuildingScores scoreBuildings(BuildingTable buildings, BuildingMetrics metrics, List<ScoringMethod> scoringMethods, int simYear, int[] candidates) {
+        BuildingScores scores = new BuildingScores(scoringMethods, buildings.size());
 
-            scoredBuildings.parallelStream().forEach(sb -> {
-                Double score = sb.getScores().get(method);
-                Double nValue = (score - min) / (max - min);
+        indices(candidates, buildings.size()).parallel().forEach(index -> {
+            for (int method = 0; method < scoringMethods.size(); method++) {
+                scores.setScore(method, index, scoringMethods.get(method).calcBaseScore(buildings, metrics, index, simYear));
+            }
+        });
+
+        return scores;
+    }
+
+    /**
+     * Calculates the minimum and maximum raw score of each scoring method in a single parallel reduction over all buildings.
+     *
+     * @param scores the raw scores
+     * @return the bounds, bounds[method][0] is the minimum and bounds[method][1] the maximum of the method
+     */
+    double[][] calcScoreBounds(BuildingScores scores) {
+        return calcScoreBounds(scores, null);
+    }
+
+    /**
+     * Calculates the minimum and maximum raw score of each scoring method over the given candidates.
+     *
+     * @param scores the raw scores
+     * @param candidates the indices of the buildings to consider or <code>null</code> to consider all buildings
+     * @return the bounds, bounds[method][0] is the minimum and bounds[method][1] the maximum of the method
+     */
+    double[][] calcScoreBounds(BuildingScores scores, int[] candidates) {
+        int methods = scores.getScoringMethods().size();
 
-                sb.getScores().put(method, nValue);
-            });
+        double[] minMax = indices(candidates, scores.size()).parallel().collect(() -> {
+            double[] acc = new double[2 * methods];
+            for (int method = 0; method < methods; method++) {
+                acc[2 * method] = Double.POSITIVE_INFINITY;
+                acc[2 * method + 1] = Double.NEGATIVE_INFINITY;
+            }
+            return acc;
+        }, (acc, index) -> {
+            for (int method = 0; method < methods; method++) {
+                double score = scores.getScore(method, index);
+                acc[2 * method] = Math.min(acc[2 * method], score);
+                acc[2 * method + 1] = Math.max(acc[2 * method + 1], score);
+            }
+        }, (acc1, acc2) -> {
+            for (int method = 0; method < methods; method++) {
+                acc1[2 * method] = Math.min(acc1[2 * method], acc2[2 * method]);
+                acc1[2 * method + 1] = Math.max(acc1[2 * method + 1], acc2[2 * method + 1]);
+            }
         });
+
+        double[][] bounds = new double[methods][];
+        for (int method = 0; method < methods; method++) {
+            bounds[method] = new double[]{minMax[2 * method], minMax[2 * method + 1]};
+        }
+        return bounds;
+    }
+
+    /**
+     * Normalizes the raw scores to [0, 1] using the given bounds, combines the normalized values of the different scoring methods to one combined value
+     * 1/N * (x1 + x2 + ... xi) and multiplies it with the impact factors of the modifiers applying to the building. Everything is done in one parallel pass and the
+     * result is stored in the combined scores.
+     *
+     * @param scores the raw scores
+     * @param bounds the bounds of the raw scores, see {@link #calcScoreBounds(BuildingScores)}
+     * @param activeModifiers the modifiers active in the current simulation year
+     */
+    void combineScores(BuildingScores scores, double[][] bounds, List<CompiledModifier> activeModifiers) {
+        combineScores(scores, bounds, activeModifiers, null);
     }
 
     /**
-     * Combines the different scoring values for the different scoring methods to one combined value: 1/N * (x1 + x2 + ... xi)
+     * Normalizes, combines and modifies the raw scores of the given candidates like {@link #combineScores(BuildingScores, double[][], List)}, the combined scores of
+     * the other buildings are not changed.
      *
-     * @param scoredBuildings
+     * @param scores the raw scores
+     * @param bounds the bounds of the raw scores of the candidates, see {@link #calcScoreBounds(BuildingScores, int[])}
+     * @param activeModifiers the modifiers active in the current simulation year
+     * @param candidates the indices of the buildings to combine or <code>null</code> to combine all buildings
      */
-    void combineScores(List<ScoredBuilding> scoredBuildings) {
-        scoredBuildings.parallelStream().forEach(sb -> {
-            Double value = (1 / ((double) sb.getScores().size())) * (sb.getScores().values().stream().mapToDouble(Double::doubleValue).sum());
-            sb.setCombinedScore(value);
+    void combineScores(BuildingScores scores, double[][] bounds, List<CompiledModifier> activeModifiers, int[] candidates) {
+        int methods = bounds.length;
+        double[] combinedScores = scores.getCombinedScores();
+
+        // Buildings selected by the modifiers and their impact factors
+        BitSet[] selections = activeModifiers.stream().map(CompiledModifier::select).toArray(BitSet[]::new);
+        double[] impactFactors = activeModifiers.stream().mapToDouble(modifier -> modifier.getModifier().getImpactFactor()).toArray();
+
+        indices(candidates, scores.size()).parallel().forEach(index -> {
+            double sum = 0;
+            for (int method = 0; method < methods; method++) {
+                double min = bounds[method][0];
+                double max = bounds[method][1];
+                sum += (scores.getScore(method, index) - min) / (max - min);
+            }
+            double value = (1 / ((double) methods)) * sum;
+
+            for (int modifier = 0; modifier < selections.length; modifier++) {
+                if (selections[modifier].get(index)) {
+                    value *= impactFactors[modifier];
+                }
+            }
+            combinedScores[index] = value;
         });
     }
 
+    private static IntStream indices(int[] candidates, int size) {
+        return candidates != null ? Arrays.stream(candidates) : IntStream.range(0, size);
+    }
+
     /**
-     * Print the given list of scored buildings to the console.
-     * 
-     * @param scoredBuildings 
+     * Print the given scores to the console.
+     *
+     * @param scores
      */
-    private void printScoredBuilding(List<ScoredBuilding> scoredBuildings) {
-        scoredBuildings.parallelStream().forEachOrdered(building -> {
+    private void printScores(BuildingScores scores) {
+        IntStream.range(0, scores.size()).forEachOrdered(index -> {
             StringBuilder sb = new StringBuilder();
-            sb.append(building.getBuilding().getAlkisID()).append("\t");
-            building.getScores().values().forEach(value -> sb.append(value).append("\t"));
-            sb.append(building.getCombinedScore());
+            sb.append(index).append("\t");
+            for (int method = 0; method < scores.getScoringMethods().size(); method++) {
+                sb.append(scores.getScore(method, index)).append("\t");
+            }
+            sb.append(scores.getCombinedScore(index));
             System.out.println(sb.toString());
         });
     }
+
+    /**
+     * Listener of a simulation run, see {@link #run(BuildingTable, BuildingAttributeIndex, SimulationParameter, CO2Schedule, List, IRenovationStrategy, RandomStream,
+     * YearListener)}.
+     */
+    interface YearListener {
+
+        /**
+         * Called after a year has been simulated, the buildings and metrics must not be modified.
+         *
+         * @param year the simulated year
+         * @param metrics the metrics of the buildings in the simulated year
+         */
+        void yearSimulated(int year, BuildingMetrics metrics);
+
+        /**
+         * Called instead of {@link #yearSimulated(int, BuildingMetrics)} for the remaining years once the simulation has reached a steady state, i.e. the buildings
+         * and metrics of all remaining years equal those of the last simulated year. By default the remaining years are reported one by one from the last state.
+         *
+         * @param firstYear the first year equal to the last simulated year
+         * @param lastYear the stop year of the simulation
+         * @param metrics the metrics of the buildings in the last simulated year
+         */
+        default void steadyStateReached(int firstYear, int lastYear, BuildingMetrics metrics) {
+            for (int year = firstYear; year <= lastYear; year++) {
+                yearSimulated(year, metrics);
+            }
+        }
+    }
+
+    /**
+     * Listener of a simulation of several scenarios.
+     */
+    interface ScenarioListener {
+
+        /**
+         * Called after a year has been simulated for a scenario, the buildings and metrics must not be modified.
+         *
+         * @param scenario the position of the scenario
+         * @param year the simulated year
+         * @param buildings the buildings of the scenario
+         * @param metrics the metrics of the buildings in the simulated year
+         */
+        void yearSimulated(int scenario, int year, BuildingTable buildings, BuildingMetrics metrics);
+    }
+
+    /**
+     * Simulation of several scenarios over a loaded building stock.
+     */
+    private interface ScenarioExecution {
+
+        void execute(BuildingTable buildings, BuildingAttributeIndex attributeIndex, List<CO2Schedule> co2Schedules, RandomStream randomStream,
+                     ScenarioListener listener);
+    }
 }
@@ -0,0 +1,227 @@
+package de.hawhh.gewiss.get.simulator;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import de.hawhh.gewiss.get.core.calc.CO2Schedule;
+import de.hawhh.gewiss.get.core.calc.EnergyCalculator;
+import de.hawhh.gewiss.get.core.input.HeatingSystemExchangeRate;
+import de.hawhh.gewiss.get.core.input.InputValidationException;
+import de.hawhh.gewiss.get.core.input.ParameterGrid;
+import de.hawhh.gewiss.get.core.input.SimulationParameter;
+import de.hawhh.gewiss.get.core.model.BuildingAttributeIndex;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.core.output.ScenarioAggregate;
+import de.hawhh.gewiss.get.core.util.RandomStream;
+import de.hawhh.gewiss.get.simulator.renovation.IRenovationStrategy;
+import de.hawhh.gewiss.get.simulator.renovation.RenovationHeatExchangeRateStrategy;
+import de.hawhh.gewiss.get.simulator.scoring.ScoringMethod;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * Runs all scenarios of a {@link ParameterGrid} on a bounded pool of worker threads. The building stock is loaded and its energy values, renovation costs and bitmap
+ * index are calculated only once, the CO2 schedule once per CO2 trajectory of the grid. Each scenario simulates its own {@link BuildingTable#copy()} of the shared
+ * building stock with its own {@link RenovationHeatExchangeRateStrategy} and random numbers and only keeps the yearly totals as a {@link ScenarioAggregate}.
+ *
+ * All scenarios use the seed of the grid, so that differences between the scenarios are caused by their parameters and not by different random numbers. Registered
+ * {@link ScenarioListener}s are notified on the calling thread with each finished scenario, in the order of the grid.
+ *
+ * @author Thomas Preisler
+ */
+public class SweepRunner {
+
+    private final static Logger LOGGER = Logger.getLogger(SweepRunner.class.getName());
+
+    private final Simulator simulator;
+    private final int parallelism;
+    private final List<ScenarioListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Listener notified about the progress of a parameter sweep.
+     */
+    @FunctionalInterface
+    public interface ScenarioListener {
+
+        /**
+         * Called on the thread running the sweep once the aggregate of a scenario has been collected, in the order of {@link ParameterGrid#expand()}.
+         *
+         * @param aggregate the aggregated results of the finished scenario
+         */
+        void scenarioFinished(ScenarioAggregate aggregate);
+    }
+
+    /**
+     * Creates a runner using a new {@link Simulator} and running as many scenarios concurrently as processors are available.
+     */
+    public SweepRunner() {
+        this(new Simulator(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param simulator the simulator loading the buildings and performing the runs
+     * @param parallelism the maximum number of concurrent scenario runs
+     */
+    public SweepRunner(Simulator simulator, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+        }
+        this.simulator = simulator;
+        this.parallelism = parallelism;
+    }
+
+    public void addScenarioListener(ScenarioListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeScenarioListener(ScenarioListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Reads a parameter grid from the given JSON file.
+     *
+     * @param file
+     * @return the parameter grid
+     * @throws IOException
+     */
+    public static ParameterGrid readGrid(File file) throws IOException {
+        // Unknown properties are ignored, e.g. read-only properties of the input classes written by Jackson
+        ObjectMapper mapper = new ObjectMapper().registerModule(new GuavaModule()).disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        return mapper.readValue(file, ParameterGrid.class);
+    }
+
+    /**
+     * Writes the aggregated results of the scenarios to the given JSON file.
+     *
+     * @param aggregates
+     * @param file
+     * @throws IOException
+     */
+    public static void writeResults(List<ScenarioAggregate> aggregates, File file) throws IOException {
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(file, aggregates);
+    }
+
+    /**
+     * Runs all scenarios of the given grid.
+     *
+     * @param grid the parameter grid
+     * @param scoringMethods List of different scoring methods to be applied in all scenarios
+     * @return the aggregated results of the scenarios, in the order of {@link ParameterGrid#expand()}
+     * @throws InputValidationException if the grid or one of its scenarios is invalid
+     */
+    public List<ScenarioAggregate> run(ParameterGrid grid, List<ScoringMethod> scoringMethods) throws InputValidationException {
+        List<ParameterGrid.Scenario> scenarios = grid.expand();
+        long seed = grid.getSeed() != null ? grid.getSeed() : System.nanoTime();
+        LOGGER.log(Level.INFO, "The seed for the parameter sweep is {0}", seed);
+
+        // Shared read-only state of all scenarios
+        Map<String, CO2Schedule> co2Schedules = new HashMap<>();
+        for (ParameterGrid.CO2Trajectory trajectory : grid.getCo2Trajectories()) {
+            CO2Schedule co2Schedule = EnergyCalculator.getInstance().createCO2Schedule(trajectory.getYearlyCO2Factors(), trajectory.getMidCO2Year(),
+                    trajectory.getFinalCO2Year());
+            if (co2Schedules.put(trajectory.getName(), co2Schedule) != null) {
+                throw new InputValidationException("Duplicate CO2 trajectory " + trajectory.getName());
+            }
+        }
+        BuildingTable buildings = simulator.loadBuildings();
+        BuildingAttributeIndex attributeIndex = new BuildingAttributeIndex(buildings);
+
+        LOGGER.log(Level.INFO, "Running {0} scenarios with up to {1} concurrent runs", new Object[]{scenarios.size(), parallelism});
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, scenarios.size()));
+        try {
+            List<Future<ScenarioAggregate>> futures = new ArrayList<>();
+            for (ParameterGrid.Scenario scenario : scenarios) {
+                futures.add(executor.submit(() -> runScenario(buildings, attributeIndex, scenario, co2Schedules.get(scenario.getCo2Trajectory()),
+                        grid.getHeatingSystemExchangeRates(), scoringMethods, seed)));
+            }
+
+            List<ScenarioAggregate> aggregates = new ArrayList<>();
+            for (Future<ScenarioAggregate> future : futures) {
+                ScenarioAggregate aggregate = future.get();
+                aggregates.add(aggregate);
+
+                // Notify listeners that the scenario is finished
+                listeners.forEach(listener -> listener.scenarioFinished(aggregate));
+            }
+            return aggregates;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Parameter sweep interrupted", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException("Parameter sweep failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Simulates one scenario on a copy of the given buildings.
+     */
+    private ScenarioAggregate runScenario(BuildingTable sharedBuildings, BuildingAttributeIndex sharedIndex, ParameterGrid.Scenario scenario, CO2Schedule co2Schedule,
+                                          List<HeatingSystemExchangeRate> heatingSystemExchangeRates, List<ScoringMethod> scoringMethods,
+                                          long seed) {
+        long startTime = System.currentTimeMillis();
+        SimulationParameter parameter = scenario.getParameter();
+        LOGGER.log(Level.INFO, "Starting scenario {0}", parameter.getName());
+
+        IRenovationStrategy renovationStrategy = new RenovationHeatExchangeRateStrategy(scenario.getRenovationRate(), scenario.getPassiveHouseRate(),
+                heatingSystemExchangeRates);
+        BuildingTable buildings = sharedBuildings.copy();
+        int[] modificationCounts = IntStream.range(0, buildings.size()).map(buildings::getModificationCount).toArray();
+
+        ScenarioAggregate aggregate = new ScenarioAggregate();
+        aggregate.setName(parameter.getName());
+        aggregate.setRenovationRate(scenario.getRenovationRate());
+        aggregate.setPassiveHouseRate(scenario.getPassiveHouseRate());
+        aggregate.setCo2Trajectory(scenario.getCo2Trajectory());
+        aggregate.setModifierSet(scenario.getModifierSet());
+        aggregate.setSeed(seed);
+
+        simulator.run(buildings, sharedIndex.withBuildings(buildings), parameter, co2Schedule, scoringMethods, renovationStrategy, new RandomStream(seed),
+                (year, metrics) -> {
+                    // summed up in index order, so that the totals do not depend on the number of threads
+                    double heatDemand = 0d;
+                    double co2Emission = 0d;
+                    double renovationCosts = 0d;
+                    int renovated = 0;
+                    for (int index = 0; index < buildings.size(); index++) {
+                        heatDemand += metrics.getHeatDemand(index);
+                        co2Emission += metrics.getCO2Emission(index);
+                        renovationCosts += buildings.getAccumulatedRenovationCosts(index);
+
+                        // the buildings are only changed by the renovation strategy
+                        if (buildings.getModificationCount(index) != modificationCounts[index]) {
+                            modificationCounts[index] = buildings.getModificationCount(index);
+                            renovated++;
+                        }
+                    }
+                    aggregate.getHeatDemand().put(year, heatDemand);
+                    aggregate.getCo2Emission().put(year, co2Emission);
+                    aggregate.getRenovationCosts().put(year, renovationCosts);
+                    aggregate.getRenovatedBuildings().put(year, renovated);
+                });
+
+        long endTime = System.currentTimeMillis();
+        aggregate.setRunTime(endTime - startTime);
+        return aggregate;
+    }
+}
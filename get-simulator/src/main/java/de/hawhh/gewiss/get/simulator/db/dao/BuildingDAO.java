@@ -1,6 +1,7 @@
 package de.hawhh.gewiss.get.simulator.db.dao;
 
 import de.hawhh.gewiss.get.core.model.Building;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
 
 import java.util.List;
 
@@ -18,6 +19,13 @@ public interface BuildingDAO {
      */
     List<Building> findAll();
 
+    /**
+     * Finds all the {@link Building}s located at the data source and stores them directly in a columnar {@link BuildingTable}.
+     *
+     * @return a {@link BuildingTable} containing all buildings
+     */
+    BuildingTable findAllAsTable();
+
     /**
      * Find and return the {@link Building} with the given Id.
      *
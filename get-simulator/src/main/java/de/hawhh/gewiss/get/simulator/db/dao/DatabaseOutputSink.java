@@ -0,0 +1,69 @@
+package de.hawhh.gewiss.get.simulator.db.dao;
+
+import de.hawhh.gewiss.get.core.output.SimulationOutput;
+import de.hawhh.gewiss.get.core.output.SimulationOutputSink;
+import de.hawhh.gewiss.get.core.output.SimulationResult;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Saves the outputs of a simulation run in the PostGIS DB while the simulation is running, see {@link SimulationResultDAO}. The scenario is inserted when the run
+ * starts, the outputs of each year are bulk inserted as soon as the year has been simulated and everything is committed once the run has completed. If the run
+ * fails, including an insert of this sink (which aborts the simulation with an {@link IllegalStateException}), everything inserted for the run is rolled back.
+ *
+ * @author Thomas Preisler
+ */
+public class DatabaseOutputSink implements SimulationOutputSink {
+
+    private final static Logger LOGGER = Logger.getLogger(DatabaseOutputSink.class.getName());
+
+    private final SimulationResultDAO simulationResultDAO;
+    private Integer key;
+
+    public DatabaseOutputSink(SimulationResultDAO simulationResultDAO) {
+        this.simulationResultDAO = simulationResultDAO;
+    }
+
+    @Override
+    public void open(SimulationResult result) {
+        this.key = simulationResultDAO.createScenario(result);
+        if (key == null) {
+            throw new IllegalStateException("Could not save simulation scenario " + result.getName());
+        }
+    }
+
+    @Override
+    public void accept(int year, List<SimulationOutput> outputs) {
+        LOGGER.log(Level.INFO, "Saving outputs of year {0} to database", Integer.toString(year));
+        if (!simulationResultDAO.saveOutputs(key, outputs.stream())) {
+            throw new IllegalStateException("Could not save the outputs of year " + year + " of simulation scenario " + key);
+        }
+    }
+
+    @Override
+    public void close(SimulationResult result) {
+        if (key != null && !simulationResultDAO.commit()) {
+            simulationResultDAO.rollback();
+            this.key = null;
+            throw new IllegalStateException("Could not commit simulation scenario " + result.getName());
+        }
+    }
+
+    @Override
+    public void abort(SimulationResult result, Throwable cause) {
+        if (key != null) {
+            LOGGER.log(Level.WARNING, "Rolling back simulation scenario {0}", key);
+            simulationResultDAO.rollback();
+            this.key = null;
+        }
+    }
+
+    /**
+     * @return the ID (key) of the saved scenario or <code>null</code> if it has not been saved
+     */
+    public Integer getKey() {
+        return key;
+    }
+}
@@ -2,7 +2,9 @@ package de.hawhh.gewiss.get.simulator.db.dao;
 
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.io.ParseException;
+import de.hawhh.gewiss.get.core.calc.EnergyCalculator;
 import de.hawhh.gewiss.get.core.model.Building;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
 import de.hawhh.gewiss.get.core.model.ConstructionAgeClass;
 import de.hawhh.gewiss.get.core.model.HeatingType;
 import de.hawhh.gewiss.get.core.model.RenovationLevel;
@@ -14,6 +16,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -26,6 +29,12 @@ public class SQLiteBuildingDAO extends SQLiteDAO implements BuildingDAO {
 
     private final static Logger LOGGER = Logger.getLogger(SQLiteBuildingDAO.class.getName());
 
+    /**
+     * Columns of the building table read by {@link #readBuilding(ResultSet)}.
+     */
+    private static final String BUILDING_COLUMNS = "alkis_id, geomwkt, wohnfl, nwg_ngf, bezirk, stadtteil, stat_gebiet, baublock, bj_alk_dt,"
+            + "dt_san_st, dt_san_year, dt_heiztyp, iwu_typ, nwg_typ, bak_fin, cluster, dt_fw_dist, dt_eigentum";
+
     private final Map<String, ConstructionAgeClass> constructionAgeClasses;
 
     public SQLiteBuildingDAO() {
@@ -41,17 +50,38 @@ public class SQLiteBuildingDAO extends SQLiteDAO implements BuildingDAO {
         LOGGER.log(Level.INFO, "Parsing buildings from SQLite DB");
 
         List<Building> buildings = new ArrayList<>();
+        readBuildings(buildings::add);
+
+        LOGGER.log(Level.INFO, "Finished parsing buildings from PostGIS DB");
+        return buildings;
+    }
 
+    @Override
+    public BuildingTable findAllAsTable() {
+        LOGGER.log(Level.INFO, "Parsing buildings from SQLite DB into building table");
+
+        BuildingTable buildings = new BuildingTable(EnergyCalculator.getInstance().getBuildingTypes());
+        readBuildings(buildings::addBuilding);
+        buildings.trimToSize();
+
+        LOGGER.log(Level.INFO, "Finished parsing {0} buildings from SQLite DB", buildings.size());
+        return buildings;
+    }
+
+    /**
+     * Reads all buildings of the stock and hands them to the given consumer in the order of the query.
+     *
+     * @param consumer receives the parsed buildings
+     */
+    private void readBuildings(Consumer<Building> consumer) {
         // WG + NWG
-        String sql = "SELECT alkis_id, geomwkt, wohnfl, nwg_ngf, bezirk, stadtteil, stat_gebiet, baublock, bj_alk_dt,"
-                + "dt_san_st, dt_san_year, dt_heiztyp, iwu_typ, nwg_typ, bak_fin, cluster, dt_fw_dist, dt_eigentum"
-                + " FROM gewiss_buildings_v_1 WHERE nwg_typ NOT LIKE 'kein_Bedarf' AND NOT(iwu_typ LIKE '_' AND nwg_typ LIKE '_')";
+        String sql = "SELECT " + BUILDING_COLUMNS + " FROM gewiss_buildings_v_1 WHERE nwg_typ NOT LIKE 'kein_Bedarf' AND NOT(iwu_typ LIKE '_' AND nwg_typ LIKE '_')";
 
         // just WG
-        //String sql = "SELECT alkis_id, geomwkt, wohnfl, nwg_ngf, bezirk, stadtteil, stat_gebiet, baublock, bj_alk_dt, dt_san_year, dt_heiztyp,iwu_typ, nwg_typ, bak_fin, cluster, dt_fw_dist, dt_eigentum FROM gewiss_buildings_v_1 WHERE iwu_typ NOT LIKE '_'";
+        //String sql = "SELECT " + BUILDING_COLUMNS + " FROM gewiss_buildings_v_1 WHERE iwu_typ NOT LIKE '_'";
 
         // just NWG
-        //String sql = "SELECT alkis_id, geomwkt, wohnfl, nwg_ngf, bezirk, stadtteil, stat_gebiet, baublock, bj_alk_dt, dt_san_year, dt_heiztyp,iwu_typ, nwg_typ, bak_fin, cluster, dt_fw_dist, det_eigentum FROM gewiss_buildings_v_1 WHERE nwg_typ NOT LIKE '_' AND nwg_typ NOT LIKE 'kein_Bedarf'";
+        //String sql = "SELECT " + BUILDING_COLUMNS + " FROM gewiss_buildings_v_1 WHERE nwg_typ NOT LIKE '_' AND nwg_typ NOT LIKE 'kein_Bedarf'";
 
         try {
             PreparedStatement stmt = connection.prepareStatement(sql);
@@ -60,41 +90,7 @@ public class SQLiteBuildingDAO extends SQLiteDAO implements BuildingDAO {
             
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
-                String alkisID = rs.getString("alkis_id");
-                String geomWkt = rs.getString("geomwkt");
-                Double residentialFloorSpace = rs.getDouble("wohnfl");
-                Double nonResidentialFloorSpace = rs.getDouble("nwg_ngf");
-                String district = rs.getString("bezirk");
-                String quarter = rs.getString("stadtteil");
-                String statisticalArea = rs.getString("stat_gebiet");
-                String cityBlock = rs.getString("baublock");
-                Integer yearOfConstruction = rs.getInt("bj_alk_dt");
-                RenovationLevel renovationLevel;
-                int sanLevel = rs.getInt("dt_san_st");
-                if (sanLevel == 1) {
-                    renovationLevel = RenovationLevel.BASIC_RENOVATION;
-                } else if (sanLevel == 2) {
-                    renovationLevel = RenovationLevel.GOOD_RENOVATION;
-                } else {
-                    renovationLevel = RenovationLevel.NO_RENOVATION;
-                }
-                Integer yearOfRenovation = rs.getInt("dt_san_year");
-                String residentialType = rs.getString("iwu_typ");
-                String nonResidentialType = rs.getString("nwg_typ");
-                String clusterID = rs.getString("cluster");
-                Integer districtHeatingOutletDistance = rs.getInt("dt_fw_dist");
-                Boolean accessDistrictHeating = rs.getBoolean("dt_fw_dist");
-                String ownership = rs.getString("dt_eigentum");
-                ConstructionAgeClass constructionAgeClass = constructionAgeClasses.get(rs.getString("bak_fin"));
-                String heatingTypeString = rs.getString("dt_heiztyp");
-                HeatingType heatingType = HeatingType.valueOf(heatingTypeString);
-
-                Building building = createBuilding(alkisID, geomWkt, residentialFloorSpace, nonResidentialFloorSpace, district,
-                        quarter, statisticalArea, cityBlock, yearOfConstruction, renovationLevel, yearOfRenovation, residentialType,
-                        nonResidentialType, ownership, constructionAgeClass, clusterID, heatingType, districtHeatingOutletDistance, accessDistrictHeating);
-                if (building != null) {
-                    buildings.add(building);
-                }
+                consumer.accept(readBuilding(rs));
                 
                 if ((count % 10000) == 0) {
                     LOGGER.log(Level.INFO, "Parsed {0} buildings", count);
@@ -104,9 +100,6 @@ public class SQLiteBuildingDAO extends SQLiteDAO implements BuildingDAO {
         } catch (SQLException e) {
             Logger.getLogger(SQLiteBuildingDAO.class.getName()).log(Level.SEVERE, null, e);
         }
-
-        LOGGER.log(Level.INFO, "Finished parsing buildings from PostGIS DB");
-        return buildings;
     }
 
     /**
@@ -117,9 +110,7 @@ public class SQLiteBuildingDAO extends SQLiteDAO implements BuildingDAO {
      */
     @Override
     public Building findById(String buildingId) {
-        String sql = "SELECT alkis_id, geomwkt, wohnfl, nwg_ngf, bezirk, stadtteil, stat_gebiet, baublock, bj_alk_dt,"
-                + "dt_san_st, dt_san_year, dt_heiztyp, iwu_typ, nwg_typ, bak_fin, cluster, dt_fw_dist, dt_eigentum"
-                + " FROM gewiss_buildings_v_1 WHERE alkis_id = ?";
+        String sql = "SELECT " + BUILDING_COLUMNS + " FROM gewiss_buildings_v_1 WHERE alkis_id = ?";
 
         try {
             PreparedStatement stmt = connection.prepareStatement(sql);
@@ -127,38 +118,7 @@ public class SQLiteBuildingDAO extends SQLiteDAO implements BuildingDAO {
 
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
-                String alkisID = rs.getString("alkis_id");
-                String geomWkt = rs.getString("geomwkt");
-                Double residentialFloorSpace = rs.getDouble("wohnfl");
-                Double nonResidentialFloorSpace = rs.getDouble("nwg_ngf");
-                String district = rs.getString("bezirk");
-                String quarter = rs.getString("stadtteil");
-                String statisticalArea = rs.getString("stat_gebiet");
-                String cityBlock = rs.getString("baublock");
-                Integer yearOfConstruction = rs.getInt("bj_alk_dt");
-                RenovationLevel renovationLevel;
-                int sanLevel = rs.getInt("dt_san_st");
-                if (sanLevel == 1) {
-                    renovationLevel = RenovationLevel.BASIC_RENOVATION;
-                } else if (sanLevel == 2) {
-                    renovationLevel = RenovationLevel.GOOD_RENOVATION;
-                } else {
-                    renovationLevel = RenovationLevel.NO_RENOVATION;
-                }
-                Integer yearOfRenovation = rs.getInt("dt_san_year");
-                String residentialType = rs.getString("iwu_typ");
-                String nonResidentialType = rs.getString("nwg_typ");
-                String clusterID = rs.getString("cluster");
-                Integer districtHeatingOutletDistance = rs.getInt("dt_fw_dist");
-                Boolean accessDistrictHeating = rs.getBoolean("dt_fw_dist");
-                String ownership = rs.getString("dt_eigentum");
-                ConstructionAgeClass constructionAgeClass = constructionAgeClasses.get(rs.getString("bak_fin"));
-                String heatingTypeString = rs.getString("dt_heiztyp");
-                HeatingType heatingType = HeatingType.valueOf(heatingTypeString);
-
-                return createBuilding(alkisID, geomWkt, residentialFloorSpace, nonResidentialFloorSpace, district,
-                        quarter, statisticalArea, cityBlock, yearOfConstruction, renovationLevel, yearOfRenovation, residentialType,
-                        nonResidentialType, ownership, constructionAgeClass, clusterID, heatingType, districtHeatingOutletDistance, accessDistrictHeating);
+                return readBuilding(rs);
             }
         } catch (SQLException e) {
             Logger.getLogger(SQLiteBuildingDAO.class.getName()).log(Level.SEVERE, null, e);
@@ -167,6 +127,48 @@ public class SQLiteBuildingDAO extends SQLiteDAO implements BuildingDAO {
         return null;
     }
 
+    /**
+     * Reads the building of the current row of the given result set, which has to contain the {@link #BUILDING_COLUMNS}.
+     *
+     * @param rs
+     * @return building object
+     * @throws SQLException
+     */
+    private Building readBuilding(ResultSet rs) throws SQLException {
+        String alkisID = rs.getString("alkis_id");
+        String geomWkt = rs.getString("geomwkt");
+        Double residentialFloorSpace = rs.getDouble("wohnfl");
+        Double nonResidentialFloorSpace = rs.getDouble("nwg_ngf");
+        String district = rs.getString("bezirk");
+        String quarter = rs.getString("stadtteil");
+        String statisticalArea = rs.getString("stat_gebiet");
+        String cityBlock = rs.getString("baublock");
+        Integer yearOfConstruction = rs.getInt("bj_alk_dt");
+        RenovationLevel renovationLevel;
+        int sanLevel = rs.getInt("dt_san_st");
+        if (sanLevel == 1) {
+            renovationLevel = RenovationLevel.BASIC_RENOVATION;
+        } else if (sanLevel == 2) {
+            renovationLevel = RenovationLevel.GOOD_RENOVATION;
+        } else {
+            renovationLevel = RenovationLevel.NO_RENOVATION;
+        }
+        Integer yearOfRenovation = rs.getInt("dt_san_year");
+        String residentialType = rs.getString("iwu_typ");
+        String nonResidentialType = rs.getString("nwg_typ");
+        String clusterID = rs.getString("cluster");
+        Integer districtHeatingOutletDistance = rs.getInt("dt_fw_dist");
+        Boolean accessDistrictHeating = rs.getBoolean("dt_fw_dist");
+        String ownership = rs.getString("dt_eigentum");
+        ConstructionAgeClass constructionAgeClass = constructionAgeClasses.get(rs.getString("bak_fin"));
+        String heatingTypeString = rs.getString("dt_heiztyp");
+        HeatingType heatingType = HeatingType.valueOf(heatingTypeString);
+
+        return createBuilding(alkisID, geomWkt, residentialFloorSpace, nonResidentialFloorSpace, district,
+                quarter, statisticalArea, cityBlock, yearOfConstruction, renovationLevel, yearOfRenovation, residentialType,
+                nonResidentialType, ownership, constructionAgeClass, clusterID, heatingType, districtHeatingOutletDistance, accessDistrictHeating);
+    }
+
     /**
      * Creates a building from the given data.
      *
@@ -8,6 +8,7 @@ import org.postgresql.PGConnection;
 import java.sql.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * PostgresDAO for saving {@link SimulationResult}s and the according {@link SimulationOutput}s in the PostGIS DB.
@@ -33,17 +34,32 @@ public class SimulationResultDAO {
      * Save the given {@link SimulationResult} and return the created ID (key).
      *
      * @param sr SimulationResult Object
-     * @return created ID key
+     * @return created ID key or <code>null</code> if the result could not be saved, nothing of it is committed in this case
      */
     public Integer save(SimulationResult sr) {
-        Integer key = null;
+        LOGGER.log(Level.INFO, "Saving given simulation result {0} to database", sr);
 
-        try {
-            LOGGER.log(Level.INFO, "Saving given simulation result {0} to database", sr);
+        Integer key = createScenario(sr);
+        if (key == null || !saveOutputs(key, sr.getOutput().values().stream())) {
+            rollback();
+            return null;
+        }
+
+        return commit() ? key : null;
+    }
 
-            String insertResult = "INSERT INTO simulation_scenario(description, parameter) VALUES(?, ?::JSON)";
+    /**
+     * Insert the scenario of the given {@link SimulationResult} without its outputs and return the created ID (key). The insert is committed with
+     * {@link #commit()}.
+     *
+     * @param sr SimulationResult Object
+     * @return created ID key or <code>null</code> if the scenario could not be inserted
+     */
+    public Integer createScenario(SimulationResult sr) {
+        Integer key = null;
 
-            PreparedStatement stmt = connection.prepareStatement(insertResult, Statement.RETURN_GENERATED_KEYS);
+        String insertResult = "INSERT INTO simulation_scenario(description, parameter) VALUES(?, ?::JSON)";
+        try (PreparedStatement stmt = connection.prepareStatement(insertResult, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, sr.getName());
             stmt.setObject(2, sr.getParameter());
             stmt.executeUpdate();
@@ -52,20 +68,59 @@ public class SimulationResultDAO {
             if (rs.next()) {
                 key = rs.getInt(1);
                 LOGGER.log(Level.INFO, "Inserted row into simulation_scenario, primary key: {0}", key);
-
-                LOGGER.log(Level.INFO, "Bulk inserting into table simulation_output for scenario id {0}", key);
-                SimulationOutputBulkInserter bulkInserter = new SimulationOutputBulkInserter(key);
-                bulkInserter.saveAll((PGConnection) connection, sr.getOutput().values().stream());
-                LOGGER.log(Level.INFO, "Finished bulk insert into table simulation_output for scenario id {0}", key);
             }
+        } catch (SQLException ex) {
+            Logger.getLogger(SimulationResultDAO.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        return key;
+    }
+
+    /**
+     * Bulk insert the given {@link SimulationOutput}s of the scenario with the given ID (key). The insert is committed with {@link #commit()}, after a failed insert
+     * the transaction has to be discarded with {@link #rollback()}.
+     *
+     * @param key ID key of the scenario
+     * @param outputs the outputs to insert
+     * @return whether the outputs have been inserted
+     */
+    public boolean saveOutputs(Integer key, Stream<SimulationOutput> outputs) {
+        try {
+            LOGGER.log(Level.INFO, "Bulk inserting into table simulation_output for scenario id {0}", key);
+            SimulationOutputBulkInserter bulkInserter = new SimulationOutputBulkInserter(key);
+            bulkInserter.saveAll((PGConnection) connection, outputs);
+            LOGGER.log(Level.INFO, "Finished bulk insert into table simulation_output for scenario id {0}", key);
+            return true;
+        } catch (SQLException ex) {
+            Logger.getLogger(SimulationResultDAO.class.getName()).log(Level.SEVERE, null, ex);
+            return false;
+        }
+    }
 
+    /**
+     * Commit the inserted scenarios and outputs.
+     *
+     * @return whether the transaction has been committed
+     */
+    public boolean commit() {
+        try {
             connection.commit();
-            stmt.close();
+            return true;
         } catch (SQLException ex) {
             Logger.getLogger(SimulationResultDAO.class.getName()).log(Level.SEVERE, null, ex);
+            return false;
         }
+    }
 
-        return key;
+    /**
+     * Discard the scenarios and outputs inserted since the last commit.
+     */
+    public void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException ex) {
+            Logger.getLogger(SimulationResultDAO.class.getName()).log(Level.SEVERE, null, ex);
+        }
     }
 
     /**
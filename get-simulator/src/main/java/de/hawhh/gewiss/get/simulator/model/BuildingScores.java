@@ -0,0 +1,69 @@
+package de.hawhh.gewiss.get.simulator.model;
+
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.simulator.scoring.ScoringMethod;
+import java.util.List;
+
+/**
+ * Scores of all buildings of a {@link BuildingTable} for one simulation year. The raw scores are stored in one primitive array per scoring method and the combined
+ * scores in a single primitive array, both indexed by the building index of the table.
+ *
+ * @author Thomas Preisler
+ */
+public class BuildingScores {
+
+    private final List<ScoringMethod> scoringMethods;
+    private final double[][] scores;
+    private final double[] combinedScores;
+
+    /**
+     * Default constructor creating empty score arrays for the given scoring methods and number of buildings.
+     *
+     * @param scoringMethods the scoring methods
+     * @param numberOfBuildings the number of buildings
+     */
+    public BuildingScores(List<ScoringMethod> scoringMethods, int numberOfBuildings) {
+        this.scoringMethods = scoringMethods;
+        this.scores = new double[scoringMethods.size()][numberOfBuildings];
+        this.combinedScores = new double[numberOfBuildings];
+    }
+
+    public List<ScoringMethod> getScoringMethods() {
+        return scoringMethods;
+    }
+
+    public int size() {
+        return combinedScores.length;
+    }
+
+    /**
+     * Returns the raw scores of the scoring method at the given position of the scoring method list.
+     *
+     * @param method position of the scoring method
+     * @return the scores indexed by the building index
+     */
+    public double[] getScores(int method) {
+        return scores[method];
+    }
+
+    public double getScore(int method, int index) {
+        return scores[method][index];
+    }
+
+    public void setScore(int method, int index, double score) {
+        scores[method][index] = score;
+    }
+
+    /**
+     * Returns the combined scores, indexed by the building index.
+     *
+     * @return the combined scores
+     */
+    public double[] getCombinedScores() {
+        return combinedScores;
+    }
+
+    public double getCombinedScore(int index) {
+        return combinedScores[index];
+    }
+}
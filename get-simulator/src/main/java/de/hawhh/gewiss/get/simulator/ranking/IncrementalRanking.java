@@ -0,0 +1,115 @@
+package de.hawhh.gewiss.get.simulator.ranking;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Ranking of the combined building scores kept across the years of one simulation run. Besides the combined scores of the previous year it keeps the previous
+ * ranking prefix, i.e. the best buildings in descending order of their scores, with up to twice the length of the requested ranking. A year only ranks the
+ * buildings whose combined score changed together with the leading unchanged buildings of the previous prefix: the order of the unchanged buildings has not
+ * changed, so an unchanged building behind the previous prefix cannot get ahead of the unchanged buildings within it.
+ *
+ * The combined scores are normalized by the bounds of all scores, so any shift of the bounds changes the scores of (nearly) all buildings. If too many scores
+ * changed or the previous prefix does not contain enough unchanged buildings, the ranking is rebuilt from all scores. The result always equals
+ * {@link TopKSelector#select(double[], int)} of all scores.
+ *
+ * A year-dependent scoring method like {@link de.hawhh.gewiss.get.simulator.scoring.BuildingAgeFactor} changes the score of every building older than 20 years
+ * in every year, so with such methods each year is rebuilt and the comparison with the previous scores is pure overhead. The ranking helps with scoring methods
+ * depending only on the buildings, e.g. heat demand or floor space based ones, and with constant CO2 factors, where only the renovated buildings change their
+ * scores. {@link #getRebuilds()} and {@link #getIncrementalUpdates()} tell whether a configuration benefits.
+ *
+ * @author Thomas Preisler
+ */
+public class IncrementalRanking {
+
+    private final static Logger LOGGER = Logger.getLogger(IncrementalRanking.class.getName());
+
+    /**
+     * Maximum share of changed scores ranked incrementally, above the ranking is rebuilt.
+     */
+    private static final double MAX_CHANGED_SHARE = 0.25;
+
+    private double[] scores;
+    private int[] prefix;
+    private int rebuilds;
+    private int incrementalUpdates;
+
+    /**
+     * Select the indices of the k highest scores in descending order, taking over the ranking of the unchanged scores from the previous call.
+     *
+     * @param combinedScores the combined scores of the current year, not modified
+     * @param k the number of indices to select
+     * @return the indices of the k highest scores in descending order of their scores, or all indices if k exceeds the number of scores
+     */
+    public int[] select(double[] combinedScores, int k) {
+        int n = combinedScores.length;
+        int prefixLength = (int) Math.min(n, 2L * Math.max(k, 0));
+
+        int[] changed = scores != null && scores.length == n ? changedScores(combinedScores) : null;
+        if (changed == null || changed.length > MAX_CHANGED_SHARE * n || !update(combinedScores, changed, Math.min(Math.max(k, 0), n), prefixLength)) {
+            rebuilds++;
+            LOGGER.log(Level.FINE, "Rebuilding the ranking of {0} buildings", n);
+            prefix = TopKSelector.select(combinedScores, prefixLength);
+        } else {
+            incrementalUpdates++;
+            LOGGER.log(Level.FINE, "Updated the ranking with {0} changed scores", changed.length);
+        }
+        scores = combinedScores.clone();
+
+        return Arrays.copyOf(prefix, Math.min(Math.max(k, 0), prefix.length));
+    }
+
+    /**
+     * @return the number of rankings rebuilt from all scores
+     */
+    public int getRebuilds() {
+        return rebuilds;
+    }
+
+    /**
+     * @return the number of rankings updated from the changed scores only
+     */
+    public int getIncrementalUpdates() {
+        return incrementalUpdates;
+    }
+
+    /**
+     * Ranks the changed buildings together with the leading unchanged buildings of the previous prefix. Unchanged buildings behind the previous prefix are ranked
+     * behind all unchanged buildings within it, so the new prefix is exact up to the number of unchanged buildings taken from the previous prefix (unless the
+     * previous prefix contained all buildings).
+     *
+     * @return <code>false</code> if the previous prefix does not contain enough unchanged buildings for the requested ranking
+     */
+    private boolean update(double[] combinedScores, int[] changed, int k, int prefixLength) {
+        int[] candidates = Arrays.copyOf(changed, changed.length + prefixLength);
+        int unchanged = 0;
+        for (int position = 0; position < prefix.length && unchanged < prefixLength; position++) {
+            int index = prefix[position];
+            if (Double.compare(combinedScores[index], scores[index]) == 0) {
+                candidates[changed.length + unchanged++] = index;
+            }
+        }
+
+        int exactLength = prefix.length == combinedScores.length ? prefixLength : Math.min(prefixLength, unchanged);
+        if (exactLength < k) {
+            return false;
+        }
+        prefix = TopKSelector.select(combinedScores, Arrays.copyOf(candidates, changed.length + unchanged), exactLength);
+        return true;
+    }
+
+    private int[] changedScores(double[] combinedScores) {
+        int[] changed = new int[16];
+        int count = 0;
+        for (int index = 0; index < combinedScores.length; index++) {
+            if (Double.compare(combinedScores[index], scores[index]) != 0) {
+                if (count == changed.length) {
+                    changed = Arrays.copyOf(changed, 2 * count);
+                }
+                changed[count++] = index;
+            }
+        }
+        return Arrays.copyOf(changed, count);
+    }
+}
@@ -0,0 +1,28 @@
+package de.hawhh.gewiss.get.simulator.ranking;
+
+/**
+ * Enumeration of the different ways the simulator ranks the scored buildings each year.
+ *
+ * @author Thomas Preisler
+ */
+public enum RankingMode {
+
+    /**
+     * All buildings are sorted in descending order of their scores.
+     */
+    FULL_SORT,
+
+    /**
+     * Only the buildings actually consumed by the renovation strategy are selected and returned in descending order of their scores.
+     */
+    TOP_K,
+
+    /**
+     * Like {@link #TOP_K}, but within a simulation run only the buildings whose combined score changed since the previous year are ranked again, see
+     * {@link IncrementalRanking}. Only pays off if the scores of most buildings stay the same from year to year, i.e. none of the scoring methods depends on the
+     * simulation year (like {@link de.hawhh.gewiss.get.simulator.scoring.BuildingAgeFactor}) or on the interpolated CO2 factors (like
+     * {@link de.hawhh.gewiss.get.simulator.scoring.CO2EmissionFactor} before the last year of the CO2 schedule). Otherwise the ranking is rebuilt every year and
+     * the mode is slightly slower than {@link #TOP_K}, therefore it is not the default.
+     */
+    INCREMENTAL
+}
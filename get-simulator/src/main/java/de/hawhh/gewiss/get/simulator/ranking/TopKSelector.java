@@ -0,0 +1,161 @@
+package de.hawhh.gewiss.get.simulator.ranking;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Selection based ranking of building scores. Instead of sorting all scores, the k best scores are selected using bounded heaps. The scores are split into chunks and
+ * each chunk is processed in parallel with its own heap, afterwards the heaps are merged into the final result.
+ *
+ * The order of the result equals the order of a stable descending sort of all scores (compared by {@link Double#compare(double, double)}): equal scores are ordered by
+ * ascending index. Therefore the result is deterministic and independent of the number of threads.
+ *
+ * @author Thomas Preisler
+ */
+public class TopKSelector {
+
+    /**
+     * Minimum number of scores per chunk, smaller inputs are not split.
+     */
+    private static final int MIN_CHUNK_SIZE = 4096;
+
+    private TopKSelector() {
+    }
+
+    /**
+     * Select the indices of the k highest scores in descending order.
+     *
+     * @param scores the scores, the position in the array is the index of the building
+     * @param k the number of indices to select
+     * @return the indices of the k highest scores in descending order of their scores, or all indices if k exceeds the number of scores
+     */
+    public static int[] select(double[] scores, int k) {
+        return select(scores, null, k);
+    }
+
+    /**
+     * Select the indices of the k highest scores in descending order from the given candidates.
+     *
+     * @param scores the scores, the position in the array is the index of the building
+     * @param candidates the indices of the buildings to consider or <code>null</code> if all buildings should be considered
+     * @param k the number of indices to select
+     * @return the indices of the k highest scores in descending order of their scores, or all candidates if k exceeds the number of candidates
+     */
+    public static int[] select(double[] scores, int[] candidates, int k) {
+        int n = candidates != null ? candidates.length : scores.length;
+        k = Math.min(k, n);
+        if (k <= 0) {
+            return new int[0];
+        }
+
+        int chunks = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4, n / MIN_CHUNK_SIZE));
+        int chunkSize = (n + chunks - 1) / chunks;
+        final int heapSize = k;
+
+        // Select the best k of each chunk in parallel
+        List<BoundedHeap> heaps = IntStream.range(0, chunks).parallel().mapToObj(chunk -> {
+            BoundedHeap heap = new BoundedHeap(scores, heapSize);
+            int to = Math.min(n, (chunk + 1) * chunkSize);
+            for (int i = chunk * chunkSize; i < to; i++) {
+                heap.offer(candidates != null ? candidates[i] : i);
+            }
+            return heap;
+        }).collect(Collectors.toList());
+
+        // Merge the heaps of all chunks
+        BoundedHeap result = heaps.get(0);
+        for (int i = 1; i < heaps.size(); i++) {
+            heaps.get(i).forEach(result::offer);
+        }
+
+        return result.drainDescending();
+    }
+
+    /**
+     * Returns true if the building at index a is ranked before the building at index b.
+     */
+    static boolean isRankedBefore(double[] scores, int a, int b) {
+        int cmp = Double.compare(scores[a], scores[b]);
+        return cmp > 0 || (cmp == 0 && a < b);
+    }
+
+    /**
+     * Binary min-heap of building indices with a fixed capacity, where the root is the worst ranked building of the heap.
+     */
+    private static class BoundedHeap {
+
+        private final double[] scores;
+        private final int[] heap;
+        private int size;
+
+        BoundedHeap(double[] scores, int capacity) {
+            this.scores = scores;
+            this.heap = new int[capacity];
+        }
+
+        void offer(int index) {
+            if (size < heap.length) {
+                heap[size] = index;
+                siftUp(size++);
+            } else if (isRankedBefore(scores, index, heap[0])) {
+                heap[0] = index;
+                siftDown(0);
+            }
+        }
+
+        void forEach(IntConsumer consumer) {
+            for (int i = 0; i < size; i++) {
+                consumer.accept(heap[i]);
+            }
+        }
+
+        /**
+         * Empties the heap and returns its content in descending order of the scores.
+         */
+        int[] drainDescending() {
+            int[] result = new int[size];
+            for (int i = result.length - 1; i >= 0; i--) {
+                result[i] = heap[0];
+                heap[0] = heap[--size];
+                siftDown(0);
+            }
+            return result;
+        }
+
+        private void siftUp(int pos) {
+            int index = heap[pos];
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (!isRankedBefore(scores, heap[parent], index)) {
+                    break;
+                }
+                heap[pos] = heap[parent];
+                pos = parent;
+            }
+            heap[pos] = index;
+        }
+
+        private void siftDown(int pos) {
+            if (size == 0) {
+                return;
+            }
+            int index = heap[pos];
+            int half = size >>> 1;
+            while (pos < half) {
+                int child = 2 * pos + 1;
+                int right = child + 1;
+                if (right < size && isRankedBefore(scores, heap[child], heap[right])) {
+                    child = right;
+                }
+                if (!isRankedBefore(scores, index, heap[child])) {
+                    break;
+                }
+                heap[pos] = heap[child];
+                pos = child;
+            }
+            heap[pos] = index;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package de.hawhh.gewiss.get.simulator.renovation;
+
+import de.hawhh.gewiss.get.core.input.HeatingSystemExchangeRate;
+import de.hawhh.gewiss.get.core.model.HeatingType;
+import lombok.EqualsAndHashCode;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Heating system transitions of the {@link RenovationHeatExchangeRateStrategy}, compiled from the {@link HeatingSystemExchangeRate}s into one dense table. A row of
+ * the table is indexed by the building kind (residential or non-residential), the target renovation level (basic or good), the access to district heating and the
+ * origin {@link HeatingType}, and holds the cumulative percentages of the target heating types. Without access to district heating the district heating rates are
+ * set to 0% and the remaining rates are normalized again.
+ *
+ * Sampling maps a uniform random number to the first target heating type whose cumulative percentage is not exceeded, so the same random number always yields
+ * the same transition.
+ *
+ * @author Thomas Preisler
+ */
+@EqualsAndHashCode
+public class HeatingExchangeTable {
+
+    private final static Logger LOGGER = Logger.getLogger(HeatingExchangeTable.class.getName());
+
+    private static final HeatingType[] HEATING_TYPES = HeatingType.values();
+
+    // the target heating types in the order of the cumulative percentages
+    private static final HeatingType[] TARGETS = {HeatingType.LOW_TEMPERATURE_BOILER, HeatingType.DISTRICT_HEAT, HeatingType.CONDENSING_BOILER,
+        HeatingType.CONDENSING_BOILER_SOLAR, HeatingType.PELLETS, HeatingType.HEAT_PUMP_HEAT_RECOVERY, HeatingType.PELLETS_SOLAR_HEAT_RECOVERY,
+        HeatingType.DISTRICT_HEAT_HEAT_RECOVERY, HeatingType.CONDENSING_BOILER_SOLAR_HEAT_RECOVERY};
+    private static final int DISTRICT_HEAT = 1;
+    private static final int DISTRICT_HEAT_HEAT_RECOVERY = 7;
+
+    // cumulative percentages of the targets per row, null if there are no transitions for the row
+    private final double[][] bounds = new double[2 * 2 * 2 * HEATING_TYPES.length][];
+
+    /**
+     * Compiles the given exchange rates. The rates are not modified, a later rate for the same renovation type and origin heating type replaces an earlier one.
+     *
+     * @param heatingSystemExchangeRates
+     */
+    public HeatingExchangeTable(List<HeatingSystemExchangeRate> heatingSystemExchangeRates) {
+        heatingSystemExchangeRates.forEach(exchangeRate -> {
+            boolean residential;
+            boolean goodRenovation;
+            switch (exchangeRate.getRenType()) {
+                case RES_ENEV:
+                    residential = true;
+                    goodRenovation = false;
+                    break;
+                case RES_PASSIVE:
+                    residential = true;
+                    goodRenovation = true;
+                    break;
+                case NRES_ENEV:
+                    residential = false;
+                    goodRenovation = false;
+                    break;
+                default:
+                    residential = false;
+                    goodRenovation = true;
+                    break;
+            }
+            int originType = exchangeRate.getOldType().ordinal();
+
+            double[] rates = normalize(ratesOf(exchangeRate));
+            bounds[row(residential, goodRenovation, true, originType)] = cumulate(rates);
+
+            // without access to district heating (if house not in proximity)
+            rates[DISTRICT_HEAT] = 0d;
+            rates[DISTRICT_HEAT_HEAT_RECOVERY] = 0d;
+            bounds[row(residential, goodRenovation, false, originType)] = cumulate(normalize(rates));
+        });
+
+        if (LOGGER.isLoggable(Level.INFO)) {
+            for (int row = 0; row < bounds.length; row++) {
+                if (bounds[row] != null) {
+                    LOGGER.log(Level.INFO, "Heating exchange classes for {0}: {1} --> {2}", new Object[]{describe(row), Arrays.toString(bounds[row]), Arrays.toString(TARGETS)});
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws the new heating system of a renovated building.
+     *
+     * @param residential whether the building has a residential type
+     * @param goodRenovation whether the building is renovated to the good (otherwise the basic) renovation level
+     * @param districtHeating whether the building has access to district heating
+     * @param originType the current heating type of the building
+     * @param random a uniformly distributed random number in [0, 1)
+     * @return the new heating type or <code>null</code> if the heating system is not exchanged
+     */
+    public HeatingType sample(boolean residential, boolean goodRenovation, boolean districtHeating, HeatingType originType, double random) {
+        double[] cumulative = bounds[row(residential, goodRenovation, districtHeating, originType.ordinal())];
+        if (cumulative == null) {
+            return null;
+        }
+
+        double coinToss = random * 100;
+        // Double.compare to order NaN percentages (all rates 0%) above every coin toss
+        for (int target = 0; target < cumulative.length; target++) {
+            if (Double.compare(coinToss, cumulative[target]) <= 0) {
+                return TARGETS[target];
+            }
+        }
+        return null;
+    }
+
+    private static int row(boolean residential, boolean goodRenovation, boolean districtHeating, int originType) {
+        return (((residential ? 0 : 1) * 2 + (goodRenovation ? 1 : 0)) * 2 + (districtHeating ? 0 : 1)) * HEATING_TYPES.length + originType;
+    }
+
+    private static String describe(int row) {
+        int category = row / HEATING_TYPES.length;
+        return ((category & 4) == 0 ? "Residential " : "Non-Residential ") + ((category & 2) == 0 ? "Basic " : "Good ")
+                + ((category & 1) == 0 ? "" : "(no district heating) ") + HEATING_TYPES[row % HEATING_TYPES.length];
+    }
+
+    private static double[] ratesOf(HeatingSystemExchangeRate exchangeRate) {
+        return new double[]{exchangeRate.getLowTempBoilerRate(), exchangeRate.getDistrictHeatRate(), exchangeRate.getCondensingBoilerRate(),
+            exchangeRate.getCondBoilerSolarRate(), exchangeRate.getPelletsRate(), exchangeRate.getHeatPumpHRRate(), exchangeRate.getPelletsSolarHRRate(),
+            exchangeRate.getDistrictHeatHRRate(), exchangeRate.getCondBoilerSolarHRRate()};
+    }
+
+    /**
+     * Normalizes the rates to 100% in sum, with the same arithmetic as {@link HeatingSystemExchangeRate#normalize()}.
+     */
+    private static double[] normalize(double[] rates) {
+        double sum = rates[8] + rates[3] + rates[2] + rates[7] + rates[1] + rates[5] + rates[0] + rates[4] + rates[6];
+        double[] normalized = new double[rates.length];
+        for (int target = 0; target < rates.length; target++) {
+            normalized[target] = rates[target] * 100d / sum;
+        }
+        return normalized;
+    }
+
+    private static double[] cumulate(double[] rates) {
+        double[] cumulative = new double[rates.length];
+        double sum = 0d;
+        for (int target = 0; target < rates.length; target++) {
+            sum += rates[target];
+            cumulative[target] = sum;
+        }
+        return cumulative;
+    }
+}
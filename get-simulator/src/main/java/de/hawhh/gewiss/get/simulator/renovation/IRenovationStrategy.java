@@ -1,9 +1,7 @@
 package de.hawhh.gewiss.get.simulator.renovation;
 
-import de.hawhh.gewiss.get.simulator.model.ScoredBuilding;
-
-import java.util.List;
-import java.util.Random;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.core.util.RandomStream;
 
 /**
  * Interface for renovation strategies.
@@ -13,11 +11,58 @@ import java.util.Random;
 public interface IRenovationStrategy {
 
     /**
-     * Perform the renovation strategy for the given list of {@link ScoredBuilding}s
+     * Perform the renovation strategy for the given ranking of buildings. Random decisions have to be drawn from the random stream with the year and index of the
+     * building, so the result does not depend on the order the buildings are renovated in.
+     *
+     * @param buildings    the building stock
+     * @param ranking      the indices of the buildings in the building stock in descending order of their scores
+     * @param currentYear  the current year of the simulation
+     * @param randomStream the random numbers of the simulation run
+     */
+    void performRenovation(BuildingTable buildings, int[] ranking, Integer currentYear, RandomStream randomStream);
+
+    /**
+     * Returns the number of buildings that are renovated per year, i.e. the number of leading entries of the ranking consumed by
+     * {@link #performRenovation(BuildingTable, int[], Integer, RandomStream)}.
+     *
+     * @param numberOfBuildings the number of buildings in the building stock
+     * @return the number of renovated buildings
+     */
+    long getNumberOfRenovatedBuildings(int numberOfBuildings);
+
+    /**
+     * Returns the strategy actually applied in the given year, e.g. the current phase of a {@link PhasedRenovationStrategy}. Two scenarios renovate the same buildings
+     * in a year if their effective strategies for the year are equal (and all other inputs are equal), so strategies compare their parameters in
+     * <code>equals</code> and <code>hashCode</code>.
+     *
+     * @param year the simulation year
+     * @return the strategy applied in the given year
+     */
+    default IRenovationStrategy getEffectiveStrategy(int year) {
+        return this;
+    }
+
+    /**
+     * Checks whether the strategy can renovate the building at the given index in its current state in any later year, e.g. a strategy only renovating buildings
+     * below the good renovation level cannot renovate a building at the good renovation level. By default every building can be renovated.
+     *
+     * @param buildings the building stock
+     * @param index the index of the building
+     * @return whether the building can still be renovated
+     */
+    default boolean canRenovate(BuildingTable buildings, int index) {
+        return true;
+    }
+
+    /**
+     * Checks whether the strategy can no longer change any of the given buildings, neither in the given year nor in any later year, whatever the ranking of the
+     * buildings. Once a strategy is exhausted the building stock stays in a steady state. Strategies which cannot tell return <code>false</code>.
      *
-     * @param scoredBuildings
-     * @param currentYear           the current year of the simulation
-     * @param pseudoRandomGenerator the pseudo random generator used for the simulation
+     * @param buildings the building stock
+     * @param fromYear the first year to check
+     * @return whether the strategy does not change the buildings from the given year on
      */
-    void performRenovation(List<ScoredBuilding> scoredBuildings, Integer currentYear, Random pseudoRandomGenerator);
+    default boolean isExhausted(BuildingTable buildings, int fromYear) {
+        return false;
+    }
 }
@@ -0,0 +1,69 @@
+package de.hawhh.gewiss.get.simulator.renovation;
+
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.core.util.RandomStream;
+import lombok.EqualsAndHashCode;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Renovation strategy changing at a given year, e.g. to simulate a renovation rate raised from 2030 on. Until the year before the switch year the initial strategy is
+ * applied, from the switch year on the following strategy. Phased strategies can be nested to model more than one change.
+ *
+ * @author Thomas Preisler
+ */
+@EqualsAndHashCode
+public class PhasedRenovationStrategy implements IRenovationStrategy {
+
+    private final static Logger LOGGER = Logger.getLogger(PhasedRenovationStrategy.class.getName());
+
+    private final IRenovationStrategy initialStrategy;
+    private final int switchYear;
+    private final IRenovationStrategy followingStrategy;
+
+    /**
+     * @param initialStrategy the strategy applied before the switch year
+     * @param switchYear the first year of the following strategy
+     * @param followingStrategy the strategy applied from the switch year on
+     */
+    public PhasedRenovationStrategy(IRenovationStrategy initialStrategy, int switchYear, IRenovationStrategy followingStrategy) {
+        this.initialStrategy = initialStrategy;
+        this.switchYear = switchYear;
+        this.followingStrategy = followingStrategy;
+
+        LOGGER.log(Level.INFO, "Initialized PhasedRenovationStrategy switching strategies in {0}", switchYear);
+    }
+
+    @Override
+    public void performRenovation(BuildingTable buildings, int[] ranking, Integer currentYear, RandomStream randomStream) {
+        getEffectiveStrategy(currentYear).performRenovation(buildings, ranking, currentYear, randomStream);
+    }
+
+    /**
+     * Returns the larger number of renovated buildings of both strategies, so that the ranking always contains enough buildings for the strategy of the current
+     * year.
+     */
+    @Override
+    public long getNumberOfRenovatedBuildings(int numberOfBuildings) {
+        return Math.max(initialStrategy.getNumberOfRenovatedBuildings(numberOfBuildings), followingStrategy.getNumberOfRenovatedBuildings(numberOfBuildings));
+    }
+
+    @Override
+    public IRenovationStrategy getEffectiveStrategy(int year) {
+        return (year < switchYear ? initialStrategy : followingStrategy).getEffectiveStrategy(year);
+    }
+
+    @Override
+    public boolean canRenovate(BuildingTable buildings, int index) {
+        return initialStrategy.canRenovate(buildings, index) || followingStrategy.canRenovate(buildings, index);
+    }
+
+    @Override
+    public boolean isExhausted(BuildingTable buildings, int fromYear) {
+        if (fromYear >= switchYear) {
+            return followingStrategy.isExhausted(buildings, fromYear);
+        }
+        return initialStrategy.isExhausted(buildings, fromYear) && followingStrategy.isExhausted(buildings, switchYear);
+    }
+}
@@ -1,11 +1,11 @@
 package de.hawhh.gewiss.get.simulator.renovation;
 
-import com.google.common.collect.Range;
 import de.hawhh.gewiss.get.core.input.HeatingSystemExchangeRate;
-import de.hawhh.gewiss.get.core.model.Building;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
 import de.hawhh.gewiss.get.core.model.HeatingType;
 import de.hawhh.gewiss.get.core.model.RenovationLevel;
-import de.hawhh.gewiss.get.simulator.model.ScoredBuilding;
+import de.hawhh.gewiss.get.core.util.RandomStream;
+import lombok.EqualsAndHashCode;
 
 import java.util.*;
 import java.util.logging.Level;
@@ -19,22 +19,15 @@ import java.util.logging.Logger;
  *
  * @author Thomas Preisler, Antony Sotirov
  */
+@EqualsAndHashCode
 public class RenovationHeatExchangeRateStrategy implements IRenovationStrategy {
 
     private final static Logger LOGGER = Logger.getLogger(RenovationHeatExchangeRateStrategy.class.getName());
 
     private final Double renovationRate;
     private final Double passiveHouseRate;
-    // 4 different maps, a list of maps would make structure less human-readable
-    private Map<HeatingType, Map<Range<Double>, HeatingType>> heatingExchangeClasses_ResBasic;
-    private Map<HeatingType, Map<Range<Double>, HeatingType>> heatingExchangeClasses_ResGood;
-    private Map<HeatingType, Map<Range<Double>, HeatingType>> heatingExchangeClasses_NResBasic;
-    private Map<HeatingType, Map<Range<Double>, HeatingType>> heatingExchangeClasses_NResGood;
-    // same as the 4 maps before, but with district heating set to 0%; not very elegant, but gets the job done
-    private Map<HeatingType, Map<Range<Double>, HeatingType>> heatingExchangeClasses_ResBasic_noDH;
-    private Map<HeatingType, Map<Range<Double>, HeatingType>> heatingExchangeClasses_ResGood_noDH;;
-    private Map<HeatingType, Map<Range<Double>, HeatingType>> heatingExchangeClasses_NResBasic_noDH;;
-    private Map<HeatingType, Map<Range<Double>, HeatingType>> heatingExchangeClasses_NResGood_noDH;;
+    // heating system transitions for all renovation types, with and without access to district heating
+    private final HeatingExchangeTable heatingExchangeTable;
 
     /**
      * Default constructor. Here the yearly renovation rate and the chance for a basic renovation rate can be set. In both cases a value of 50.0 equals 50%.
@@ -47,51 +40,56 @@ public class RenovationHeatExchangeRateStrategy implements IRenovationStrategy {
         this.renovationRate = renovationRate;
         this.passiveHouseRate = passiveHouseRate;
 
-        // prepare all 4 different exchange classes
-        createHeatingExchangeClasses(heatingSystemExchangeRates);
+        // compile the exchange rates of all renovation types
+        this.heatingExchangeTable = new HeatingExchangeTable(heatingSystemExchangeRates);
 
         LOGGER.log(Level.INFO, "Initialized RenovationRateStrategy with a renovationRate of {0}% and a passive house renovation chance of {1}%", new Object[]{renovationRate, passiveHouseRate});
     }
 
     @Override
-    public void performRenovation(List<ScoredBuilding> scoredBuildings, Integer currentYear, Random pseudoRandomGenerator) {
-        LOGGER.info("Performing renovation of given List of scored buildings");
+    public long getNumberOfRenovatedBuildings(int numberOfBuildings) {
+        return (long) (numberOfBuildings * (renovationRate / 100d));
+    }
 
-        long noRenovatedBuildings = (long) (scoredBuildings.size() * (renovationRate / 100d));
-        // Limit the stream of scored buildings so that only renovate rate percentage buildings are selected for a renovation
-        scoredBuildings.stream().limit(noRenovatedBuildings).forEachOrdered(sb -> {
-            //LOGGER.log(Level.INFO, "Renovating building {0}\twith score {1}", new Object[]{sb.getBuilding().getAlkisID(), sb.getScore()});
-            Building building = sb.getBuilding();
+    @Override
+    public boolean canRenovate(BuildingTable buildings, int index) {
+        return buildings.getRenovationLevelCode(index) != RenovationLevel.GOOD_RENOVATION.ordinal();
+    }
+
+    /**
+     * The strategy only renovates buildings below the good renovation level, so it is exhausted if its renovation rate is 0% or all buildings have reached the good
+     * renovation level.
+     */
+    @Override
+    public boolean isExhausted(BuildingTable buildings, int fromYear) {
+        return getNumberOfRenovatedBuildings(buildings.size()) == 0 || buildings.countRenovationLevel(RenovationLevel.GOOD_RENOVATION) == buildings.size();
+    }
+
+    @Override
+    public void performRenovation(BuildingTable buildings, int[] ranking, Integer currentYear, RandomStream randomStream) {
+        LOGGER.info("Performing renovation of given ranking of buildings");
+
+        long noRenovatedBuildings = getNumberOfRenovatedBuildings(buildings.size());
+        // Limit the ranking so that only renovate rate percentage buildings are selected for a renovation, the buildings are independent of each other
+        Arrays.stream(ranking).limit(noRenovatedBuildings).parallel().forEach(index -> {
+            //LOGGER.log(Level.INFO, "Renovating building {0}", buildings.getAlkisID(index));
 
             // renovation of the building hull and heating system
             // if the building has a residential component treat it entirely as residential!
-            if (building.getRenovationLevel().equals(RenovationLevel.NO_RENOVATION)) {
+            if (buildings.getRenovationLevel(index).equals(RenovationLevel.NO_RENOVATION)) {
                 // Perform a "normal" or passive house standard renovation depending on the passive house rate
-                if (pseudoRandomGenerator.nextDouble() * 100 <= passiveHouseRate) {
+                if (randomStream.nextDouble(currentYear, index, RandomStream.Purpose.RENOVATION_LEVEL) * 100 <= passiveHouseRate) {
                     // Renovation level 0 to 2 (passive house standard)
-                    makeGoodRenovation(currentYear, pseudoRandomGenerator, building);
+                    makeGoodRenovation(currentYear, randomStream, buildings, index);
 
                 } else {
                     // Renovation level 0 to 1
-                    building.renovate(RenovationLevel.BASIC_RENOVATION, currentYear);
-                    if (building.getResidentialType() != null) {
-                        if (building.hasAccessDistrictHeating() == true) {
-                            updateHeatingSystem(building, this.heatingExchangeClasses_ResBasic, pseudoRandomGenerator);
-                        } else {
-                            updateHeatingSystem(building, this.heatingExchangeClasses_ResBasic_noDH, pseudoRandomGenerator);
-                        }
-                    } else {
-                        if (building.hasAccessDistrictHeating() == true) {
-                            updateHeatingSystem(building, this.heatingExchangeClasses_NResBasic, pseudoRandomGenerator);
-                        } else {
-                            updateHeatingSystem(building, this.heatingExchangeClasses_NResBasic_noDH, pseudoRandomGenerator);
-                        }
-                    }
-
+                    buildings.renovate(index, RenovationLevel.BASIC_RENOVATION, currentYear);
+                    updateHeatingSystem(buildings, index, false, currentYear, randomStream);
                 }
-            } else if (building.getRenovationLevel().equals(RenovationLevel.BASIC_RENOVATION)) {
+            } else if (buildings.getRenovationLevel(index).equals(RenovationLevel.BASIC_RENOVATION)) {
                 // Renovation level 1 to 2
-                makeGoodRenovation(currentYear, pseudoRandomGenerator, building);
+                makeGoodRenovation(currentYear, randomStream, buildings, index);
             }
 
         });
@@ -101,190 +99,32 @@ public class RenovationHeatExchangeRateStrategy implements IRenovationStrategy {
      * Helper method for transitions 0 to 1 and 0 to 2 for Renovation Levels.
      *
      * @param currentYear
-     * @param pseudoRandomGenerator
-     * @param building
+     * @param randomStream
+     * @param buildings
+     * @param index
      */
-    private void makeGoodRenovation(Integer currentYear, Random pseudoRandomGenerator, Building building) {
-        building.renovate(RenovationLevel.GOOD_RENOVATION, currentYear);
-        if (building.getResidentialType() != null) {
-            if (building.hasAccessDistrictHeating() == true) {
-                updateHeatingSystem(building, this.heatingExchangeClasses_ResGood, pseudoRandomGenerator);
-            } else {
-                updateHeatingSystem(building, this.heatingExchangeClasses_ResGood_noDH, pseudoRandomGenerator);
-            }
-        } else {
-            if (building.hasAccessDistrictHeating() == true) {
-                updateHeatingSystem(building, this.heatingExchangeClasses_NResGood, pseudoRandomGenerator);
-            } else {
-                updateHeatingSystem(building, this.heatingExchangeClasses_NResGood_noDH, pseudoRandomGenerator);
-            }
-        }
+    private void makeGoodRenovation(Integer currentYear, RandomStream randomStream, BuildingTable buildings, int index) {
+        buildings.renovate(index, RenovationLevel.GOOD_RENOVATION, currentYear);
+        updateHeatingSystem(buildings, index, true, currentYear, randomStream);
     }
 
     /**
      * Renovation/exchange of heating system.
      * The possible transitions are level 0 to 1; 1 to 2 and 0 to 2. The transition rates to level 2 (GOOD_RENOVATION)
-     * are the same!
+     * are the same! If the building has a residential component it is treated entirely as residential.
      *
-     * @param building
-     * @param heatingExchangeClasses
-     * @param pseudoRandomGenerator
+     * @param buildings
+     * @param index
+     * @param goodRenovation
+     * @param currentYear
+     * @param randomStream
      */
-    private void updateHeatingSystem(Building building, Map<HeatingType, Map<Range<Double>, HeatingType>> heatingExchangeClasses, Random pseudoRandomGenerator) {
-
-        for (HeatingType heatingType : heatingExchangeClasses.keySet()) {
-            if (heatingType.equals(building.getHeatingType())) {
-                Double coinToss = pseudoRandomGenerator.nextDouble() * 100;
-                Map<Range<Double>, HeatingType> classes = heatingExchangeClasses.get(heatingType);
-
-                for (Range<Double> classRange : classes.keySet()) {
-                    if (classRange.contains(coinToss)) {
-                        building.exchangeHeatingSystem(classes.get(classRange));
-                        //LOGGER.log(Level.INFO, "Changed heating systemn in building {0} from {1} to {2}", new Object[]{building.getAlkisID(), heatingType, building.getHeatingType()});
-                    }
-                }
-            }
+    private void updateHeatingSystem(BuildingTable buildings, int index, boolean goodRenovation, int currentYear, RandomStream randomStream) {
+        HeatingType newType = heatingExchangeTable.sample(buildings.getResidentialType(index) != null, goodRenovation, buildings.hasAccessDistrictHeating(index),
+                buildings.getHeatingType(index), randomStream.nextDouble(currentYear, index, RandomStream.Purpose.HEATING_EXCHANGE));
+        if (newType != null) {
+            buildings.exchangeHeatingSystem(index, newType);
+            //LOGGER.log(Level.INFO, "Changed heating systemn in building {0} to {1}", new Object[]{buildings.getAlkisID(index), newType});
         }
     }
-
-    private void createHeatingExchangeClasses(List<HeatingSystemExchangeRate> heatingSystemExchangeRates) {
-        // normal hash-maps for 4 types of exchange rates
-        this.heatingExchangeClasses_ResBasic = new HashMap<>();
-        this.heatingExchangeClasses_ResGood = new HashMap<>();
-        this.heatingExchangeClasses_NResBasic = new HashMap<>();
-        this.heatingExchangeClasses_NResGood = new HashMap<>();
-        // same but with District Heating set to 0
-        this.heatingExchangeClasses_ResBasic_noDH = new HashMap<>();
-        this.heatingExchangeClasses_ResGood_noDH = new HashMap<>();
-        this.heatingExchangeClasses_NResBasic_noDH = new HashMap<>();
-        this.heatingExchangeClasses_NResGood_noDH = new HashMap<>();
-
-        heatingSystemExchangeRates.forEach((exchangeRate) -> {
-            HeatingType originType = exchangeRate.getOldType();
-            switch(exchangeRate.getRenType()) {
-                case RES_ENEV:
-                    this.heatingExchangeClasses_ResBasic.put(originType, createTransition(exchangeRate));
-                    // create map without any district heats (if house not in proximity)
-                    exchangeRate.setDistrictHeatRate(0d);
-                    exchangeRate.setDistrictHeatHRRate(0d);
-                    this.heatingExchangeClasses_ResBasic_noDH.put(originType, createTransition(exchangeRate));
-                    break;
-                case RES_PASSIVE:
-                    this.heatingExchangeClasses_ResGood.put(originType, createTransition(exchangeRate));
-                    // create map without any district heats (if house not in proximity)
-                    exchangeRate.setDistrictHeatRate(0d);
-                    exchangeRate.setDistrictHeatHRRate(0d);
-                    this.heatingExchangeClasses_ResGood_noDH.put(originType, createTransition(exchangeRate));
-                    break;
-                case NRES_ENEV:
-                    this.heatingExchangeClasses_NResBasic.put(originType, createTransition(exchangeRate));
-                    // create map without any district heats (if house not in proximity)
-                    exchangeRate.setDistrictHeatRate(0d);
-                    exchangeRate.setDistrictHeatHRRate(0d);
-                    this.heatingExchangeClasses_NResBasic_noDH.put(originType, createTransition(exchangeRate));
-                    break;
-                case NRES_PASSIVE:
-                    this.heatingExchangeClasses_NResGood.put(originType, createTransition(exchangeRate));
-                    // create map without any district heats (if house not in proximity)
-                    exchangeRate.setDistrictHeatRate(0d);
-                    exchangeRate.setDistrictHeatHRRate(0d);
-                    this.heatingExchangeClasses_NResGood_noDH.put(originType, createTransition(exchangeRate));
-                    break;
-            }
-
-        });
-        
-        printHeatingExchangeClasses();
-    }
-
-    /**
-     * Generate the transition map for the heating exchange rates
-     *
-     * @param exchangeRate
-     * @return
-     */
-    private Map<Range<Double>, HeatingType> createTransition(HeatingSystemExchangeRate exchangeRate) {
-        exchangeRate.normalize();
-        Map<Range<Double>, HeatingType> transitions = new HashMap<>();
-
-        Double a = 0d;
-        Double b = a + exchangeRate.getLowTempBoilerRate();
-        Range<Double> ltb = Range.closed(a, b);
-        transitions.put(ltb, HeatingType.LOW_TEMPERATURE_BOILER);
-
-        a = b;
-        b = a + exchangeRate.getDistrictHeatRate();
-        Range<Double> dh = Range.openClosed(a, b);
-        transitions.put(dh, HeatingType.DISTRICT_HEAT);
-
-        a = b;
-        b = a + exchangeRate.getCondensingBoilerRate();
-        Range<Double> cb = Range.openClosed(a, b);
-        transitions.put(cb, HeatingType.CONDENSING_BOILER);
-
-        a = b;
-        b = a + exchangeRate.getCondBoilerSolarRate();
-        Range<Double> cbs = Range.openClosed(a,b);
-        transitions.put(cbs, HeatingType.CONDENSING_BOILER_SOLAR);
-
-        a = b;
-        b = a + exchangeRate.getPelletsRate();
-        Range<Double> p = Range.openClosed(a, b);
-        transitions.put(p, HeatingType.PELLETS);
-
-        a = b;
-        b = a + exchangeRate.getHeatPumpHRRate();
-        Range<Double> hr = Range.openClosed(a, b);
-        transitions.put(hr, HeatingType.HEAT_PUMP_HEAT_RECOVERY);
-
-        a = b;
-        b = a + exchangeRate.getPelletsSolarHRRate();
-        Range<Double> phr = Range.openClosed(a, b);
-        transitions.put(phr, HeatingType.PELLETS_SOLAR_HEAT_RECOVERY);
-
-        a = b;
-        b = a + exchangeRate.getDistrictHeatHRRate();
-        Range<Double> dhhr = Range.openClosed(a, b);
-        transitions.put(dhhr, HeatingType.DISTRICT_HEAT_HEAT_RECOVERY);
-
-        a = b;
-        b = a + exchangeRate.getCondBoilerSolarHRRate();
-        Range<Double> cbshr = Range.openClosed(a, b);
-        transitions.put(cbshr, HeatingType.CONDENSING_BOILER_SOLAR_HEAT_RECOVERY);
-
-        return transitions;
-    }
-
-    private void printHeatingExchangeClasses() {
-        // not very elegant, but only logging
-        this.heatingExchangeClasses_ResBasic.keySet().stream().peek((originType) -> LOGGER.log(Level.INFO, "Residential Basic Heating Exchange Classes for: {0}", originType)).forEachOrdered((originType) -> {
-            this.heatingExchangeClasses_ResBasic.get(originType).keySet().forEach((range) -> {
-                HeatingType toType = this.heatingExchangeClasses_ResBasic.get(originType).get(range);
-                
-                LOGGER.log(Level.INFO, "{0}\t-->\t{1}", new Object[]{range, toType});
-            });
-        });
-        this.heatingExchangeClasses_ResGood.keySet().stream().peek((originType) -> LOGGER.log(Level.INFO, "Residential Good Heating Exchange Classes for: {0}", originType)).forEachOrdered((originType) -> {
-            this.heatingExchangeClasses_ResGood.get(originType).keySet().forEach((range) -> {
-                HeatingType toType = this.heatingExchangeClasses_ResGood.get(originType).get(range);
-
-                LOGGER.log(Level.INFO, "{0}\t-->\t{1}", new Object[]{range, toType});
-            });
-        });
-        this.heatingExchangeClasses_NResBasic.keySet().stream().peek((originType) -> LOGGER.log(Level.INFO, "Non-Residential Basic Heating Exchange Classes for: {0}", originType)).forEachOrdered((originType) -> {
-            this.heatingExchangeClasses_NResBasic.get(originType).keySet().forEach((range) -> {
-                HeatingType toType = this.heatingExchangeClasses_NResBasic.get(originType).get(range);
-
-                LOGGER.log(Level.INFO, "{0}\t-->\t{1}", new Object[]{range, toType});
-            });
-        });
-        this.heatingExchangeClasses_NResGood.keySet().stream().peek((originType) -> LOGGER.log(Level.INFO, "Non-Residential Good Heating Exchange Classes for: {0}", originType)).forEachOrdered((originType) -> {
-            this.heatingExchangeClasses_NResGood.get(originType).keySet().forEach((range) -> {
-                HeatingType toType = this.heatingExchangeClasses_NResGood.get(originType).get(range);
-
-                LOGGER.log(Level.INFO, "{0}\t-->\t{1}", new Object[]{range, toType});
-            });
-        });
-
-    }
 }
@@ -1,11 +1,11 @@
 package de.hawhh.gewiss.get.simulator.renovation;
 
-import de.hawhh.gewiss.get.core.model.Building;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
 import de.hawhh.gewiss.get.core.model.RenovationLevel;
-import de.hawhh.gewiss.get.simulator.model.ScoredBuilding;
+import de.hawhh.gewiss.get.core.util.RandomStream;
+import lombok.EqualsAndHashCode;
 
-import java.util.List;
-import java.util.Random;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -16,6 +16,7 @@ import java.util.logging.Logger;
  *
  * @author Thomas Preisler
  */
+@EqualsAndHashCode
 public class RenovationRateStrategy implements IRenovationStrategy {
 
     private final static Logger LOGGER = Logger.getLogger(RenovationRateStrategy.class.getName());
@@ -37,27 +38,45 @@ public class RenovationRateStrategy implements IRenovationStrategy {
     }
 
     @Override
-    public void performRenovation(List<ScoredBuilding> scoredBuildings, Integer currentYear, Random pseudoRandomGenerator) {
-        LOGGER.info("Performing renovation of given List of scored buildings");
+    public long getNumberOfRenovatedBuildings(int numberOfBuildings) {
+        return (long) (numberOfBuildings * renovationRate);
+    }
+
+    @Override
+    public boolean canRenovate(BuildingTable buildings, int index) {
+        return buildings.getRenovationLevelCode(index) != RenovationLevel.GOOD_RENOVATION.ordinal();
+    }
+
+    /**
+     * The strategy only renovates buildings below the good renovation level, so it is exhausted if its renovation rate is 0% or all buildings have reached the good
+     * renovation level.
+     */
+    @Override
+    public boolean isExhausted(BuildingTable buildings, int fromYear) {
+        return getNumberOfRenovatedBuildings(buildings.size()) == 0 || buildings.countRenovationLevel(RenovationLevel.GOOD_RENOVATION) == buildings.size();
+    }
+
+    @Override
+    public void performRenovation(BuildingTable buildings, int[] ranking, Integer currentYear, RandomStream randomStream) {
+        LOGGER.info("Performing renovation of given ranking of buildings");
 
-        long noRenovatedBuildings = (long) (scoredBuildings.size() * renovationRate);
-        // Limit the stream of scored buildings so that only renovate rate percentage buildings are selected for a renovation
-        scoredBuildings.stream().limit(noRenovatedBuildings).forEachOrdered(sb -> {
-            //LOGGER.log(Level.INFO, "Renvating building {0}\twith score {1}", new Object[]{sb.getBuilding().getAlkisID(), sb.getScore()});
-            Building building = sb.getBuilding();
+        long noRenovatedBuildings = getNumberOfRenovatedBuildings(buildings.size());
+        // Limit the ranking so that only renovate rate percentage buildings are selected for a renovation, the buildings are independent of each other
+        Arrays.stream(ranking).limit(noRenovatedBuildings).parallel().forEach(index -> {
+            //LOGGER.log(Level.INFO, "Renvating building {0}", buildings.getAlkisID(index));
 
-            if (building.getRenovationLevel().equals(RenovationLevel.NO_RENOVATION)) {
+            if (buildings.getRenovationLevel(index).equals(RenovationLevel.NO_RENOVATION)) {
                 // Perform a basic or a good renovation depending on the basic renovation chance
-                if (pseudoRandomGenerator.nextDouble() <= basicRenovationChance) {
-                    building.renovate(RenovationLevel.BASIC_RENOVATION, currentYear);
+                if (randomStream.nextDouble(currentYear, index, RandomStream.Purpose.RENOVATION_LEVEL) <= basicRenovationChance) {
+                    buildings.renovate(index, RenovationLevel.BASIC_RENOVATION, currentYear);
                 } else {
-                    building.renovate(RenovationLevel.GOOD_RENOVATION, currentYear);
+                    buildings.renovate(index, RenovationLevel.GOOD_RENOVATION, currentYear);
                 }
-            } else if (building.getRenovationLevel().equals(RenovationLevel.BASIC_RENOVATION)) {
-                building.renovate(RenovationLevel.GOOD_RENOVATION, currentYear);
+            } else if (buildings.getRenovationLevel(index).equals(RenovationLevel.BASIC_RENOVATION)) {
+                buildings.renovate(index, RenovationLevel.GOOD_RENOVATION, currentYear);
             }
         });
 
-        LOGGER.log(Level.INFO, "Renovated {0} of {1} buildings with a renovation rate of {2}", new Object[]{noRenovatedBuildings, scoredBuildings.size(), renovationRate});
+        LOGGER.log(Level.INFO, "Renovated {0} of {1} buildings with a renovation rate of {2}", new Object[]{noRenovatedBuildings, buildings.size(), renovationRate});
     }
-}
+}
\ No newline at end of file
@@ -1,6 +1,7 @@
 package de.hawhh.gewiss.get.simulator.scoring;
 
 import de.hawhh.gewiss.get.core.model.Building;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
 
 /**
  * Implements a simple function for the calculation of the building age factor.
@@ -13,26 +14,40 @@ import de.hawhh.gewiss.get.core.model.Building;
  */
 public class BuildingAgeFactor implements ScoringMethod  {
 
-     @Override
+    @Override
+    public double calcBaseScore(BuildingTable buildings, int index, int simYear) {
+        return calcBaseScore(buildings.getYearOfRenovation(index), buildings.getYearOfConstruction(index), buildings.getConstructionAgeClassMean(index), simYear);
+    }
+
+    @Override
     public Double calcBaseScore(Building building, Integer simYear) {
-        Integer lastRenovation = null;
+        return calcBaseScore(valueOf(building.getYearOfRenovation()), valueOf(building.getYearOfConstruction()),
+                building.getConstructionAgeClass() != null ? valueOf(building.getConstructionAgeClass().getMean()) : 0, simYear);
+    }
+
+    private double calcBaseScore(int yearOfRenovation, int yearOfConstruction, int constructionAgeClassMean, int simYear) {
+        int lastRenovation;
         
         // Determine the last year of renovation.
         // Either the actual last year of renovation, the year of construction if set, or the mean value of the construction age class
-        if (building.getYearOfRenovation() != null && building.getYearOfRenovation() > 0) {
-            lastRenovation = building.getYearOfRenovation();
+        if (yearOfRenovation > 0) {
+            lastRenovation = yearOfRenovation;
         } else {
-            if (building.getYearOfConstruction() != null && building.getYearOfConstruction() > 0) {
-                lastRenovation = building.getYearOfConstruction();
+            if (yearOfConstruction > 0) {
+                lastRenovation = yearOfConstruction;
             } else {
-                lastRenovation = building.getConstructionAgeClass().getMean();
+                lastRenovation = constructionAgeClassMean;
             }
         }
         
         if ((simYear - lastRenovation) <= 20) {
             return 0d;
         } else {
-            return (simYear.doubleValue() - lastRenovation.doubleValue()) / simYear.doubleValue();
+            return ((double) simYear - (double) lastRenovation) / (double) simYear;
         }
-    }  
-}
\ No newline at end of file
+    }
+
+    private static int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+}
@@ -1,11 +1,14 @@
 package de.hawhh.gewiss.get.simulator.scoring;
 
+import de.hawhh.gewiss.get.core.calc.BuildingMetrics;
 import de.hawhh.gewiss.get.core.calc.EnergyCalculator;
 import de.hawhh.gewiss.get.core.model.Building;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
 import de.hawhh.gewiss.get.core.model.RenovationLevel;
 
 /**
- * Score a building according to its CO2 emission.
+ * Score a building according to its CO2 emission. Without {@link BuildingMetrics} the CO2 factors of the database are used, otherwise the CO2 schedule of the
+ * metrics.
  *
  * @author Thomas Preisler
  */
@@ -17,12 +20,30 @@ public class CO2EmissionFactor implements ScoringMethod {
         this.energyCalculator = EnergyCalculator.getInstance();
     }
 
+    @Override
+    public double calcBaseScore(BuildingTable buildings, int index, int simYear) {
+        if (!buildings.getRenovationLevel(index).equals(RenovationLevel.GOOD_RENOVATION)) {
+            return energyCalculator.calcCO2Emission(buildings, index, energyCalculator.getBaseCO2Schedule(), simYear);
+        } else {
+            return -1d;
+        }
+    }
+
     @Override
     public Double calcBaseScore(Building building, Integer simYear) {
-        if (!building.getRenovationLevel().equals(RenovationLevel.GOOD_RENOVATION)) {
-            return energyCalculator.calcCO2Emission(building, simYear);
+        if (!RenovationLevel.GOOD_RENOVATION.equals(building.getRenovationLevel())) {
+            return energyCalculator.calcCO2Emission(building, energyCalculator.getBaseCO2Schedule(), simYear);
+        } else {
+            return -1d;
+        }
+    }
+
+    @Override
+    public double calcBaseScore(BuildingTable buildings, BuildingMetrics metrics, int index, int simYear) {
+        if (!buildings.getRenovationLevel(index).equals(RenovationLevel.GOOD_RENOVATION)) {
+            return metrics.getCO2Emission(index);
         } else {
             return -1d;
         }
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,8 @@
 package de.hawhh.gewiss.get.simulator.scoring;
 
+import de.hawhh.gewiss.get.core.calc.BuildingMetrics;
 import de.hawhh.gewiss.get.core.model.Building;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
 import de.hawhh.gewiss.get.core.model.RenovationLevel;
 
 /**
@@ -10,16 +12,46 @@ import de.hawhh.gewiss.get.core.model.RenovationLevel;
  */
 public class CO2EmissionSquareMeterFactor extends CO2EmissionFactor {
 
+    @Override
+    public double calcBaseScore(BuildingTable buildings, int index, int simYear) {
+        if (!buildings.getRenovationLevel(index).equals(RenovationLevel.GOOD_RENOVATION)) {
+            double sm = buildings.getNonResidentialFloorSpace(index) + buildings.getResidentialFloorSpace(index);
+            if (sm <= 0d) {
+                return -1d;
+            }
+            return energyCalculator.calcCO2Emission(buildings, index, energyCalculator.getBaseCO2Schedule(), simYear) / sm;
+        } else {
+            return -1d;
+        }
+    }
+
     @Override
     public Double calcBaseScore(Building building, Integer simYear) {
-        if (!building.getRenovationLevel().equals(RenovationLevel.GOOD_RENOVATION)) {
-            Double sm = building.getNonResidentialFloorSpace() + building.getResidentialFloorSpace();
+        if (!RenovationLevel.GOOD_RENOVATION.equals(building.getRenovationLevel())) {
+            double sm = valueOf(building.getNonResidentialFloorSpace()) + valueOf(building.getResidentialFloorSpace());
+            if (sm <= 0d) {
+                return -1d;
+            }
+            return energyCalculator.calcCO2Emission(building, energyCalculator.getBaseCO2Schedule(), simYear) / sm;
+        } else {
+            return -1d;
+        }
+    }
+
+    @Override
+    public double calcBaseScore(BuildingTable buildings, BuildingMetrics metrics, int index, int simYear) {
+        if (!buildings.getRenovationLevel(index).equals(RenovationLevel.GOOD_RENOVATION)) {
+            double sm = buildings.getNonResidentialFloorSpace(index) + buildings.getResidentialFloorSpace(index);
             if (sm <= 0d) {
                 return -1d;
             }
-            return energyCalculator.calcCO2Emission(building, simYear) / sm;
+            return metrics.getCO2Emission(index) / sm;
         } else {
             return -1d;
         }
     }
+
+    private static double valueOf(Double value) {
+        return value != null ? value : 0d;
+    }
 }
@@ -1,6 +1,8 @@
 package de.hawhh.gewiss.get.simulator.scoring;
 
+import de.hawhh.gewiss.get.core.calc.BuildingMetrics;
 import de.hawhh.gewiss.get.core.model.Building;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
 
 /**
  * Interface for calculating a buildings base score. The interface is used to be able to use different scoring methods/implementations
@@ -11,6 +13,30 @@ import de.hawhh.gewiss.get.core.model.Building;
 
 public interface ScoringMethod {
 
+    /**
+     * Calculates the score of the building at the given index depending on the provided scoring method and the current year of the simulation.
+     *
+     * @param buildings the building stock
+     * @param index the index of the building in the building stock
+     * @param simYear the current year of the simulation
+     * @return the calculated building base score
+     */
+    double calcBaseScore(BuildingTable buildings, int index, int simYear);
+
+    /**
+     * Calculates the score of the building at the given index and may use the already calculated metrics of the current year instead of recalculating them. By
+     * default the metrics are not used.
+     *
+     * @param buildings the building stock
+     * @param metrics the metrics of the building stock for the current year of the simulation
+     * @param index the index of the building in the building stock
+     * @param simYear the current year of the simulation
+     * @return the calculated building base score
+     */
+    default double calcBaseScore(BuildingTable buildings, BuildingMetrics metrics, int index, int simYear) {
+        return calcBaseScore(buildings, index, simYear);
+    }
+
     /**
      * Calculates the buildings score depending on the provided scoring method and the current year of the simulation.
      *
@@ -0,0 +1,142 @@
+package de.hawhh.gewiss.get.core.calc;
+
+import de.hawhh.gewiss.get.core.input.SimulationParameter;
+import de.hawhh.gewiss.get.core.model.Building;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.core.model.HeatingType;
+import de.hawhh.gewiss.get.core.model.RenovationLevel;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for {@link BuildingMetrics}.
+ *
+ * @author Thomas Preisler
+ */
+public class BuildingMetricsTest {
+
+    private EnergyCalculator energyCalculator;
+    private BuildingTable buildings;
+    private CO2Schedule co2Schedule;
+
+    @Before
+    public void setUp() {
+        this.energyCalculator = EnergyCalculator.getInstance();
+        this.co2Schedule = energyCalculator.newCO2Schedule()
+                .addPoint(HeatingType.DISTRICT_HEAT, SimulationParameter.FIRST_YEAR, 291.6d)
+                .addPoint(HeatingType.DISTRICT_HEAT, SimulationParameter.FIRST_YEAR + 10, 215d)
+                .build();
+
+        Building residential = new Building();
+        residential.setAlkisID("Test_ID_1");
+        residential.setHeatingType(HeatingType.DISTRICT_HEAT);
+        residential.setResidentialType("EFH_A");
+        residential.setRenovationLevel(RenovationLevel.NO_RENOVATION);
+        residential.setResidentialFloorSpace(200D);
+
+        Building other = new Building();
+        other.setAlkisID("Test_ID_2");
+        other.setHeatingType(HeatingType.CONDENSING_BOILER);
+        other.setResidentialType("EFH_A");
+        other.setRenovationLevel(RenovationLevel.NO_RENOVATION);
+        other.setResidentialFloorSpace(120D);
+
+        this.buildings = BuildingTable.fromBuildings(Arrays.asList(residential, other), energyCalculator.getBuildingTypes());
+    }
+
+    /**
+     * The cached metrics have to equal the directly calculated ones, also for buildings changed after the first update.
+     */
+    @Test
+    public void update() {
+        BuildingMetrics metrics = new BuildingMetrics(buildings, co2Schedule);
+        int year = SimulationParameter.FIRST_YEAR;
+        metrics.update(year);
+        assertMetrics(metrics, year);
+
+        buildings.renovate(0, RenovationLevel.GOOD_RENOVATION, year);
+        buildings.exchangeHeatingSystem(0, HeatingType.PELLETS);
+        assertEquals(1, buildings.countRenovationLevel(RenovationLevel.GOOD_RENOVATION));
+        assertEquals(1, buildings.countRenovationLevel(RenovationLevel.NO_RENOVATION));
+        metrics.update(year);
+        assertMetrics(metrics, year);
+
+        metrics.update(year + 1);
+        assertEquals(Integer.valueOf(year + 1), metrics.getYear());
+        assertMetrics(metrics, year + 1);
+    }
+
+    /**
+     * The emissions derived from the cached final energy and the factors of the year have to equal a full calculation in every year.
+     */
+    @Test
+    public void updateYears() {
+        BuildingMetrics metrics = new BuildingMetrics(buildings, co2Schedule);
+        for (int year = SimulationParameter.FIRST_YEAR; year <= SimulationParameter.FIRST_YEAR + 12; year++) {
+            if (year == SimulationParameter.FIRST_YEAR + 5) {
+                buildings.exchangeHeatingSystem(1, HeatingType.DISTRICT_HEAT);
+            }
+            metrics.update(year);
+            assertMetrics(metrics, year);
+        }
+
+        // a copy with another schedule recalculates all emissions
+        CO2Schedule otherSchedule = energyCalculator.newCO2Schedule().addPoint(HeatingType.CONDENSING_BOILER, SimulationParameter.FIRST_YEAR, 100d).build();
+        BuildingMetrics copy = new BuildingMetrics(metrics, buildings, otherSchedule);
+        copy.update(SimulationParameter.FIRST_YEAR + 12);
+        for (int index = 0; index < buildings.size(); index++) {
+            assertEquals(energyCalculator.calcCO2Emission(buildings, index, otherSchedule, SimulationParameter.FIRST_YEAR + 12), copy.getCO2Emission(index), 0d);
+        }
+    }
+
+    /**
+     * A snapshot brought up to date every other year, like the double-buffered snapshots of the pipelined output, has to equal the source.
+     */
+    @Test
+    public void copyChangedFrom() {
+        BuildingMetrics metrics = new BuildingMetrics(buildings, co2Schedule);
+        metrics.update(SimulationParameter.FIRST_YEAR);
+        BuildingTable snapshot = buildings.copy();
+        BuildingMetrics snapshotMetrics = new BuildingMetrics(metrics, snapshot, co2Schedule);
+
+        for (int year = SimulationParameter.FIRST_YEAR + 1; year <= SimulationParameter.FIRST_YEAR + 12; year++) {
+            if (year == SimulationParameter.FIRST_YEAR + 3) {
+                buildings.renovate(0, RenovationLevel.GOOD_RENOVATION, year);
+                buildings.exchangeHeatingSystem(0, HeatingType.PELLETS);
+            }
+            if (year == SimulationParameter.FIRST_YEAR + 4) {
+                buildings.exchangeHeatingSystem(1, HeatingType.DISTRICT_HEAT);
+            }
+            metrics.update(year);
+            if ((year - SimulationParameter.FIRST_YEAR) % 2 != 0) {
+                continue;
+            }
+
+            assertEquals(year == SimulationParameter.FIRST_YEAR + 4 ? 2 : 0, snapshot.copyChangedFrom(buildings));
+            snapshotMetrics.copyChangedFrom(metrics);
+            assertEquals(Integer.valueOf(year), snapshotMetrics.getYear());
+            for (RenovationLevel level : RenovationLevel.values()) {
+                assertEquals(buildings.countRenovationLevel(level), snapshot.countRenovationLevel(level));
+            }
+            for (int index = 0; index < buildings.size(); index++) {
+                assertEquals(buildings.getHeatingType(index), snapshot.getHeatingType(index));
+                assertEquals(buildings.getRenovationLevel(index), snapshot.getRenovationLevel(index));
+                assertEquals(metrics.getHeatDemand(index), snapshotMetrics.getHeatDemand(index), 0d);
+                assertEquals(metrics.getFinalEnergy(index), snapshotMetrics.getFinalEnergy(index), 0d);
+                assertEquals(metrics.getCO2Emission(index), snapshotMetrics.getCO2Emission(index), 0d);
+            }
+        }
+    }
+
+    private void assertMetrics(BuildingMetrics metrics, int year) {
+        for (int index = 0; index < buildings.size(); index++) {
+            assertEquals(energyCalculator.calcHeatDemand(buildings, index), metrics.getHeatDemand(index), 0d);
+            assertEquals(energyCalculator.getBuildingFinalEnergy(buildings, index), metrics.getFinalEnergy(index), 0d);
+            assertEquals(energyCalculator.calcCO2Emission(buildings, index, co2Schedule, year), metrics.getCO2Emission(index), 0d);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package de.hawhh.gewiss.get.core.calc;
+
+import de.hawhh.gewiss.get.core.input.SimulationParameter;
+import de.hawhh.gewiss.get.core.model.HeatingType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for {@link CO2Schedule}.
+ *
+ * @author Thomas Preisler
+ */
+public class CO2ScheduleTest {
+
+    private double[] baseFactors;
+
+    @Before
+    public void setUp() {
+        this.baseFactors = new double[HeatingType.values().length];
+        Arrays.fill(baseFactors, 100d);
+    }
+
+    @Test
+    public void constant() {
+        CO2Schedule schedule = CO2Schedule.constant(baseFactors);
+
+        assertEquals(SimulationParameter.FIRST_YEAR.intValue(), schedule.getLastYear());
+        assertEquals(100d, schedule.getFactor(HeatingType.PELLETS, SimulationParameter.FIRST_YEAR - 1), 0d);
+        assertEquals(100d, schedule.getFactor(HeatingType.PELLETS, 2050), 0d);
+    }
+
+    /**
+     * Years between two points are linearly interpolated, before the first and after the last point the factors are constant.
+     */
+    @Test
+    public void interpolation() {
+        int first = SimulationParameter.FIRST_YEAR;
+        CO2Schedule schedule = CO2Schedule.builder(baseFactors)
+                .addPoint(HeatingType.DISTRICT_HEAT, first + 2, 300d)
+                .addPoint(HeatingType.DISTRICT_HEAT, first + 6, 200d)
+                .addPoint(HeatingType.DISTRICT_HEAT, first + 8, 100d)
+                .build();
+
+        assertEquals(first + 8, schedule.getLastYear());
+        assertEquals(100d, schedule.getFactor(HeatingType.DISTRICT_HEAT, first - 1), 0d);
+        assertEquals(300d, schedule.getFactor(HeatingType.DISTRICT_HEAT, first), 0d);
+        assertEquals(300d, schedule.getFactor(HeatingType.DISTRICT_HEAT, first + 2), 0d);
+        assertEquals(275d, schedule.getFactor(HeatingType.DISTRICT_HEAT, first + 3), 0d);
+        assertEquals(200d, schedule.getFactor(HeatingType.DISTRICT_HEAT, first + 6), 0d);
+        assertEquals(150d, schedule.getFactor(HeatingType.DISTRICT_HEAT, first + 7), 0d);
+        assertEquals(100d, schedule.getFactor(HeatingType.DISTRICT_HEAT, first + 20), 0d);
+
+        // heating types without points use the base factors
+        assertEquals(100d, schedule.getFactor(HeatingType.PELLETS, first + 4), 0d);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pointBeforeFirstYear() {
+        CO2Schedule.builder(baseFactors).addPoint(HeatingType.PELLETS, SimulationParameter.FIRST_YEAR - 1, 10d);
+    }
+}
@@ -4,16 +4,29 @@ import de.hawhh.gewiss.get.core.input.CO2FactorsData;
 import de.hawhh.gewiss.get.core.input.InputValidationException;
 import de.hawhh.gewiss.get.core.input.SimulationParameter;
 import de.hawhh.gewiss.get.core.model.Building;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.core.model.CostsBuildingShell;
+import de.hawhh.gewiss.get.core.model.HeatDemandFinalEnergy;
+import de.hawhh.gewiss.get.core.model.HeatDemandLoadGeneration;
 import de.hawhh.gewiss.get.core.model.HeatingType;
 import de.hawhh.gewiss.get.core.model.RenovationLevel;
+import de.hawhh.gewiss.get.simulator.db.dao.CostsBuildingShellDAO;
+import de.hawhh.gewiss.get.simulator.db.dao.HeatDemandFinalEnergyDAO;
+import de.hawhh.gewiss.get.simulator.db.dao.HeatDemandLoadGenerationDAO;
+import org.apache.commons.collections4.keyvalue.MultiKey;
+import org.apache.commons.collections4.map.MultiKeyMap;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class EnergyCalculatorTest {
@@ -80,10 +93,10 @@ public class EnergyCalculatorTest {
         Integer midCO2Year = 2030;
         Integer finalCO2Year = 2050;
 
-        energyCalculator.prepCO2YearlyRates(yearlyCO2Factors, midCO2Year, finalCO2Year);
+        CO2Schedule co2Schedule = energyCalculator.createCO2Schedule(yearlyCO2Factors, midCO2Year, finalCO2Year);
 
         for (int year = SimulationParameter.FIRST_YEAR; year<=finalCO2Year; year++) {
-            Double co2 = energyCalculator.calcCO2Emission(testBuilding, SimulationParameter.FIRST_YEAR);
+            Double co2 = energyCalculator.calcCO2Emission(testBuilding, co2Schedule, year);
 
             System.out.println("CO2 Emission: " + co2 + " for year: " + year);
             assertNotNull(co2);
@@ -108,4 +121,124 @@ public class EnergyCalculatorTest {
         assertNotNull(heatingExchangeCosts);
         assertTrue(heatingExchangeCosts > 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void calcEnergyCoefficients() throws InputValidationException {
+        BuildingTable buildings = BuildingTable.fromBuildings(Arrays.asList(testBuilding), energyCalculator.getBuildingTypes());
+        BuildingEnergyCoefficients coefficients = energyCalculator.calcEnergyCoefficients(buildings);
+        double heatDemand = energyCalculator.calcHeatDemand(buildings, 0);
+        double exchangeCosts = energyCalculator.calcHeatingExchangeRenovationCosts(buildings, 0);
+
+        buildings.setEnergyCoefficients(coefficients);
+        assertEquals(heatDemand, coefficients.getHeatDemand(0, RenovationLevel.BASIC_RENOVATION.ordinal()), 0d);
+        assertEquals(heatDemand, energyCalculator.calcHeatDemand(buildings, 0), 0d);
+        assertEquals(exchangeCosts, energyCalculator.calcHeatingExchangeRenovationCosts(buildings, 0), 0d);
+
+        buildings.renovate(0, RenovationLevel.GOOD_RENOVATION, 2020);
+        assertEquals(coefficients.getHeatDemand(0, RenovationLevel.GOOD_RENOVATION.ordinal()), energyCalculator.calcHeatDemand(buildings, 0), 0d);
+    }
+
+    @Test(expected = InputValidationException.class)
+    public void calcEnergyCoefficientsMissingReferenceData() throws InputValidationException {
+        testBuilding.setResidentialType("Unknown_Type");
+        energyCalculator.calcEnergyCoefficients(BuildingTable.fromBuildings(Arrays.asList(testBuilding), energyCalculator.getBuildingTypes()));
+    }
+
+    @Test
+    public void calcRenovationCosts() throws InputValidationException {
+        BuildingTable buildings = BuildingTable.fromBuildings(Arrays.asList(testBuilding), energyCalculator.getBuildingTypes());
+        buildings.setEnergyCoefficients(energyCalculator.calcEnergyCoefficients(buildings));
+        RenovationCosts costs = energyCalculator.calcRenovationCosts(buildings);
+
+        for (RenovationLevel renovationLevel : RenovationLevel.values()) {
+            buildings.renovate(0, renovationLevel, 2020);
+            for (HeatingType heatingType : HeatingType.values()) {
+                buildings.exchangeHeatingSystem(0, heatingType);
+                assertEquals(energyCalculator.calcHeatingExchangeRenovationCosts(buildings, 0),
+                        costs.getHeatingExchangeCosts(0, renovationLevel.ordinal(), heatingType.ordinal()), 0d);
+            }
+            if (renovationLevel != RenovationLevel.NO_RENOVATION) {
+                assertEquals(energyCalculator.calcShellRenovationCosts(buildings, 0), costs.getShellCosts(0, renovationLevel.ordinal()), 0d);
+            }
+        }
+    }
+
+    @Test
+    public void referenceTablesMatchMaps() {
+        MultiKeyMap<MultiKey<?>, HeatDemandLoadGeneration> loadGenerations = new HeatDemandLoadGenerationDAO().findAll();
+        MultiKeyMap<MultiKey<?>, HeatDemandFinalEnergy> finalEnergies = new HeatDemandFinalEnergyDAO().findAll();
+        MultiKeyMap<MultiKey<?>, CostsBuildingShell> shellCosts = new CostsBuildingShellDAO().findAll();
+        Set<String> buildingTypes = new TreeSet<>();
+        loadGenerations.keySet().forEach(key -> buildingTypes.add((String) (Object) key.getKey(0)));
+        finalEnergies.keySet().forEach(key -> buildingTypes.add((String) (Object) key.getKey(0)));
+        shellCosts.keySet().forEach(key -> buildingTypes.add((String) (Object) key.getKey(0)));
+        assertEquals(buildingTypes.size(), energyCalculator.getBuildingTypes().size());
+
+        // one building per building type, renovation level and heating type with a floor space of 1, so the calculations return the values of the tables
+        List<Building> buildings = new ArrayList<>();
+        for (String buildingType : buildingTypes) {
+            for (RenovationLevel renovationLevel : RenovationLevel.values()) {
+                for (HeatingType heatingType : HeatingType.values()) {
+                    Building building = new Building();
+                    building.setResidentialType(buildingType);
+                    building.setResidentialFloorSpace(1d);
+                    building.setRenovationLevel(renovationLevel);
+                    building.setHeatingType(heatingType);
+                    buildings.add(building);
+                }
+            }
+        }
+        BuildingTable table = BuildingTable.fromBuildings(buildings, energyCalculator.getBuildingTypes());
+
+        for (int index = 0; index < buildings.size(); index++) {
+            Building building = buildings.get(index);
+            String buildingType = building.getResidentialType();
+            RenovationLevel renovationLevel = building.getRenovationLevel();
+            HeatingType heatingType = building.getHeatingType();
+
+            HeatDemandFinalEnergy finalEnergy = finalEnergies.get(buildingType, renovationLevel, heatingType);
+            if (finalEnergy != null) {
+                assertEquals(finalEnergy.getFinalEnergy(), energyCalculator.getFinalEnergy(buildingType, renovationLevel, heatingType));
+                assertEquals(finalEnergy.getFinalEnergy(), energyCalculator.getFinalEnergy(table.getResidentialTypeCode(index), renovationLevel.ordinal(),
+                        heatingType.ordinal()), 0d);
+            } else {
+                assertFails(() -> energyCalculator.getFinalEnergy(buildingType, renovationLevel, heatingType));
+            }
+
+            HeatDemandLoadGeneration loadGeneration = loadGenerations.get(buildingType, renovationLevel);
+            if (loadGeneration != null) {
+                double heatDemand = loadGeneration.getSpaceHeatingDemand() + loadGeneration.getWarmwaterDemand();
+                assertEquals(heatDemand, energyCalculator.calcHeatDemand(building), 0d);
+                assertEquals(heatDemand, energyCalculator.calcHeatDemand(table, index), 0d);
+            } else {
+                assertFails(() -> energyCalculator.calcHeatDemand(building));
+            }
+
+            CostsBuildingShell costs = shellCosts.get(buildingType, renovationLevel);
+            if (costs != null) {
+                assertEquals(costs.getCostPerSQM(), energyCalculator.calcShellRenovationCosts(building), 0d);
+                assertEquals(costs.getCostPerSQM(), energyCalculator.calcShellRenovationCosts(table, index), 0d);
+            } else {
+                assertFails(() -> energyCalculator.calcShellRenovationCosts(building));
+            }
+        }
+
+        // a building type without reference data is not added to the reference types
+        Building unknown = new Building();
+        unknown.setResidentialType("Unknown_Type");
+        unknown.setRenovationLevel(RenovationLevel.NO_RENOVATION);
+        BuildingTable unknownTable = BuildingTable.fromBuildings(Arrays.asList(unknown), energyCalculator.getBuildingTypes());
+        assertEquals("Unknown_Type", unknownTable.getResidentialType(0));
+        assertEquals(buildingTypes.size(), energyCalculator.getBuildingTypes().size());
+        assertNull(energyCalculator.getFinalEnergy(null, RenovationLevel.NO_RENOVATION, HeatingType.PELLETS));
+    }
+
+    private static void assertFails(Runnable lookup) {
+        try {
+            lookup.run();
+        } catch (IllegalStateException ex) {
+            return;
+        }
+        throw new AssertionError("Expected a missing reference data exception");
+    }
+}
@@ -2,11 +2,15 @@ package de.hawhh.gewiss.get.core.input;
 
 import com.google.common.collect.Range;
 import de.hawhh.gewiss.get.core.model.Building;
+import de.hawhh.gewiss.get.core.model.BuildingAttributeIndex;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.core.model.BuildingTypeDictionary;
 import de.hawhh.gewiss.get.core.model.HeatingType;
 import de.hawhh.gewiss.get.core.model.RenovationLevel;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 
 import static org.junit.Assert.*;
@@ -52,6 +56,102 @@ public class ModifierTest {
         assertFalse(result);
     }
 
+    /**
+     * Test of compile method, of class Modifier. The compiled modifier has to select exactly the buildings fulfilling the conditions.
+     */
+    @Test
+    public void testCompile() {
+        System.out.println("compile");
+
+        Building building1 = new Building();
+        building1.setQuarter("Altona");
+        building1.setRenovationLevel(RenovationLevel.BASIC_RENOVATION);
+        building1.setResidentialType("EFH_A");
+        building1.setHeatingType(HeatingType.CONDENSING_BOILER);
+        building1.setYearOfConstruction(1995);
+        building1.setDistrictHeatingOutletDistance(100);
+
+        Building building2 = new Building();
+        building2.setQuarter("Bahrenfeld");
+        building2.setRenovationLevel(RenovationLevel.NO_RENOVATION);
+        building2.setNonResidentialType("EFH_A");
+        building2.setHeatingType(HeatingType.CONDENSING_BOILER);
+        building2.setYearOfConstruction(2005);
+        building2.setDistrictHeatingOutletDistance(50);
+
+        Building building3 = new Building();
+        building3.setQuarter("Curslack");
+        building3.setRenovationLevel(RenovationLevel.BASIC_RENOVATION);
+        building3.setResidentialType("EFH_A");
+        building3.setHeatingType(HeatingType.PELLETS);
+        building3.setYearOfConstruction(1990);
+        building3.setDistrictHeatingOutletDistance(500);
+
+        BuildingTable buildings = BuildingTable.fromBuildings(Arrays.asList(building1, building2, building3), BuildingTypeDictionary.EMPTY);
+        BuildingAttributeIndex index = new BuildingAttributeIndex(buildings);
+
+        Modifier instance = new Modifier("Test", 2017, 2018, 2d);
+        instance.setTargetBuildingsTypes(Collections.singletonList("EFH_A"));
+        instance.setMaxDistrictHeatingDistance(100d);
+        assertSelection(instance, buildings, index);
+
+        instance.setTargetRenovationLevels(Collections.singletonList(RenovationLevel.BASIC_RENOVATION));
+        instance.setTargetHeatingSystems(Collections.singletonList(HeatingType.CONDENSING_BOILER));
+        instance.setYearOfConstructionRange(Range.closed(1990, 2000));
+        assertSelection(instance, buildings, index);
+
+        instance.setTargetQuarters(Arrays.asList("Altona", "Bahrenfeld"));
+        CompiledModifier compiled = instance.compile(index);
+        assertEquals(1, compiled.select().cardinality());
+
+        // Dynamic attributes are re-evaluated
+        buildings.renovate(0, RenovationLevel.GOOD_RENOVATION, 2018);
+        assertTrue(compiled.select().isEmpty());
+    }
+
+    /**
+     * Test of checkConditions and compile method, of class Modifier, for a building with unknown district heating outlet distance and year of construction. The
+     * building must not fulfill conditions on them, neither directly nor in the table or the compiled modifier.
+     */
+    @Test
+    public void testCheckConditionsUnknownAttributes() {
+        System.out.println("checkConditionsUnknownAttributes");
+
+        Building building = new Building();
+        building.setQuarter("Altona");
+        building.setRenovationLevel(RenovationLevel.BASIC_RENOVATION);
+        building.setResidentialType("EFH_A");
+        building.setHeatingType(HeatingType.CONDENSING_BOILER);
+
+        Modifier distance = new Modifier("Distance", 2017, 2018, 2d);
+        distance.setMaxDistrictHeatingDistance(100d);
+        Modifier age = new Modifier("Age", 2017, 2018, 2d);
+        age.setYearOfConstructionRange(Range.lessThan(1950));
+        Modifier quarter = new Modifier("Quarter", 2017, 2018, 2d);
+        quarter.setTargetQuarters(Collections.singletonList("Altona"));
+
+        assertFalse(distance.checkConditions(building));
+        assertFalse(age.checkConditions(building));
+        assertTrue(quarter.checkConditions(building));
+
+        BuildingTable buildings = BuildingTable.fromBuildings(Collections.singletonList(building), BuildingTypeDictionary.EMPTY);
+        assertFalse(buildings.hasYearOfConstruction(0));
+        assertFalse(buildings.hasDistrictHeatingOutletDistance(0));
+        assertNull(buildings.toBuilding(0).getYearOfConstruction());
+        BuildingAttributeIndex index = new BuildingAttributeIndex(buildings);
+        for (Modifier modifier : Arrays.asList(distance, age, quarter)) {
+            assertEquals(modifier.checkConditions(building), modifier.checkConditions(buildings, 0));
+            assertSelection(modifier, buildings, index);
+        }
+    }
+
+    private void assertSelection(Modifier modifier, BuildingTable buildings, BuildingAttributeIndex index) {
+        BitSet selection = modifier.compile(index).select();
+        for (int i = 0; i < buildings.size(); i++) {
+            assertEquals(modifier.checkConditions(buildings, i), selection.get(i));
+        }
+    }
+
     /**
      * Test of isActive method, of class Modifier.
      */
@@ -0,0 +1,101 @@
+package de.hawhh.gewiss.get.core.output;
+
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.core.model.HeatingType;
+import de.hawhh.gewiss.get.core.model.RenovationLevel;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.stream.IntStream;
+
+/**
+ * Test class for {@link AggregationCube}.
+ *
+ * @author Thomas Preisler
+ */
+public class AggregationCubeTest {
+
+    private BuildingTable buildings;
+    private BuildingDictionary dictionary;
+    private YearFrame frame;
+    private AggregationCube cube;
+
+    @Before
+    public void setUp() {
+        this.buildings = OutputTestData.buildings(40);
+        this.dictionary = new BuildingDictionary(buildings);
+        this.frame = OutputTestData.frame(2025, dictionary);
+        this.cube = new AggregationCube(buildings, EnumSet.allOf(AggregationLevel.class));
+        cube.add(frame);
+    }
+
+    /**
+     * The areas of each level partition the buildings, the sums of all areas equal the sums of the frame.
+     */
+    @Test
+    public void sumAreas() {
+        Assert.assertEquals(Arrays.asList(OutputTestData.ALTONA, OutputTestData.OTTENSEN), cube.getAreas(AggregationLevel.QUARTER));
+        for (AggregationLevel level : AggregationLevel.values()) {
+            double heatDemand = 0d;
+            long count = 0;
+            for (String area : cube.getAreas(level)) {
+                heatDemand += cube.sum(2025, AggregationCube.Measure.HEAT_DEMAND, level, area, null, null);
+                count += cube.count(2025, level, area, null, null);
+            }
+            Assert.assertEquals(frame.sumHeatDemand(null), heatDemand, frame.sumHeatDemand(null) * 1e-12);
+            Assert.assertEquals(buildings.size(), count);
+            Assert.assertEquals(frame.sumCO2Emission(null), cube.sum(2025, AggregationCube.Measure.CO2_EMISSION, level, null, null, null),
+                    frame.sumCO2Emission(null) * 1e-12);
+        }
+
+        int[] altona = IntStream.range(0, buildings.size()).filter(index -> OutputTestData.ALTONA.equals(buildings.getQuarter(index))).toArray();
+        Assert.assertEquals(frame.sumRenovationCost(altona), cube.sum(2025, AggregationCube.Measure.RENOVATION_COST, AggregationLevel.QUARTER,
+                OutputTestData.ALTONA, null, null), 0d);
+        for (RenovationLevel level : RenovationLevel.values()) {
+            Assert.assertEquals(frame.countRenovationLevel(level, altona), cube.count(2025, AggregationLevel.QUARTER, OutputTestData.ALTONA, null, level));
+        }
+        for (HeatingType heatingType : HeatingType.values()) {
+            long expected = IntStream.range(0, frame.size()).filter(index -> frame.getHeatingType(index) == heatingType).count();
+            Assert.assertEquals(expected, cube.count(2025, AggregationLevel.CITY_BLOCK, null, heatingType, null));
+        }
+
+        // unknown areas and years are empty
+        Assert.assertEquals(0d, cube.sum(2025, AggregationCube.Measure.HEAT_DEMAND, AggregationLevel.QUARTER, "Unknown", null, null), 0d);
+        Assert.assertEquals(0, cube.count(2030, AggregationLevel.CITY, null, null, null));
+    }
+
+    /**
+     * The sums are compensated, small values are not lost when added to a large sum.
+     */
+    @Test
+    public void compensatedSums() {
+        YearFrame large = new YearFrame(2030, dictionary);
+        double[] heatDemand = new double[dictionary.size()];
+        for (int index = 0; index < dictionary.size(); index++) {
+            heatDemand[index] = index == 0 ? 1e16 : 1d;
+            large.set(index, heatDemand[index], 0d, (byte) RenovationLevel.NO_RENOVATION.ordinal(), (byte) HeatingType.PELLETS.ordinal(), 0d, 0d, Double.NaN);
+        }
+        cube.add(large);
+
+        double sum = cube.sum(2030, AggregationCube.Measure.HEAT_DEMAND, AggregationLevel.CITY, null, null, null);
+        Assert.assertEquals(1e16 + dictionary.size() - 1, sum, 2d);
+        Assert.assertEquals(large.sumHeatDemand(null), sum, 2d);
+    }
+
+    @Test
+    public void copyYear() {
+        cube.copyYear(2025, 2026);
+        Assert.assertEquals(Arrays.asList(2025, 2026), Arrays.asList(cube.getYears().toArray()));
+        Assert.assertEquals(cube.sum(2025, AggregationCube.Measure.FLOOR_AREA, AggregationLevel.DISTRICT, null, null, null),
+                cube.sum(2026, AggregationCube.Measure.FLOOR_AREA, AggregationLevel.DISTRICT, null, null, null), 0d);
+
+        AggregationCube copy = cube.emptyCopy();
+        Assert.assertTrue(copy.getYears().isEmpty());
+        copy.add(frame);
+        copy.copyYear(2025, 2026);
+        Assert.assertEquals(cube, copy);
+    }
+}
@@ -0,0 +1,75 @@
+package de.hawhh.gewiss.get.core.output;
+
+import de.hawhh.gewiss.get.core.model.HeatingType;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.BitSet;
+
+/**
+ * Test class for {@link BuildingRenovationCounters}.
+ *
+ * @author Thomas Preisler
+ */
+public class BuildingRenovationCountersTest {
+
+    private BuildingRenovationCounters counters;
+
+    @Before
+    public void setUp() {
+        this.counters = new BuildingRenovationCounters(new String[]{"A", "B", "C"}, 2020, 2023);
+    }
+
+    /**
+     * Every renovation of a run counts, also the second renovation of a building renovated twice.
+     */
+    @Test
+    public void addRun() {
+        // building 0 is renovated in 2021 and again in 2023, building 1 in 2022
+        BitSet[] renovated = renovated(4);
+        renovated[1].set(0);
+        renovated[3].set(0);
+        renovated[2].set(1);
+        counters.addRun(renovated, new byte[]{(byte) HeatingType.PELLETS.ordinal(), (byte) HeatingType.CONDENSING_BOILER.ordinal(), -1});
+
+        // building 0 is renovated in 2021 only
+        renovated = renovated(4);
+        renovated[1].set(0);
+        counters.addRun(renovated, new byte[]{(byte) HeatingType.PELLETS.ordinal(), (byte) HeatingType.PELLETS.ordinal(), -1});
+
+        Assert.assertEquals(2, counters.getRuns());
+        Assert.assertEquals(0d, counters.getRenovationProbability(0, 2020), 0d);
+        Assert.assertEquals(1d, counters.getRenovationProbability(0, 2021), 0d);
+        Assert.assertEquals(0.5d, counters.getRenovationProbability(0, 2023), 0d);
+        Assert.assertEquals(1d, counters.getExpectedRenovations(0, 2022), 0d);
+        Assert.assertEquals(1.5d, counters.getExpectedRenovations(0, 2023), 0d);
+        Assert.assertEquals(0.5d, counters.getRenovationProbability(1, 2022), 0d);
+        Assert.assertEquals(0d, counters.getExpectedRenovations(2, 2023), 0d);
+
+        Assert.assertEquals(1d, counters.getHeatingTypeProbability(0, HeatingType.PELLETS), 0d);
+        Assert.assertEquals(0.5d, counters.getHeatingTypeProbability(1, HeatingType.CONDENSING_BOILER), 0d);
+        Assert.assertNull(counters.getMostLikelyHeatingType(2));
+        Assert.assertEquals(1.5d, (double) counters.getFeatureProperties(0, 2023).get("expected_renovations"), 0d);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addRunOfOtherYears() {
+        counters.addRun(renovated(3), new byte[3]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addRunOfOtherBuildings() {
+        BitSet[] renovated = renovated(4);
+        renovated[0].set(3);
+        counters.addRun(renovated, new byte[3]);
+    }
+
+    private static BitSet[] renovated(int years) {
+        BitSet[] renovated = new BitSet[years];
+        for (int year = 0; year < years; year++) {
+            renovated[year] = new BitSet();
+        }
+        return renovated;
+    }
+}
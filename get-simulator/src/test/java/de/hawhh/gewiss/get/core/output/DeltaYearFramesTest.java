@@ -0,0 +1,95 @@
+package de.hawhh.gewiss.get.core.output;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Test class for {@link DeltaYearFrames}.
+ *
+ * @author Thomas Preisler
+ */
+public class DeltaYearFramesTest {
+
+    private TreeMap<Integer, YearFrame> expected;
+    private DeltaYearFrames frames;
+
+    @Before
+    public void setUp() {
+        BuildingDictionary dictionary = new BuildingDictionary(OutputTestData.buildings(30));
+        this.expected = new TreeMap<>();
+        this.frames = new DeltaYearFrames(OutputTestData.CO2_SCHEDULE, 4);
+        for (int year = 2019; year <= 2030; year++) {
+            YearFrame frame = OutputTestData.frame(year, dictionary);
+            expected.put(year, frame);
+            frames.put(year, frame);
+        }
+    }
+
+    /**
+     * Only the keyframes and the changed buildings are stored, the reconstructed frames equal the added ones.
+     */
+    @Test
+    public void reconstruct() {
+        Assert.assertEquals(3, frames.getKeyframeCount());
+        // at most one in three buildings changes per year
+        Assert.assertTrue(frames.getChangeCount() <= 9 * 10);
+
+        Assert.assertEquals(expected, frames);
+        Assert.assertEquals(expected.get(2026), frames.get(2026));
+        Assert.assertNull(frames.get(2031));
+        Assert.assertEquals(expected.keySet(), frames.keySet());
+        Assert.assertEquals(Integer.valueOf(2019), frames.firstKey());
+        Assert.assertEquals(Integer.valueOf(2030), frames.lastKey());
+
+        String buildingId = expected.get(2019).getDictionary().getBuildingId(6);
+        SortedMap<Integer, SimulationOutput> trajectory = frames.getTrajectory(buildingId);
+        Assert.assertEquals(expected.keySet(), trajectory.keySet());
+        trajectory.forEach((year, output) -> Assert.assertEquals(expected.get(year).toOutput(6), output));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putSkippedYear() {
+        frames.put(2032, OutputTestData.frame(2032, expected.get(2019).getDictionary()));
+    }
+
+    /**
+     * The range views equal the ranges of the added frames, also when starting between two keyframes.
+     */
+    @Test
+    public void ranges() {
+        Assert.assertEquals(expected.subMap(2021, 2028), frames.subMap(2021, 2028));
+        Assert.assertEquals(expected.headMap(2025), frames.headMap(2025));
+        Assert.assertEquals(expected.tailMap(2026), frames.tailMap(2026));
+        Assert.assertEquals(expected.subMap(2010, 2040), frames.subMap(2010, 2040));
+        Assert.assertEquals(Arrays.asList(2022, 2023, 2024), new ArrayList<>(frames.subMap(2021, 2028).tailMap(2022).headMap(2025).keySet()));
+
+        SortedMap<Integer, YearFrame> range = frames.subMap(2022, 2025);
+        Assert.assertEquals(3, range.size());
+        Assert.assertEquals(Integer.valueOf(2022), range.firstKey());
+        Assert.assertEquals(Integer.valueOf(2024), range.lastKey());
+        Assert.assertTrue(range.containsKey(2024));
+        Assert.assertFalse(range.containsKey(2025));
+        Assert.assertNull(range.get(2021));
+        Assert.assertEquals(expected.get(2023), range.get(2023));
+
+        Assert.assertTrue(frames.subMap(2040, 2050).isEmpty());
+        Assert.assertTrue(frames.headMap(2019).isEmpty());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void emptyRangeFirstKey() {
+        frames.tailMap(2031).firstKey();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rangeOutOfRange() {
+        frames.subMap(2021, 2028).headMap(2029);
+    }
+}
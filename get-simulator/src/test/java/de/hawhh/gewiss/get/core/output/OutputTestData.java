@@ -0,0 +1,104 @@
+package de.hawhh.gewiss.get.core.output;
+
+import de.hawhh.gewiss.get.core.calc.CO2Schedule;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.core.model.BuildingTypeDictionary;
+import de.hawhh.gewiss.get.core.model.HeatingType;
+import de.hawhh.gewiss.get.core.model.RenovationLevel;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Small hand-built building stock and year frames for the output tests, which do not need the buildings of the database.
+ *
+ * @author Thomas Preisler
+ */
+final class OutputTestData {
+
+    static final String ALTONA = "Altona-Altstadt";
+    static final String OTTENSEN = "Ottensen";
+
+    /**
+     * CO2 factors of the frames, the factor of district heat decreases until 2029.
+     */
+    static final CO2Schedule CO2_SCHEDULE = CO2Schedule.builder(co2Factors(200d))
+            .addPoint(HeatingType.DISTRICT_HEAT, 2019, 291.6d)
+            .addPoint(HeatingType.DISTRICT_HEAT, 2029, 215d)
+            .build();
+
+    private static final HeatingType[] HEATING_TYPES = {HeatingType.DISTRICT_HEAT, HeatingType.CONDENSING_BOILER, HeatingType.PELLETS};
+
+    private OutputTestData() {
+    }
+
+    private static double[] co2Factors(double factor) {
+        double[] factors = new double[HeatingType.values().length];
+        Arrays.fill(factors, factor);
+        return factors;
+    }
+
+    /**
+     * @param size the number of buildings
+     * @return buildings alternately in two quarters of one district, in two statistical areas and city blocks per quarter, with three heating types
+     */
+    static BuildingTable buildings(int size) {
+        BuildingTable buildings = new BuildingTable(new BuildingTypeDictionary(Arrays.asList("EFH_A", "MFH_B")), size);
+        for (int index = 0; index < size; index++) {
+            String quarter = index % 2 == 0 ? ALTONA : OTTENSEN;
+            buildings.addBuilding("Building_" + index, null, 100d + index, index % 3 == 0 ? 50d : 0d, "Altona", quarter, quarter + "-" + (index % 4 / 2),
+                    quarter + "-" + (index % 4 / 2) + "-" + (index % 8 / 4), 1950 + index, RenovationLevel.NO_RENOVATION, null, index % 3 == 0 ? "MFH_B" : "EFH_A",
+                    null, "PRIVAT", null, "Cluster_" + (index % 5), HEATING_TYPES[index % HEATING_TYPES.length], null, false, 0d);
+        }
+        return buildings;
+    }
+
+    /**
+     * Creates a frame with values depending on the year and the building, every third building is renovated in one of the years after 2020. The CO2 emissions
+     * are calculated from the residential final energy with the factors of {@link #CO2_SCHEDULE}.
+     *
+     * @param year the year of the frame
+     * @param dictionary the buildings of the frame
+     * @return the frame
+     */
+    static YearFrame frame(int year, BuildingDictionary dictionary) {
+        YearFrame frame = new YearFrame(year, dictionary);
+        for (int index = 0; index < dictionary.size(); index++) {
+            boolean renovated = index % 3 == 0 && year > 2020 + index % 7;
+            RenovationLevel level = renovated ? RenovationLevel.GOOD_RENOVATION : RenovationLevel.NO_RENOVATION;
+            HeatingType heatingType = renovated ? HeatingType.PELLETS : HEATING_TYPES[index % HEATING_TYPES.length];
+            double heatDemand = (renovated ? 40d : 120d + index % 11) * dictionary.getCombinedArea(index);
+            double finalEnergy = (renovated ? 45d : 135d + index % 11) / 1.1d;
+            double co2Emission = 0d + CO2_SCHEDULE.getFactor(heatingType, year) * finalEnergy * dictionary.getResidentialArea(index);
+            frame.set(index, heatDemand, co2Emission, (byte) level.ordinal(), (byte) heatingType.ordinal(), renovated ? 10000d + index : 0d, finalEnergy,
+                    Double.NaN);
+        }
+        return frame;
+    }
+
+    /**
+     * @param buildings the building stock
+     * @return the information of the buildings as stored in a {@link SimulationResult}
+     */
+    static Map<String, BuildingInformation> buildingInformation(BuildingTable buildings) {
+        Map<String, BuildingInformation> information = new HashMap<>();
+        for (int index = 0; index < buildings.size(); index++) {
+            information.put(buildings.getAlkisID(index), BuildingInformation.create(buildings.getAlkisID(index), buildings.getClusterID(index),
+                    buildings.getQuarter(index), null));
+        }
+        return information;
+    }
+
+    /**
+     * @param buildings the information of the buildings of the frames
+     * @param frames the frames of all years
+     * @return a result with the outputs of the frames stored as beans
+     */
+    static SimulationResult beans(Map<String, BuildingInformation> buildings, Map<Integer, YearFrame> frames) {
+        SimulationResult beans = new SimulationResult();
+        beans.setBuildings(buildings);
+        frames.forEach((year, frame) -> beans.getOutput().putAll(year, frame.toOutputs()));
+        return beans;
+    }
+}
@@ -0,0 +1,123 @@
+package de.hawhh.gewiss.get.core.output;
+
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Test class for {@link SimulationOutputSink} and its implementations {@link InMemoryOutputSink}, {@link AggregateOutputSink} and {@link CsvFileOutputSink}.
+ *
+ * @author Thomas Preisler
+ */
+public class SimulationOutputSinkTest {
+
+    private BuildingTable buildings;
+    private BuildingDictionary dictionary;
+    private YearFrame frame;
+
+    @Before
+    public void setUp() {
+        this.buildings = OutputTestData.buildings(12);
+        this.dictionary = new BuildingDictionary(buildings);
+        this.frame = OutputTestData.frame(2021, dictionary);
+    }
+
+    /**
+     * By default each constant year is received with the outputs of the last simulated year.
+     */
+    @Test
+    public void acceptConstantYears() {
+        Map<Integer, List<SimulationOutput>> received = new TreeMap<>();
+        SimulationOutputSink sink = (year, outputs) -> received.put(year, new ArrayList<>(outputs));
+        Assert.assertFalse(sink.supportsConstantYears());
+
+        sink.acceptConstantYears(frame, 2024);
+        Assert.assertEquals(Arrays.asList(2022, 2023, 2024), new ArrayList<>(received.keySet()));
+        for (int year = 2022; year <= 2024; year++) {
+            Assert.assertEquals(frame.withYear(year).toOutputs(), received.get(year));
+        }
+    }
+
+    @Test
+    public void inMemoryConstantYears() {
+        SimulationResult result = new SimulationResult();
+        InMemoryOutputSink sink = new InMemoryOutputSink();
+        sink.open(result);
+        sink.accept(frame);
+        sink.acceptConstantYears(frame, 2024);
+
+        Assert.assertEquals(Integer.valueOf(2022), result.getConstantFromYear());
+        Assert.assertEquals(Integer.valueOf(2024), result.getConstantUntilYear());
+        Assert.assertEquals(Arrays.asList(2021, 2022, 2023, 2024), new ArrayList<>(result.getYearlyHeatDemand(null).keySet()));
+    }
+
+    @Test
+    public void aggregateConstantYears() {
+        AggregateOutputSink sink = new AggregateOutputSink();
+        sink.open(new SimulationResult());
+        sink.accept(frame);
+        sink.acceptConstantYears(frame, 2024);
+
+        Assert.assertEquals(Arrays.asList(2021, 2022, 2023, 2024), new ArrayList<>(sink.getHeatDemand().keySet()));
+        for (int year = 2022; year <= 2024; year++) {
+            Assert.assertEquals(sink.getHeatDemand().get(2021), sink.getHeatDemand().get(year));
+            Assert.assertEquals(sink.getCO2Emissions().get(2021), sink.getCO2Emissions().get(year));
+            Assert.assertEquals(sink.getRenovationCosts().get(2021), sink.getRenovationCosts().get(year));
+            Assert.assertEquals(sink.getRenovationLevels().get(2021), sink.getRenovationLevels().get(year));
+        }
+    }
+
+    /**
+     * The totals summed up from the frames equal the ones summed up from the output beans.
+     */
+    @Test
+    public void aggregateFramesAndBeans() {
+        AggregateOutputSink frames = new AggregateOutputSink();
+        frames.open(new SimulationResult());
+        AggregateOutputSink beans = new AggregateOutputSink();
+        beans.open(new SimulationResult());
+        for (int year = 2019; year <= 2024; year++) {
+            YearFrame yearFrame = OutputTestData.frame(year, dictionary);
+            frames.accept(yearFrame);
+            beans.accept(year, yearFrame.toOutputs());
+        }
+
+        Assert.assertEquals(beans.getHeatDemand(), frames.getHeatDemand());
+        Assert.assertEquals(beans.getCO2Emissions(), frames.getCO2Emissions());
+        Assert.assertEquals(beans.getRenovationCosts(), frames.getRenovationCosts());
+        Assert.assertEquals(beans.getRenovationLevels(), frames.getRenovationLevels());
+    }
+
+    /**
+     * The file receives the outputs of all years, also of the constant ones.
+     */
+    @Test
+    public void csvFile() throws IOException {
+        File file = File.createTempFile("outputs", ".csv");
+        file.deleteOnExit();
+        SimulationResult result = new SimulationResult();
+        result.setBuildings(OutputTestData.buildingInformation(buildings));
+
+        CsvFileOutputSink sink = new CsvFileOutputSink(file);
+        Assert.assertFalse(sink.supportsConstantYears());
+        sink.open(result);
+        sink.accept(OutputTestData.frame(2020, dictionary));
+        sink.accept(frame);
+        sink.acceptConstantYears(frame, 2023);
+        sink.close(result);
+
+        List<String> lines = Files.readAllLines(file.toPath());
+        Assert.assertEquals(1 + 4 * buildings.size(), lines.size());
+        Assert.assertTrue(lines.get(lines.size() - 1).startsWith("\"2023\",\"" + dictionary.getBuildingId(buildings.size() - 1) + "\""));
+    }
+}
@@ -0,0 +1,81 @@
+package de.hawhh.gewiss.get.core.output;
+
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Test class for {@link SimulationResult}.
+ *
+ * @author Thomas Preisler
+ */
+public class SimulationResultTest {
+
+    /**
+     * Results are compared by their scenario, not by their outputs.
+     */
+    @Test
+    public void equalsScenario() {
+        BuildingDictionary dictionary = new BuildingDictionary(OutputTestData.buildings(12));
+        SimulationResult frames = result("Run", 815L);
+        frames.getFrames().put(2020, OutputTestData.frame(2020, dictionary));
+        SimulationResult beans = result("Run", 815L);
+        beans.getOutput().putAll(2021, OutputTestData.frame(2021, dictionary).toOutputs());
+
+        Assert.assertEquals(frames, beans);
+        Assert.assertEquals(frames.hashCode(), beans.hashCode());
+        Assert.assertNotEquals(frames, result("Run", 42L));
+        Assert.assertNotEquals(frames, result("OtherRun", 815L));
+        Assert.assertEquals("Simulation scenario: Run", frames.toString());
+    }
+
+    /**
+     * The yearly values taken from the cube equal the ones calculated from the outputs up to the order of the summation.
+     */
+    @Test
+    public void yearlyValuesFromCube() {
+        BuildingTable buildings = OutputTestData.buildings(30);
+        BuildingDictionary dictionary = new BuildingDictionary(buildings);
+        SimulationResult result = result("Run", 815L);
+        result.setBuildings(OutputTestData.buildingInformation(buildings));
+        result.setCube(new AggregationCube(buildings, EnumSet.of(AggregationLevel.CITY, AggregationLevel.QUARTER)));
+        Map<Integer, YearFrame> frames = new TreeMap<>();
+        for (int year = 2019; year <= 2024; year++) {
+            YearFrame frame = OutputTestData.frame(year, dictionary);
+            frames.put(year, frame);
+            result.getCube().add(frame);
+        }
+        result.getFrames().putAll(frames);
+        SimulationResult beans = OutputTestData.beans(result.getBuildings(), frames);
+
+        for (String quarter : Arrays.asList(null, OutputTestData.ALTONA)) {
+            assertYearlyValues(beans.getYearlyHeatDemand(quarter), result.getYearlyHeatDemand(quarter));
+            assertYearlyValues(beans.getCO2Emissions(quarter), result.getCO2Emissions(quarter));
+            assertYearlyValues(beans.getRenovationCosts(quarter), result.getRenovationCosts(quarter));
+            Assert.assertEquals(beans.getRenovationLevels(quarter), result.getRenovationLevels(quarter));
+        }
+
+        // the constant years of a steady state take over the values of the year before
+        result.setConstantFromYear(2025);
+        result.setConstantUntilYear(2027);
+        Assert.assertEquals(result.getYearlyHeatDemand(null).get(2024), result.getYearlyHeatDemand(null).get(2027));
+        Assert.assertEquals(result.getRenovationLevels(OutputTestData.ALTONA).get(2024), result.getRenovationLevels(OutputTestData.ALTONA).get(2025));
+    }
+
+    private static void assertYearlyValues(Map<Integer, Double> expected, Map<Integer, Double> actual) {
+        Assert.assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((year, value) -> Assert.assertEquals(value, actual.get(year), Math.abs(value) * 1e-12));
+    }
+
+    private static SimulationResult result(String name, Long seed) {
+        SimulationResult result = new SimulationResult();
+        result.setName(name);
+        result.setSeed(seed);
+        return result;
+    }
+}
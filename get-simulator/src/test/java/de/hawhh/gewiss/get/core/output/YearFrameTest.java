@@ -0,0 +1,83 @@
+package de.hawhh.gewiss.get.core.output;
+
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.core.model.RenovationLevel;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Test class for {@link YearFrame}.
+ *
+ * @author Thomas Preisler
+ */
+public class YearFrameTest {
+
+    private BuildingTable buildings;
+    private BuildingDictionary dictionary;
+    private YearFrame frame;
+
+    @Before
+    public void setUp() {
+        this.buildings = OutputTestData.buildings(24);
+        this.dictionary = new BuildingDictionary(buildings);
+        this.frame = OutputTestData.frame(2025, dictionary);
+    }
+
+    /**
+     * A frame created from its own outputs has the same outputs.
+     */
+    @Test
+    public void ofOutputs() {
+        List<SimulationOutput> outputs = frame.toOutputs();
+        Assert.assertEquals(buildings.size(), outputs.size());
+        Assert.assertEquals(dictionary.getBuildingId(3), outputs.get(3).getBuildingId());
+        Assert.assertEquals(outputs, YearFrame.of(2025, dictionary, outputs).toOutputs());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ofMissingOutputs() {
+        YearFrame.of(2025, dictionary, frame.toOutputs().subList(1, buildings.size()));
+    }
+
+    @Test
+    public void withYear() {
+        YearFrame other = frame.withYear(2026);
+        Assert.assertEquals(2026, other.getYear());
+        Assert.assertEquals(2026, other.toOutput(5).getYear().intValue());
+        Assert.assertEquals(frame.getHeatDemand(5), other.getHeatDemand(5), 0d);
+        Assert.assertNotEquals(frame, other);
+        Assert.assertEquals(frame, other.withYear(2025));
+    }
+
+    /**
+     * The yearly values of a result storing frames equal the ones of a result storing the same outputs as beans.
+     */
+    @Test
+    public void yearlyValues() {
+        Map<Integer, YearFrame> frames = new TreeMap<>();
+        for (int year = 2019; year <= 2024; year++) {
+            frames.put(year, OutputTestData.frame(year, dictionary));
+        }
+        SimulationResult result = new SimulationResult();
+        result.setBuildings(OutputTestData.buildingInformation(buildings));
+        result.getFrames().putAll(frames);
+        SimulationResult beans = OutputTestData.beans(result.getBuildings(), frames);
+        Assert.assertTrue(beans.getFrames().isEmpty());
+        Assert.assertEquals(beans.getOutput(), result.getOutput());
+
+        for (String quarter : Arrays.asList(null, OutputTestData.OTTENSEN)) {
+            Assert.assertEquals(beans.getYearlyHeatDemand(quarter), result.getYearlyHeatDemand(quarter));
+            Assert.assertEquals(beans.getCO2Emissions(quarter), result.getCO2Emissions(quarter));
+            Assert.assertEquals(beans.getRenovationCosts(quarter), result.getRenovationCosts(quarter));
+            Assert.assertEquals(beans.getRenovationLevels(quarter), result.getRenovationLevels(quarter));
+        }
+        Assert.assertEquals(buildings.size(), frame.countRenovationLevel(RenovationLevel.NO_RENOVATION, null)
+                + frame.countRenovationLevel(RenovationLevel.GOOD_RENOVATION, null));
+    }
+}
@@ -0,0 +1,76 @@
+package de.hawhh.gewiss.get.core.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Test class for {@link QuantileSketch}.
+ *
+ * @author Thomas Preisler
+ */
+public class QuantileSketchTest {
+
+    /**
+     * Few values are kept exactly.
+     */
+    @Test
+    public void smallSketchIsExact() {
+        QuantileSketch sketch = new QuantileSketch();
+        for (double value : new double[]{3d, 1d, 2d}) {
+            sketch.add(value);
+        }
+
+        Assert.assertEquals(3, sketch.size());
+        Assert.assertEquals(1d, sketch.quantile(0d), 0d);
+        Assert.assertEquals(2d, sketch.quantile(0.5), 0d);
+        Assert.assertEquals(3d, sketch.quantile(1d), 0d);
+        Assert.assertTrue(Double.isNaN(new QuantileSketch().quantile(0.5)));
+    }
+
+    @Test
+    public void quantiles() {
+        Random random = new Random(815L);
+        double[] values = new double[100000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian();
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        // compare the rank of the estimated quantiles
+        for (double q : new double[]{0.01, 0.05, 0.5, 0.95, 0.99}) {
+            int rank = Arrays.binarySearch(values, sketch.quantile(q));
+            rank = rank >= 0 ? rank : -rank - 1;
+            Assert.assertEquals(q, rank / (double) values.length, 0.002);
+        }
+        Assert.assertEquals(values[0], sketch.getMin(), 0d);
+        Assert.assertEquals(values[values.length - 1], sketch.getMax(), 0d);
+    }
+
+    /**
+     * Merging the sketches of two halves gives about the same quantiles as sketching all values.
+     */
+    @Test
+    public void merge() {
+        Random random = new Random(4711L);
+        QuantileSketch all = new QuantileSketch();
+        QuantileSketch first = new QuantileSketch();
+        QuantileSketch second = new QuantileSketch();
+        for (int i = 0; i < 50000; i++) {
+            double value = random.nextDouble() * 100;
+            all.add(value);
+            (i % 2 == 0 ? first : second).add(value);
+        }
+
+        first.merge(second);
+        Assert.assertEquals(all.size(), first.size());
+        for (double q : new double[]{0.05, 0.5, 0.95}) {
+            Assert.assertEquals(all.quantile(q), first.quantile(q), 0.5);
+            Assert.assertEquals(q * 100, first.quantile(q), 1d);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package de.hawhh.gewiss.get.core.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link RandomStream}.
+ *
+ * @author Thomas Preisler
+ */
+public class RandomStreamTest {
+
+    /**
+     * The random numbers only depend on the seed and their keys, not on the order they are drawn in.
+     */
+    @Test
+    public void nextDouble() {
+        RandomStream stream = new RandomStream(815L);
+        double first = stream.nextDouble(2020, 7, RandomStream.Purpose.RENOVATION_LEVEL);
+        stream.nextDouble(2020, 8, RandomStream.Purpose.RENOVATION_LEVEL);
+
+        Assert.assertEquals(first, stream.nextDouble(2020, 7, RandomStream.Purpose.RENOVATION_LEVEL), 0d);
+        Assert.assertEquals(first, new RandomStream(815L).nextDouble(2020, 7, RandomStream.Purpose.RENOVATION_LEVEL), 0d);
+        Assert.assertNotEquals(first, stream.nextDouble(2020, 7, RandomStream.Purpose.HEATING_EXCHANGE), 0d);
+        Assert.assertNotEquals(first, stream.nextDouble(2021, 7, RandomStream.Purpose.RENOVATION_LEVEL), 0d);
+        Assert.assertNotEquals(first, new RandomStream(816L).nextDouble(2020, 7, RandomStream.Purpose.RENOVATION_LEVEL), 0d);
+    }
+
+    /**
+     * The random numbers are uniformly distributed in [0, 1).
+     */
+    @Test
+    public void uniform() {
+        RandomStream stream = new RandomStream(42L);
+        int[] buckets = new int[10];
+        int draws = 100000;
+        for (int index = 0; index < draws; index++) {
+            double random = stream.nextDouble(2019, index, RandomStream.Purpose.HEATING_EXCHANGE);
+            Assert.assertTrue(random >= 0d && random < 1d);
+            buckets[(int) (random * buckets.length)]++;
+        }
+        for (int bucket : buckets) {
+            Assert.assertEquals(draws / buckets.length, bucket, draws / 100);
+        }
+    }
+}
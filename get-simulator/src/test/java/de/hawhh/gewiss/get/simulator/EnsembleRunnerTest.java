@@ -0,0 +1,170 @@
+package de.hawhh.gewiss.get.simulator;
+
+import de.hawhh.gewiss.get.core.input.*;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.core.model.HeatingType;
+import de.hawhh.gewiss.get.core.model.RenovationLevel;
+import de.hawhh.gewiss.get.core.model.RenovationType;
+import de.hawhh.gewiss.get.core.output.BuildingRenovationCounters;
+import de.hawhh.gewiss.get.core.output.EnsembleResult;
+import de.hawhh.gewiss.get.core.output.EnsembleStatistics;
+import de.hawhh.gewiss.get.core.output.SimulationOutput;
+import de.hawhh.gewiss.get.core.output.SimulationResult;
+import de.hawhh.gewiss.get.simulator.renovation.IRenovationStrategy;
+import de.hawhh.gewiss.get.simulator.renovation.RenovationHeatExchangeRateStrategy;
+import de.hawhh.gewiss.get.simulator.scoring.BuildingAgeFactor;
+import de.hawhh.gewiss.get.simulator.scoring.CO2EmissionFactor;
+import de.hawhh.gewiss.get.simulator.scoring.CO2EmissionSquareMeterFactor;
+import de.hawhh.gewiss.get.simulator.scoring.ScoringMethod;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Thomas Preisler
+ */
+public class EnsembleRunnerTest {
+
+    private SimulationParameter simParams;
+    private List<ScoringMethod> scoringMethods;
+    private IRenovationStrategy renovationStrategy;
+
+    @Before
+    public void setUp() {
+        List<CO2FactorsData> yearlyCO2Factors = new ArrayList<>();
+        for (HeatingType heatingType : HeatingType.values()) {
+            yearlyCO2Factors.add(new CO2FactorsData(heatingType, 291.6d, 215d, 160d));
+        }
+        this.simParams = new SimulationParameter("EnsembleTestRun", 2021, new ArrayList<>(), yearlyCO2Factors, 2030, 2050);
+
+        this.scoringMethods = new ArrayList<>();
+        this.scoringMethods.add(new BuildingAgeFactor());
+        this.scoringMethods.add(new CO2EmissionFactor());
+        this.scoringMethods.add(new CO2EmissionSquareMeterFactor());
+
+        List<HeatingSystemExchangeRate> rates = new ArrayList<>();
+        for (RenovationType renovationType : RenovationType.values()) {
+            rates.add(new HeatingSystemExchangeRate(renovationType, HeatingType.LOW_TEMPERATURE_BOILER, 100.0 / 9.0, 100.0 / 9.0, 100.0 / 9.0, 100.0 / 9.0, 100.0 / 9.0,
+                    100.0 / 9.0, 100.0 / 9.0, 100.0 / 9.0, 100.0 / 9.0));
+        }
+        this.renovationStrategy = new RenovationHeatExchangeRateStrategy(2.0, 30.0, rates);
+    }
+
+    @Test
+    public void runMatchesSingleSimulations() throws InputValidationException {
+        Simulator simulator = new Simulator();
+        List<Long> seeds = Arrays.asList(815L, 4711L);
+
+        EnsembleRunner runner = new EnsembleRunner(simulator, 2);
+        List<Long> finishedSeeds = new ArrayList<>();
+        runner.addRunListener(finishedSeeds::add);
+
+        EnsembleResult ensemble = runner.run(simParams, scoringMethods, renovationStrategy, seeds);
+        Assert.assertEquals(seeds, ensemble.getSeeds());
+        Assert.assertEquals(seeds, finishedSeeds);
+        Assert.assertEquals(simParams.getSimDuration(), ensemble.getHeatDemand().size());
+
+        double[][] heatDemand = new double[simParams.getSimDuration()][seeds.size()];
+        double[][] renovationCosts = new double[simParams.getSimDuration()][seeds.size()];
+        for (int run = 0; run < seeds.size(); run++) {
+            SimulationResult result = simulator.simulate(simParams, scoringMethods, renovationStrategy, seeds.get(run));
+            for (Integer year : result.getOutput().keySet()) {
+                for (SimulationOutput output : result.getOutput().get(year)) {
+                    heatDemand[year - SimulationParameter.FIRST_YEAR][run] += output.getHeatDemand();
+                    renovationCosts[year - SimulationParameter.FIRST_YEAR][run] += output.getRenovationCost();
+                }
+            }
+        }
+
+        for (int year = SimulationParameter.FIRST_YEAR; year <= simParams.getStopYear(); year++) {
+            EnsembleStatistics expected = EnsembleStatistics.of(heatDemand[year - SimulationParameter.FIRST_YEAR]);
+            Assert.assertEquals(expected, ensemble.getHeatDemand().get(year));
+            Assert.assertEquals(EnsembleStatistics.of(renovationCosts[year - SimulationParameter.FIRST_YEAR]), ensemble.getRenovationCosts().get(year));
+            Assert.assertTrue(ensemble.getCo2Emission().get(year).getLowerBound() <= ensemble.getCo2Emission().get(year).getUpperBound());
+
+            // the median of two runs is their mean
+            Assert.assertEquals(expected.getMean(), ensemble.getYearlyHeatDemand(null, 0.5).get(year), 1e-6 * expected.getMean());
+            Assert.assertEquals(expected.getMin(), ensemble.getYearlyHeatDemand(null, 0d).get(year), 0d);
+            Assert.assertEquals(expected.getMax(), ensemble.getYearlyHeatDemand(null, 1d).get(year), 0d);
+        }
+    }
+
+    @Test
+    public void buildingCounters() throws InputValidationException {
+        EnsembleResult ensemble = new EnsembleRunner(new Simulator(), 2).run(simParams, scoringMethods, renovationStrategy, 3, 815L);
+        BuildingRenovationCounters counters = ensemble.getBuildingCounters();
+        Assert.assertEquals(3, counters.getRuns());
+        Assert.assertEquals(ensemble.getBuildings().size(), counters.size());
+
+        for (int year = SimulationParameter.FIRST_YEAR; year <= simParams.getStopYear(); year++) {
+            double expectedRenovations = 0d;
+            for (int index = 0; index < counters.size(); index++) {
+                double probability = counters.getRenovationProbability(index, year);
+                Assert.assertTrue(probability >= 0d && probability <= 1d);
+                expectedRenovations += probability;
+            }
+            if (year == SimulationParameter.FIRST_YEAR) {
+                Assert.assertEquals(0d, expectedRenovations, 0d);
+            } else {
+                Assert.assertTrue(expectedRenovations <= renovationStrategy.getNumberOfRenovatedBuildings(counters.size()) + 1e-9);
+            }
+        }
+
+        for (int index = 0; index < counters.size(); index++) {
+            double renovations = 0d;
+            for (int year = SimulationParameter.FIRST_YEAR; year <= simParams.getStopYear(); year++) {
+                renovations += counters.getRenovationProbability(index, year);
+                Assert.assertEquals(renovations, counters.getExpectedRenovations(index, year), 1e-9);
+            }
+        }
+
+        for (int index = 0; index < counters.size(); index++) {
+            double sum = 0d;
+            for (HeatingType heatingType : HeatingType.values()) {
+                sum += counters.getHeatingTypeProbability(index, heatingType);
+            }
+            Assert.assertTrue(sum <= 1d + 1e-9);
+        }
+    }
+
+    @Test
+    public void copyIsIndependent() throws InputValidationException {
+        BuildingTable buildings = new Simulator().loadBuildings();
+        BuildingTable copy = buildings.copy();
+
+        RenovationLevel level = buildings.getRenovationLevel(0);
+        double costs = buildings.getAccumulatedRenovationCosts(0);
+        copy.renovate(0, RenovationLevel.GOOD_RENOVATION, 2020);
+
+        Assert.assertEquals(RenovationLevel.GOOD_RENOVATION, copy.getRenovationLevel(0));
+        Assert.assertEquals(level, buildings.getRenovationLevel(0));
+        Assert.assertEquals(costs, buildings.getAccumulatedRenovationCosts(0), 0d);
+        Assert.assertEquals(buildings.getAlkisID(0), copy.getAlkisID(0));
+        Assert.assertSame(buildings.getEnergyCoefficients(), copy.getEnergyCoefficients());
+    }
+
+    @Test
+    public void statistics() {
+        EnsembleStatistics statistics = EnsembleStatistics.of(new double[]{1d, 2d, 3d});
+
+        Assert.assertEquals(3, statistics.getCount());
+        Assert.assertEquals(2d, statistics.getMean(), 1e-12);
+        Assert.assertEquals(1d, statistics.getStandardDeviation(), 1e-12);
+        Assert.assertEquals(1d, statistics.getMin(), 0d);
+        Assert.assertEquals(3d, statistics.getMax(), 0d);
+        Assert.assertEquals(2d - 1.959963984540054 / Math.sqrt(3), statistics.getLowerBound(), 1e-12);
+        Assert.assertEquals(2d + 1.959963984540054 / Math.sqrt(3), statistics.getUpperBound(), 1e-12);
+
+        // large values with a small spread, the differences are not lost
+        EnsembleStatistics.Accumulator accumulator = new EnsembleStatistics.Accumulator();
+        for (double value : new double[]{1e9 + 1d, 1e9 + 2d, 1e9 + 3d}) {
+            accumulator.add(value);
+        }
+        Assert.assertEquals(1d, accumulator.toStatistics().getStandardDeviation(), 1e-6);
+        Assert.assertEquals(1e9 + 2d, accumulator.toStatistics().getMean(), 1e-6);
+    }
+}
@@ -0,0 +1,151 @@
+package de.hawhh.gewiss.get.simulator;
+
+import de.hawhh.gewiss.get.core.calc.CO2Schedule;
+import de.hawhh.gewiss.get.core.calc.EnergyCalculator;
+import de.hawhh.gewiss.get.core.input.CO2FactorsData;
+import de.hawhh.gewiss.get.core.input.InputValidationException;
+import de.hawhh.gewiss.get.core.input.Modifier;
+import de.hawhh.gewiss.get.core.input.SimulationParameter;
+import de.hawhh.gewiss.get.core.model.BuildingAttributeIndex;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
+import de.hawhh.gewiss.get.core.model.HeatingType;
+import de.hawhh.gewiss.get.core.model.RenovationLevel;
+import de.hawhh.gewiss.get.core.output.BuildingDictionary;
+import de.hawhh.gewiss.get.core.output.YearFrame;
+import de.hawhh.gewiss.get.core.util.RandomStream;
+import de.hawhh.gewiss.get.simulator.ranking.RankingMode;
+import de.hawhh.gewiss.get.simulator.renovation.IRenovationStrategy;
+import de.hawhh.gewiss.get.simulator.renovation.PhasedRenovationStrategy;
+import de.hawhh.gewiss.get.simulator.renovation.RenovationHeatExchangeRateStrategy;
+import de.hawhh.gewiss.get.simulator.scoring.BuildingAgeFactor;
+import de.hawhh.gewiss.get.simulator.scoring.CO2EmissionFactor;
+import de.hawhh.gewiss.get.simulator.scoring.CO2EmissionSquareMeterFactor;
+import de.hawhh.gewiss.get.simulator.scoring.ScoringMethod;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Test class for {@link ScenarioTreeSimulation}, on a small hand-built building stock.
+ *
+ * @author Thomas Preisler
+ */
+public class ScenarioTreeSimulationTest {
+
+    private static final String[] QUARTERS = {"Ottensen", "Altona-Altstadt", "Rissen", "Eppendorf"};
+    private static final String[] OWNERSHIPS = {"PRIVAT", "UNKNOWN", "PUBLIC"};
+
+    private Simulator simulator;
+    private BuildingTable buildings;
+    private BuildingAttributeIndex attributeIndex;
+    private List<ScoringMethod> scoringMethods;
+    private List<CO2FactorsData> co2Factors;
+    private List<Modifier> modifiers;
+    private IRenovationStrategy renovationStrategy;
+
+    @Before
+    public void setUp() throws InputValidationException {
+        this.simulator = new Simulator();
+        this.buildings = buildings(300, 42L);
+        this.attributeIndex = new BuildingAttributeIndex(buildings);
+        this.scoringMethods = Arrays.asList(new BuildingAgeFactor(), new CO2EmissionFactor(), new CO2EmissionSquareMeterFactor());
+
+        this.co2Factors = new ArrayList<>();
+        for (HeatingType heatingType : HeatingType.values()) {
+            co2Factors.add(heatingType == HeatingType.DISTRICT_HEAT ? new CO2FactorsData(heatingType, 291.6d, 215d, 160d)
+                    : new CO2FactorsData(heatingType, 201d, 201d, 201d));
+        }
+        Modifier modifier = new Modifier("OneFamilyHousesInOttensen", 2020, 2030, 2d);
+        modifier.setTargetQuarters(Arrays.asList("Ottensen", "Rissen"));
+        modifier.setTargetOwnershipTypes(Arrays.asList("PRIVAT", "UNKNOWN"));
+        this.modifiers = Arrays.asList(modifier);
+
+        this.renovationStrategy = new RenovationHeatExchangeRateStrategy(10.0, 20.0, new ArrayList<>());
+    }
+
+    /**
+     * Scenarios sharing the years up to 2020 (phased strategy) and 2021 (additional modifier) with the base scenario, the base scenario itself and a scenario with
+     * an equal but not identical strategy: each scenario has to yield the frames of a single simulation.
+     */
+    @Test
+    public void run() throws InputValidationException {
+        IRenovationStrategy otherStrategy = new RenovationHeatExchangeRateStrategy(30.0, 50.0, new ArrayList<>());
+        List<Modifier> moreModifiers = new ArrayList<>(modifiers);
+        moreModifiers.add(new Modifier("Everything", 2022, 2030, 3d));
+        List<SimulationParameter> parameters = Arrays.asList(parameter("LongRun", modifiers), parameter("PhasedRun", modifiers),
+                parameter("ModifiedRun", moreModifiers), new SimulationParameter("ShortRun", 2020, modifiers, co2Factors, 2030, 2050),
+                parameter("EqualPhasedRun", modifiers));
+
+        // strategies are compared by their parameters, not by identity
+        IRenovationStrategy equalStrategy = new PhasedRenovationStrategy(renovationStrategy, 2021, new RenovationHeatExchangeRateStrategy(30.0, 50.0,
+                new ArrayList<>()));
+        Assert.assertEquals(new PhasedRenovationStrategy(renovationStrategy, 2021, otherStrategy), equalStrategy);
+        List<IRenovationStrategy> strategies = Arrays.asList(renovationStrategy, new PhasedRenovationStrategy(renovationStrategy, 2021, otherStrategy),
+                renovationStrategy, renovationStrategy, equalStrategy);
+        assertMatchesSingleRuns(parameters, strategies);
+
+        // the branches follow the ranking mode and active set of the simulator
+        simulator.setRankingMode(RankingMode.INCREMENTAL);
+        simulator.setActiveSet(true);
+        assertMatchesSingleRuns(parameters, strategies);
+    }
+
+    private void assertMatchesSingleRuns(List<SimulationParameter> parameters, List<IRenovationStrategy> strategies) throws InputValidationException {
+        BuildingDictionary dictionary = new BuildingDictionary(buildings);
+        List<CO2Schedule> co2Schedules = new ArrayList<>();
+        for (SimulationParameter parameter : parameters) {
+            co2Schedules.add(EnergyCalculator.getInstance().createCO2Schedule(parameter.getYearlyCO2Factors(), parameter.getMidCO2Year(),
+                    parameter.getFinalCO2Year()));
+        }
+
+        List<SortedMap<Integer, YearFrame>> frames = parameters.stream().map(parameter -> new TreeMap<Integer, YearFrame>()).collect(Collectors.toList());
+        new ScenarioTreeSimulation(simulator, buildings, attributeIndex, parameters, co2Schedules, scoringMethods, strategies).run(new RandomStream(815L),
+                (scenario, year, scenarioBuildings, metrics) -> frames.get(scenario).put(year, simulator.createFrame(dictionary, scenarioBuildings, metrics, year)));
+
+        for (int scenario = 0; scenario < parameters.size(); scenario++) {
+            BuildingTable scenarioBuildings = buildings.copy();
+            SortedMap<Integer, YearFrame> expected = new TreeMap<>();
+            simulator.run(scenarioBuildings, attributeIndex.withBuildings(scenarioBuildings), parameters.get(scenario), co2Schedules.get(scenario), scoringMethods,
+                    strategies.get(scenario), new RandomStream(815L), (year, metrics) -> expected.put(year, simulator.createFrame(dictionary, scenarioBuildings,
+                            metrics, year)));
+            Assert.assertEquals(parameters.get(scenario).getName(), expected, frames.get(scenario));
+        }
+        // the phased scenario renovates other buildings after its split
+        Assert.assertEquals(frames.get(0).get(2020), frames.get(1).get(2020));
+        Assert.assertNotEquals(frames.get(0).get(2021), frames.get(1).get(2021));
+        // the shared buildings are not changed
+        Assert.assertEquals(buildings.size(), buildings.countRenovationLevel(RenovationLevel.NO_RENOVATION));
+    }
+
+    private SimulationParameter parameter(String name, List<Modifier> modifiers) {
+        return new SimulationParameter(name, 2022, modifiers, co2Factors, 2030, 2050);
+    }
+
+    /**
+     * Creates residential buildings with random attributes, with precomputed energy values like loaded buildings.
+     */
+    private static BuildingTable buildings(int size, long seed) throws InputValidationException {
+        EnergyCalculator energyCalculator = EnergyCalculator.getInstance();
+        Random random = new Random(seed);
+        HeatingType[] heatingTypes = HeatingType.values();
+        BuildingTable buildings = new BuildingTable(energyCalculator.getBuildingTypes(), size);
+        for (int index = 0; index < size; index++) {
+            String residentialType = (random.nextBoolean() ? "EFH_" : "MFH_") + (char) ('A' + random.nextInt(12));
+            String quarter = QUARTERS[random.nextInt(QUARTERS.length)];
+            buildings.addBuilding("Building_" + index, null, 80d + random.nextInt(500), 0d, "Altona", quarter, quarter + "-1", quarter + "-1-" + index % 3,
+                    1900 + random.nextInt(115), RenovationLevel.NO_RENOVATION, null, residentialType, null, OWNERSHIPS[random.nextInt(OWNERSHIPS.length)], null,
+                    "Cluster_" + index % 7, heatingTypes[random.nextInt(heatingTypes.length)], random.nextInt(2000), random.nextBoolean(), 0d);
+        }
+        buildings.setEnergyCoefficients(energyCalculator.calcEnergyCoefficients(buildings));
+        buildings.setRenovationCosts(energyCalculator.calcRenovationCosts(buildings));
+        return buildings;
+    }
+}
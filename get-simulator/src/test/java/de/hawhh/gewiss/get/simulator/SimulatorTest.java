@@ -1,26 +1,39 @@
 package de.hawhh.gewiss.get.simulator;
 
+import de.hawhh.gewiss.get.core.calc.CO2Schedule;
+import de.hawhh.gewiss.get.core.calc.EnergyCalculator;
 import de.hawhh.gewiss.get.core.input.*;
-import de.hawhh.gewiss.get.core.model.Building;
+import de.hawhh.gewiss.get.core.model.BuildingTable;
 import de.hawhh.gewiss.get.core.model.HeatingType;
 import de.hawhh.gewiss.get.core.model.RenovationType;
+import de.hawhh.gewiss.get.core.output.AggregateOutputSink;
+import de.hawhh.gewiss.get.core.output.CsvFileOutputSink;
+import de.hawhh.gewiss.get.core.output.DeltaYearFrames;
+import de.hawhh.gewiss.get.core.output.SimulationOutput;
+import de.hawhh.gewiss.get.core.output.SimulationOutputSink;
 import de.hawhh.gewiss.get.core.output.SimulationResult;
-import de.hawhh.gewiss.get.simulator.model.ScoredBuilding;
+import de.hawhh.gewiss.get.core.util.RandomStream;
+import de.hawhh.gewiss.get.simulator.model.BuildingScores;
+import de.hawhh.gewiss.get.simulator.ranking.RankingMode;
 import de.hawhh.gewiss.get.simulator.renovation.IRenovationStrategy;
 import de.hawhh.gewiss.get.simulator.renovation.RenovationHeatExchangeRateStrategy;
 import de.hawhh.gewiss.get.simulator.scoring.BuildingAgeFactor;
 import de.hawhh.gewiss.get.simulator.scoring.CO2EmissionFactor;
 import de.hawhh.gewiss.get.simulator.scoring.CO2EmissionSquareMeterFactor;
 import de.hawhh.gewiss.get.simulator.scoring.ScoringMethod;
+import org.javatuples.Triplet;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * @author Thomas Preisler
@@ -33,7 +46,7 @@ public class SimulatorTest {
     private IRenovationStrategy renovationStrategy;
 
     private Simulator simulator;
-    private List<Building> buildings;
+    private BuildingTable buildings;
 
     @Before
     public void setUp() {
@@ -113,54 +126,256 @@ public class SimulatorTest {
 
     @Test
     public void scoreBuildings() {
-        List<ScoredBuilding> scoredBuildings = scoreBuildings(buildings);
+        BuildingScores scores = this.simulator.scoreBuildings(buildings, this.scoringMethods, 2020);
 
-        Assert.assertNotNull(scoredBuildings);
-        Assert.assertFalse(scoredBuildings.isEmpty());
+        Assert.assertNotNull(scores);
+        Assert.assertEquals(buildings.size(), scores.size());
+        Assert.assertEquals(this.scoringMethods.size(), scores.getScoringMethods().size());
 
-        scoredBuildings.forEach(sb -> {
-            Assert.assertNotNull(sb.getBuilding());
-            Assert.assertNull(sb.getCombinedScore());
-            Assert.assertNotNull(sb.getScores());
-            Assert.assertFalse(sb.getScores().isEmpty());
-        });
+        for (int method = 0; method < this.scoringMethods.size(); method++) {
+            for (int index = 0; index < scores.size(); index++) {
+                Assert.assertEquals(this.scoringMethods.get(method).calcBaseScore(buildings, index, 2020), scores.getScore(method, index), 0d);
+            }
+        }
     }
 
     @Test
     public void normalizeScore() {
-        List<ScoredBuilding> scoredBuildings = scoreBuildings(buildings);
+        BuildingScores scores = this.simulator.scoreBuildings(buildings, this.scoringMethods, 2020);
 
-        this.simulator.normalizeScores(scoredBuildings, this.scoringMethods);
+        double[][] bounds = this.simulator.calcScoreBounds(scores);
 
-        scoredBuildings.forEach(sb -> {
-            sb.getScores().values().forEach(score -> {
-                Assert.assertNotNull(score);
-                Assert.assertTrue(score >= 0D);
-                Assert.assertTrue(score <= 1D);
-            });
-        });
+        Assert.assertEquals(this.scoringMethods.size(), bounds.length);
+        for (int method = 0; method < bounds.length; method++) {
+            Assert.assertEquals(Arrays.stream(scores.getScores(method)).min().getAsDouble(), bounds[method][0], 0d);
+            Assert.assertEquals(Arrays.stream(scores.getScores(method)).max().getAsDouble(), bounds[method][1], 0d);
+        }
     }
 
     @Test
     public void combineScores() {
-        List<ScoredBuilding> scoredBuildings = scoreBuildings(buildings);
+        BuildingScores scores = this.simulator.scoreBuildings(buildings, this.scoringMethods, 2020);
+
+        this.simulator.combineScores(scores, this.simulator.calcScoreBounds(scores), new ArrayList<>());
+
+        for (int index = 0; index < scores.size(); index++) {
+            double score = scores.getCombinedScore(index);
+            Assert.assertTrue(score >= 0D);
+            Assert.assertTrue(score <= 1D);
+        }
+    }
+
+    @Test
+    public void simulateLockstep() throws InputValidationException {
+        // a second scenario without modifiers, other CO2 factors, another strategy and a later stop year
+        List<CO2FactorsData> otherCO2Factors = new ArrayList<>();
+        for (HeatingType heatingType : HeatingType.values()) {
+            otherCO2Factors.add(new CO2FactorsData(heatingType, 250d, 150d, 50d));
+        }
+        SimulationParameter otherParams = new SimulationParameter("OtherRun", 2022, new ArrayList<>(), otherCO2Factors, 2030, 2050);
+        IRenovationStrategy otherStrategy = new RenovationHeatExchangeRateStrategy(3.0, 50.0, new ArrayList<>());
+
+        List<SimulationParameter> parameters = Arrays.asList(this.simParams, otherParams);
+        List<IRenovationStrategy> strategies = Arrays.asList(this.renovationStrategy, otherStrategy);
+        assertLockstepMatchesSimulate(parameters, strategies);
+
+        // the lanes follow the ranking mode and active set of the simulator
+        this.simulator.setRankingMode(RankingMode.INCREMENTAL);
+        assertLockstepMatchesSimulate(parameters, strategies);
+        this.simulator.setActiveSet(true);
+        assertLockstepMatchesSimulate(parameters, strategies);
+    }
+
+    private void assertLockstepMatchesSimulate(List<SimulationParameter> parameters, List<IRenovationStrategy> strategies) throws InputValidationException {
+        List<SimulationResult> results = this.simulator.simulateLockstep(parameters, this.scoringMethods, strategies, 815L);
+
+        Assert.assertEquals(parameters.size(), results.size());
+        for (int scenario = 0; scenario < parameters.size(); scenario++) {
+            SimulationResult expected = this.simulator.simulate(parameters.get(scenario), this.scoringMethods, strategies.get(scenario), 815L);
+            Assert.assertEquals(expected.getName(), results.get(scenario).getName());
+            Assert.assertEquals(expected.getOutput(), results.get(scenario).getOutput());
+            Assert.assertEquals(expected.getBuildings().keySet(), results.get(scenario).getBuildings().keySet());
+        }
+    }
+
+    @Test
+    public void simulatePipelined() throws InputValidationException {
+        SimulationParameter params = new SimulationParameter("PipelinedRun", 2023, this.simParams.getModifiers(), this.simParams.getYearlyCO2Factors(), 2030, 2050);
+        SimulationResult expected = this.simulator.simulate(params, this.scoringMethods, this.renovationStrategy, 815L);
+
+        List<Object> notifiedYears = new ArrayList<>();
+        this.simulator.addObserver((observable, year) -> notifiedYears.add(year));
+        this.simulator.setPipelinedOutput(true);
+        SimulationResult result = this.simulator.simulate(params, this.scoringMethods, this.renovationStrategy, 815L);
+
+        Assert.assertEquals(expected.getOutput(), result.getOutput());
+        Assert.assertEquals(Arrays.asList(2019, 2020, 2021, 2022, 2023), notifiedYears);
+    }
+
+    @Test
+    public void simulateSteadyState() throws InputValidationException {
+        // all buildings reach the good renovation level in 2020 and the CO2 factors are constant from 2021 on
+        SimulationParameter params = new SimulationParameter("SteadyRun", 2030, this.simParams.getModifiers(), this.simParams.getYearlyCO2Factors(), 2020, 2021);
+        IRenovationStrategy strategy = new RenovationHeatExchangeRateStrategy(100.0, 100.0, new ArrayList<>());
+        // same strategy without steady state detection, all years are simulated
+        IRenovationStrategy simulatedStrategy = new IRenovationStrategy() {
+            @Override
+            public void performRenovation(BuildingTable buildings, int[] ranking, Integer currentYear, RandomStream randomStream) {
+                strategy.performRenovation(buildings, ranking, currentYear, randomStream);
+            }
+
+            @Override
+            public long getNumberOfRenovatedBuildings(int numberOfBuildings) {
+                return strategy.getNumberOfRenovatedBuildings(numberOfBuildings);
+            }
+        };
+        SimulationResult expected = this.simulator.simulate(params, this.scoringMethods, simulatedStrategy, 815L);
+
+        SimulationResult result = this.simulator.simulate(params, this.scoringMethods, strategy, 815L);
+        Assert.assertEquals(expected.getOutput(), result.getOutput());
+        Assert.assertNull(result.getConstantFromYear());
 
-        this.simulator.combineScores(scoredBuildings);
+        this.simulator.setSteadyStateMarker(true);
+        SimulationResult marked = this.simulator.simulate(params, this.scoringMethods, strategy, 815L);
+        Assert.assertEquals(Integer.valueOf(2022), marked.getConstantFromYear());
+        Assert.assertEquals(Integer.valueOf(2030), marked.getConstantUntilYear());
+        Assert.assertEquals(Arrays.asList(2019, 2020, 2021), new ArrayList<>(marked.getOutput().keySet()));
+        Assert.assertEquals(expected.getYearlyHeatDemand(null), marked.getYearlyHeatDemand(null));
+        Assert.assertEquals(expected.getCO2Emissions(null), marked.getCO2Emissions(null));
 
-        scoredBuildings.forEach(sb -> Assert.assertNotNull(sb.getCombinedScore()));
+        marked.expandConstantYears();
+        Assert.assertNull(marked.getConstantFromYear());
+        Assert.assertEquals(expected.getOutput(), marked.getOutput());
     }
 
-    private List<ScoredBuilding> scoreBuildings(List<Building> buildings) {
-        return buildings.stream().parallel().map(building -> {
-            ScoredBuilding scoredBuilding = new ScoredBuilding(building);
+    @Test
+    public void simulateIncrementalRanking() throws InputValidationException {
+        // without the building age the combined scores of unchanged buildings mostly stay the same
+        List<ScoringMethod> co2ScoringMethods = Arrays.asList(new CO2EmissionFactor(), new CO2EmissionSquareMeterFactor());
+        SimulationParameter params = new SimulationParameter("IncrementalRun", 2024, this.simParams.getModifiers(), this.simParams.getYearlyCO2Factors(), 2030, 2050);
+
+        for (List<ScoringMethod> methods : Arrays.asList(this.scoringMethods, co2ScoringMethods)) {
+            this.simulator.setRankingMode(RankingMode.TOP_K);
+            SimulationResult expected = this.simulator.simulate(params, methods, this.renovationStrategy, 815L);
+            this.simulator.setRankingMode(RankingMode.INCREMENTAL);
+            SimulationResult result = this.simulator.simulate(params, methods, this.renovationStrategy, 815L);
+            Assert.assertEquals(expected.getOutput(), result.getOutput());
+        }
+    }
+
+    @Test
+    public void simulateActiveSet() throws InputValidationException {
+        // every renovation reaches the good renovation level, so the active buildings are the ones below it
+        SimulationParameter params = new SimulationParameter("ActiveSetRun", 2024, this.simParams.getModifiers(), this.simParams.getYearlyCO2Factors(), 2030, 2050);
+        IRenovationStrategy strategy = new RenovationHeatExchangeRateStrategy(30.0, 100.0, new ArrayList<>());
+        this.simulator.setActiveSet(true);
+        SimulationResult result = this.simulator.simulate(params, this.scoringMethods, strategy, 815L);
+
+        // the ranking only contains active buildings, so each year renovates the full number of buildings as long as there are enough active ones
+        long renovatedPerYear = strategy.getNumberOfRenovatedBuildings(result.getBuildings().size());
+        Map<Integer, Triplet<Long, Long, Long>> levels = result.getRenovationLevels(null);
+        for (int year = 2020; year <= 2024; year++) {
+            long good = levels.get(year).getValue2();
+            long previousGood = levels.get(year - 1).getValue2();
+            Assert.assertEquals(Math.min(renovatedPerYear, result.getBuildings().size() - previousGood), good - previousGood);
+        }
+    }
+
+    @Test
+    public void simulateOutputSinks() throws InputValidationException, IOException {
+        SimulationParameter params = new SimulationParameter("SinkRun", 2030, this.simParams.getModifiers(), this.simParams.getYearlyCO2Factors(), 2020, 2021);
+        IRenovationStrategy strategy = new RenovationHeatExchangeRateStrategy(100.0, 100.0, new ArrayList<>());
+        CO2Schedule co2Schedule = EnergyCalculator.getInstance().createCO2Schedule(params.getYearlyCO2Factors(), params.getMidCO2Year(), params.getFinalCO2Year());
+        this.simulator.setSteadyStateMarker(true);
+        SimulationResult expected = this.simulator.simulate(params, co2Schedule, this.scoringMethods, strategy, 815L);
+
+        // the aggregates take over the constant years of the steady state
+        AggregateOutputSink aggregates = new AggregateOutputSink();
+        SimulationResult result = this.simulator.simulate(params, co2Schedule, this.scoringMethods, strategy, 815L, aggregates);
+        Assert.assertTrue(result.getOutput().isEmpty());
+        Assert.assertEquals(expected.getYearlyHeatDemand(null), aggregates.getHeatDemand());
+        Assert.assertEquals(expected.getCO2Emissions(null), aggregates.getCO2Emissions());
+        Assert.assertEquals(expected.getRenovationCosts(null), aggregates.getRenovationCosts());
+        Assert.assertEquals(expected.getRenovationLevels(null), aggregates.getRenovationLevels());
+
+        // the file receives the outputs of all years, also of the constant ones
+        File file = File.createTempFile("outputs", ".csv");
+        file.deleteOnExit();
+        this.simulator.setPipelinedOutput(true);
+        this.simulator.simulate(params, co2Schedule, this.scoringMethods, strategy, 815L, new CsvFileOutputSink(file));
+        expected.expandConstantYears();
+        Assert.assertEquals(1 + expected.getOutput().size(), Files.readAllLines(file.toPath()).size());
+    }
+
+    @Test
+    public void simulateFailedRun() throws InputValidationException {
+        // the renovation strategy fails in 2021, after the outputs of 2019 and 2020 have been received
+        SimulationParameter params = new SimulationParameter("FailedRun", 2025, this.simParams.getModifiers(), this.simParams.getYearlyCO2Factors(), 2030, 2050);
+        IllegalStateException failure = new IllegalStateException("Renovation failed");
+        IRenovationStrategy strategy = new IRenovationStrategy() {
+            @Override
+            public void performRenovation(BuildingTable buildings, int[] ranking, Integer currentYear, RandomStream randomStream) {
+                if (currentYear == 2021) {
+                    throw failure;
+                }
+                renovationStrategy.performRenovation(buildings, ranking, currentYear, randomStream);
+            }
+
+            @Override
+            public long getNumberOfRenovatedBuildings(int numberOfBuildings) {
+                return renovationStrategy.getNumberOfRenovatedBuildings(numberOfBuildings);
+            }
+        };
+        CO2Schedule co2Schedule = EnergyCalculator.getInstance().createCO2Schedule(params.getYearlyCO2Factors(), params.getMidCO2Year(), params.getFinalCO2Year());
+
+        // the sink is aborted instead of closed, a failure while aborting is attached to the failure of the run
+        List<String> calls = new ArrayList<>();
+        IllegalStateException abortFailure = new IllegalStateException("Rollback failed");
+        SimulationOutputSink sink = new SimulationOutputSink() {
+            @Override
+            public void accept(int year, List<SimulationOutput> outputs) {
+                calls.add("accept " + year);
+            }
+
+            @Override
+            public void close(SimulationResult result) {
+                calls.add("close");
+            }
+
+            @Override
+            public void abort(SimulationResult result, Throwable cause) {
+                calls.add("abort");
+                Assert.assertSame(failure, cause);
+                throw abortFailure;
+            }
+        };
+        try {
+            this.simulator.simulate(params, co2Schedule, this.scoringMethods, strategy, 815L, sink);
+            Assert.fail("The failure of the renovation strategy has to be rethrown");
+        } catch (IllegalStateException ex) {
+            Assert.assertSame(failure, ex);
+            Assert.assertArrayEquals(new Throwable[]{abortFailure}, ex.getSuppressed());
+        }
+        Assert.assertEquals(Arrays.asList("accept 2019", "accept 2020", "abort"), calls);
+    }
+
+    @Test
+    public void simulateDeltaFrames() throws InputValidationException {
+        // the CO2 factors change every year up to 2050
+        SimulationParameter params = new SimulationParameter("DeltaRun", 2040, this.simParams.getModifiers(), this.simParams.getYearlyCO2Factors(), 2030, 2050);
+        SimulationResult expected = this.simulator.simulate(params, this.scoringMethods, this.renovationStrategy, 815L);
 
-            // Calc and store the scores for all scoring methods
-            scoringMethods.forEach(method -> {
-                Double score = method.calcBaseScore(building, 2020);
-                scoredBuilding.getScores().put(method, score);
-            });
+        this.simulator.setKeyframeInterval(10);
+        SimulationResult result = this.simulator.simulate(params, this.scoringMethods, this.renovationStrategy, 815L);
+        Assert.assertTrue(result.getFrames() instanceof DeltaYearFrames);
+        DeltaYearFrames frames = (DeltaYearFrames) result.getFrames();
+        Assert.assertEquals(3, frames.getKeyframeCount());
+        // only the renovated buildings are stored between the keyframes
+        long renovatedPerYear = this.renovationStrategy.getNumberOfRenovatedBuildings(result.getBuildings().size());
+        Assert.assertTrue(frames.getChangeCount() <= 19 * renovatedPerYear);
 
-            return scoredBuilding;
-        }).collect(Collectors.toList());
+        Assert.assertEquals(expected.getOutput(), result.getOutput());
+        Assert.assertEquals(expected.getFrames().get(2035), frames.get(2035));
+        Assert.assertEquals(expected.getCube(), result.getCube());
     }
 }
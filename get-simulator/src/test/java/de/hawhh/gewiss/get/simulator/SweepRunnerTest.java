@@ -0,0 +1,123 @@
+package de.hawhh.gewiss.get.simulator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.guava.GuavaModule;
+import de.hawhh.gewiss.get.core.input.*;
+import de.hawhh.gewiss.get.core.model.HeatingType;
+import de.hawhh.gewiss.get.core.model.RenovationType;
+import de.hawhh.gewiss.get.core.output.ScenarioAggregate;
+import de.hawhh.gewiss.get.core.output.SimulationOutput;
+import de.hawhh.gewiss.get.core.output.SimulationResult;
+import de.hawhh.gewiss.get.simulator.renovation.RenovationHeatExchangeRateStrategy;
+import de.hawhh.gewiss.get.simulator.scoring.BuildingAgeFactor;
+import de.hawhh.gewiss.get.simulator.scoring.CO2EmissionFactor;
+import de.hawhh.gewiss.get.simulator.scoring.CO2EmissionSquareMeterFactor;
+import de.hawhh.gewiss.get.simulator.scoring.ScoringMethod;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Thomas Preisler
+ */
+public class SweepRunnerTest {
+
+    private ParameterGrid grid;
+    private List<ScoringMethod> scoringMethods;
+
+    @Before
+    public void setUp() {
+        this.grid = new ParameterGrid();
+        this.grid.setName("SweepTestRun");
+        this.grid.setStopYear(2021);
+        this.grid.setSeed(815L);
+        this.grid.setRenovationRates(Arrays.asList(1.0, 3.0));
+        this.grid.setPassiveHouseRates(Arrays.asList(30.0));
+
+        for (RenovationType renovationType : RenovationType.values()) {
+            this.grid.getHeatingSystemExchangeRates().add(new HeatingSystemExchangeRate(renovationType, HeatingType.LOW_TEMPERATURE_BOILER, 100.0 / 9.0,
+                    100.0 / 9.0, 100.0 / 9.0, 100.0 / 9.0, 100.0 / 9.0, 100.0 / 9.0, 100.0 / 9.0, 100.0 / 9.0, 100.0 / 9.0));
+        }
+
+        for (double finalFactor : new double[]{160d, 50d}) {
+            ParameterGrid.CO2Trajectory trajectory = new ParameterGrid.CO2Trajectory();
+            trajectory.setName("final-" + finalFactor);
+            trajectory.setMidCO2Year(2030);
+            trajectory.setFinalCO2Year(2050);
+            for (HeatingType heatingType : HeatingType.values()) {
+                trajectory.getYearlyCO2Factors().add(new CO2FactorsData(heatingType, 291.6d, 215d, finalFactor));
+            }
+            this.grid.getCo2Trajectories().add(trajectory);
+        }
+
+        this.scoringMethods = new ArrayList<>();
+        this.scoringMethods.add(new BuildingAgeFactor());
+        this.scoringMethods.add(new CO2EmissionFactor());
+        this.scoringMethods.add(new CO2EmissionSquareMeterFactor());
+    }
+
+    @Test
+    public void expand() throws InputValidationException {
+        List<ParameterGrid.Scenario> scenarios = grid.expand();
+
+        Assert.assertEquals(4, scenarios.size());
+        Assert.assertEquals(1.0, scenarios.get(0).getRenovationRate(), 0d);
+        Assert.assertEquals("final-160.0", scenarios.get(0).getCo2Trajectory());
+        Assert.assertEquals("final-50.0", scenarios.get(1).getCo2Trajectory());
+        Assert.assertEquals(3.0, scenarios.get(2).getRenovationRate(), 0d);
+        Assert.assertEquals("none", scenarios.get(3).getModifierSet());
+    }
+
+    @Test
+    public void readGrid() throws IOException, InputValidationException {
+        File file = File.createTempFile("grid", ".json");
+        file.deleteOnExit();
+        new ObjectMapper().registerModule(new GuavaModule()).writeValue(file, grid);
+
+        ParameterGrid read = SweepRunner.readGrid(file);
+        Assert.assertEquals(grid.getRenovationRates(), read.getRenovationRates());
+        Assert.assertEquals(grid.expand().size(), read.expand().size());
+        Assert.assertEquals(HeatingType.PELLETS, read.getCo2Trajectories().get(1).getYearlyCO2Factors().get(HeatingType.PELLETS.ordinal()).getHeatingSystem());
+        Assert.assertEquals(50d, read.getCo2Trajectories().get(1).getYearlyCO2Factors().get(0).getFinalEmissions(), 0d);
+        Assert.assertEquals(grid.getHeatingSystemExchangeRates().size(), read.getHeatingSystemExchangeRates().size());
+    }
+
+    @Test
+    public void runMatchesSingleSimulations() throws InputValidationException {
+        Simulator simulator = new Simulator();
+        SweepRunner runner = new SweepRunner(simulator, 2);
+        List<ScenarioAggregate> finished = new ArrayList<>();
+        runner.addScenarioListener(finished::add);
+
+        List<ScenarioAggregate> aggregates = runner.run(grid, scoringMethods);
+        List<ParameterGrid.Scenario> scenarios = grid.expand();
+        Assert.assertEquals(scenarios.size(), aggregates.size());
+        Assert.assertEquals(aggregates, finished);
+
+        for (int scenario = 0; scenario < scenarios.size(); scenario++) {
+            ParameterGrid.Scenario expected = scenarios.get(scenario);
+            ScenarioAggregate aggregate = aggregates.get(scenario);
+            Assert.assertEquals(expected.getParameter().getName(), aggregate.getName());
+
+            SimulationResult result = simulator.simulate(expected.getParameter(), scoringMethods, new RenovationHeatExchangeRateStrategy(expected.getRenovationRate(),
+                    expected.getPassiveHouseRate(), grid.getHeatingSystemExchangeRates()), grid.getSeed());
+            for (Integer year : result.getOutput().keySet()) {
+                double heatDemand = 0d;
+                double co2Emission = 0d;
+                for (SimulationOutput output : result.getOutput().get(year)) {
+                    heatDemand += output.getHeatDemand();
+                    co2Emission += output.getCo2Emission();
+                }
+                Assert.assertEquals(heatDemand, aggregate.getHeatDemand().get(year), 0d);
+                Assert.assertEquals(co2Emission, aggregate.getCo2Emission().get(year), 0d);
+            }
+            Assert.assertEquals(0, (int) aggregate.getRenovatedBuildings().get(SimulationParameter.FIRST_YEAR));
+        }
+    }
+}
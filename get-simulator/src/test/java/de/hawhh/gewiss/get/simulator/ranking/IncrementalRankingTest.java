@@ -0,0 +1,71 @@
+package de.hawhh.gewiss.get.simulator.ranking;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Test class for {@link IncrementalRanking}.
+ *
+ * @author Thomas Preisler
+ */
+public class IncrementalRankingTest {
+
+    /**
+     * Over several years with few changed scores, including ties, NaN values and a changing k, the ranking has to equal the ranking of all scores.
+     */
+    @Test
+    public void testSelectEqualsTopK() {
+        System.out.println("select");
+        Random random = new Random(42);
+        double[] scores = new double[20000];
+        for (int i = 0; i < scores.length; i++) {
+            // Few distinct values to provoke many ties
+            scores[i] = random.nextInt(1000) / 10d;
+        }
+
+        IncrementalRanking ranking = new IncrementalRanking();
+        int[] ks = {400, 400, 400, 800, 100, 400, 0, 400, 400, 400};
+        for (int year = 0; year < ks.length; year++) {
+            if (year > 0) {
+                // change the scores of some buildings, especially the best ranked ones
+                for (int change = 0; change < 300; change++) {
+                    int index = change % 3 == 0 ? TopKSelector.select(scores, 50)[random.nextInt(50)] : random.nextInt(scores.length);
+                    scores[index] = change == 7 ? Double.NaN : random.nextInt(1000) / 10d;
+                }
+            }
+            Assert.assertArrayEquals(TopKSelector.select(scores, ks[year]), ranking.select(scores.clone(), ks[year]));
+        }
+        // the first year and the years raising k beyond the previous prefix (800 after 400, 400 after 100 and 0) are rebuilt
+        Assert.assertEquals(4, ranking.getRebuilds());
+        Assert.assertEquals(ks.length - 4, ranking.getIncrementalUpdates());
+
+        // changing all scores rebuilds the ranking
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = scores[i] / 2;
+        }
+        Assert.assertArrayEquals(TopKSelector.select(scores, 400), ranking.select(scores, 400));
+        Assert.assertEquals(5, ranking.getRebuilds());
+    }
+
+    /**
+     * If the best ranked buildings lose their scores, the previous prefix lacks enough unchanged buildings and the ranking is rebuilt.
+     */
+    @Test
+    public void testSelectRebuildsExhaustedPrefix() {
+        System.out.println("selectRebuildsExhaustedPrefix");
+        double[] scores = new double[100];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = i;
+        }
+        IncrementalRanking ranking = new IncrementalRanking();
+        Assert.assertArrayEquals(new int[]{99, 98, 97}, ranking.select(scores, 3));
+
+        for (int i = 90; i < 100; i++) {
+            scores[i] = -1;
+        }
+        Assert.assertArrayEquals(new int[]{89, 88, 87}, ranking.select(scores, 3));
+        Assert.assertEquals(2, ranking.getRebuilds());
+    }
+}
@@ -0,0 +1,56 @@
+package de.hawhh.gewiss.get.simulator.ranking;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Test class for {@link TopKSelector}.
+ *
+ * @author Thomas Preisler
+ */
+public class TopKSelectorTest {
+
+    /**
+     * The selected indices have to equal the prefix of a stable descending sort, including ties and NaN values.
+     */
+    @Test
+    public void testSelectEqualsSortPrefix() {
+        System.out.println("select");
+        Random random = new Random(42);
+        double[] scores = new double[50000];
+        for (int i = 0; i < scores.length; i++) {
+            // Few distinct values to provoke many ties
+            scores[i] = random.nextInt(100) / 10d;
+        }
+        scores[17] = Double.NaN;
+        scores[4711] = Double.NaN;
+
+        int[] sorted = IntStream.range(0, scores.length).boxed()
+                .sorted((o1, o2) -> -Double.valueOf(scores[o1]).compareTo(scores[o2]))
+                .mapToInt(Integer::intValue).toArray();
+
+        for (int k : new int[]{0, 1, 5, 1000, 12345, scores.length, scores.length + 10}) {
+            int[] selected = TopKSelector.select(scores, k);
+            Assert.assertEquals(Math.min(k, scores.length), selected.length);
+            for (int i = 0; i < selected.length; i++) {
+                Assert.assertEquals(sorted[i], selected[i]);
+            }
+        }
+    }
+
+    /**
+     * Test of select method with a subset of candidates.
+     */
+    @Test
+    public void testSelectCandidates() {
+        System.out.println("selectCandidates");
+        double[] scores = {0.5, 0.9, 0.1, 0.9, 0.7};
+        int[] candidates = {0, 2, 3, 4};
+
+        Assert.assertArrayEquals(new int[]{3, 4}, TopKSelector.select(scores, candidates, 2));
+        Assert.assertArrayEquals(new int[]{1, 3, 4, 0, 2}, TopKSelector.select(scores, 5));
+    }
+}
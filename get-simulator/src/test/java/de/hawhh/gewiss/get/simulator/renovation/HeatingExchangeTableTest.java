@@ -0,0 +1,58 @@
+package de.hawhh.gewiss.get.simulator.renovation;
+
+import de.hawhh.gewiss.get.core.input.HeatingSystemExchangeRate;
+import de.hawhh.gewiss.get.core.model.HeatingType;
+import de.hawhh.gewiss.get.core.model.RenovationType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Test class for {@link HeatingExchangeTable}.
+ *
+ * @author Thomas Preisler
+ */
+public class HeatingExchangeTableTest {
+
+    /**
+     * Without access to district heating the district heating rates are dropped, origin types without rates are never exchanged.
+     */
+    @Test
+    public void sample() {
+        HeatingSystemExchangeRate rate = new HeatingSystemExchangeRate(RenovationType.RES_ENEV, HeatingType.LOW_TEMPERATURE_BOILER, 0d, 0d, 0d, 0d, 20d, 0d, 0d, 80d, 0d);
+        HeatingExchangeTable table = new HeatingExchangeTable(Arrays.asList(rate));
+        Random random = new Random(42);
+
+        int districtHeat = 0;
+        for (int i = 0; i < 1000; i++) {
+            HeatingType withAccess = table.sample(true, false, true, HeatingType.LOW_TEMPERATURE_BOILER, random.nextDouble());
+            Assert.assertTrue(withAccess == HeatingType.DISTRICT_HEAT || withAccess == HeatingType.PELLETS);
+            districtHeat += withAccess == HeatingType.DISTRICT_HEAT ? 1 : 0;
+
+            Assert.assertEquals(HeatingType.PELLETS, table.sample(true, false, false, HeatingType.LOW_TEMPERATURE_BOILER, random.nextDouble()));
+            Assert.assertNull(table.sample(true, true, true, HeatingType.LOW_TEMPERATURE_BOILER, random.nextDouble()));
+            Assert.assertNull(table.sample(true, false, true, HeatingType.PELLETS, random.nextDouble()));
+        }
+        Assert.assertEquals(800, districtHeat, 50);
+
+        // the rates are not modified
+        Assert.assertEquals(80d, rate.getDistrictHeatRate(), 0d);
+    }
+
+    /**
+     * The same random numbers yield the same transitions.
+     */
+    @Test
+    public void reproducible() {
+        HeatingSystemExchangeRate rate = new HeatingSystemExchangeRate(RenovationType.NRES_PASSIVE, HeatingType.PELLETS, 10d, 10d, 10d, 10d, 10d, 10d, 10d, 10d, 10d);
+        HeatingExchangeTable table = new HeatingExchangeTable(Arrays.asList(rate));
+        Random first = new Random(7);
+        Random second = new Random(7);
+
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(table.sample(false, true, true, HeatingType.PELLETS, first.nextDouble()), table.sample(false, true, true, HeatingType.PELLETS, second.nextDouble()));
+        }
+    }
+}
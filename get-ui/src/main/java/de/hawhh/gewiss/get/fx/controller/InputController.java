@@ -83,6 +83,9 @@ public class InputController implements Observer {
 
     private final static Logger LOGGER = Logger.getLogger(InputController.class.getName());
 
+    // Years between two full frames of the stored outputs, the years between only store the changed buildings
+    private final static int KEYFRAME_INTERVAL = 5;
+
     /**
      * Custom initialization of this controller.
      *
@@ -91,6 +94,8 @@ public class InputController implements Observer {
     public void init(MainController mc) {
         mainController = mc;
         simulator = new Simulator();
+        // Keep the outputs delta-encoded and the yearly values aggregated, the outputs of a year are only created when the map shows or exports it
+        simulator.setKeyframeInterval(KEYFRAME_INTERVAL);
         buildingDAO = new SQLiteBuildingDAO();
         districtQuarterDAO = new SQLiteDistrictQuarterDAO();
         modifierControllers = new ArrayList<>();
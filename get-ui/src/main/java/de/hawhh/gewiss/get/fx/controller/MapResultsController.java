@@ -12,7 +12,6 @@ import com.esri.arcgisruntime.symbology.SimpleFillSymbol;
 import com.esri.arcgisruntime.symbology.SimpleLineSymbol;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
-import com.sun.management.OperatingSystemMXBean;
 import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Geometry;
 import de.hawhh.gewiss.get.core.output.BuildingInformation;
@@ -46,7 +45,6 @@ import org.wololo.jts2geojson.LngLatGeoJSONWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.lang.management.ManagementFactory;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.*;
@@ -72,8 +70,6 @@ public class MapResultsController {
     @FXML
     private VBox loadingBox;
     @FXML
-    private VBox ramBox;
-    @FXML
     private Button exportButton;
     @FXML
     private VBox legendBox;
@@ -89,47 +85,36 @@ public class MapResultsController {
         years = FXCollections.observableArrayList();
         yearBox.setItems(years);
 
-        // Check if the used PC has enough RAM (<= 16GB)
-        if (ramCheck()) {
-            createMap();
-            yearBox.setOnAction(event -> {
-                // show the encapuslating pane of the loading progess indicator
-                loadingBox.setVisible(true);
-                // disable all other UI elements on the pane
-                exportButton.setDisable(true);
-                yearBox.setDisable(true);
-                mapView.setDisable(true);
-                legendBox.setDisable(true);
-
-                // async loading task for displaying the buildings
-                Task displayTask = new Task() {
-                    @Override
-                    protected Object call() {
-                        showBuildings();
-                        return null;
-                    }
-                };
-                // when task is finished, hide pane of progress indicator and enable all other UI elements
-                displayTask.setOnSucceeded(e -> {
-                    loadingBox.setVisible(false);
-                    exportButton.setDisable(false);
-                    yearBox.setDisable(false);
-                    mapView.setDisable(false);
-                    legendBox.setDisable(true);
-                });
-
-                // start the task as an extra thread
-                new Thread(displayTask).start();
-            });
-        } else {
-            // show the encapuslating pane of the not enough RAM message
-            ramBox.setVisible(true);
+        createMap();
+        yearBox.setOnAction(event -> {
+            // show the encapuslating pane of the loading progess indicator
+            loadingBox.setVisible(true);
             // disable all other UI elements on the pane
             exportButton.setDisable(true);
             yearBox.setDisable(true);
             mapView.setDisable(true);
             legendBox.setDisable(true);
-        }
+
+            // async loading task for displaying the buildings
+            Task displayTask = new Task() {
+                @Override
+                protected Object call() {
+                    showBuildings();
+                    return null;
+                }
+            };
+            // when task is finished, hide pane of progress indicator and enable all other UI elements
+            displayTask.setOnSucceeded(e -> {
+                loadingBox.setVisible(false);
+                exportButton.setDisable(false);
+                yearBox.setDisable(false);
+                mapView.setDisable(false);
+                legendBox.setDisable(true);
+            });
+
+            // start the task as an extra thread
+            new Thread(displayTask).start();
+        });
     }
 
     /**
@@ -354,16 +339,4 @@ public class MapResultsController {
             }
         }
     }
-
-    /**
-     * Checks if the used PC has at least 16 GB of total physical RAM.
-     *
-     * @return
-     */
-    private boolean ramCheck() {
-        OperatingSystemMXBean mxbean = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
-        long mbRam = mxbean.getTotalPhysicalMemorySize() / (1000 * 1000);
-
-        return mbRam >= 16000;
-    }
 }